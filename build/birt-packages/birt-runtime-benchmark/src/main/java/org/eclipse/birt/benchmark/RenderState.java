@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.benchmark;
+
+import java.io.File;
+import java.io.OutputStream;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.api.IHTMLRenderOption;
+import org.eclipse.birt.report.engine.api.IRenderOption;
+import org.eclipse.birt.report.engine.api.RenderOption;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The report engine state of the benchmarks writing an output. The design is
+ * run once into a report document which is rendered by the render benchmark.
+ */
+@State(Scope.Benchmark)
+public class RenderState extends ReportEngineState
+{
+
+	@Param({"html", "pdf", "xlsx"}) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	public String format;
+
+	String document;
+
+	protected void prepare( ) throws BirtException
+	{
+		document = new File( workFolder, "report.rptdocument" ) //$NON-NLS-1$
+				.getAbsolutePath( );
+		run( document );
+	}
+
+	/**
+	 * Creates the render option writing the output in the benchmark format to
+	 * the stream. The images of the HTML output are written to the work
+	 * folder.
+	 */
+	IRenderOption createRenderOption( OutputStream out )
+	{
+		RenderOption option = new RenderOption( );
+		option.setOutputFormat( format );
+		option.setOutputStream( out );
+		option.setOption( IHTMLRenderOption.IMAGE_DIRECTROY, new File(
+				workFolder, "images" ).getAbsolutePath( ) ); //$NON-NLS-1$
+		return option;
+	}
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.api.IRenderTask;
+import org.eclipse.birt.report.engine.api.IReportDocument;
+import org.eclipse.birt.report.engine.api.IRunAndRenderTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks the report engine tasks with the sample designs: the run task
+ * generating a report document, the render task rendering the document and
+ * the run and render task, in the HTML, PDF and XLSX formats. The throughput
+ * and the latency percentiles are measured, and the main method adds the GC
+ * profiler which reports the allocation rate.
+ * <p>
+ * Build the module and run it with the runtime jars on the class path:
+ *
+ * <pre>
+ * java -cp "target/benchmarks.jar:target/birt-runtime/ReportEngine/lib/*" \
+ *     org.eclipse.birt.benchmark.ReportEngineBenchmark [JMH options]
+ * </pre>
+ *
+ * The module is built with the <code>benchmark</code> profile. The JMH
+ * options, such as <code>-p format=pdf</code>, select the designs and the
+ * formats to run. The run benchmark doesn't depend on the format, so it is
+ * only measured once for each design.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ReportEngineBenchmark
+{
+
+	@Benchmark
+	public File run( ReportEngineState state ) throws BirtException
+	{
+		File document = new File( state.workFolder, "run.rptdocument" ); //$NON-NLS-1$
+		state.run( document.getAbsolutePath( ) );
+		return document;
+	}
+
+	@Benchmark
+	public byte[] render( RenderState state ) throws BirtException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		IReportDocument document = state.engine
+				.openReportDocument( state.document );
+		try
+		{
+			IRenderTask task = state.engine.createRenderTask( document );
+			try
+			{
+				task.setRenderOption( state.createRenderOption( out ) );
+				task.render( );
+			}
+			finally
+			{
+				task.close( );
+			}
+		}
+		finally
+		{
+			document.close( );
+		}
+		return out.toByteArray( );
+	}
+
+	@Benchmark
+	public byte[] runAndRender( RenderState state )
+			throws BirtException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		IRunAndRenderTask task = state.engine
+				.createRunAndRenderTask( state.runnable );
+		try
+		{
+			task.setRenderOption( state.createRenderOption( out ) );
+			task.run( );
+		}
+		finally
+		{
+			task.close( );
+		}
+		return out.toByteArray( );
+	}
+
+	public static void main( String[] args ) throws Exception
+	{
+		OptionsBuilder options = new OptionsBuilder( );
+		options.parent( new CommandLineOptions( args ) );
+		options.include( ReportEngineBenchmark.class.getName( ) );
+		options.addProfiler( GCProfiler.class );
+		new Runner( options.build( ) ).run( );
+	}
+}
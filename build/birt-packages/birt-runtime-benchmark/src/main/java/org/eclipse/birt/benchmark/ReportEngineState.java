@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.framework.Platform;
+import org.eclipse.birt.report.engine.api.EngineConfig;
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.IReportEngineFactory;
+import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.eclipse.birt.report.engine.api.IRunTask;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The report engine shared by the benchmarks of a trial. The engine is started
+ * and the design is opened once. The state only depends on the design, the
+ * output format is a parameter of the {@link RenderState} subclass.
+ * <p>
+ * The designs are read from the folder given by the system property
+ * "birt.benchmark.reports", "target/samplereports" by default. They use the
+ * sample database shipped with the runtime.
+ */
+@State(Scope.Benchmark)
+public class ReportEngineState
+{
+
+	public static final String REPORTS_PROPERTY = "birt.benchmark.reports"; //$NON-NLS-1$
+
+	static final String DEFAULT_REPORTS_FOLDER = "target/samplereports"; //$NON-NLS-1$
+
+	@Param({"Grouping/CustomerListAfter_Grouping.rptdesign", //$NON-NLS-1$
+			"Combination Chart/CustomerOrdersFinal.rptdesign", //$NON-NLS-1$
+			"Cross tab/CrosstabSampleRevenue.rptdesign"}) //$NON-NLS-1$
+	public String design;
+
+	IReportEngine engine;
+	IReportRunnable runnable;
+	File workFolder;
+
+	@Setup
+	public void setUp( ) throws BirtException, IOException
+	{
+		EngineConfig config = new EngineConfig( );
+		config.setLogConfig( null, Level.WARNING );
+		Platform.startup( config );
+		IReportEngineFactory factory = (IReportEngineFactory) Platform
+				.createFactoryObject( IReportEngineFactory.EXTENSION_REPORT_ENGINE_FACTORY );
+		engine = factory.createReportEngine( config );
+
+		File reports = new File( System.getProperty( REPORTS_PROPERTY,
+				DEFAULT_REPORTS_FOLDER ) );
+		runnable = engine.openReportDesign( new File( reports, design )
+				.getAbsolutePath( ) );
+
+		workFolder = File.createTempFile( "birt-benchmark", "" ); //$NON-NLS-1$ //$NON-NLS-2$
+		workFolder.delete( );
+		workFolder.mkdirs( );
+		prepare( );
+	}
+
+	/**
+	 * Prepares the trial once the engine is started and the design is opened.
+	 */
+	protected void prepare( ) throws BirtException
+	{
+	}
+
+	@TearDown
+	public void tearDown( )
+	{
+		if ( engine != null )
+		{
+			engine.destroy( );
+			engine = null;
+		}
+		Platform.shutdown( );
+		delete( workFolder );
+	}
+
+	/**
+	 * Runs the design into a report document.
+	 */
+	void run( String documentName ) throws EngineException
+	{
+		IRunTask task = engine.createRunTask( runnable );
+		try
+		{
+			task.run( documentName );
+		}
+		finally
+		{
+			task.close( );
+		}
+	}
+
+	private static void delete( File file )
+	{
+		if ( file == null )
+		{
+			return;
+		}
+		File[] children = file.listFiles( );
+		if ( children != null )
+		{
+			for ( File child : children )
+			{
+				delete( child );
+			}
+		}
+		file.delete( );
+	}
+}
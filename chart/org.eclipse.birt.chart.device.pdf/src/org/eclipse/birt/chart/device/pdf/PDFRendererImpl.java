@@ -88,6 +88,10 @@ public class PDFRendererImpl extends SVGRendererImpl {
 			//the output will be static
 			_resizeSVG = false;
 		}		
+		else if ( sProperty.equals( ISVGConstants.STREAM_SVG ) )
+		{
+			//the whole document is needed to transcode it
+		}
 		else
 			super.setProperty(sProperty, oValue);
 	}
@@ -38,4 +38,12 @@ public interface ISVGConstants {
 	 * A property name that determines if the generated SVG should contain embedded javascript code.
 	 */
 	public static final String ENABLE_SCRIPT = "enable.scriptable"; //$NON-NLS-1$
+
+	/**
+	 * A property name that determines if the SVG elements are written to the
+	 * output while the chart is rendered, instead of building the whole
+	 * document in memory first. The scripts and styles are written after the
+	 * chart elements in that case.
+	 */
+	public static final String STREAM_SVG = "stream.svg"; //$NON-NLS-1$
 }
@@ -18,7 +18,9 @@ import java.awt.geom.Area;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.List;
@@ -130,6 +132,22 @@ public class SVGRendererImpl extends SwingRendererImpl
 	 * Property that determines if the generated SVG output should contain embedded javascript code.
 	 */
 	public boolean _enableScript = true;
+
+	/**
+	 * Property that determines if the SVG elements are written to the output
+	 * while the chart is rendered.
+	 */
+	protected boolean _streamSVG = false;
+
+	/**
+	 * Writer of the SVG elements if the SVG is streamed.
+	 */
+	protected SVGStreamWriter streamWriter = null;
+
+	/**
+	 * The file output stream opened for the streamed SVG.
+	 */
+	private OutputStream streamOutput = null;
 	
 	@Override
 	protected void init( )
@@ -205,6 +223,10 @@ public class SVGRendererImpl extends SwingRendererImpl
 		{
 			_enableScript = ( (Boolean) oValue ).booleanValue( );
 		}
+		else if ( sProperty.equals( ISVGConstants.STREAM_SVG ) )
+		{
+			_streamSVG = ( (Boolean) oValue ).booleanValue( );
+		}
 	}
 
 	protected void addScripts( )
@@ -227,6 +249,66 @@ public class SVGRendererImpl extends SwingRendererImpl
 		}
 	}
 
+	@Override
+	public void before( ) throws ChartException
+	{
+		super.before( );
+
+		streamWriter = null;
+		if ( !_streamSVG || svggc == null )
+		{
+			return;
+		}
+		try
+		{
+			OutputStream os = null;
+			if ( oOutputIdentifier instanceof OutputStream ) // OUTPUT STREAM
+			{
+				os = (OutputStream) oOutputIdentifier;
+			}
+			else if ( oOutputIdentifier instanceof String )
+			{
+				streamOutput = SecurityUtil.newFileOutputStream( (String) oOutputIdentifier );
+				os = streamOutput;
+			}
+			if ( os != null )
+			{
+				streamWriter = new SVGStreamWriter( svggc,
+						new BufferedWriter( SecurityUtil.newOutputStreamWriter( os,
+								"UTF-8" ) ) ); //$NON-NLS-1$
+			}
+		}
+		catch ( Exception ex )
+		{
+			throw new ChartException( ChartDeviceSVGPlugin.ID,
+					ChartException.RENDERING,
+					ex );
+		}
+	}
+
+	/**
+	 * Writes the elements of the rendered primitives to the output if the SVG
+	 * is streamed.
+	 * 
+	 * @throws ChartException
+	 */
+	protected void flushStream( ) throws ChartException
+	{
+		if ( streamWriter != null )
+		{
+			try
+			{
+				streamWriter.flush( );
+			}
+			catch ( IOException ex )
+			{
+				throw new ChartException( ChartDeviceSVGPlugin.ID,
+						ChartException.RENDERING,
+						ex );
+			}
+		}
+	}
+
 	/**
 	 * 
 	 * @param os
@@ -244,6 +326,31 @@ public class SVGRendererImpl extends SwingRendererImpl
 		// make sure we add the hotspot layer to the bottom layer of the svg
 		dom.getDocumentElement( ).appendChild( ivRenderer.getHotspotLayer( ) );
 
+		if ( streamWriter != null )
+		{
+			try
+			{
+				streamWriter.close( );
+				if ( streamOutput != null )
+				{
+					streamOutput.close( );
+				}
+			}
+			catch ( IOException ex )
+			{
+				throw new ChartException( ChartDeviceSVGPlugin.ID,
+						ChartException.RENDERING,
+						ex );
+			}
+			finally
+			{
+				streamWriter = null;
+				streamOutput = null;
+				ivRenderer.clear( );
+			}
+			return;
+		}
+
 		if ( oOutputIdentifier instanceof OutputStream ) // OUTPUT STREAM
 		{
 			try
@@ -624,6 +731,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( are, false );
 		super.drawArc( are );
 		ivRenderer.ungroupPrimitive( are, false );
+		flushStream( );
 	}
 
 	@Override
@@ -632,6 +740,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( are, false );
 		super.drawArea( are );
 		ivRenderer.ungroupPrimitive( are, false );
+		flushStream( );
 	}
 
 	@Override
@@ -640,6 +749,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( pre, false );
 		super.drawImage( pre );
 		ivRenderer.ungroupPrimitive( pre, false );
+		flushStream( );
 	}
 
 	@Override
@@ -654,6 +764,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( lre, false );
 		super.drawLine( lre );
 		ivRenderer.ungroupPrimitive( lre, false );
+		flushStream( );
 	}
 
 	@Override
@@ -662,6 +773,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( ore, false );
 		super.drawOval( ore );
 		ivRenderer.ungroupPrimitive( ore, false );
+		flushStream( );
 	}
 
 	@Override
@@ -670,6 +782,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( pre, false );
 		super.drawPolygon( pre );
 		ivRenderer.ungroupPrimitive( pre, false );
+		flushStream( );
 	}
 
 	@Override
@@ -678,6 +791,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( rre, false );
 		super.drawRectangle( rre );
 		ivRenderer.ungroupPrimitive( rre, false );
+		flushStream( );
 	}
 
 	@Override
@@ -686,6 +800,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( are, false );
 		super.fillArc( are );
 		ivRenderer.ungroupPrimitive( are, false );
+		flushStream( );
 	}
 
 	@Override
@@ -694,6 +809,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( are, false );
 		super.fillArea( are );
 		ivRenderer.ungroupPrimitive( are, false );
+		flushStream( );
 	}
 
 	@Override
@@ -702,6 +818,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( ore, false );
 		super.fillOval( ore );
 		ivRenderer.ungroupPrimitive( ore, false );
+		flushStream( );
 	}
 
 	@Override
@@ -710,6 +827,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( pre, false );
 		super.fillPolygon( pre );
 		ivRenderer.ungroupPrimitive( pre, false );
+		flushStream( );
 	}
 
 	@Override
@@ -718,6 +836,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 		ivRenderer.groupPrimitive( rre, false );
 		super.fillRectangle( rre );
 		ivRenderer.ungroupPrimitive( rre, false );
+		flushStream( );
 	}
 
 	/*
@@ -769,6 +888,7 @@ public class SVGRendererImpl extends SwingRendererImpl
 				break;
 		}
 		ivRenderer.ungroupPrimitive( tre, true );
+		flushStream( );
 	}
 
 	@Override
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2004 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.chart.device.svg;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes the SVG document of a graphic context while the chart is rendered.
+ * Each flush writes the elements which are complete and removes them from the
+ * document, so the document never holds more than the primitive being
+ * rendered. Nothing is written while a primitive group is open in the graphic
+ * context, since the style of an open group may still change.
+ * <p>
+ * The new definitions are written in a separate "defs" element before the
+ * elements using them. The script and style elements are filled at the end
+ * of the rendering, they are written after the chart elements but still
+ * before the hotspot layer.
+ */
+public class SVGStreamWriter
+{
+
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"; //$NON-NLS-1$
+
+	protected Writer writer;
+	protected SVGGraphics2D svggc;
+
+	/**
+	 * Elements whose start tag is written but whose end tag is not.
+	 */
+	protected Set<Node> openElements = new HashSet<Node>( );
+
+	private boolean started = false;
+
+	/**
+	 * The depth of the parent stack when no primitive is rendered.
+	 */
+	private int baseDepth;
+
+	public SVGStreamWriter( SVGGraphics2D svggc, Writer writer )
+	{
+		this.svggc = svggc;
+		this.writer = writer;
+		this.baseDepth = svggc.parentStack.size( );
+	}
+
+	/**
+	 * Writes and removes the complete elements of the document.
+	 *
+	 * @throws IOException
+	 */
+	public void flush( ) throws IOException
+	{
+		if ( !started )
+		{
+			writer.write( XML_DECLARATION );
+			started = true;
+		}
+
+		List<Element> parents = svggc.parentStack;
+		if ( parents.size( ) > baseDepth )
+		{
+			return;
+		}
+		for ( int i = 0; i < parents.size( ); i++ )
+		{
+			Element parent = parents.get( i );
+			if ( !openElements.contains( parent ) )
+			{
+				writeStartTag( parent, false );
+				openElements.add( parent );
+			}
+			if ( svggc.definitions.getParentNode( ) == parent )
+			{
+				writeDefinitions( );
+			}
+			// children after the next open parent are not complete yet
+			Node next = i + 1 < parents.size( ) ? parents.get( i + 1 ) : null;
+			writeChildren( parent, next, false );
+		}
+	}
+
+	/**
+	 * Writes the rest of the document and flushes the writer. The writer is
+	 * not closed.
+	 *
+	 * @throws IOException
+	 */
+	public void close( ) throws IOException
+	{
+		// the rendering is finished, the open groups are complete too
+		baseDepth = Integer.MAX_VALUE;
+		flush( );
+		List<Element> parents = svggc.parentStack;
+		for ( int i = parents.size( ) - 1; i >= 0; i-- )
+		{
+			writeRemaining( parents.get( i ) );
+		}
+		writer.flush( );
+	}
+
+	/**
+	 * Writes the definitions added since the last flush.
+	 */
+	protected void writeDefinitions( ) throws IOException
+	{
+		Element definitions = svggc.definitions;
+		if ( definitions.hasChildNodes( ) )
+		{
+			writeStartTag( definitions, false );
+			writeChildren( definitions, null, true );
+			writeEndTag( definitions );
+		}
+	}
+
+	/**
+	 * Writes the children of the parent until the stop node.
+	 *
+	 * @param parent
+	 *            the parent element
+	 * @param stop
+	 *            the child to stop at, null to write all children
+	 * @param all
+	 *            if the definitions, the scripts and the styles are written
+	 *            too, otherwise they are kept until the end of the document
+	 */
+	private void writeChildren( Node parent, Node stop, boolean all )
+			throws IOException
+	{
+		Node child = parent.getFirstChild( );
+		while ( child != null && child != stop )
+		{
+			Node next = child.getNextSibling( );
+			if ( all || !isKept( child ) )
+			{
+				writeNode( child );
+				parent.removeChild( child );
+			}
+			child = next;
+		}
+	}
+
+	private boolean isKept( Node node )
+	{
+		return node == svggc.definitions
+				|| node == svggc.codeScript
+				|| node == svggc.styles;
+	}
+
+	private void writeNode( Node node ) throws IOException
+	{
+		switch ( node.getNodeType( ) )
+		{
+			case Node.ELEMENT_NODE :
+				if ( openElements.contains( node ) )
+				{
+					writeRemaining( (Element) node );
+				}
+				else if ( node == svggc.definitions && !node.hasChildNodes( ) )
+				{
+					// all definitions are written already
+				}
+				else if ( node.hasChildNodes( ) )
+				{
+					writeStartTag( (Element) node, false );
+					writeChildren( node, null, true );
+					writeEndTag( (Element) node );
+				}
+				else
+				{
+					writeStartTag( (Element) node, true );
+				}
+				break;
+			case Node.TEXT_NODE :
+				writeText( node.getNodeValue( ), false );
+				break;
+			case Node.CDATA_SECTION_NODE :
+				writeCDATA( node.getNodeValue( ) );
+				break;
+		}
+	}
+
+	/**
+	 * Writes the children of an element whose start tag is written already,
+	 * and its end tag.
+	 */
+	private void writeRemaining( Element element ) throws IOException
+	{
+		openElements.remove( element );
+		writeChildren( element, null, true );
+		writeEndTag( element );
+		if ( element.getParentNode( ) != null )
+		{
+			element.getParentNode( ).removeChild( element );
+		}
+	}
+
+	private void writeStartTag( Element element, boolean empty )
+			throws IOException
+	{
+		writer.write( '<' );
+		writer.write( element.getNodeName( ) );
+		NamedNodeMap attrs = element.getAttributes( );
+		for ( int i = 0; i < attrs.getLength( ); i++ )
+		{
+			Node attr = attrs.item( i );
+			writer.write( ' ' );
+			writer.write( attr.getNodeName( ) );
+			writer.write( "=\"" ); //$NON-NLS-1$
+			writeText( attr.getNodeValue( ), true );
+			writer.write( '"' );
+		}
+		writer.write( empty ? "/>" : ">" ); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private void writeEndTag( Element element ) throws IOException
+	{
+		writer.write( "</" ); //$NON-NLS-1$
+		writer.write( element.getNodeName( ) );
+		writer.write( '>' );
+	}
+
+	private void writeText( String text, boolean attribute )
+			throws IOException
+	{
+		int start = 0;
+		for ( int i = 0; i < text.length( ); i++ )
+		{
+			String escape = null;
+			char c = text.charAt( i );
+			switch ( c )
+			{
+				case '&' :
+					escape = "&amp;"; //$NON-NLS-1$
+					break;
+				case '<' :
+					escape = "&lt;"; //$NON-NLS-1$
+					break;
+				case '>' :
+					escape = "&gt;"; //$NON-NLS-1$
+					break;
+				case '"' :
+					escape = attribute ? "&quot;" : null; //$NON-NLS-1$
+					break;
+				case '\n' :
+					escape = attribute ? "&#10;" : null; //$NON-NLS-1$
+					break;
+				case '\r' :
+					escape = "&#13;"; //$NON-NLS-1$
+					break;
+				case '\t' :
+					escape = attribute ? "&#9;" : null; //$NON-NLS-1$
+					break;
+			}
+			if ( escape != null )
+			{
+				writer.write( text, start, i - start );
+				writer.write( escape );
+				start = i + 1;
+			}
+		}
+		writer.write( text, start, text.length( ) - start );
+	}
+
+	private void writeCDATA( String text ) throws IOException
+	{
+		writer.write( "<![CDATA[" ); //$NON-NLS-1$
+		// split the end marker of CDATA into two sections
+		writer.write( text.replace( "]]>", "]]]]><![CDATA[>" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.write( "]]>" ); //$NON-NLS-1$
+	}
+}
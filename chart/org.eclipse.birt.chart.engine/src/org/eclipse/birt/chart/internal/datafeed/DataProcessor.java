@@ -34,6 +34,7 @@ import org.eclipse.birt.chart.model.ChartWithAxes;
 import org.eclipse.birt.chart.model.ChartWithoutAxes;
 import org.eclipse.birt.chart.model.attribute.AxisType;
 import org.eclipse.birt.chart.model.attribute.DataType;
+import org.eclipse.birt.chart.model.attribute.ExtendedProperty;
 import org.eclipse.birt.chart.model.attribute.SortOption;
 import org.eclipse.birt.chart.model.component.Axis;
 import org.eclipse.birt.chart.model.component.Series;
@@ -507,8 +508,46 @@ public class DataProcessor
 			aggHelper.dispose( );
 		}
 
+		// 6. decimate the rows of continuous series if required.
+		decimate( rsw, cm );
+
 		return rsw;
 	}
+
+	/**
+	 * Decimates the rows of the result set if the data decimation is enabled
+	 * in the chart and the base axis is not a category axis. The rows of a
+	 * category axis are all shown as category labels and can not be dropped.
+	 * 
+	 * @param rsw
+	 * @param cm
+	 */
+	private void decimate( ResultSetWrapper rsw, Chart cm )
+	{
+		ExtendedProperty property = ChartUtil.getExtendedProperty( cm,
+				ChartUtil.DATA_DECIMATION_BUCKETS );
+		if ( property == null
+				|| property.getValue( ) == null
+				|| !( cm instanceof ChartWithAxes ) )
+		{
+			return;
+		}
+		Axis axBase = ( (ChartWithAxes) cm ).getAxes( ).get( 0 );
+		if ( axBase.isCategoryAxis( )
+				|| !axBase.isSetCategoryAxis( )
+				|| axBase.getType( ) == AxisType.TEXT_LITERAL )
+		{
+			return;
+		}
+		try
+		{
+			rsw.decimate( Integer.parseInt( property.getValue( ).trim( ) ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			// Invalid bucket count, no decimation.
+		}
+	}
 	
 	/**
 	 * Fills the model chart runtime series with the data
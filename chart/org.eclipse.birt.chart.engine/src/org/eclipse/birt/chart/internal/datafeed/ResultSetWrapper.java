@@ -12,6 +12,7 @@
 package org.eclipse.birt.chart.internal.datafeed;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -414,6 +415,126 @@ public final class ResultSetWrapper
 		workingResultSet.addAll( newResultSet );
 		iaGroupBreaks = newGroupBreaks;
 	}
+
+	/**
+	 * Reduces the rows of each group to at most four rows per bucket: the
+	 * first and the last row of the bucket and the rows holding the minimum
+	 * and the maximum of every numeric column. The rows are kept in their
+	 * original order, so a line drawn through the remaining rows covers the
+	 * same pixels as the line drawn through all rows when there is one bucket
+	 * per pixel.
+	 * <p>
+	 * Groups which have no more than four rows per bucket are left unchanged.
+	 * 
+	 * @param iBucketCount
+	 *            the bucket count of each group, usually the width of the plot
+	 *            in pixels
+	 * @since 4.11
+	 */
+	public void decimate( int iBucketCount )
+	{
+		if ( iBucketCount <= 0 || workingResultSet.size( ) <= iBucketCount * 4 )
+		{
+			return;
+		}
+
+		final int iColumnCount = iaDataTypes.length;
+		final int iGroupCount = getGroupCount( );
+		List newResultSet = new ArrayList( );
+		int[] newGroupBreaks = iaGroupBreaks == null ? null
+				: new int[iaGroupBreaks.length];
+		int[] iaMinRows = new int[iColumnCount];
+		int[] iaMaxRows = new int[iColumnCount];
+		double[] daMin = new double[iColumnCount];
+		double[] daMax = new double[iColumnCount];
+		boolean[] baKept = new boolean[0];
+
+		for ( int i = 0; i < iGroupCount; i++ )
+		{
+			int startIndex = ( i == 0 ) ? 0 : iaGroupBreaks[i - 1];
+			int endIndex = ( iaGroupBreaks == null || i == iaGroupBreaks.length )
+					? workingResultSet.size( ) : iaGroupBreaks[i];
+			int iRowCount = endIndex - startIndex;
+
+			if ( iRowCount <= iBucketCount * 4 )
+			{
+				newResultSet.addAll( workingResultSet.subList( startIndex,
+						endIndex ) );
+			}
+			else
+			{
+				if ( baKept.length < iRowCount )
+				{
+					baKept = new boolean[iRowCount];
+				}
+				Arrays.fill( baKept, 0, iRowCount, false );
+
+				for ( int b = 0; b < iBucketCount; b++ )
+				{
+					int bucketStart = (int) ( (long) iRowCount * b / iBucketCount );
+					int bucketEnd = (int) ( (long) iRowCount * ( b + 1 ) / iBucketCount );
+					if ( bucketStart >= bucketEnd )
+					{
+						continue;
+					}
+					baKept[bucketStart] = true;
+					baKept[bucketEnd - 1] = true;
+
+					Arrays.fill( iaMinRows, -1 );
+					Arrays.fill( iaMaxRows, -1 );
+					for ( int j = bucketStart; j < bucketEnd; j++ )
+					{
+						Object[] oaTuple = (Object[]) workingResultSet.get( startIndex
+								+ j );
+						for ( int k = 0; k < iColumnCount; k++ )
+						{
+							if ( iaDataTypes[k] != IConstants.NUMERICAL
+									|| !( oaTuple[k] instanceof Number ) )
+							{
+								continue;
+							}
+							double dValue = ( (Number) oaTuple[k] ).doubleValue( );
+							if ( iaMinRows[k] == -1 || dValue < daMin[k] )
+							{
+								daMin[k] = dValue;
+								iaMinRows[k] = j;
+							}
+							if ( iaMaxRows[k] == -1 || dValue > daMax[k] )
+							{
+								daMax[k] = dValue;
+								iaMaxRows[k] = j;
+							}
+						}
+					}
+					for ( int k = 0; k < iColumnCount; k++ )
+					{
+						if ( iaMinRows[k] != -1 )
+						{
+							baKept[iaMinRows[k]] = true;
+							baKept[iaMaxRows[k]] = true;
+						}
+					}
+				}
+
+				for ( int j = 0; j < iRowCount; j++ )
+				{
+					if ( baKept[j] )
+					{
+						newResultSet.add( workingResultSet.get( startIndex + j ) );
+					}
+				}
+			}
+
+			if ( newGroupBreaks != null && i < newGroupBreaks.length )
+			{
+				newGroupBreaks[i] = newResultSet.size( );
+			}
+		}
+
+		workingResultSet.clear( );
+		workingResultSet.addAll( newResultSet );
+		iaGroupBreaks = newGroupBreaks;
+	}
 	
 	/**
 	 * Internally called to setup the structure of the resultset and initialize
@@ -114,6 +114,19 @@ public class ChartUtil
 	 * represent the value of chart max row number.
 	 */
 	public static final String CHART_MAX_ROW = "CHART_MAX_ROW"; //$NON-NLS-1$	
+
+	/**
+	 * The name of the chart extended property to enable the data decimation of
+	 * charts with axes over a continuous base axis. The value is the bucket
+	 * count of each series, usually the plot width in pixels. Each bucket
+	 * keeps only its first, last, minimum and maximum rows, so a line chart
+	 * over a huge data set is drawn with the same pixels from much fewer data
+	 * points. The decimation is disabled if the property is not set or its
+	 * value is not positive.
+	 * 
+	 * @since 4.11
+	 */
+	public static final String DATA_DECIMATION_BUCKETS = "data.decimation.buckets"; //$NON-NLS-1$
 	public static final String SEPARATOR = "=";
 	
 	private static final NumberFormat DEFAULT_NUMBER_FORMAT = initDefaultNumberFormat( );
@@ -1239,9 +1239,22 @@ public class ChartReportItemPresentationBase extends ReportItemPresentationBase
 		if ( "SVG".equalsIgnoreCase( sExtension ) ) //$NON-NLS-1$
 		{
 			idr.setProperty( "resize.svg", Boolean.TRUE ); //$NON-NLS-1$
+			// SVG streaming is enabled by the application context
+			if ( isSVGStreamEnabled( ) )
+			{
+				idr.setProperty( "stream.svg", Boolean.TRUE ); //$NON-NLS-1$
+			}
 		}
 
 	}
+
+	protected boolean isSVGStreamEnabled( )
+	{
+		Object streamSVG = context.getAppContext( )
+				.get( ChartItemUtil.BIRT_CHART_STREAM_SVG );
+		return Boolean.TRUE.equals( streamSVG )
+				|| "true".equalsIgnoreCase( String.valueOf( streamSVG ) ); //$NON-NLS-1$
+	}
 	
 	protected final boolean isAreaAltEnabled( )
 	{
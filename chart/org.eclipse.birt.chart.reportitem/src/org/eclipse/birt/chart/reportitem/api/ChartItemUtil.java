@@ -108,6 +108,13 @@ public class ChartItemUtil extends ChartExpressionUtil implements
 
 	public static final String BIRT_CHART_CONVERT_TO_IMAGE_TIME_OUT = "BIRT_CHART_CONVERT_TO_IMAGE_TIME_OUT"; //$NON-NLS-1$
 
+	/**
+	 * The application context key which enables the streaming of the SVG
+	 * chart elements, the value is a Boolean or a "true" string. The SVG
+	 * output is built in memory by default.
+	 */
+	public static final String BIRT_CHART_STREAM_SVG = "BIRT_CHART_STREAM_SVG"; //$NON-NLS-1$
+
 	private final static String DATA_BASE64 = "data:;base64,"; //$NON-NLS-1$
 	
 	/**
@@ -13,6 +13,7 @@ package org.eclipse.birt.chart.tests.device;
 
 import org.eclipse.birt.chart.tests.device.render.ImageRenderTest;
 import org.eclipse.birt.chart.tests.device.svg.SVGGradientPaintTest;
+import org.eclipse.birt.chart.tests.device.svg.SVGStreamWriterTest;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -25,6 +26,7 @@ public class DeviceTest {
 		//$JUnit-BEGIN$
 		suite.addTest(ImageRenderTest.suite());
 		suite.addTestSuite(SVGGradientPaintTest.class);
+		suite.addTestSuite(SVGStreamWriterTest.class);
 		
 		//$JUnit-END$
 		return suite;
@@ -0,0 +1,98 @@
+/***********************************************************************
+ * Copyright (c) 2005 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ ***********************************************************************/
+package org.eclipse.birt.chart.tests.device.svg;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.chart.device.svg.SVGGraphics2D;
+import org.eclipse.birt.chart.device.svg.SVGStreamWriter;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+public class SVGStreamWriterTest extends TestCase {
+
+	private Document dom;
+	private SVGGraphics2D g2d;
+	private StringWriter out;
+	private SVGStreamWriter writer;
+
+	protected void setUp() throws Exception {
+		dom = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.newDocument();
+		dom.appendChild(dom.createElement("svg")); //$NON-NLS-1$
+		g2d = new SVGGraphics2D(dom);
+		g2d.setColor(Color.RED);
+		out = new StringWriter();
+		writer = new SVGStreamWriter(g2d, out);
+	}
+
+	public void testFlush() throws Exception {
+		g2d.fillRect(0, 0, 10, 10);
+		writer.flush();
+		assertTrue(out.toString().indexOf("<rect") != -1); //$NON-NLS-1$
+		// the written elements are removed from the document
+		Element outerG = (Element) dom.getDocumentElement().getFirstChild();
+		assertEquals(0, outerG.getElementsByTagName("rect").getLength()); //$NON-NLS-1$
+
+		// the open group is written only when it is complete
+		Element group = dom.createElement("g"); //$NON-NLS-1$
+		g2d.pushParent(group);
+		group.setAttribute("id", "group"); //$NON-NLS-1$ //$NON-NLS-2$
+		g2d.drawLine(0, 0, 10, 10);
+		writer.flush();
+		assertTrue(out.toString().indexOf("group") == -1); //$NON-NLS-1$
+		g2d.popParent();
+		writer.flush();
+		assertTrue(out.toString().indexOf("<g id=\"group\"><line") != -1); //$NON-NLS-1$
+	}
+
+	public void testClose() throws Exception {
+		g2d.fillRect(0, 0, 10, 10);
+		writer.flush();
+		g2d.setClip(new Rectangle(0, 0, 5, 5));
+		Element title = dom.createElement("title"); //$NON-NLS-1$
+		title.appendChild(dom.createTextNode("a < b & c")); //$NON-NLS-1$
+		g2d.pushParent(title);
+		g2d.popParent();
+		writer.flush();
+		g2d.drawLine(0, 0, 10, 10);
+		writer.close();
+
+		Document result = DocumentBuilderFactory.newInstance()
+				.newDocumentBuilder().parse(
+						new ByteArrayInputStream(out.toString().getBytes(
+								"UTF-8"))); //$NON-NLS-1$
+		Element outerG = (Element) result.getDocumentElement().getFirstChild();
+		assertEquals("outerG", outerG.getAttribute("id")); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// the definitions are written before the elements using them, the
+		// script and style at the end
+		String[] names = { "rect", "defs", "title", "line", "script", "style" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		Node child = outerG.getFirstChild();
+		for (int i = 0; i < names.length; i++) {
+			assertNotNull(child);
+			assertEquals(names[i], child.getNodeName());
+			child = child.getNextSibling();
+		}
+		assertNull(child);
+		assertEquals("a < b & c", result.getElementsByTagName("title").item(0) //$NON-NLS-1$ //$NON-NLS-2$
+				.getTextContent());
+		assertEquals(1, result.getElementsByTagName("clipPath").getLength()); //$NON-NLS-1$
+	}
+}
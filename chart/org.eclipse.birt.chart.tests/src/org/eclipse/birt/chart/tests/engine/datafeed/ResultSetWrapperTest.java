@@ -16,6 +16,7 @@ import java.util.List;
 import junit.framework.TestCase;
 
 import org.eclipse.birt.chart.internal.datafeed.GroupingLookupHelper;
+import org.eclipse.birt.chart.internal.datafeed.ResultSetDataSet;
 import org.eclipse.birt.chart.internal.datafeed.ResultSetWrapper;
 
 public class ResultSetWrapperTest extends TestCase
@@ -76,4 +77,46 @@ public class ResultSetWrapperTest extends TestCase
 		assertEquals( Integer.valueOf( 10 ),
 				wrapper.getGroupKey( 0, "Month", "Sum" ) );//$NON-NLS-1$ //$NON-NLS-2$
 	}
+
+	public void testDecimate( )
+	{
+		List rows = new ArrayList( );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			rows.add( new Object[]{
+					"A", "M1", Integer.valueOf( i ), Integer.valueOf( ( i * 37 ) % 101 )} ); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		ResultSetWrapper rsw = new ResultSetWrapper( new GroupingLookupHelper( dataList,
+				aggList ),
+				rows,
+				null );
+
+		// Not enough rows to decimate.
+		rsw.decimate( 250 );
+		assertEquals( 1000, rsw.getRowCount( ) );
+
+		rsw.decimate( 10 );
+		assertTrue( rsw.getRowCount( ) <= 40 );
+		assertEquals( 1, rsw.getGroupCount( ) );
+
+		// First and last rows, and the extremes of each bucket are kept in
+		// order.
+		ResultSetDataSet xValues = rsw.getSubset( 2 );
+		ResultSetDataSet yValues = rsw.getSubset( 3 );
+		int iMin = Integer.MAX_VALUE;
+		int iMax = Integer.MIN_VALUE;
+		int iLast = -1;
+		while ( xValues.hasNext( ) )
+		{
+			int x = ( (Integer) xValues.next( )[0] ).intValue( );
+			int y = ( (Integer) yValues.next( )[0] ).intValue( );
+			assertTrue( x == 0 || x > iLast );
+			iLast = x;
+			iMin = Math.min( iMin, y );
+			iMax = Math.max( iMax, y );
+		}
+		assertEquals( 999, iLast );
+		assertEquals( 0, iMin );
+		assertEquals( 100, iMax );
+	}
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.framework.jar;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.core.framework.IPlatformConfig;
+import org.eclipse.birt.core.framework.PlatformConfig;
+
+public class BundleCacheTest extends TestCase
+{
+
+	static final String CLASS_PATH = "classpath";
+
+	protected File folder;
+	protected File bundleFolder;
+	protected File cacheFile;
+	protected ServicePlatform platform;
+
+	protected void setUp( ) throws Exception
+	{
+		folder = File.createTempFile( "bundlecache", "" );
+		folder.delete( );
+		folder.mkdirs( );
+		bundleFolder = new File( folder, "bundle" );
+		new File( bundleFolder, "META-INF" ).mkdirs( );
+		cacheFile = new File( folder, "bundles.cache" );
+		platform = new ServicePlatform( new PlatformConfig( ) );
+
+		writeFile( new File( bundleFolder, BundleLoader.MANIFEST_ENTRY ),
+				"Manifest-Version: 1.0\n"
+						+ "Bundle-SymbolicName: test.bundle;singleton:=true\n"
+						+ "Bundle-Version: 1.0.0\n" );
+		writePlugin( "first" );
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		delete( folder );
+	}
+
+	public void testCachedBundle( ) throws Exception
+	{
+		URL root = bundleFolder.toURI( ).toURL( );
+		BundleCache cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		checkBundle( cache.load( platform, root ), "first" );
+		cache.save( );
+		assertTrue( cacheFile.exists( ) );
+
+		// the bundle is rebuilt from the cache, the cache isn't written again
+		cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		assertEquals( 1, cache.entries.size( ) );
+		checkBundle( cache.load( platform, root ), "first" );
+		assertFalse( cache.dirty );
+	}
+
+	public void testStaleFingerprint( ) throws Exception
+	{
+		URL root = bundleFolder.toURI( ).toURL( );
+		BundleCache cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		cache.load( platform, root );
+		cache.save( );
+
+		// a plugin.xml of another length has another fingerprint
+		writePlugin( "second value" );
+		cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		checkBundle( cache.load( platform, root ), "second value" );
+		assertTrue( cache.dirty );
+		cache.save( );
+
+		cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		checkBundle( cache.load( platform, root ), "second value" );
+		assertFalse( cache.dirty );
+	}
+
+	public void testCorruptCacheFile( ) throws Exception
+	{
+		URL root = bundleFolder.toURI( ).toURL( );
+		BundleCache cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		cache.load( platform, root );
+		cache.save( );
+
+		// a huge data length is rejected before it is allocated
+		String fingerprint = cache.usedEntries.get( root.toExternalForm( ) ).fingerprint;
+		int offset = 8 + 2 + CLASS_PATH.length( ) + 4 + 2
+				+ root.toExternalForm( ).length( ) + 2 + fingerprint.length( );
+		byte[] data = readFile( cacheFile );
+		data[offset] = (byte) 0x7F;
+		data[offset + 1] = (byte) 0xFF;
+		writeFile( cacheFile, data );
+		cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		assertTrue( cache.entries.isEmpty( ) );
+		checkBundle( cache.load( platform, root ), "first" );
+
+		writeFile( cacheFile, new byte[]{1, 2, 3} );
+		cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		assertTrue( cache.entries.isEmpty( ) );
+		checkBundle( cache.load( platform, root ), "first" );
+	}
+
+	public void testChecksum( ) throws Exception
+	{
+		URL root = bundleFolder.toURI( ).toURL( );
+		BundleCache cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		cache.load( platform, root );
+		cache.save( );
+
+		// a changed byte of the bundle data is found by the checksum
+		byte[] data = readFile( cacheFile );
+		data[data.length - 10] ^= 1;
+		writeFile( cacheFile, data );
+		cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		assertTrue( cache.entries.isEmpty( ) );
+		checkBundle( cache.load( platform, root ), "first" );
+		assertTrue( cache.dirty );
+	}
+
+	public void testOtherClassPath( ) throws Exception
+	{
+		URL root = bundleFolder.toURI( ).toURL( );
+		BundleCache cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		cache.load( platform, root );
+		cache.save( );
+
+		// the cache of another class path is not used, and is written again
+		cache = new BundleCache( cacheFile, "other" );
+		cache.open( );
+		assertTrue( cache.entries.isEmpty( ) );
+		checkBundle( cache.load( platform, root ), "first" );
+		cache.save( );
+
+		cache = new BundleCache( cacheFile, "other" );
+		cache.open( );
+		assertEquals( 1, cache.entries.size( ) );
+		cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		assertTrue( cache.entries.isEmpty( ) );
+	}
+
+	public void testOpenBundleCache( ) throws Exception
+	{
+		ServiceLauncher launcher = new ServiceLauncher( );
+		PlatformConfig config = new PlatformConfig( );
+		// the bundles are only cached if the cache is set
+		assertNull( launcher.openBundleCache( null, CLASS_PATH ) );
+		assertNull( launcher.openBundleCache( config, CLASS_PATH ) );
+		config.setProperty( IPlatformConfig.BUNDLE_CACHE, "" );
+		assertNull( launcher.openBundleCache( config, CLASS_PATH ) );
+
+		config.setProperty( IPlatformConfig.BUNDLE_CACHE, cacheFile.getPath( ) );
+		assertEquals( cacheFile,
+				launcher.openBundleCache( config, CLASS_PATH ).file );
+
+		// the cache file in a folder is named by the class path
+		config.setProperty( IPlatformConfig.BUNDLE_CACHE, folder.getPath( ) );
+		assertEquals( new File( folder, "birt_bundles_" + CLASS_PATH + ".cache" ),
+				launcher.openBundleCache( config, CLASS_PATH ).file );
+	}
+
+	public void testClassPathDigest( ) throws Exception
+	{
+		URL first = new URL( "file:/lib/first.jar" );
+		URL second = new URL( "file:/lib/second.jar" );
+		String digest = ServiceLauncher.getClassPathDigest( Arrays.asList(
+				first, second ) );
+		assertEquals( 40, digest.length( ) );
+		assertEquals( digest, ServiceLauncher.getClassPathDigest( Arrays
+				.asList( first, second ) ) );
+		assertFalse( digest.equals( ServiceLauncher.getClassPathDigest( Arrays
+				.asList( first ) ) ) );
+		assertFalse( digest.equals( ServiceLauncher.getClassPathDigest( Arrays
+				.asList( second, first ) ) ) );
+	}
+
+	public void testUncachableBundle( ) throws Exception
+	{
+		// writeUTF fails on a value longer than 64K
+		StringBuilder value = new StringBuilder( );
+		for ( int i = 0; i < 70000; i++ )
+		{
+			value.append( 'x' );
+		}
+		writePlugin( value.toString( ) );
+		URL root = bundleFolder.toURI( ).toURL( );
+		BundleCache cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		checkBundle( cache.load( platform, root ), value.toString( ) );
+		assertTrue( cache.usedEntries.isEmpty( ) );
+		cache.save( );
+
+		cache = new BundleCache( cacheFile, CLASS_PATH );
+		cache.open( );
+		assertTrue( cache.entries.isEmpty( ) );
+		checkBundle( cache.load( platform, root ), value.toString( ) );
+	}
+
+	protected void checkBundle( Bundle bundle, String value )
+	{
+		assertEquals( "test.bundle", bundle.getSymbolicName( ) );
+		assertEquals( "1.0.0", bundle.getVersion( ) );
+		assertEquals( 1, bundle.getExtensionPoints( ).length );
+		assertEquals( "test.bundle.point",
+				bundle.getExtensionPoints( )[0].getUniqueIdentifier( ) );
+		Extension[] extensions = bundle.getExtensions( );
+		assertEquals( 1, extensions.length );
+		assertEquals( "test.bundle.point",
+				extensions[0].getExtensionPointUniqueIdentifier( ) );
+		assertEquals( value, extensions[0].getConfigurationElements( )[0]
+				.getAttribute( "value" ) );
+	}
+
+	protected void writePlugin( String value ) throws IOException
+	{
+		writeFile( new File( bundleFolder, BundleLoader.PLUGIN_ENTRY ),
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+						+ "<plugin>\n"
+						+ "<extension-point id=\"point\" name=\"Point\"/>\n"
+						+ "<extension point=\"test.bundle.point\">\n"
+						+ "<item value=\"" + value + "\"/>\n"
+						+ "</extension>\n"
+						+ "</plugin>\n" );
+	}
+
+	protected void writeFile( File file, String content ) throws IOException
+	{
+		writeFile( file, content.getBytes( "UTF-8" ) );
+	}
+
+	protected void writeFile( File file, byte[] content ) throws IOException
+	{
+		OutputStream out = new FileOutputStream( file );
+		try
+		{
+			out.write( content );
+		}
+		finally
+		{
+			out.close( );
+		}
+	}
+
+	protected byte[] readFile( File file ) throws IOException
+	{
+		byte[] data = new byte[(int) file.length( )];
+		DataInputStream in = new DataInputStream( new FileInputStream( file ) );
+		try
+		{
+			in.readFully( data );
+		}
+		finally
+		{
+			in.close( );
+		}
+		return data;
+	}
+
+	protected void delete( File file )
+	{
+		File[] children = file.listFiles( );
+		if ( children != null )
+		{
+			for ( File child : children )
+			{
+				delete( child );
+			}
+		}
+		file.delete( );
+	}
+}
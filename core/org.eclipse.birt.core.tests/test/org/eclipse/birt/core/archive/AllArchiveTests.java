@@ -18,6 +18,7 @@ import org.eclipse.birt.core.archive.compound.ArchiveFileTest;
 import org.eclipse.birt.core.archive.compound.ArchivePerformanceTest;
 import org.eclipse.birt.core.archive.compound.ArchiveRemoveTest;
 import org.eclipse.birt.core.archive.compound.ArchiveViewTest;
+import org.eclipse.birt.core.archive.compound.CompressedArchiveEntryTest;
 import org.eclipse.birt.core.archive.compound.UpgradeArchiveTest;
 
 import junit.framework.Test;
@@ -45,6 +46,7 @@ public class AllArchiveTests
 		test.addTestSuite( ArchivePerformanceTest.class );
 		test.addTestSuite( ArchiveRemoveTest.class );
 		test.addTestSuite( ArchiveViewTest.class );
+		test.addTestSuite( CompressedArchiveEntryTest.class );
 		test.addTestSuite( UpgradeArchiveTest.class );
 		test.addTestSuite( ArchiveFileCacheTest.class );
 		test.addTestSuite( ArchiveFileSaveTest.class );
@@ -0,0 +1,298 @@
+package org.eclipse.birt.core.archive.compound;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+import org.eclipse.birt.core.archive.RAInputStream;
+import org.eclipse.birt.core.archive.RAOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class CompressedArchiveEntryTest extends TestCase
+{
+
+	static final String ARCHIVE_FOLDER = "./utest/";
+	static final String ARCHIVE_FILE = ARCHIVE_FOLDER + "compressed.rptdocument";
+	static final int STREAM_SIZE = 200000;
+
+	@Before
+	public void setUp( )
+	{
+		new File( ARCHIVE_FOLDER ).mkdirs( );
+	}
+
+	@After
+	public void tearDown( )
+	{
+		new File( ARCHIVE_FILE ).delete( );
+		new File( ARCHIVE_FOLDER ).delete( );
+	}
+
+	@Test
+	public void testReadWrite( ) throws IOException
+	{
+		ArchiveFile af = new ArchiveFile( ARCHIVE_FILE, "rw" );
+		af.setCompressionLevel( Deflater.BEST_SPEED );
+		ArchiveWriter writer = new ArchiveWriter( af );
+		RAOutputStream out = writer.createRandomAccessStream( "/compressed" );
+		out.writeLong( 0 );
+		for ( int i = 8; i < STREAM_SIZE; i++ )
+		{
+			out.write( golden( i ) );
+		}
+		// update the head as the report document writers do
+		out.seek( 0 );
+		out.writeLong( STREAM_SIZE );
+		out.close( );
+
+		af.setCompressionLevel( ArchiveFile.NO_COMPRESSION );
+		out = writer.createRandomAccessStream( "/plain" );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			out.write( golden( i ) );
+		}
+		out.close( );
+		writer.finish( );
+
+		// the data is much smaller than the stream
+		assertTrue( new File( ARCHIVE_FILE ).length( ) < STREAM_SIZE / 4 );
+
+		af = new ArchiveFile( ARCHIVE_FILE, "r" );
+		ArchiveReader reader = new ArchiveReader( af );
+		RAInputStream in = reader.getStream( "/compressed" );
+		assertEquals( STREAM_SIZE, in.length( ) );
+		assertEquals( STREAM_SIZE, in.readLong( ) );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			int pos = 8 + (int) ( Math.random( ) * ( STREAM_SIZE - 8 ) );
+			in.seek( pos );
+			assertEquals( golden( pos ), in.read( ) );
+		}
+		byte[] buffer = new byte[STREAM_SIZE - 8];
+		in.seek( 8 );
+		in.readFully( buffer, 0, buffer.length );
+		for ( int i = 0; i < buffer.length; i++ )
+		{
+			assertEquals( (byte) golden( i + 8 ), buffer[i] );
+		}
+		assertEquals( -1, in.read( ) );
+		in.close( );
+
+		in = reader.getStream( "/plain" );
+		assertEquals( 1000, in.length( ) );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			assertEquals( golden( i ), in.read( ) );
+		}
+		in.close( );
+		reader.close( );
+		af.close( );
+	}
+
+	@Test
+	public void testAppend( ) throws IOException
+	{
+		ArchiveFile af = new ArchiveFile( ARCHIVE_FILE, "rw" );
+		af.setCompressionLevel( Deflater.BEST_COMPRESSION );
+		ArchiveWriter writer = new ArchiveWriter( af );
+		RAOutputStream out = writer.createRandomAccessStream( "/stream" );
+		for ( int i = 0; i < STREAM_SIZE / 2; i++ )
+		{
+			out.write( golden( i ) );
+		}
+		out.close( );
+
+		// the flushed data is visible to the readers
+		RAOutputStream append = writer.getOutputStream( "/stream" );
+		append.seek( STREAM_SIZE / 2 );
+		for ( int i = STREAM_SIZE / 2; i < STREAM_SIZE; i++ )
+		{
+			append.write( golden( i ) );
+		}
+		RAInputStream in = writer.getInputStream( "/stream" );
+		assertEquals( STREAM_SIZE / 2, in.length( ) );
+		writer.flush( );
+		in.refresh( );
+		assertEquals( STREAM_SIZE, in.length( ) );
+		in.seek( STREAM_SIZE - 1 );
+		assertEquals( golden( STREAM_SIZE - 1 ), in.read( ) );
+		in.close( );
+		append.close( );
+		writer.finish( );
+
+		af = new ArchiveFile( ARCHIVE_FILE, "r" );
+		in = new ArchiveReader( af ).getStream( "/stream" );
+		assertEquals( STREAM_SIZE, in.length( ) );
+		for ( int i = 0; i < STREAM_SIZE; i++ )
+		{
+			assertEquals( golden( i ), in.read( ) );
+		}
+		in.close( );
+		af.close( );
+	}
+
+	@Test
+	public void testRewrite( ) throws IOException
+	{
+		ArchiveFile af = new ArchiveFile( ARCHIVE_FILE, "rw" );
+		af.setCompressionLevel( Deflater.BEST_SPEED );
+		ArchiveWriter writer = new ArchiveWriter( af );
+		RAOutputStream out = writer.createRandomAccessStream( "/fresh" );
+		for ( int i = 0; i < STREAM_SIZE; i++ )
+		{
+			out.write( golden( i ) );
+		}
+		out.close( );
+
+		// the stream grows with a checkpoint after every 1000 bytes, and the
+		// head is rewritten at every checkpoint
+		out = writer.createRandomAccessStream( "/rewritten" );
+		out.writeLong( 0 );
+		for ( int i = 8; i < STREAM_SIZE; i++ )
+		{
+			out.write( golden( i ) );
+			if ( i % 1000 == 0 )
+			{
+				out.seek( 0 );
+				out.writeLong( i );
+				out.seek( i + 1 );
+				writer.flush( );
+			}
+		}
+		out.seek( 0 );
+		out.write( golden( 0 ) );
+		out.write( golden( 1 ) );
+		out.seek( 0 );
+		out.writeLong( 0 );
+		out.seek( 0 );
+		for ( int i = 0; i < 8; i++ )
+		{
+			out.write( golden( i ) );
+		}
+		out.close( );
+
+		// the superseded blocks are removed on close
+		long freshLength = getEntryLength( af, "/fresh" );
+		long rewrittenLength = getEntryLength( af, "/rewritten" );
+		assertTrue( rewrittenLength < freshLength + freshLength
+				/ CompressedArchiveEntry.COMPACT_RATIO );
+		writer.finish( );
+
+		af = new ArchiveFile( ARCHIVE_FILE, "r" );
+		RAInputStream in = new ArchiveReader( af ).getStream( "/rewritten" );
+		assertEquals( STREAM_SIZE, in.length( ) );
+		for ( int i = 0; i < STREAM_SIZE; i++ )
+		{
+			assertEquals( golden( i ), in.read( ) );
+		}
+		in.close( );
+		af.close( );
+	}
+
+	@Test
+	public void testSaveOpenedEntries( ) throws IOException
+	{
+		ArchiveFile af = new ArchiveFile( ARCHIVE_FILE, "rw" );
+		af.setCompressionLevel( Deflater.BEST_SPEED );
+		ArchiveEntry entry = af.createEntry( "/stream" );
+		byte[] data = new byte[STREAM_SIZE];
+		for ( int i = 0; i < STREAM_SIZE; i++ )
+		{
+			data[i] = (byte) golden( i );
+		}
+		entry.write( 0, data, 0, STREAM_SIZE );
+		// the data in the opened entry is saved with the archive
+		af.save( );
+
+		ArchiveFile saved = new ArchiveFile( ARCHIVE_FILE, "r" );
+		RAInputStream in = new ArchiveReader( saved ).getStream( "/stream" );
+		assertEquals( STREAM_SIZE, in.length( ) );
+		for ( int i = 0; i < STREAM_SIZE; i++ )
+		{
+			assertEquals( golden( i ), in.read( ) );
+		}
+		in.close( );
+		saved.close( );
+		entry.close( );
+		af.close( );
+	}
+
+	@Test
+	public void testReopenCheckpoint( ) throws IOException
+	{
+		ArchiveFile af = new ArchiveFile( ARCHIVE_FILE, "rw" );
+		af.setCompressionLevel( Deflater.BEST_SPEED );
+		ArchiveWriter writer = new ArchiveWriter( af );
+		RAOutputStream out = writer.createRandomAccessStream( "/stream" );
+		for ( int i = 0; i < STREAM_SIZE / 2; i++ )
+		{
+			out.write( golden( i ) );
+		}
+		writer.flush( );
+		for ( int i = STREAM_SIZE / 2; i < STREAM_SIZE; i++ )
+		{
+			out.write( golden( i ) );
+		}
+
+		// the checkpoint is read from the chained indexes
+		ArchiveFile reader = new ArchiveFile( ARCHIVE_FILE, "r" );
+		RAInputStream in = new ArchiveReader( reader ).getStream( "/stream" );
+		assertEquals( STREAM_SIZE / 2, in.length( ) );
+		for ( int i = 0; i < STREAM_SIZE / 2; i++ )
+		{
+			assertEquals( golden( i ), in.read( ) );
+		}
+		in.close( );
+		reader.close( );
+
+		writer.flush( );
+		reader = new ArchiveFile( ARCHIVE_FILE, "r" );
+		in = new ArchiveReader( reader ).getStream( "/stream" );
+		assertEquals( STREAM_SIZE, in.length( ) );
+		in.seek( STREAM_SIZE - 1 );
+		assertEquals( golden( STREAM_SIZE - 1 ), in.read( ) );
+		in.close( );
+		reader.close( );
+		out.close( );
+
+		// the closed entry is opened again from its full index
+		out = writer.getOutputStream( "/stream" );
+		out.seek( STREAM_SIZE );
+		out.write( golden( STREAM_SIZE ) );
+		out.close( );
+		writer.finish( );
+
+		af = new ArchiveFile( ARCHIVE_FILE, "r" );
+		in = new ArchiveReader( af ).getStream( "/stream" );
+		assertEquals( STREAM_SIZE + 1, in.length( ) );
+		for ( int i = 0; i <= STREAM_SIZE; i++ )
+		{
+			assertEquals( golden( i ), in.read( ) );
+		}
+		in.close( );
+		af.close( );
+	}
+
+	private long getEntryLength( ArchiveFile af, String name )
+			throws IOException
+	{
+		ArchiveEntry entry = af.openEntry( name );
+		try
+		{
+			return ( (CompressedArchiveEntry) entry ).entry.getLength( );
+		}
+		finally
+		{
+			entry.close( );
+		}
+	}
+
+	private int golden( int pos )
+	{
+		return ( pos / 100 ) % 256;
+	}
+}
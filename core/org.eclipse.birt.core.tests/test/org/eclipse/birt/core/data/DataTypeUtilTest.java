@@ -1105,6 +1105,92 @@ public class DataTypeUtilTest extends TestCase
 		}
 	}
 
+	/**
+	 * Strings which are not plain numbers or ISO8601 dates skip the JDK
+	 * parsers and are parsed with the locale sensitive formats.
+	 * 
+	 * @throws BirtException
+	 */
+	@Test
+	public void testToNumberAndDateFastPath( ) throws BirtException
+	{
+		assertEquals( new Integer( 1234 ),
+				DataTypeUtil.toInteger( "1,234", ULocale.US ) );
+		assertEquals( new Integer( 12 ),
+				DataTypeUtil.toInteger( "+12", ULocale.US ) );
+		assertEquals( new Double( 1234.5 ),
+				DataTypeUtil.toDouble( "1,234.5", ULocale.US ) );
+		assertEquals( new Double( 1.5 ),
+				DataTypeUtil.toDouble( " 1.5 ", ULocale.US ) );
+		assertEquals( new BigDecimal( "125" ),
+				DataTypeUtil.toBigDecimal( "12.5e1" ) );
+		try
+		{
+			DataTypeUtil.toInteger( "abc", ULocale.US );
+			fail( "Should throw exception" );
+		}
+		catch ( BirtException e )
+		{
+		}
+
+		// the values of different formats are recognized one after another
+		Calendar calendar = Calendar.getInstance( ULocale.US );
+		calendar.clear( );
+		calendar.set( 2020, 0, 2 );
+		assertEquals( calendar.getTime( ),
+				DataTypeUtil.toDate( "1/2/20", ULocale.US ) );
+		assertEquals( calendar.getTime( ),
+				DataTypeUtil.toDate( "1/2/20", ULocale.US ) );
+		assertEquals( calendar.getTime( ),
+				DataTypeUtil.toDate( "Jan 2, 2020", ULocale.US ) );
+		calendar.set( 2021, 1, 3 );
+		assertEquals( calendar.getTime( ),
+				DataTypeUtil.toDate( "2/3/21", ULocale.US ) );
+		assertEquals( calendar.getTime( ), DataTypeUtil.toDate( "2021-02-03" ) );
+	}
+
+	/**
+	 * Each column keeps the date format which matched its previous value.
+	 * 
+	 * @throws BirtException
+	 */
+	@Test
+	public void testDateFormatHint( ) throws BirtException
+	{
+		DataTypeUtil.DateFormatHint shortDates = new DataTypeUtil.DateFormatHint( );
+		DataTypeUtil.DateFormatHint textDates = new DataTypeUtil.DateFormatHint( );
+		Calendar calendar = Calendar.getInstance( ULocale.US );
+		calendar.clear( );
+		calendar.set( 2020, 0, 2 );
+		for ( int i = 0; i < 3; i++ )
+		{
+			assertEquals( calendar.getTime( ),
+					DataTypeUtil.toDate( "1/2/20", ULocale.US, null, shortDates ) );
+			assertEquals( calendar.getTime( ), DataTypeUtil.toDate( "Jan 2, 2020",
+					ULocale.US,
+					null,
+					textDates ) );
+		}
+		DateFormat shortFormat = DateFormatFactory.getDateInstance( DateFormat.SHORT,
+				ULocale.US );
+		DateFormat longFormat = DateFormatFactory.getDateInstance( DateFormat.LONG,
+				ULocale.US );
+		assertSame( shortFormat, shortDates.getDateFormat( "en_US/d",
+				ULocale.US ) );
+		assertSame( longFormat, textDates.getDateFormat( "en_US/d",
+				ULocale.US ) );
+
+		// a value of another format is still recognized and becomes the hint
+		assertEquals( calendar.getTime( ),
+				DataTypeUtil.toDate( "Jan 2, 2020", ULocale.US, null, shortDates ) );
+		assertSame( longFormat, shortDates.getDateFormat( "en_US/d",
+				ULocale.US ) );
+		assertSame( longFormat, DataTypeUtil.getDateFormatObject( "Jan 3, 2020",
+				ULocale.US,
+				null,
+				shortDates ) );
+	}
+
     /**
      * Test DataTypeUtil#toApiDataType( int odaDataTypeCode )
      * @throws BirtException
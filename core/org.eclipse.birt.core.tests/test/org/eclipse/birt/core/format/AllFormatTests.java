@@ -32,6 +32,7 @@ public class AllFormatTests
 		test.addTestSuite( DateFormatterTest.class );
 		test.addTestSuite( NumberFormatterTest.class );
 		test.addTestSuite( StringFormatterTest.class );
+		test.addTestSuite( FormatPatternCacheTest.class );
 
 		return test;
 	}
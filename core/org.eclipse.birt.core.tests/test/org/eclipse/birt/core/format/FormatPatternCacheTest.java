@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2004 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.format;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.ibm.icu.util.TimeZone;
+import com.ibm.icu.util.ULocale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that formatters sharing a cached pattern behave the same as the
+ * formatter which parsed the pattern, and do not share state.
+ */
+public class FormatPatternCacheTest extends TestCase
+{
+
+	@Test
+	public void testCacheKey( )
+	{
+		FormatPatternCache<String> cache = new FormatPatternCache<String>( );
+		TimeZone gmt = TimeZone.getTimeZone( "GMT" );
+		cache.put( "yyyy", ULocale.ENGLISH, gmt, "english" );
+		cache.put( "yyyy", ULocale.GERMAN, gmt, "german" );
+		cache.put( null, ULocale.ENGLISH, null, "default" );
+
+		assertEquals( "english", cache.get( "yyyy", ULocale.ENGLISH, TimeZone
+				.getTimeZone( "GMT" ) ) );
+		assertEquals( "german", cache.get( "yyyy", ULocale.GERMAN, gmt ) );
+		assertEquals( "default", cache.get( null, ULocale.ENGLISH, null ) );
+		assertNull( cache.get( "yyyy", ULocale.ENGLISH, null ) );
+		assertNull( cache.get( "yyyy", ULocale.ENGLISH, TimeZone
+				.getTimeZone( "PST" ) ) );
+	}
+
+	@Test
+	public void testCacheBound( )
+	{
+		FormatPatternCache<String> cache = new FormatPatternCache<String>( );
+		for ( int i = 0; i <= FormatPatternCache.MAX_ENTRIES; i++ )
+		{
+			cache.put( "#" + i, ULocale.ENGLISH, null, "value" );
+		}
+		assertTrue( cache.size( ) <= FormatPatternCache.MAX_ENTRIES );
+	}
+
+	@Test
+	public void testCachedDateFormatter( )
+	{
+		Calendar dateCal = Calendar.getInstance( );
+		dateCal.set( 1998, 8, 13, 20, 1, 44 );
+		Date date = dateCal.getTime( );
+
+		DateFormatter first = new DateFormatter( "MM/dd/yyyy hh:mm:ss a",
+				ULocale.ENGLISH );
+		DateFormatter second = new DateFormatter( "MM/dd/yyyy hh:mm:ss a",
+				ULocale.ENGLISH );
+		assertEquals( "09/13/1998 08:01:44 PM", first.format( date ) );
+		assertEquals( first.format( date ), second.format( date ) );
+		assertEquals( first.getPattern( ), second.getPattern( ) );
+		assertEquals( first.getFormatCode( ), second.getFormatCode( ) );
+
+		// re-applying a pattern to one formatter must not affect the other
+		second.applyPattern( "yyyy" );
+		assertEquals( "1998", second.format( date ) );
+		assertEquals( "09/13/1998 08:01:44 PM", first.format( date ) );
+	}
+
+	@Test
+	public void testCachedDateFormatterTimeZone( )
+	{
+		Calendar dateCal = Calendar.getInstance( java.util.TimeZone
+				.getTimeZone( "GMT" ) );
+		dateCal.clear( );
+		dateCal.set( 1998, 8, 13, 20, 1, 44 );
+		Date date = dateCal.getTime( );
+
+		DateFormatter gmt = new DateFormatter( "HH:mm",
+				ULocale.ENGLISH,
+				TimeZone.getTimeZone( "GMT" ) );
+		DateFormatter gmt8 = new DateFormatter( "HH:mm",
+				ULocale.ENGLISH,
+				TimeZone.getTimeZone( "GMT+08:00" ) );
+		assertEquals( "20:01", gmt.format( date ) );
+		assertEquals( "04:01", gmt8.format( date ) );
+	}
+
+	@Test
+	public void testCachedNumberFormatter( )
+	{
+		NumberFormatter first = new NumberFormatter( "###,##0.00",
+				ULocale.ENGLISH );
+		NumberFormatter second = new NumberFormatter( "###,##0.00",
+				ULocale.ENGLISH );
+		assertEquals( "1,234.57", first.format( 1234.567 ) );
+		assertEquals( first.format( 1234.567 ), second.format( 1234.567 ) );
+		assertEquals( first.getFormatCode( ), second.getFormatCode( ) );
+
+		NumberFormatter german = new NumberFormatter( "###,##0.00",
+				ULocale.GERMAN );
+		assertEquals( "1.234,57", german.format( 1234.567 ) );
+
+		// pattern attributes are part of the cached pattern
+		NumberFormatter rounding = new NumberFormatter( "###,##0.00{RoundingMode=HALF_UP}",
+				ULocale.ENGLISH );
+		assertEquals( "1.13", rounding.format( new BigDecimal( "1.125" ) ) );
+		assertEquals( "1.13", new NumberFormatter( "###,##0.00{RoundingMode=HALF_UP}",
+				ULocale.ENGLISH ).format( new BigDecimal( "1.125" ) ) );
+
+		// parse options of one formatter must not affect the other
+		second.setParseBigDecimal( true );
+		try
+		{
+			assertTrue( second.parse( "1.5" ) instanceof BigDecimal );
+			assertFalse( first.parse( "1.5" ) instanceof BigDecimal );
+		}
+		catch ( java.text.ParseException e )
+		{
+			fail( e.getMessage( ) );
+		}
+	}
+}
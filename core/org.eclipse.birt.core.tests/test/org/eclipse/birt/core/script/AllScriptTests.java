@@ -17,6 +17,7 @@ import org.eclipse.birt.core.script.bre.BirtDateTimeTest;
 import org.eclipse.birt.core.script.bre.BirtDurationTest;
 import org.eclipse.birt.core.script.bre.BirtMathTest;
 import org.eclipse.birt.core.script.bre.BirtStrTest;
+import org.eclipse.birt.core.script.functionservice.impl.CategoryWrapperTest;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -49,6 +50,7 @@ public class AllScriptTests
 		test.addTestSuite( BirtMathTest.class );
 		test.addTestSuite( BirtStrTest.class );
 		test.addTestSuite( LocalFileTest.class );
+		test.addTestSuite( CategoryWrapperTest.class );
 		// add all test classes here
 
 		return test;
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.script.functionservice.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.script.functionservice.IScriptFunctionContext;
+import org.eclipse.birt.core.script.functionservice.IScriptFunctionExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.util.ULocale;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the function context kept for the latest scope still resolves
+ * the collator and the variables of the scope.
+ */
+public class CategoryWrapperTest extends TestCase
+{
+
+	private Context cx;
+	private Scriptable root;
+	/**
+	 * the identities of the contexts passed to the function, the contexts
+	 * themselves aren't held so they could be collected.
+	 */
+	private List<Integer> contexts = new ArrayList<Integer>( );
+
+	@Before
+	public void setUp( ) throws Exception
+	{
+		cx = Context.enter( );
+		root = cx.initStandardObjects( );
+		Category category = new Category( "Test", null ); //$NON-NLS-1$
+		category.addFunction( new ScriptFunction( "find", //$NON-NLS-1$
+				category,
+				null,
+				null,
+				null,
+				new IScriptFunctionExecutor( ) {
+
+					private static final long serialVersionUID = 1L;
+
+					public Object execute( Object[] arguments,
+							IScriptFunctionContext context )
+							throws BirtException
+					{
+						contexts.add( Integer.valueOf( System
+								.identityHashCode( context ) ) );
+						return context.findProperty( (String) arguments[0] );
+					}
+				},
+				false,
+				true,
+				false ) );
+		ScriptableObject.putProperty( root, "Test", //$NON-NLS-1$
+				new CategoryWrapper( category ) );
+	}
+
+	@After
+	public void tearDown( )
+	{
+		Context.exit( );
+	}
+
+	@Test
+	public void testCachedContext( ) throws Exception
+	{
+		Collator collator = Collator.getInstance( ULocale.GERMAN );
+		Scriptable scope = newScope( collator, "first" ); //$NON-NLS-1$
+
+		assertSame( collator, eval( scope, "Test.find('compare_locale')" ) ); //$NON-NLS-1$
+		assertEquals( "first", eval( scope, "Test.find('value')" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( "bean", eval( scope, "Test.find('bean')" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// the context is kept for the scope after a collection
+		System.gc( );
+		assertSame( collator, eval( scope, "Test.find('compare_locale')" ) ); //$NON-NLS-1$
+		assertEquals( 4, contexts.size( ) );
+		for ( Integer context : contexts )
+		{
+			assertEquals( contexts.get( 0 ), context );
+		}
+
+		// a variable set to the scope later is found through the cached context
+		scope.put( "later", scope, "second" ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( "second", eval( scope, "Test.find('later')" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( contexts.get( 0 ), contexts.get( 4 ) );
+	}
+
+	@Test
+	public void testAnotherScope( ) throws Exception
+	{
+		Collator first = Collator.getInstance( ULocale.GERMAN );
+		Collator second = Collator.getInstance( ULocale.FRENCH );
+		Scriptable firstScope = newScope( first, "first" ); //$NON-NLS-1$
+		Scriptable secondScope = newScope( second, "second" ); //$NON-NLS-1$
+
+		assertSame( first, eval( firstScope, "Test.find('compare_locale')" ) ); //$NON-NLS-1$
+		assertSame( second, eval( secondScope, "Test.find('compare_locale')" ) ); //$NON-NLS-1$
+		assertEquals( "second", eval( secondScope, "Test.find('value')" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( "first", eval( firstScope, "Test.find('value')" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse( contexts.get( 0 ).equals( contexts.get( 1 ) ) );
+		assertEquals( contexts.get( 1 ), contexts.get( 2 ) );
+	}
+
+	@Test
+	public void testFinishedScope( ) throws Exception
+	{
+		Scriptable scope = newScope( Collator.getInstance( ULocale.GERMAN ),
+				"first" ); //$NON-NLS-1$
+		assertEquals( "bean", eval( scope, "Test.find('bean')" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		WeakReference<Object> scopeReference = new WeakReference<Object>( scope );
+		WeakReference<Object> beanReference = new WeakReference<Object>( scope.get( IScriptFunctionContext.FUNCTION_BEAN_NAME,
+				scope ) );
+		scope = null;
+
+		// the context kept by the function doesn't hold the scope or its bean
+		for ( int i = 0; i < 10 && beanReference.get( ) != null; i++ )
+		{
+			System.gc( );
+		}
+		assertNull( scopeReference.get( ) );
+		assertNull( beanReference.get( ) );
+	}
+
+	/**
+	 * creates the scope of a query: the collator is set to the prototype, the
+	 * variables and the function bean to the scope.
+	 */
+	protected Scriptable newScope( Collator collator, String value )
+	{
+		Scriptable prototype = cx.newObject( root );
+		prototype.put( "compare_locale", prototype, collator ); //$NON-NLS-1$
+		Scriptable scope = cx.newObject( root );
+		scope.setPrototype( prototype );
+		scope.setParentScope( root );
+		scope.put( "value", scope, value ); //$NON-NLS-1$
+		scope.put( IScriptFunctionContext.FUNCTION_BEAN_NAME,
+				scope,
+				new IScriptFunctionContext( ) {
+
+					public Object findProperty( String name )
+					{
+						return "bean".equals( name ) ? name : null; //$NON-NLS-1$
+					}
+				} );
+		return scope;
+	}
+
+	protected Object eval( Scriptable scope, String script )
+	{
+		Object result = cx.evaluateString( scope, script, "<inline>", 1, null ); //$NON-NLS-1$
+		return result instanceof Scriptable ? Context.jsToJava( result,
+				Object.class ) : result;
+	}
+}
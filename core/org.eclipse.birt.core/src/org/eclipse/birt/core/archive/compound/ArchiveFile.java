@@ -16,8 +16,11 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -56,6 +59,22 @@ public class ArchiveFile implements IArchiveFile
 
 	protected IArchiveFile af;
 
+	/**
+	 * the deflate level of the created entries, NO_COMPRESSION if they are
+	 * not compressed.
+	 */
+	protected int compressionLevel = NO_COMPRESSION;
+
+	/**
+	 * the entries are not compressed.
+	 */
+	public static final int NO_COMPRESSION = -2;
+
+	/**
+	 * the opened compressed entries, they are flushed with the archive.
+	 */
+	protected HashSet<CompressedArchiveEntry> compressedEntries = new HashSet<CompressedArchiveEntry>( );
+
 	public ArchiveFile( String fileName, String mode ) throws IOException
 	{
 		// set blank string as the default system id of the archive file.
@@ -229,6 +248,7 @@ public class ArchiveFile implements IArchiveFile
 	{
 		if ( isArchiveFileAvailable( af ) )
 		{
+			closeCompressedEntries( );
 			af.close( );
 			af = null;
 			if ( tmpFileName != null )
@@ -322,6 +342,7 @@ public class ArchiveFile implements IArchiveFile
 	{
 		if ( isArchiveFileAvailable( af ) )
 		{
+			flushCompressedEntries( );
 			af.save( );
 			/*
 			 * if ( af instanceof ArchiveFileV2 ) { ( (ArchiveFileV2) af ).save(
@@ -353,6 +374,7 @@ public class ArchiveFile implements IArchiveFile
 	{
 		if ( isArchiveFileAvailable( af ) )
 		{
+			flushCompressedEntries( );
 			af.flush( );
 		}
 		else
@@ -389,7 +411,12 @@ public class ArchiveFile implements IArchiveFile
 	{
 		if ( isArchiveFileAvailable( af ) )
 		{
-			return af.openEntry( name );
+			ArchiveEntry entry = af.openEntry( name );
+			if ( CompressedArchiveEntry.isCompressed( entry ) )
+			{
+				return new CompressedArchiveEntry( this, entry );
+			}
+			return entry;
 		}
 		else
 		{
@@ -415,7 +442,12 @@ public class ArchiveFile implements IArchiveFile
 	{
 		if ( isArchiveFileAvailable( af ) )
 		{
-			return af.createEntry( name );
+			ArchiveEntry entry = af.createEntry( name );
+			if ( compressionLevel != NO_COMPRESSION )
+			{
+				return new CompressedArchiveEntry( this, entry, compressionLevel );
+			}
+			return entry;
 		}
 		else
 		{
@@ -516,6 +548,80 @@ public class ArchiveFile implements IArchiveFile
 		}
 	}
 
+	/**
+	 * set the deflate level of the entries created after it. The compressed
+	 * entries are read by random access as the others, the readers detect
+	 * them by the data.
+	 * 
+	 * @param level
+	 *            the deflate level from Deflater.BEST_SPEED to
+	 *            Deflater.BEST_COMPRESSION, or NO_COMPRESSION.
+	 */
+	public void setCompressionLevel( int level )
+	{
+		if ( level != NO_COMPRESSION
+				&& ( level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION ) )
+		{
+			throw new IllegalArgumentException( String.valueOf( level ) );
+		}
+		this.compressionLevel = level;
+	}
+
+	public int getCompressionLevel( )
+	{
+		return compressionLevel;
+	}
+
+	synchronized void openEntry( CompressedArchiveEntry entry )
+	{
+		compressedEntries.add( entry );
+	}
+
+	synchronized void closeEntry( CompressedArchiveEntry entry )
+	{
+		compressedEntries.remove( entry );
+	}
+
+	/**
+	 * test if other compressed entries of the same name are opened.
+	 */
+	synchronized boolean isShared( CompressedArchiveEntry entry )
+	{
+		for ( CompressedArchiveEntry opened : compressedEntries )
+		{
+			if ( opened != entry && opened.getName( ).equals( entry.getName( ) ) )
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * write the compressed data to the entries, it must be done before the
+	 * entries are flushed or saved.
+	 */
+	synchronized private void flushCompressedEntries( ) throws IOException
+	{
+		for ( CompressedArchiveEntry entry : compressedEntries )
+		{
+			entry.flush( );
+		}
+	}
+
+	synchronized private void closeCompressedEntries( ) throws IOException
+	{
+		if ( !compressedEntries.isEmpty( ) )
+		{
+			ArrayList<CompressedArchiveEntry> entries = new ArrayList<CompressedArchiveEntry>(
+					compressedEntries );
+			for ( CompressedArchiveEntry entry : entries )
+			{
+				entry.close( );
+			}
+		}
+	}
+
 	/**
 	 * @param af
 	 *            ArchiveFile
@@ -0,0 +1,669 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.archive.compound;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.eclipse.birt.core.archive.ArchiveUtil;
+
+/**
+ * An archive entry whose data is compressed block by block into another
+ * entry.
+ *
+ * The data is split into blocks of BLOCK_SIZE bytes, each block is deflated
+ * and appended to the entry. The index records the position of the blocks,
+ * so any block can be read without reading the blocks before it. The
+ * structure of the entry:
+ *
+ * <pre>
+ *  header: MAGIC_TAG(long), BLOCK_SIZE(int), level(int), index position(long)
+ *  block:  method(byte), data
+ *  index:  previous index position(long), length(long), count(int),
+ *          {block id(int), position(long), size(int)}
+ * </pre>
+ *
+ * While the entry is written, nothing but the header is overwritten, a block
+ * rewritten after it is saved is appended again. When the entry is flushed,
+ * the index of the blocks saved since the last flush is appended and the
+ * header points to it, so the data is visible to the readers after that. The
+ * readers follow the indexes from the latest one. When the entry is closed, a
+ * full index replaces the chain. If the superseded blocks and indexes take
+ * more than 1/COMPACT_RATIO of the live blocks, the live blocks are moved
+ * together before the full index and the entry is truncated after it. It is
+ * not done if the entry is opened by other readers of the archive, as they
+ * still use the old positions.
+ */
+public class CompressedArchiveEntry extends ArchiveEntry
+{
+
+	/** The magic tag of the compressed entry: "BIRTCPZ1" */
+	static final long MAGIC_TAG = 0x4249525443505A31L;
+
+	static final int HEADER_SIZE = 24;
+	static final int INDEX_HEADER_SIZE = 20;
+	static final int INDEX_ITEM_SIZE = 16;
+
+	/**
+	 * the size of the uncompressed block.
+	 */
+	static final int BLOCK_SIZE = 32 * 1024;
+
+	/**
+	 * the entry is compacted on close if the superseded data is larger than
+	 * 1/COMPACT_RATIO of the live blocks.
+	 */
+	static final int COMPACT_RATIO = 8;
+
+	/** the block is saved as it is */
+	static final byte METHOD_STORED = 0;
+	/** the block is deflated */
+	static final byte METHOD_DEFLATED = 1;
+
+	protected ArchiveFile archive;
+	protected ArchiveEntry entry;
+	protected int level;
+
+	/**
+	 * the logical length of the entry.
+	 */
+	protected long length;
+
+	/**
+	 * the position and size of the saved blocks, the size is 0 if the block is
+	 * never saved.
+	 */
+	protected long[] blockPositions = new long[16];
+	protected int[] blockSizes = new int[16];
+	protected int blockCount;
+
+	/**
+	 * where the next block or index is saved.
+	 */
+	protected long dataEnd;
+
+	/**
+	 * the position of the latest index.
+	 */
+	protected long indexPosition = -1;
+
+	/**
+	 * the blocks saved since the latest index.
+	 */
+	protected int[] savedBlocks = new int[16];
+	protected int savedBlockCount;
+
+	/**
+	 * if the next index must contain all the blocks.
+	 */
+	protected boolean fullIndex;
+
+	/**
+	 * if the latest index doesn't contain all the blocks.
+	 */
+	protected boolean chained;
+
+	/**
+	 * the block being read or written.
+	 */
+	protected byte[] block = new byte[BLOCK_SIZE];
+	protected int blockId = -1;
+	protected boolean blockDirty;
+
+	/**
+	 * if the index must be saved.
+	 */
+	protected boolean modified;
+
+	/**
+	 * if an index is saved by this entry.
+	 */
+	protected boolean written;
+
+	protected byte[] buffer = new byte[BLOCK_SIZE + 64];
+	protected Deflater deflater;
+	protected Inflater inflater;
+
+	/**
+	 * create a compressed entry in an empty entry.
+	 *
+	 * @param archive
+	 *            the archive to register the entry to.
+	 * @param entry
+	 *            the entry to save the compressed data.
+	 * @param level
+	 *            the deflate level.
+	 */
+	CompressedArchiveEntry( ArchiveFile archive, ArchiveEntry entry, int level )
+			throws IOException
+	{
+		super( entry.getName( ) );
+		this.archive = archive;
+		this.entry = entry;
+		this.level = level;
+
+		byte[] header = new byte[HEADER_SIZE];
+		ArchiveUtil.longToBytes( MAGIC_TAG, header, 0 );
+		ArchiveUtil.integerToBytes( BLOCK_SIZE, header, 8 );
+		ArchiveUtil.integerToBytes( level, header, 12 );
+		ArchiveUtil.longToBytes( -1, header, 16 );
+		entry.write( 0, header, 0, HEADER_SIZE );
+		dataEnd = HEADER_SIZE;
+		// save an empty index so the entry is recognized at once
+		modified = true;
+		fullIndex = true;
+		saveIndex( );
+		archive.openEntry( this );
+	}
+
+	/**
+	 * open a compressed entry.
+	 */
+	CompressedArchiveEntry( ArchiveFile archive, ArchiveEntry entry )
+			throws IOException
+	{
+		super( entry.getName( ) );
+		this.archive = archive;
+		this.entry = entry;
+		this.level = Deflater.BEST_SPEED;
+		loadIndex( );
+		// the changes are appended to the entry
+		dataEnd = entry.getLength( );
+		archive.openEntry( this );
+	}
+
+	/**
+	 * test if the entry is a compressed entry.
+	 */
+	static boolean isCompressed( ArchiveEntry entry ) throws IOException
+	{
+		long entryLength = entry.getLength( );
+		if ( entryLength < HEADER_SIZE + INDEX_HEADER_SIZE )
+		{
+			return false;
+		}
+		byte[] header = new byte[HEADER_SIZE];
+		if ( entry.read( 0, header, 0, HEADER_SIZE ) != HEADER_SIZE
+				|| ArchiveUtil.bytesToLong( header ) != MAGIC_TAG
+				|| ArchiveUtil.bytesToInteger( header, 8 ) != BLOCK_SIZE )
+		{
+			return false;
+		}
+		long index = ArchiveUtil.bytesToLong( header, 16 );
+		return index >= HEADER_SIZE
+				&& index <= entryLength - INDEX_HEADER_SIZE;
+	}
+
+	public long getLength( ) throws IOException
+	{
+		return length;
+	}
+
+	public void setLength( long length ) throws IOException
+	{
+		if ( length < this.length )
+		{
+			int lastBlock = (int) ( ( length + BLOCK_SIZE - 1 ) / BLOCK_SIZE );
+			if ( blockId >= lastBlock )
+			{
+				blockId = -1;
+				blockDirty = false;
+			}
+			for ( int i = lastBlock; i < blockCount; i++ )
+			{
+				blockSizes[i] = 0;
+			}
+			if ( lastBlock < blockCount )
+			{
+				blockCount = lastBlock;
+			}
+			// the dropped blocks can't be removed from the chained indexes
+			fullIndex = true;
+			// clear the data after the length in the last block
+			int tail = (int) ( length % BLOCK_SIZE );
+			if ( tail != 0 )
+			{
+				loadBlock( (int) ( length / BLOCK_SIZE ) );
+				for ( int i = tail; i < BLOCK_SIZE; i++ )
+				{
+					block[i] = 0;
+				}
+				blockDirty = true;
+			}
+		}
+		this.length = length;
+		modified = true;
+	}
+
+	public int read( long pos, byte[] b, int off, int len ) throws IOException
+	{
+		if ( pos >= length )
+		{
+			return -1;
+		}
+		if ( len > length - pos )
+		{
+			len = (int) ( length - pos );
+		}
+		int total = 0;
+		while ( total < len )
+		{
+			loadBlock( (int) ( pos / BLOCK_SIZE ) );
+			int blockOff = (int) ( pos % BLOCK_SIZE );
+			int size = Math.min( len - total, BLOCK_SIZE - blockOff );
+			System.arraycopy( block, blockOff, b, off + total, size );
+			total += size;
+			pos += size;
+		}
+		return total;
+	}
+
+	public void write( long pos, byte[] b, int off, int len )
+			throws IOException
+	{
+		while ( len > 0 )
+		{
+			int id = (int) ( pos / BLOCK_SIZE );
+			int blockOff = (int) ( pos % BLOCK_SIZE );
+			int size = Math.min( len, BLOCK_SIZE - blockOff );
+			if ( blockOff == 0 && size == BLOCK_SIZE )
+			{
+				// the whole block is replaced, needn't load it
+				if ( blockId != id )
+				{
+					saveBlock( );
+					blockId = id;
+				}
+			}
+			else
+			{
+				loadBlock( id );
+			}
+			System.arraycopy( b, off, block, blockOff, size );
+			blockDirty = true;
+			modified = true;
+			pos += size;
+			off += size;
+			len -= size;
+			if ( pos > length )
+			{
+				length = pos;
+			}
+		}
+	}
+
+	public void flush( ) throws IOException
+	{
+		super.flush( );
+		saveBlock( );
+		saveIndex( );
+	}
+
+	/**
+	 * flush the entry and replace the chained indexes by a full index.
+	 */
+	private void finish( ) throws IOException
+	{
+		super.flush( );
+		saveBlock( );
+		if ( modified || ( chained && written ) )
+		{
+			modified = true;
+			fullIndex = true;
+		}
+		if ( written && !archive.isShared( this ) )
+		{
+			compact( );
+		}
+		saveIndex( );
+	}
+
+	/**
+	 * move the live blocks together if the superseded data is too large, the
+	 * full index is saved after them and the entry is truncated after it.
+	 */
+	private void compact( ) throws IOException
+	{
+		int count = 0;
+		long liveSize = 0;
+		Integer[] ids = new Integer[blockCount];
+		for ( int i = 0; i < blockCount; i++ )
+		{
+			if ( blockSizes[i] > 0 )
+			{
+				ids[count++] = Integer.valueOf( i );
+				liveSize += blockSizes[i];
+			}
+		}
+		long garbage = dataEnd - HEADER_SIZE - liveSize;
+		if ( !modified )
+		{
+			// the latest index is a full index and it is kept
+			garbage -= INDEX_HEADER_SIZE + blockCount * INDEX_ITEM_SIZE;
+		}
+		if ( garbage * COMPACT_RATIO <= liveSize )
+		{
+			return;
+		}
+		// the blocks are moved in the order of their positions, so a block is
+		// only moved to the head and never overwrites a block not moved yet.
+		Arrays.sort( ids, 0, count, new Comparator<Integer>( ) {
+
+			public int compare( Integer id1, Integer id2 )
+			{
+				long position1 = blockPositions[id1.intValue( )];
+				long position2 = blockPositions[id2.intValue( )];
+				return position1 < position2 ? -1 : ( position1 == position2
+						? 0
+						: 1 );
+			}
+		} );
+		long position = HEADER_SIZE;
+		for ( int i = 0; i < count; i++ )
+		{
+			int id = ids[i].intValue( );
+			int size = blockSizes[id];
+			if ( blockPositions[id] != position )
+			{
+				readFully( blockPositions[id], buffer, size );
+				entry.write( position, buffer, 0, size );
+				blockPositions[id] = position;
+			}
+			position += size;
+		}
+		dataEnd = position;
+		savedBlockCount = 0;
+		modified = true;
+		fullIndex = true;
+		saveIndex( );
+		entry.setLength( dataEnd );
+	}
+
+	public void refresh( ) throws IOException
+	{
+		if ( !modified )
+		{
+			entry.refresh( );
+			blockId = -1;
+			loadIndex( );
+		}
+	}
+
+	public void close( ) throws IOException
+	{
+		try
+		{
+			finish( );
+		}
+		finally
+		{
+			archive.closeEntry( this );
+			if ( deflater != null )
+			{
+				deflater.end( );
+				deflater = null;
+			}
+			if ( inflater != null )
+			{
+				inflater.end( );
+				inflater = null;
+			}
+			entry.close( );
+		}
+	}
+
+	/**
+	 * make the block the current block.
+	 */
+	private void loadBlock( int id ) throws IOException
+	{
+		if ( blockId == id )
+		{
+			return;
+		}
+		saveBlock( );
+		blockId = id;
+		int size = id < blockCount ? blockSizes[id] : 0;
+		if ( size == 0 )
+		{
+			// the block is never written
+			for ( int i = 0; i < BLOCK_SIZE; i++ )
+			{
+				block[i] = 0;
+			}
+			return;
+		}
+		readFully( blockPositions[id], buffer, size );
+		int rawSize;
+		if ( buffer[0] == METHOD_DEFLATED )
+		{
+			if ( inflater == null )
+			{
+				inflater = new Inflater( );
+			}
+			inflater.reset( );
+			inflater.setInput( buffer, 1, size - 1 );
+			try
+			{
+				rawSize = inflater.inflate( block, 0, BLOCK_SIZE );
+			}
+			catch ( DataFormatException ex )
+			{
+				blockId = -1;
+				throw new IOException( "Invalid compressed block " + id
+						+ " of " + name, ex );
+			}
+		}
+		else
+		{
+			rawSize = size - 1;
+			System.arraycopy( buffer, 1, block, 0, rawSize );
+		}
+		for ( int i = rawSize; i < BLOCK_SIZE; i++ )
+		{
+			block[i] = 0;
+		}
+	}
+
+	/**
+	 * save the current block if it is changed.
+	 */
+	private void saveBlock( ) throws IOException
+	{
+		if ( !blockDirty )
+		{
+			return;
+		}
+		blockDirty = false;
+		// only the data before the length is saved
+		long blockStart = (long) blockId * BLOCK_SIZE;
+		int rawSize = (int) Math.min( BLOCK_SIZE, length - blockStart );
+		if ( rawSize <= 0 )
+		{
+			return;
+		}
+		if ( deflater == null )
+		{
+			deflater = new Deflater( level );
+		}
+		deflater.reset( );
+		deflater.setInput( block, 0, rawSize );
+		deflater.finish( );
+		int size = 1;
+		while ( !deflater.finished( ) && size < rawSize )
+		{
+			size += deflater.deflate( buffer, size, buffer.length - size );
+		}
+		if ( deflater.finished( ) && size <= rawSize )
+		{
+			buffer[0] = METHOD_DEFLATED;
+		}
+		else
+		{
+			// the data can't be compressed
+			buffer[0] = METHOD_STORED;
+			System.arraycopy( block, 0, buffer, 1, rawSize );
+			size = rawSize + 1;
+		}
+		ensureBlockCount( blockId + 1 );
+		entry.write( dataEnd, buffer, 0, size );
+		blockPositions[blockId] = dataEnd;
+		blockSizes[blockId] = size;
+		dataEnd += size;
+		if ( savedBlockCount == savedBlocks.length )
+		{
+			int[] blocks = new int[savedBlockCount * 2];
+			System.arraycopy( savedBlocks, 0, blocks, 0, savedBlockCount );
+			savedBlocks = blocks;
+		}
+		savedBlocks[savedBlockCount++] = blockId;
+	}
+
+	private void ensureBlockCount( int count )
+	{
+		if ( count > blockPositions.length )
+		{
+			int capacity = Math.max( count, blockPositions.length * 2 );
+			long[] positions = new long[capacity];
+			System.arraycopy( blockPositions, 0, positions, 0, blockCount );
+			int[] sizes = new int[capacity];
+			System.arraycopy( blockSizes, 0, sizes, 0, blockCount );
+			blockPositions = positions;
+			blockSizes = sizes;
+		}
+		if ( count > blockCount )
+		{
+			blockCount = count;
+		}
+	}
+
+	/**
+	 * append the index of the blocks saved since the latest index, or of all
+	 * the blocks, and point the header to it.
+	 */
+	private void saveIndex( ) throws IOException
+	{
+		if ( !modified )
+		{
+			return;
+		}
+		boolean full = fullIndex || indexPosition == -1;
+		int count = full ? blockCount : savedBlockCount;
+		byte[] index = new byte[INDEX_HEADER_SIZE + count * INDEX_ITEM_SIZE];
+		ArchiveUtil.longToBytes( full ? -1 : indexPosition, index, 0 );
+		ArchiveUtil.longToBytes( length, index, 8 );
+		ArchiveUtil.integerToBytes( count, index, 16 );
+		for ( int i = 0; i < count; i++ )
+		{
+			int id = full ? i : savedBlocks[i];
+			int off = INDEX_HEADER_SIZE + i * INDEX_ITEM_SIZE;
+			ArchiveUtil.integerToBytes( id, index, off );
+			ArchiveUtil.longToBytes( blockPositions[id], index, off + 4 );
+			ArchiveUtil.integerToBytes( blockSizes[id], index, off + 12 );
+		}
+		entry.write( dataEnd, index, 0, index.length );
+		byte[] position = new byte[8];
+		ArchiveUtil.longToBytes( dataEnd, position, 0 );
+		entry.write( 16, position, 0, 8 );
+
+		indexPosition = dataEnd;
+		dataEnd += index.length;
+		savedBlockCount = 0;
+		chained = !full;
+		fullIndex = false;
+		modified = false;
+		written = true;
+	}
+
+	/**
+	 * load the block positions from the latest index and the indexes before
+	 * it.
+	 */
+	private void loadIndex( ) throws IOException
+	{
+		byte[] header = new byte[HEADER_SIZE];
+		readFully( 0, header, HEADER_SIZE );
+		indexPosition = ArchiveUtil.bytesToLong( header, 16 );
+		blockCount = 0;
+		savedBlockCount = 0;
+		boolean latest = true;
+		long position = indexPosition;
+		byte[] indexHeader = new byte[INDEX_HEADER_SIZE];
+		while ( position != -1 )
+		{
+			if ( position < HEADER_SIZE )
+			{
+				throw new IOException( "Invalid compressed entry " + name );
+			}
+			readFully( position, indexHeader, INDEX_HEADER_SIZE );
+			long previous = ArchiveUtil.bytesToLong( indexHeader, 0 );
+			int count = ArchiveUtil.bytesToInteger( indexHeader, 16 );
+			if ( count < 0 || previous >= position )
+			{
+				throw new IOException( "Invalid compressed entry " + name );
+			}
+			if ( latest )
+			{
+				length = ArchiveUtil.bytesToLong( indexHeader, 8 );
+				chained = previous != -1;
+				latest = false;
+			}
+			byte[] index = new byte[count * INDEX_ITEM_SIZE];
+			readFully( position + INDEX_HEADER_SIZE, index, index.length );
+			for ( int i = 0; i < count; i++ )
+			{
+				int off = i * INDEX_ITEM_SIZE;
+				int id = ArchiveUtil.bytesToInteger( index, off );
+				int oldCount = blockCount;
+				ensureBlockCount( id + 1 );
+				for ( int j = oldCount; j < blockCount; j++ )
+				{
+					blockSizes[j] = -1;
+				}
+				// the later index overrides the earlier ones
+				if ( blockSizes[id] == -1 )
+				{
+					blockPositions[id] = ArchiveUtil.bytesToLong( index,
+							off + 4 );
+					blockSizes[id] = ArchiveUtil.bytesToInteger( index,
+							off + 12 );
+				}
+			}
+			position = previous;
+		}
+		for ( int i = 0; i < blockCount; i++ )
+		{
+			if ( blockSizes[i] == -1 )
+			{
+				blockSizes[i] = 0;
+			}
+		}
+	}
+
+	private void readFully( long pos, byte[] b, int len ) throws IOException
+	{
+		int total = 0;
+		while ( total < len )
+		{
+			int size = entry.read( pos + total, b, total, len - total );
+			if ( size <= 0 )
+			{
+				throw new IOException( "Invalid compressed entry " + name );
+			}
+			total += size;
+		}
+	}
+}
@@ -22,6 +22,7 @@ import com.ibm.icu.text.DateFormat;
 import com.ibm.icu.text.SimpleDateFormat;
 
 import java.text.ParseException;
+import java.text.ParsePosition;
 import com.ibm.icu.util.Calendar;
 import com.ibm.icu.util.TimeZone;
 
@@ -64,6 +65,13 @@ public final class DataTypeUtil
 	// cache DateFormatter of ICU
 	private static Map dfMap = new HashMap( );
 	private static Map nfMap = new HashMap( );
+
+	// ASCII characters which may appear in strings accepted by
+	// Integer.valueOf, new BigDecimal(String) and Double.valueOf
+	private static final String INTEGER_CHARS = "+-0123456789";
+	private static final String DECIMAL_CHARS = "+-.0123456789eE";
+	private static final String DOUBLE_CHARS = "+-.0123456789aAbBcCdDeEfFiInNpPtxXy";
+
 	// Default Date/Time Style
 	private static int DEFAULT_DATE_STYLE = DateFormat.FULL;
 
@@ -128,6 +136,30 @@ public final class DataTypeUtil
 		}
 	}
 
+	/**
+	 * Converts the values of one column. The strings converted to dates are
+	 * first parsed with the format which matched the previous value of the
+	 * column.
+	 * 
+	 * @param source
+	 * @param toType
+	 * @param hint
+	 *            the format which matched the previous value of the column,
+	 *            or null.
+	 * @return
+	 * @throws BirtException
+	 */
+	public static Object convert( Object source, int toType,
+			DateFormatHint hint ) throws BirtException
+	{
+		if ( hint != null && toType == DataType.DATE_TYPE
+				&& source instanceof CharSequence )
+		{
+			return toDate( source.toString( ), hint );
+		}
+		return convert( source, toType );
+	}
+
 	/**
 	 * convert a object to given class
 	 * Classes supported:
@@ -260,40 +292,26 @@ public final class DataTypeUtil
 		else if ( source instanceof CharSequence )
 		{
 			source = source.toString( );
-			try
-			{
-				return Integer.valueOf( (String) source );
-			}
-			catch ( NumberFormatException e )
+			if ( mayBeJavaNumber( (String) source, INTEGER_CHARS, false ) )
 			{
 				try
 				{
-					Number number = NumberFormat.getInstance(locale).parse((String) source);
-					if( number != null )
-					{
-						if ( !isConvertableToInteger( number ))
-						{
-							throw new CoreException( ResourceConstants.CONVERT_FAILS,
-									new Object[]{
-											source.toString( ), "Integer"
-									} );
-						}
-						return Integer.valueOf( number.intValue( ));
-					}
-					
-					throw new CoreException( ResourceConstants.CONVERT_FAILS,
-							new Object[]{
-									source.toString( ), "Integer"
-							} );
+					return Integer.valueOf( (String) source );
 				}
-				catch ( ParseException e1 )
+				catch ( NumberFormatException e )
 				{
-					throw new CoreException( ResourceConstants.CONVERT_FAILS,
-							new Object[]{
-									source.toString( ), "Integer"
-							} );
+					// out of range, try the locale sensitive format below
 				}
 			}
+			Number number = parseNumber( (String) source, locale );
+			if ( number == null || !isConvertableToInteger( number ) )
+			{
+				throw new CoreException( ResourceConstants.CONVERT_FAILS,
+						new Object[]{
+								source.toString( ), "Integer"
+						} );
+			}
+			return Integer.valueOf( number.intValue( ) );
 		}
 		else
 		{
@@ -371,32 +389,26 @@ public final class DataTypeUtil
 			{
 				return null;
 			}
-			try
-			{
-				return new BigDecimal( (String) source );
-			}
-			catch ( NumberFormatException e )
+			if ( mayBeJavaNumber( (String) source, DECIMAL_CHARS, false ) )
 			{
 				try
 				{
-					Number number = NumberFormat.getInstance( JRE_DEFAULT_LOCALE )
-							.parse( (String) source );
-					if( number != null )
-						return new BigDecimal( number.toString( ) );
-					
-					throw new CoreException( ResourceConstants.CONVERT_FAILS,
-							new Object[]{
-									source.toString( ), "BigDecimal"
-							} );
+					return new BigDecimal( (String) source );
 				}
-				catch ( ParseException e1 )
+				catch ( NumberFormatException e )
 				{
-					throw new CoreException( ResourceConstants.CONVERT_FAILS,
-							new Object[]{
-									source.toString( ), "BigDecimal"
-							} );
+					// try the locale sensitive format below
 				}
 			}
+			Number number = parseNumber( (String) source, JRE_DEFAULT_LOCALE );
+			if ( number == null )
+			{
+				throw new CoreException( ResourceConstants.CONVERT_FAILS,
+						new Object[]{
+								source.toString( ), "BigDecimal"
+						} );
+			}
+			return new BigDecimal( number.toString( ) );
 		}
 		else
 		{
@@ -838,7 +850,26 @@ public final class DataTypeUtil
 	public static Date toDate( String source, ULocale locale, TimeZone timeZone )
 			throws BirtException
 	{
-		DateFormat dateFormat = (DateFormat) getDateFormatObject(source, locale, timeZone).clone();
+		return toDate( source, locale, timeZone, null );
+	}
+
+	/**
+	 * Parses a date/time string, the format which matched the previous value
+	 * of the same column is tried first.
+	 * 
+	 * @param source
+	 * @param locale
+	 * @param timeZone
+	 * @param hint
+	 *            the format which matched the previous value, or null.
+	 * @return
+	 * @throws BirtException
+	 */
+	public static Date toDate( String source, ULocale locale,
+			TimeZone timeZone, DateFormatHint hint ) throws BirtException
+	{
+		DateFormat dateFormat = (DateFormat) getDateFormatObject( source,
+				locale, timeZone, hint ).clone( );
 		Date resultDate = null;
 		try
 		{
@@ -879,80 +910,114 @@ public final class DataTypeUtil
 	 */
 	public static DateFormat getDateFormatObject( String source, ULocale locale, TimeZone timeZone )
 			throws BirtException
+	{
+		return getDateFormatObject( source, locale, timeZone, null );
+	}
+
+	/**
+	 * Retrieve date format object that matches the given date/time string.
+	 * The format in the hint is tried first, and the hint is updated with the
+	 * matched format.
+	 * 
+	 * @param source
+	 * @param locale
+	 * @param timeZone
+	 * @param hint
+	 *            the format which matched the previous value, or null.
+	 * @return
+	 * @throws BirtException
+	 */
+	public static DateFormat getDateFormatObject( String source,
+			ULocale locale, TimeZone timeZone, DateFormatHint hint )
+			throws BirtException
 	{
 		if ( source == null )
 			return null;
 
-		DateFormat dateFormat = null;
-		Date resultDate = null;
-		
 		boolean existTime = p1.matcher( source ).matches( )
 				|| p2.matcher( source ).matches( );
 
+		String formatKey = null;
+		DateFormat dateFormat = null;
+		if ( hint != null )
+		{
+			formatKey = locale.getName( ) + ( existTime ? "/t" : "/d" );
+			dateFormat = hint.getDateFormat( formatKey, locale );
+			if ( dateFormat != null
+					&& parseDate( dateFormat, source, timeZone ) != null )
+			{
+				return dateFormat;
+			}
+		}
+
 		for ( int i = DEFAULT_DATE_STYLE; i <= DateFormat.SHORT; i++ )
 		{
 			for ( int j = DEFAULT_DATE_STYLE; j <= DateFormat.SHORT; j++ )
 			{
 				dateFormat = DateFormatFactory.getDateTimeInstance( i, j, locale );
-				TimeZone savedTimeZone = null; 
-				if( timeZone != null )
+				if ( parseDate( dateFormat, source, timeZone ) != null )
 				{
-					savedTimeZone = dateFormat.getTimeZone( );
-					dateFormat.setTimeZone( timeZone );
-				}
-				try
-				{
-					resultDate = dateFormat.parse( source );
+					if ( hint != null )
+					{
+						hint.setStyles( formatKey, i, j );
+					}
 					return dateFormat;
 				}
-				catch ( ParseException e1 )
-				{
-				}
-				finally 
-				{
-					if( savedTimeZone != null )
-						dateFormat.setTimeZone( savedTimeZone );
-				}
 			}
 
 			// only Date, no Time 
 			if ( !existTime )
 			{
 				dateFormat = DateFormatFactory.getDateInstance( i, locale );
-				TimeZone savedTimeZone = null; 
-				if( timeZone != null )
-				{
-					savedTimeZone = dateFormat.getTimeZone( );
-					dateFormat.setTimeZone( timeZone );
-				}
-				try
+				if ( parseDate( dateFormat, source, timeZone ) != null )
 				{
-					resultDate = dateFormat.parse( source );
+					if ( hint != null )
+					{
+						hint.setStyles( formatKey, i, -1 );
+					}
 					return dateFormat;
 				}
-				catch ( ParseException e1 )
-				{
-				}
-				finally 
-				{
-					if( savedTimeZone != null )
-						dateFormat.setTimeZone( savedTimeZone );
-				}
 			}
 		}
 
 		// for the String can not be parsed, throws a BirtException
-		if ( resultDate == null )
+		throw new CoreException( 
+				ResourceConstants.CONVERT_FAILS,
+				new Object[]{
+						source.toString( ), "Date"
+				} );
+	}
+
+	/**
+	 * Parses the string with the given format in the given time zone. Returns
+	 * null instead of throwing ParseException when the string can not be
+	 * parsed, which is the same failure condition as DateFormat.parse(String).
+	 * 
+	 * @param dateFormat
+	 * @param source
+	 * @param timeZone
+	 * @return
+	 */
+	private static Date parseDate( DateFormat dateFormat, String source,
+			TimeZone timeZone )
+	{
+		TimeZone savedTimeZone = null;
+		if ( timeZone != null )
 		{
-			throw new CoreException( 
-					ResourceConstants.CONVERT_FAILS,
-					new Object[]{
-							source.toString( ), "Date"
-					} );
+			savedTimeZone = dateFormat.getTimeZone( );
+			dateFormat.setTimeZone( timeZone );
+		}
+		try
+		{
+			ParsePosition position = new ParsePosition( 0 );
+			Date resultDate = dateFormat.parse( source, position );
+			return position.getIndex( ) == 0 ? null : resultDate;
+		}
+		finally
+		{
+			if ( savedTimeZone != null )
+				dateFormat.setTimeZone( savedTimeZone );
 		}
-
-		// never access here
-		return dateFormat;
 	}
 
 	/**
@@ -966,23 +1031,26 @@ public final class DataTypeUtil
 	public static Date toDate( String source, TimeZone timeZone ) throws BirtException
 	{
 		assert timeZone != null;
-		try
-		{
-			return toDateISO8601( source, timeZone );
-		}
-		catch ( BirtException e )
+		if ( mayBeISO8601( source.trim( ) ) )
 		{
 			try
 			{
-				// format the String for JRE default locale
-				return toDate( source, JRE_DEFAULT_LOCALE, timeZone );
+				return toDateISO8601( source, timeZone );
 			}
-			catch ( BirtException use )
+			catch ( BirtException e )
 			{
-				// format the String for Locale.US
-				return toDate( source, DEFAULT_LOCALE, timeZone );
 			}
 		}
+		try
+		{
+			// format the String for JRE default locale
+			return toDate( source, JRE_DEFAULT_LOCALE, timeZone );
+		}
+		catch ( BirtException use )
+		{
+			// format the String for Locale.US
+			return toDate( source, DEFAULT_LOCALE, timeZone );
+		}
 	}
 	
 	/**
@@ -1083,42 +1151,27 @@ public final class DataTypeUtil
 		else if ( source instanceof CharSequence )
 		{
 			source = source.toString( );
-			try
-			{
-				return Double.valueOf( (String) source );
-			}
-			catch ( NumberFormatException e )
+			if ( mayBeJavaNumber( (String) source, DOUBLE_CHARS, true ) )
 			{
 				try
 				{
-					Number number = NumberFormat.getInstance( locale == null
-							? JRE_DEFAULT_LOCALE : locale )
-							.parse( (String) source );
-					if( number != null )
-					{
-						if ( !isConvertableToDouble( number ) )
-						{
-							throw new CoreException( ResourceConstants.CONVERT_FAILS,
-									new Object[]{
-											source.toString( ), "Double"
-									} );
-						}
-						return new Double( number.doubleValue( ));
-					}
-					
-					throw new CoreException( ResourceConstants.CONVERT_FAILS,
-							new Object[]{
-									source.toString( ), "Double"
-							} );
+					return Double.valueOf( (String) source );
 				}
-				catch ( ParseException e1 )
+				catch ( NumberFormatException e )
 				{
-					throw new CoreException( ResourceConstants.CONVERT_FAILS,
-							new Object[]{
-									source.toString( ), "Double"
-							} );
+					// try the locale sensitive format below
 				}
 			}
+			Number number = parseNumber( (String) source, locale == null
+					? JRE_DEFAULT_LOCALE : locale );
+			if ( number == null || !isConvertableToDouble( number ) )
+			{
+				throw new CoreException( ResourceConstants.CONVERT_FAILS,
+						new Object[]{
+								source.toString( ), "Double"
+						} );
+			}
+			return new Double( number.doubleValue( ) );
 		}
 		else
 		{
@@ -1617,34 +1670,67 @@ public final class DataTypeUtil
 	 * @return result Date
 	 */
 	private static Date toDate( String source ) throws BirtException
+	{
+		return toDate( source, (DateFormatHint) null );
+	}
+
+	/**
+	 * Convert String without specified locale to java.util.Date, the format
+	 * in the hint is tried first.
+	 */
+	private static Date toDate( String source, DateFormatHint hint )
+			throws BirtException
 	{
 		source = source.trim( );
+		if ( mayBeISO8601( source ) )
+		{
+			try
+			{
+				return toDateISO8601( source, null );
+			}
+			catch ( BirtException e )
+			{
+			}
+		}
 		try
 		{
-			return toDateISO8601( source, null );
+			// format the String for JRE default locale
+			return toDate( source, JRE_DEFAULT_LOCALE, null, hint );
 		}
-		catch ( BirtException e )
+		catch ( BirtException use )
 		{
 			try
 			{
-				// format the String for JRE default locale
-				return toDate( source, JRE_DEFAULT_LOCALE );
+				// format the String for Locale.US
+				return toDate( source, DEFAULT_LOCALE, null, hint );
 			}
-			catch ( BirtException use )
+			catch ( BirtException de )
 			{
-				try
-				{
-					// format the String for Locale.US
-					return toDate( source, DEFAULT_LOCALE );
-				}
-				catch ( BirtException de )
-				{
-					return toDateForSpecialFormat( source );
-				}
+				return toDateForSpecialFormat( source );
 			}
 		}
 	}
 
+	/**
+	 * Cheaply checks whether a trimmed string may be parsed as ISO8601, so
+	 * that the exception thrown by a failing ISO8601 parse is avoided for
+	 * values in other formats. All ISO8601 patterns start with a numeric
+	 * field, and apart from a bare year they all contain '-' or ':'.
+	 * 
+	 * @param source
+	 * @return
+	 */
+	private static boolean mayBeISO8601( String source )
+	{
+		if ( source.length( ) == 0 )
+			return false;
+		char c = source.charAt( 0 );
+		if ( ( c < '0' || c > '9' ) && c != '-' && c != '+' )
+			return false;
+		return source.length( ) <= 5
+				|| source.indexOf( '-' ) >= 0 || source.indexOf( ':' ) >= 0;
+	}
+
 	/**
 	 * convert String with ISO8601 date format to java.util.Date
 	 * 
@@ -1921,6 +2007,52 @@ public final class DataTypeUtil
 		return odaType;
 	}
 	
+	/**
+	 * Cheaply checks whether a JDK number parser may accept the string. Returns
+	 * false when the string is empty or has an ASCII character outside the
+	 * given alphabet, in which case the JDK parser would throw
+	 * NumberFormatException. Other characters are left to the JDK parser since
+	 * some of them are valid digits.
+	 * 
+	 * @param source
+	 * @param alphabet
+	 * @param allowWhitespace
+	 *            whether the parser trims the string
+	 * @return
+	 */
+	private static boolean mayBeJavaNumber( String source, String alphabet,
+			boolean allowWhitespace )
+	{
+		if ( source.length( ) == 0 )
+			return false;
+		for ( int i = 0; i < source.length( ); i++ )
+		{
+			char c = source.charAt( i );
+			if ( c >= 128 || ( allowWhitespace && c <= ' ' ) )
+				continue;
+			if ( alphabet.indexOf( c ) < 0 )
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the string with the number format of the given locale. Returns
+	 * null instead of throwing ParseException when the string can not be
+	 * parsed, which is the same failure condition as NumberFormat.parse(String).
+	 * 
+	 * @param source
+	 * @param locale
+	 * @return
+	 */
+	private static Number parseNumber( String source, ULocale locale )
+	{
+		ParsePosition position = new ParsePosition( 0 );
+		Number number = NumberFormat.getInstance( locale ).parse( source,
+				position );
+		return position.getIndex( ) == 0 ? null : number;
+	}
+
 	private static boolean isConvertableToInteger( Number n )
 	{
 		assert n != null;
@@ -1938,5 +2070,35 @@ public final class DataTypeUtil
 		return !Double.isInfinite( doubleValue );
 		
 	}
+
+	/**
+	 * The date format which matched the previous value of a column. The
+	 * values of a column usually have the same format, so it is tried first
+	 * for the next value. A hint is used by one column and one thread.
+	 */
+	public static final class DateFormatHint
+	{
+
+		// the date and time styles keyed by locale and by whether the value
+		// has a time part. A time style of -1 stands for the date only format.
+		private Map<String, int[]> styles = new HashMap<String, int[]>( );
+
+		DateFormat getDateFormat( String formatKey, ULocale locale )
+		{
+			int[] style = styles.get( formatKey );
+			if ( style == null )
+			{
+				return null;
+			}
+			return style[1] < 0 ? DateFormatFactory.getDateInstance( style[0],
+					locale ) : DateFormatFactory.getDateTimeInstance( style[0],
+					style[1], locale );
+		}
+
+		void setStyles( String formatKey, int dateStyle, int timeStyle )
+		{
+			styles.put( formatKey, new int[]{dateStyle, timeStyle} );
+		}
+	}
 }
 
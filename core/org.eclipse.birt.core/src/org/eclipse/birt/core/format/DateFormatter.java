@@ -64,6 +64,11 @@ public class DateFormatter implements IFormatter
 	 */
 	static protected Logger logger = Logger.getLogger( DateFormatter.class.getName( ) );
 
+	/**
+	 * JVM-wide cache of parsed patterns, shared by all the date formatters.
+	 */
+	private static final FormatPatternCache<DateFormatter> patternCache = new FormatPatternCache<DateFormatter>( );
+
 	/**
 	 * constuctor method with no paremeter
 	 */
@@ -153,6 +158,15 @@ public class DateFormatter implements IFormatter
 
 	public void applyPattern( String formatString )
 	{
+		DateFormatter prototype = patternCache.get( formatString,
+				locale,
+				timeZone );
+		if ( prototype != null )
+		{
+			copyFormats( prototype );
+			return;
+		}
+
 		createPattern( formatString );
 		
 		// make sure there is a separate formatter for each kind of dates
@@ -168,6 +182,43 @@ public class DateFormatter implements IFormatter
 		}
 		
 		applyTimeZone( );
+
+		if ( dateTimeFormat != null )
+		{
+			prototype = new DateFormatter( this );
+			patternCache.put( formatString, locale, timeZone, prototype );
+		}
+	}
+
+	/**
+	 * creates a prototype that holds copies of the given formatter's parsed
+	 * formats, used only to be cached in the pattern cache.
+	 */
+	private DateFormatter( DateFormatter formatter )
+	{
+		this.locale = formatter.locale;
+		this.timeZone = formatter.timeZone;
+		copyFormats( formatter );
+	}
+
+	/**
+	 * copies the pattern and the parsed formats from another formatter with
+	 * the same locale and time zone. The formats are cloned as they are not
+	 * thread safe.
+	 */
+	private void copyFormats( DateFormatter formatter )
+	{
+		this.formatPattern = formatter.formatPattern;
+		this.dateTimeFormat = cloneFormat( formatter.dateTimeFormat );
+		this.dateFormat = cloneFormat( formatter.dateFormat );
+		this.timeFormat = cloneFormat( formatter.timeFormat );
+	}
+
+	private static com.ibm.icu.text.DateFormat cloneFormat(
+			com.ibm.icu.text.DateFormat format )
+	{
+		return format == null ? null : (com.ibm.icu.text.DateFormat) format
+				.clone( );
 	}
 	
 	/**
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2004 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.format;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ibm.icu.util.TimeZone;
+import com.ibm.icu.util.ULocale;
+
+/**
+ * A JVM-wide cache of parsed format patterns, keyed by the format pattern,
+ * locale and time zone.
+ * 
+ * The cached values are prototypes which are never handed out or modified;
+ * each formatter copies (clones) the prototype, so the formatter instances
+ * stay confined to the thread using them while the costly pattern parsing
+ * and locale data lookup is only done once per JVM.
+ */
+final class FormatPatternCache<T>
+{
+
+	/**
+	 * maximum number of cached patterns; the cache is cleared if exceeded,
+	 * which only happens with dynamically generated patterns.
+	 */
+	static final int MAX_ENTRIES = 1024;
+
+	private final ConcurrentHashMap<Key, T> prototypes = new ConcurrentHashMap<Key, T>( );
+
+	/**
+	 * returns the cached prototype, or null if the pattern is not cached.
+	 */
+	T get( String pattern, ULocale locale, TimeZone timeZone )
+	{
+		return prototypes.get( new Key( pattern, locale, timeZone ) );
+	}
+
+	/**
+	 * caches a prototype; the caller must not modify the prototype after
+	 * caching it.
+	 */
+	void put( String pattern, ULocale locale, TimeZone timeZone, T prototype )
+	{
+		if ( prototype == null )
+		{
+			return;
+		}
+		if ( prototypes.size( ) >= MAX_ENTRIES )
+		{
+			prototypes.clear( );
+		}
+		prototypes.putIfAbsent( new Key( pattern, locale, timeZone ), prototype );
+	}
+
+	int size( )
+	{
+		return prototypes.size( );
+	}
+
+	void clear( )
+	{
+		prototypes.clear( );
+	}
+
+	private static final class Key
+	{
+
+		private final String pattern;
+		private final ULocale locale;
+		private final TimeZone timeZone;
+		private final int hash;
+
+		Key( String pattern, ULocale locale, TimeZone timeZone )
+		{
+			this.pattern = pattern;
+			this.locale = locale;
+			this.timeZone = timeZone;
+			int h = pattern == null ? 0 : pattern.hashCode( );
+			h = h * 31 + ( locale == null ? 0 : locale.hashCode( ) );
+			h = h * 31 + ( timeZone == null ? 0 : timeZone.hashCode( ) );
+			this.hash = h;
+		}
+
+		public int hashCode( )
+		{
+			return hash;
+		}
+
+		public boolean equals( Object obj )
+		{
+			if ( this == obj )
+			{
+				return true;
+			}
+			if ( !( obj instanceof Key ) )
+			{
+				return false;
+			}
+			Key key = (Key) obj;
+			return hash == key.hash && equals( pattern, key.pattern )
+					&& equals( locale, key.locale )
+					&& equals( timeZone, key.timeZone );
+		}
+
+		private static boolean equals( Object o1, Object o2 )
+		{
+			return o1 == null ? o2 == null : o1.equals( o2 );
+		}
+	}
+}
@@ -44,6 +44,11 @@ public class NumberFormatter implements IFormatter
 	static protected Logger logger = Logger.getLogger( NumberFormatter.class
 			.getName( ) );
 
+	/**
+	 * JVM-wide cache of parsed patterns, shared by all the number formatters.
+	 */
+	private static final FormatPatternCache<NumberFormatter> patternCache = new FormatPatternCache<NumberFormatter>( );
+
 	/**
 	 * the format pattern
 	 */
@@ -177,6 +182,66 @@ public class NumberFormatter implements IFormatter
 	 *            ths string used for formatting numeric data
 	 */
 	public void applyPattern( String patternStr )
+	{
+		// the pattern attributes and decimal format are kept from a previously
+		// applied pattern, so only a formatter without them can share the
+		// cached patterns
+		boolean cacheable = !digitSubstitution
+				&& roundingMode == RoundingMode.UNNECESSARY
+				&& decimalFormat == null;
+		if ( cacheable )
+		{
+			NumberFormatter prototype = patternCache.get( patternStr,
+					locale,
+					null );
+			if ( prototype != null )
+			{
+				copyFormats( prototype );
+				return;
+			}
+		}
+		doApplyPattern( patternStr );
+		if ( cacheable && numberFormat != null )
+		{
+			patternCache.put( patternStr,
+					locale,
+					null,
+					new NumberFormatter( this ) );
+		}
+	}
+
+	/**
+	 * creates a prototype that holds copies of the given formatter's parsed
+	 * formats, used only to be cached in the pattern cache.
+	 */
+	private NumberFormatter( NumberFormatter formatter )
+	{
+		this.locale = formatter.locale;
+		copyFormats( formatter );
+	}
+
+	/**
+	 * copies the pattern and the parsed formats from another formatter with
+	 * the same locale. The formats are cloned as they are not thread safe.
+	 */
+	private void copyFormats( NumberFormatter formatter )
+	{
+		this.formatPattern = formatter.formatPattern;
+		this.numberFormat = formatter.numberFormat == null
+				? null
+				: (NumberFormat) formatter.numberFormat.clone( );
+		this.decimalFormat = formatter.decimalFormat == null
+				? null
+				: (DecimalFormat) formatter.decimalFormat.clone( );
+		this.decimalSeparator = formatter.decimalSeparator;
+		this.hexFlag = formatter.hexFlag;
+		this.roundPrecision = formatter.roundPrecision;
+		this.realPattern = formatter.realPattern;
+		this.digitSubstitution = formatter.digitSubstitution;
+		this.roundingMode = formatter.roundingMode;
+	}
+
+	private void doApplyPattern( String patternStr )
 	{
 		try
 		{
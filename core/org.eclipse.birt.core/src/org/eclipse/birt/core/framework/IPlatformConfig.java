@@ -41,4 +41,15 @@ public interface IPlatformConfig
 	 */
 	static final String TEMP_DIR = "tmpDir"; //$NON-NLS-1$
 
+	/**
+	 * defines the file caching the bundles loaded from the class path when the
+	 * platform runs without OSGi, the value is a string object. The bundles
+	 * are not cached if it is not defined or is an empty string. If the value
+	 * is an existing folder, the cache file in it is named by a digest of the
+	 * class path, so applications with different class paths don't share it.
+	 * The cache decides the extensions of the platform, it should be kept in a
+	 * folder only the user running the platform can write.
+	 */
+	static final String BUNDLE_CACHE = "bundleCache"; //$NON-NLS-1$
+
 }
\ No newline at end of file
@@ -0,0 +1,469 @@
+/*******************************************************************************
+ * Copyright (c) 2010, 2011 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.framework.jar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+/**
+ * caches the bundles loaded from the class path, so the manifest and the
+ * plugin.xml of a bundle are only parsed again if the bundle is changed.
+ *
+ * Each bundle is saved with the length and the last modified time of its jar,
+ * or of its manifest, plugin.xml and plugin.properties if the bundle is a
+ * folder. Bundles which are not in the local file system are not cached. The
+ * class path entries which are not bundles are cached too, so their manifest
+ * is not read at all.
+ *
+ * The cache file is only trusted if it is saved for the same class path and
+ * its checksum is right, otherwise the bundles are loaded from the class path
+ * and the cache is written again.
+ */
+class BundleCache
+{
+
+	protected static Logger logger = Logger.getLogger( BundleCache.class
+			.getName( ) );
+
+	static final int MAGIC = 0x42554E44; // "BUND"
+	static final int VERSION = 2;
+
+	protected File file;
+	/**
+	 * digest of the class path the cache is saved for.
+	 */
+	protected String classPathDigest;
+	/**
+	 * entries loaded from the cache file, the key is the root of the bundle.
+	 */
+	protected HashMap<String, Entry> entries = new HashMap<String, Entry>( );
+	/**
+	 * entries of the bundles installed in this run.
+	 */
+	protected HashMap<String, Entry> usedEntries = new HashMap<String, Entry>( );
+	protected boolean dirty;
+
+	BundleCache( File file, String classPathDigest )
+	{
+		this.file = file;
+		this.classPathDigest = classPathDigest;
+	}
+
+	/**
+	 * load the cache file. A missing or broken cache file, or a cache file of
+	 * another class path, is ignored.
+	 */
+	void open( )
+	{
+		if ( !file.isFile( ) )
+		{
+			return;
+		}
+		try
+		{
+			CRC32 checksum = new CRC32( );
+			DataInputStream in = new DataInputStream( new CheckedInputStream(
+					new BufferedInputStream( new FileInputStream( file ) ),
+					checksum ) );
+			try
+			{
+				if ( in.readInt( ) != MAGIC || in.readInt( ) != VERSION
+						|| !classPathDigest.equals( in.readUTF( ) ) )
+				{
+					return;
+				}
+				int size = in.readInt( );
+				for ( int i = 0; i < size; i++ )
+				{
+					String root = in.readUTF( );
+					Entry entry = new Entry( );
+					entry.fingerprint = in.readUTF( );
+					int length = in.readInt( );
+					if ( length < 0 || length > file.length( ) )
+					{
+						throw new IOException( "Invalid bundle length "
+								+ length );
+					}
+					entry.data = new byte[length];
+					in.readFully( entry.data );
+					entries.put( root, entry );
+				}
+				long value = checksum.getValue( );
+				if ( in.readLong( ) != value )
+				{
+					throw new IOException( "Invalid checksum of the bundle cache" );
+				}
+			}
+			finally
+			{
+				in.close( );
+			}
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to read the bundle cache " + file,
+					ex );
+			entries.clear( );
+		}
+	}
+
+	/**
+	 * save the bundles installed in this run if any of them is not loaded from
+	 * the cache.
+	 */
+	void save( )
+	{
+		if ( !dirty && usedEntries.size( ) == entries.size( ) )
+		{
+			return;
+		}
+		File folder = file.getAbsoluteFile( ).getParentFile( );
+		try
+		{
+			if ( folder != null )
+			{
+				folder.mkdirs( );
+			}
+			// other processes may read the cache at the same time, write it
+			// to a temporary file and then rename it.
+			File tempFile = File.createTempFile( file.getName( ), ".tmp",
+					folder );
+			try
+			{
+				CRC32 checksum = new CRC32( );
+				DataOutputStream out = new DataOutputStream(
+						new CheckedOutputStream( new BufferedOutputStream(
+								new FileOutputStream( tempFile ) ), checksum ) );
+				try
+				{
+					out.writeInt( MAGIC );
+					out.writeInt( VERSION );
+					out.writeUTF( classPathDigest );
+					out.writeInt( usedEntries.size( ) );
+					for ( Map.Entry<String, Entry> mapEntry : usedEntries
+							.entrySet( ) )
+					{
+						Entry entry = mapEntry.getValue( );
+						out.writeUTF( mapEntry.getKey( ) );
+						out.writeUTF( entry.fingerprint );
+						out.writeInt( entry.data.length );
+						out.write( entry.data );
+					}
+					out.writeLong( checksum.getValue( ) );
+				}
+				finally
+				{
+					out.close( );
+				}
+				if ( !tempFile.renameTo( file ) )
+				{
+					file.delete( );
+					tempFile.renameTo( file );
+				}
+			}
+			finally
+			{
+				tempFile.delete( );
+			}
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the bundle cache " + file,
+					ex );
+		}
+	}
+
+	/**
+	 * load the bundle from the cache, or from the class path if the bundle is
+	 * not cached or is changed.
+	 *
+	 * @return the bundle, null if the root is not a bundle.
+	 */
+	Bundle load( ServicePlatform platform, URL root ) throws IOException,
+			ParserConfigurationException, SAXException
+	{
+		String key = root.toExternalForm( );
+		String fingerprint = getFingerprint( root );
+		if ( fingerprint == null )
+		{
+			return new BundleLoader( platform, root ).load( );
+		}
+		Entry entry = entries.get( key );
+		if ( entry != null && fingerprint.equals( entry.fingerprint ) )
+		{
+			try
+			{
+				Bundle bundle = readBundle( platform, root, entry.data );
+				usedEntries.put( key, entry );
+				return bundle;
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.FINE, "Failed to load the cached bundle "
+						+ root, ex );
+			}
+			catch ( RuntimeException ex )
+			{
+				logger.log( Level.FINE, "Failed to load the cached bundle "
+						+ root, ex );
+			}
+		}
+
+		Bundle bundle = new BundleLoader( platform, root ).load( );
+		dirty = true;
+		try
+		{
+			entry = new Entry( );
+			entry.fingerprint = fingerprint;
+			entry.data = writeBundle( bundle );
+			usedEntries.put( key, entry );
+		}
+		catch ( IOException ex )
+		{
+			// such as a value longer than 64K, the bundle is not cached
+			logger.log( Level.FINE, "Failed to cache the bundle " + root, ex );
+		}
+		return bundle;
+	}
+
+	/**
+	 * get the length and last modified time of the files the bundle is loaded
+	 * from.
+	 *
+	 * @return the fingerprint, null if the bundle is not in the local file
+	 *         system.
+	 */
+	protected String getFingerprint( URL root )
+	{
+		String protocol = root.getProtocol( );
+		if ( "jar".equals( protocol ) )
+		{
+			String path = root.getPath( );
+			int separator = path.indexOf( "!/" );
+			if ( separator != -1 )
+			{
+				File jarFile = toFile( path.substring( 0, separator ) );
+				if ( jarFile != null && jarFile.isFile( ) )
+				{
+					return getFingerprint( jarFile );
+				}
+			}
+			return null;
+		}
+		if ( "file".equals( protocol ) )
+		{
+			File folder = toFile( root.toExternalForm( ) );
+			if ( folder != null && folder.isDirectory( ) )
+			{
+				StringBuilder sb = new StringBuilder( );
+				sb.append( getFingerprint( new File( folder,
+						BundleLoader.MANIFEST_ENTRY ) ) );
+				sb.append( ';' );
+				sb.append( getFingerprint( new File( folder,
+						BundleLoader.PLUGIN_ENTRY ) ) );
+				sb.append( ';' );
+				sb.append( getFingerprint( new File( folder,
+						BundleLoader.PROPERTIES_ENTRY ) ) );
+				return sb.toString( );
+			}
+		}
+		return null;
+	}
+
+	private String getFingerprint( File file )
+	{
+		if ( !file.exists( ) )
+		{
+			return "-";
+		}
+		return file.length( ) + ":" + file.lastModified( );
+	}
+
+	private File toFile( String url )
+	{
+		try
+		{
+			URI uri = new URI( url );
+			if ( "file".equals( uri.getScheme( ) ) )
+			{
+				return new File( uri );
+			}
+		}
+		catch ( Exception ex )
+		{
+			// not a local file, such as a file URL with spaces.
+		}
+		return null;
+	}
+
+	protected byte[] writeBundle( Bundle bundle ) throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream( );
+		DataOutputStream out = new DataOutputStream( buffer );
+		out.writeBoolean( bundle != null );
+		if ( bundle != null )
+		{
+			out.writeUTF( bundle.getSymbolicName( ) );
+			writeString( out, bundle.version );
+			ExtensionPoint[] points = bundle.getExtensionPoints( );
+			out.writeInt( points.length );
+			for ( ExtensionPoint point : points )
+			{
+				writeString( out, point.uniqueId );
+				writeString( out, point.namespace );
+				writeString( out, point.name );
+				writeString( out, point.schema );
+			}
+			Extension[] extensions = bundle.getExtensions( );
+			out.writeInt( extensions.length );
+			for ( Extension extension : extensions )
+			{
+				writeString( out, extension.uniqueId );
+				writeString( out, extension.namespace );
+				writeString( out, extension.name );
+				writeString( out, extension.label );
+				writeString( out, extension.extensionPointId );
+				writeConfigurations( out, extension.configuration );
+			}
+		}
+		out.flush( );
+		return buffer.toByteArray( );
+	}
+
+	private void writeConfigurations( DataOutputStream out,
+			ConfigurationElement[] configs ) throws IOException
+	{
+		out.writeInt( configs.length );
+		for ( ConfigurationElement config : configs )
+		{
+			out.writeUTF( config.name );
+			out.writeInt( config.attributes.size( ) );
+			for ( Map.Entry<String, String> attr : config.attributes
+					.entrySet( ) )
+			{
+				out.writeUTF( attr.getKey( ) );
+				writeString( out, attr.getValue( ) );
+			}
+			writeConfigurations( out, config.children );
+		}
+	}
+
+	protected Bundle readBundle( ServicePlatform platform, URL root,
+			byte[] data ) throws IOException
+	{
+		DataInputStream in = new DataInputStream( new ByteArrayInputStream(
+				data ) );
+		if ( !in.readBoolean( ) )
+		{
+			return null;
+		}
+		Bundle bundle = new Bundle( platform, root, in.readUTF( ) );
+		bundle.version = readString( in );
+
+		ExtensionPoint[] points = new ExtensionPoint[in.readInt( )];
+		for ( int i = 0; i < points.length; i++ )
+		{
+			points[i] = new ExtensionPoint( bundle, "" );
+			points[i].uniqueId = readString( in );
+			points[i].namespace = readString( in );
+			points[i].name = readString( in );
+			points[i].schema = readString( in );
+		}
+		bundle.extensionPoints = points;
+
+		Extension[] extensions = new Extension[in.readInt( )];
+		for ( int i = 0; i < extensions.length; i++ )
+		{
+			extensions[i] = new Extension( bundle, "" );
+			extensions[i].uniqueId = readString( in );
+			extensions[i].namespace = readString( in );
+			extensions[i].name = readString( in );
+			extensions[i].label = readString( in );
+			extensions[i].extensionPointId = readString( in );
+			extensions[i].configuration = readConfigurations( in,
+					extensions[i] );
+		}
+		bundle.extensions = extensions;
+		return bundle;
+	}
+
+	private ConfigurationElement[] readConfigurations( DataInputStream in,
+			Object parent ) throws IOException
+	{
+		ArrayList<ConfigurationElement> configs = new ArrayList<ConfigurationElement>( );
+		int size = in.readInt( );
+		for ( int i = 0; i < size; i++ )
+		{
+			ConfigurationElement config = new ConfigurationElement( );
+			config.parent = parent;
+			config.name = in.readUTF( );
+			int attrSize = in.readInt( );
+			config.attributes = new HashMap<String, String>( );
+			for ( int j = 0; j < attrSize; j++ )
+			{
+				String name = in.readUTF( );
+				config.attributes.put( name, readString( in ) );
+			}
+			config.children = readConfigurations( in, config );
+			configs.add( config );
+		}
+		return configs.toArray( new ConfigurationElement[configs.size( )] );
+	}
+
+	private void writeString( DataOutputStream out, String value )
+			throws IOException
+	{
+		out.writeBoolean( value != null );
+		if ( value != null )
+		{
+			out.writeUTF( value );
+		}
+	}
+
+	private String readString( DataInputStream in ) throws IOException
+	{
+		if ( in.readBoolean( ) )
+		{
+			return in.readUTF( );
+		}
+		return null;
+	}
+
+	static class Entry
+	{
+
+		String fingerprint;
+		byte[] data;
+	}
+}
@@ -11,13 +11,20 @@
 
 package org.eclipse.birt.core.framework.jar;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.birt.core.framework.FrameworkException;
+import org.eclipse.birt.core.framework.IPlatformConfig;
 import org.eclipse.birt.core.framework.Platform;
 import org.eclipse.birt.core.framework.PlatformConfig;
 import org.eclipse.birt.core.framework.PlatformLauncher;
@@ -31,6 +38,8 @@ public class ServiceLauncher extends PlatformLauncher
 {
 
 	static final String MANIFEST_ENTRY = "META-INF/MANIFEST.MF";
+	static final String BUNDLE_CACHE_PREFIX = "birt_bundles_";
+	static final String BUNDLE_CACHE_SUFFIX = ".cache";
 
 	static Logger logger = Logger.getLogger( Platform.class.getName( ) );
 
@@ -47,26 +56,12 @@ public class ServiceLauncher extends PlatformLauncher
 
 		try
 		{
-			Enumeration<URL> plugins = ServiceLauncher.class.getClassLoader( )
-					.getResources( MANIFEST_ENTRY );
+			List<URL> roots = getBundleRoots( );
+			platform.bundleCache = openBundleCache( config,
+					getClassPathDigest( roots ) );
 
-			while ( plugins.hasMoreElements( ) )
+			for ( URL root : roots )
 			{
-				// the wsjar:// URL in websphere doesn't support .. to get the
-				// parent folder, so we construct the root from the file path
-				URL root = null;
-				URL url = plugins.nextElement( );
-				String path = url.toExternalForm( );
-				if ( path.endsWith( MANIFEST_ENTRY ) )
-				{
-					String rootPath = path.substring( 0, path.length( )
-							- MANIFEST_ENTRY.length( ) );
-					root = new URL( url, rootPath );
-				}
-				else
-				{
-					root = new URL( url, ".." );
-				}
 				try
 				{
 					platform.installBundle( root );
@@ -77,6 +72,11 @@ public class ServiceLauncher extends PlatformLauncher
 							+ root, ex );
 				}
 			}
+			if ( platform.bundleCache != null )
+			{
+				platform.bundleCache.save( );
+				platform.bundleCache = null;
+			}
 			platform.startup( );
 
 			Platform.setPlatform( platform );
@@ -103,6 +103,97 @@ public class ServiceLauncher extends PlatformLauncher
 
 	}
 
+	/**
+	 * get the roots of the class path entries which have a manifest.
+	 */
+	protected List<URL> getBundleRoots( ) throws IOException
+	{
+		ArrayList<URL> roots = new ArrayList<URL>( );
+		Enumeration<URL> plugins = ServiceLauncher.class.getClassLoader( )
+				.getResources( MANIFEST_ENTRY );
+		while ( plugins.hasMoreElements( ) )
+		{
+			// the wsjar:// URL in websphere doesn't support .. to get the
+			// parent folder, so we construct the root from the file path
+			URL url = plugins.nextElement( );
+			String path = url.toExternalForm( );
+			if ( path.endsWith( MANIFEST_ENTRY ) )
+			{
+				String rootPath = path.substring( 0, path.length( )
+						- MANIFEST_ENTRY.length( ) );
+				roots.add( new URL( url, rootPath ) );
+			}
+			else
+			{
+				roots.add( new URL( url, ".." ) );
+			}
+		}
+		return roots;
+	}
+
+	/**
+	 * open the bundle cache only if it is set in the config. The cache is
+	 * only used for the same class path, so the digest of the class path is
+	 * saved in it, and names the cache file if the config is a folder.
+	 *
+	 * @return the bundle cache, null if the bundles are not cached.
+	 */
+	protected BundleCache openBundleCache( PlatformConfig config,
+			String classPathDigest )
+	{
+		if ( config == null )
+		{
+			return null;
+		}
+		Object cacheFile = config.getProperty( IPlatformConfig.BUNDLE_CACHE );
+		if ( !( cacheFile instanceof String )
+				|| ( (String) cacheFile ).length( ) == 0 )
+		{
+			return null;
+		}
+		File file = new File( (String) cacheFile );
+		if ( file.isDirectory( ) )
+		{
+			file = new File( file, BUNDLE_CACHE_PREFIX + classPathDigest
+					+ BUNDLE_CACHE_SUFFIX );
+		}
+		BundleCache cache = new BundleCache( file, classPathDigest );
+		cache.open( );
+		return cache;
+	}
+
+	/**
+	 * get the hex digest of the class path roots.
+	 */
+	static String getClassPathDigest( List<URL> roots )
+	{
+		StringBuilder classPath = new StringBuilder( );
+		for ( URL root : roots )
+		{
+			classPath.append( root.toExternalForm( ) ).append( '\n' );
+		}
+		try
+		{
+			byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest(
+					classPath.toString( ).getBytes( "UTF-8" ) );
+			StringBuilder sb = new StringBuilder( );
+			for ( byte b : digest )
+			{
+				sb.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) );
+				sb.append( Character.forDigit( b & 0xF, 16 ) );
+			}
+			return sb.toString( );
+		}
+		catch ( NoSuchAlgorithmException ex )
+		{
+			return Integer.toHexString( classPath.toString( ).hashCode( ) );
+		}
+		catch ( UnsupportedEncodingException ex )
+		{
+			return Integer.toHexString( classPath.toString( ).hashCode( ) );
+		}
+	}
+
 	public void shutdown( )
 	{
 		Platform.setPlatform( null );
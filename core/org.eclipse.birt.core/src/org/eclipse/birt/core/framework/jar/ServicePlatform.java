@@ -45,6 +45,7 @@ public class ServicePlatform implements IPlatform
 	protected HashMap<String, Bundle> bundles = new HashMap<String, Bundle>( );
 	protected ExtensionRegistry extensionRegistry = new ExtensionRegistry( );
 	protected File workspace;
+	protected BundleCache bundleCache;
 
 	ServicePlatform( PlatformConfig config )
 	{
@@ -54,7 +55,8 @@ public class ServicePlatform implements IPlatform
 	public void installBundle( URL root ) throws IOException,
 			ParserConfigurationException, SAXException
 	{
-		Bundle bundle = new BundleLoader( this, root ).load( );
+		Bundle bundle = bundleCache != null ? bundleCache.load( this, root )
+				: new BundleLoader( this, root ).load( );
 		if ( bundle != null )
 		{
 			bundles.put( bundle.getSymbolicName( ), bundle );
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.birt.core.script.functionservice.impl;
 
+import java.lang.ref.WeakReference;
+
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.core.script.JavascriptEvalUtil;
 import org.eclipse.birt.core.script.functionservice.IScriptFunction;
@@ -53,97 +55,162 @@ public class CategoryWrapper extends ScriptableObject
 		IScriptFunction[] functions = category.getFunctions( );
 		for ( int i = 0; i < functions.length; i++ )
 		{
-			final IScriptFunction function = functions[i];
-			this.defineProperty( functions[i].getName( ), new BaseFunction( ) {
+			this.defineProperty( functions[i].getName( ),
+					new FunctionWrapper( functions[i] ),
+					0 );
+		}
+	}
+	
+	/**
+	 * The function called by Rhino. The function context of the latest scope
+	 * is kept, since the functions are called in the same scope for all the
+	 * rows of a query.
+	 */
+	private static class FunctionWrapper extends BaseFunction
+	{
 
-				/**
-				 * 
-				 */
-				private static final long serialVersionUID = 1L;
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 1L;
+		private transient IScriptFunction function;
+		/**
+		 * the function context of the latest scope, it is replaced as a
+		 * whole since the functions are shared by the threads.
+		 */
+		private transient volatile ScopeFunctionContext latestContext;
 
-				public Object call( Context cx, final Scriptable scope,
-						Scriptable thisObj, java.lang.Object[] args )
-				{
-					Object[] convertedArgs = JavascriptEvalUtil.convertToJavaObjects( args );
-					try
-					{
-						final IScriptFunctionContext scriptFunctionContext = getIScriptFunctionContext( scope );
-						final Collator collator = getCollator( scope );
-
-						IScriptFunctionContext wrappedScriptFunctionContext = scriptFunctionContext;
-						if ( wrappedScriptFunctionContext != null )
-						{
-							wrappedScriptFunctionContext = new IScriptFunctionContext( ) {
-								public Object findProperty( String name )
-								{
-									if ( "compare_locale".equals( name ) ) //$NON-NLS-1$
-									{
-										return collator;
-									}
-									Object obj = scriptFunctionContext
-											.findProperty( name );
-									if ( obj == null )
-									{
-										// If not found, try to get it via
-										// javascript environment
-										Scriptable currentScope = scope;
-										while ( currentScope != null )
-										{
-											obj = currentScope.get( name,
-													scope );
-											if ( obj != UniqueTag.NOT_FOUND )
-											{
-												return obj;
-											}
-											currentScope = currentScope
-													.getParentScope( );
-										}
-									}
-									return obj;
-								}
-							};
-						}
-						return function.execute( convertedArgs,
-								wrappedScriptFunctionContext );
-					}
-					catch ( BirtException e )
-					{
-						throw new WrappedException( e );
-					}
+		FunctionWrapper( IScriptFunction function )
+		{
+			this.function = function;
+		}
 
-				}
+		public Object call( Context cx, Scriptable scope, Scriptable thisObj,
+				java.lang.Object[] args )
+		{
+			Object[] convertedArgs = JavascriptEvalUtil.convertToJavaObjects( args );
+			try
+			{
+				return function.execute( convertedArgs,
+						getFunctionContext( scope ) );
+			}
+			catch ( BirtException e )
+			{
+				throw new WrappedException( e );
+			}
+		}
 
-				private IScriptFunctionContext getIScriptFunctionContext( Scriptable scope )
-				{
-					if ( scope == null )
-						return null;
-					Object obj = scope.get( org.eclipse.birt.core.script.functionservice.IScriptFunctionContext.FUNCTION_BEAN_NAME,
-							scope );
-					if ( obj == org.mozilla.javascript.UniqueTag.NOT_FOUND )
-					{
-						return getIScriptFunctionContext( scope.getParentScope( ) );
-					}
-					return ( IScriptFunctionContext )JavascriptEvalUtil.convertJavascriptValue(obj);
-				}
-				private Collator getCollator( Scriptable scope )
+		private IScriptFunctionContext getFunctionContext( Scriptable scope )
+		{
+			if ( scope == null )
+			{
+				return null;
+			}
+			ScopeFunctionContext context = latestContext;
+			if ( context == null || context.getScope( ) != scope )
+			{
+				context = new ScopeFunctionContext( scope );
+				latestContext = context;
+			}
+			return context.getScriptFunctionContext( ) == null ? null
+					: context;
+		}
+	}
+
+	/**
+	 * The function context of a scope. The properties are looked up when they
+	 * are used, so the collator set to the scope later is found too. The scope
+	 * and its function bean are weakly referenced so the scope and the script
+	 * engine of a finished task are not held by the shared functions.
+	 */
+	private static class ScopeFunctionContext implements IScriptFunctionContext
+	{
+
+		private WeakReference<Scriptable> scopeReference;
+		private WeakReference<IScriptFunctionContext> contextReference;
+
+		ScopeFunctionContext( Scriptable scope )
+		{
+			this.scopeReference = new WeakReference<Scriptable>( scope );
+			this.contextReference = new WeakReference<IScriptFunctionContext>( getIScriptFunctionContext( scope ) );
+		}
+
+		Scriptable getScope( )
+		{
+			return scopeReference.get( );
+		}
+
+		/**
+		 * @return the function bean of the scope, it is looked up again if it
+		 *         is collected while the scope is still used.
+		 */
+		IScriptFunctionContext getScriptFunctionContext( )
+		{
+			IScriptFunctionContext context = contextReference.get( );
+			if ( context == null )
+			{
+				context = getIScriptFunctionContext( getScope( ) );
+				contextReference = new WeakReference<IScriptFunctionContext>( context );
+			}
+			return context;
+		}
+
+		private static IScriptFunctionContext getIScriptFunctionContext( Scriptable scope )
+		{
+			if ( scope == null )
+				return null;
+			Object obj = scope.get( org.eclipse.birt.core.script.functionservice.IScriptFunctionContext.FUNCTION_BEAN_NAME,
+					scope );
+			if ( obj == org.mozilla.javascript.UniqueTag.NOT_FOUND )
+			{
+				return getIScriptFunctionContext( scope.getParentScope( ) );
+			}
+			return ( IScriptFunctionContext )JavascriptEvalUtil.convertJavascriptValue(obj);
+		}
+
+		public Object findProperty( String name )
+		{
+			Scriptable scope = getScope( );
+			if ( "compare_locale".equals( name ) ) //$NON-NLS-1$
+			{
+				return getCollator( scope );
+			}
+			IScriptFunctionContext scriptFunctionContext = getScriptFunctionContext( );
+			Object obj = scriptFunctionContext == null ? null
+					: scriptFunctionContext.findProperty( name );
+			if ( obj == null )
+			{
+				// If not found, try to get it via
+				// javascript environment
+				Scriptable currentScope = scope;
+				while ( currentScope != null )
 				{
-					if ( scope == null )
-						return null;
-					Scriptable prototype = scope.getPrototype( );
-					Object obj = org.mozilla.javascript.UniqueTag.NOT_FOUND;
-					if( prototype != null )
-						obj = prototype.get( "compare_locale", prototype );
-					if ( obj == org.mozilla.javascript.UniqueTag.NOT_FOUND )
+					obj = currentScope.get( name, scope );
+					if ( obj != UniqueTag.NOT_FOUND )
 					{
-						return getCollator( scope.getParentScope( ) );
+						return obj;
 					}
-					return ( Collator )JavascriptEvalUtil.convertJavascriptValue(obj);
+					currentScope = currentScope.getParentScope( );
 				}
-			},0 );
+			}
+			return obj;
+		}
+
+		private Collator getCollator( Scriptable scope )
+		{
+			if ( scope == null )
+				return null;
+			Scriptable prototype = scope.getPrototype( );
+			Object obj = org.mozilla.javascript.UniqueTag.NOT_FOUND;
+			if( prototype != null )
+				obj = prototype.get( "compare_locale", prototype );
+			if ( obj == org.mozilla.javascript.UniqueTag.NOT_FOUND )
+			{
+				return getCollator( scope.getParentScope( ) );
+			}
+			return ( Collator )JavascriptEvalUtil.convertJavascriptValue(obj);
 		}
 	}
-	
-	
 
 	@Override
 	public String getClassName( )
@@ -0,0 +1,169 @@
+/*
+ *************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation - initial API and implementation
+ *
+ *************************************************************************
+ */
+
+package org.eclipse.birt.data.oda.mongodb.internal.impl;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import junit.framework.TestCase;
+
+import org.bson.Document;
+
+public class PrefetchingDocumentIteratorTest extends TestCase
+{
+    public void testExhaustion()
+    {
+        SourceIterator source = new SourceIterator( 25, -1 );
+        PrefetchingDocumentIterator iterator = new PrefetchingDocumentIterator( source, 10, 2 );
+        for( int i = 0; i < 25; i++ )
+        {
+            assertTrue( iterator.hasNext() );
+            assertEquals( Integer.valueOf( i ), iterator.next().get( "id" ) ); //$NON-NLS-1$
+        }
+        assertFalse( iterator.hasNext() );
+        assertFalse( iterator.hasNext() );
+        try
+        {
+            iterator.next();
+            fail();
+        }
+        catch( NoSuchElementException ex )
+        {
+        }
+        iterator.close();
+        assertTrue( source.closed );
+    }
+
+    public void testEmptySource()
+    {
+        PrefetchingDocumentIterator iterator = new PrefetchingDocumentIterator( new SourceIterator( 0, -1 ), 10, 2 );
+        assertFalse( iterator.hasNext() );
+        iterator.close();
+    }
+
+    public void testCloseWhilePrefetching() throws Exception
+    {
+        // an unbounded source keeps the fetch thread blocked on the full queue
+        SourceIterator source = new SourceIterator( Integer.MAX_VALUE, -1 );
+        PrefetchingDocumentIterator iterator = new PrefetchingDocumentIterator( source, 5, 2 );
+        for( int i = 0; i < 7; i++ )
+            assertEquals( Integer.valueOf( i ), iterator.next().get( "id" ) ); //$NON-NLS-1$
+
+        iterator.close();
+        assertTrue( source.closed );
+        assertFalse( iterator.hasNext() );
+
+        // the fetch thread has stopped reading the source
+        int fetched = source.count;
+        Thread.sleep( 300 );
+        assertEquals( fetched, source.count );
+        // at most the queued batches, the one being fetched and the current one
+        assertTrue( fetched <= 5 * 4 );
+    }
+
+    public void testFetchException()
+    {
+        SourceIterator source = new SourceIterator( 100, 7 );
+        PrefetchingDocumentIterator iterator = new PrefetchingDocumentIterator( source, 3, 2 );
+        // the batches fetched before the failure are returned
+        for( int i = 0; i < 6; i++ )
+            assertEquals( Integer.valueOf( i ), iterator.next().get( "id" ) ); //$NON-NLS-1$
+        try
+        {
+            iterator.hasNext();
+            fail();
+        }
+        catch( IllegalStateException ex )
+        {
+            assertSame( source.failure, ex );
+        }
+        assertFalse( iterator.hasNext() );
+        iterator.close();
+    }
+
+    public void testFetchError()
+    {
+        // an Error of the fetch thread ends the results too, instead of
+        // leaving the consumer waiting for the next batch
+        Error error = new Error( "fetch failed" ); //$NON-NLS-1$
+        SourceIterator source = new SourceIterator( 100, 4, error );
+        PrefetchingDocumentIterator iterator = new PrefetchingDocumentIterator( source, 2, 2 );
+        for( int i = 0; i < 4; i++ )
+            assertEquals( Integer.valueOf( i ), iterator.next().get( "id" ) ); //$NON-NLS-1$
+        try
+        {
+            iterator.hasNext();
+            fail();
+        }
+        catch( Error ex )
+        {
+            assertSame( error, ex );
+        }
+        assertFalse( iterator.hasNext() );
+        iterator.close();
+    }
+
+    /*
+     * A source cursor of numbered documents, which optionally fails
+     * when the document of the given index is read.
+     */
+    private static class SourceIterator implements Iterator<Document>, Closeable
+    {
+        private final int m_size;
+        private final int m_failIndex;
+        volatile int count;
+        volatile boolean closed;
+        final Throwable failure;
+
+        SourceIterator( int size, int failIndex )
+        {
+            this( size, failIndex, new IllegalStateException( "fetch failed" ) ); //$NON-NLS-1$
+        }
+
+        SourceIterator( int size, int failIndex, Throwable failure )
+        {
+            m_size = size;
+            m_failIndex = failIndex;
+            this.failure = failure;
+        }
+
+        public boolean hasNext()
+        {
+            return count < m_size;
+        }
+
+        public Document next()
+        {
+            if( count == m_failIndex )
+            {
+                if( failure instanceof Error )
+                    throw (Error)failure;
+                throw (RuntimeException)failure;
+            }
+            return new Document( "id", Integer.valueOf( count++ ) ); //$NON-NLS-1$
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
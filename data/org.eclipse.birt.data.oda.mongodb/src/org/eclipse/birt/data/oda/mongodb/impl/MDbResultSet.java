@@ -14,6 +14,8 @@
 
 package org.eclipse.birt.data.oda.mongodb.impl;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Time;
@@ -60,6 +62,7 @@ public class MDbResultSet implements IResultSet
     private int m_maxRows = 0;  // no limit by default
     private boolean m_wasNull = true;
     private ResultDataHandler m_dataHandler;
+    private String[] m_columnNames;     // cached column names by 0-based column index
 
     private static Logger sm_logger = DriverUtil.getLogger();
     
@@ -152,6 +155,19 @@ public class MDbResultSet implements IResultSet
 	{
         m_currentRow = null;
         m_currentRowId = 0;     // reset row counter
+        if( m_resultsIterator instanceof Closeable )
+        {
+            // release the server cursor, and stop prefetching, if applicable
+            try
+            {
+                ((Closeable)m_resultsIterator).close();
+            }
+            catch( IOException ex )
+            {
+                // log and ignore
+                getLogger().log( Level.FINE, "Unable to close the result cursor.", ex ); //$NON-NLS-1$
+            }
+        }
         m_resultsIterator = null;
         if( m_mongoCursor != null )
         {
@@ -511,7 +527,19 @@ public class MDbResultSet implements IResultSet
 
     private String findFieldName( int columnNumber ) throws OdaException
     {
-        return getMetaData().getColumnName( columnNumber );
+        // resolve each column name once, for repeated by-index access per row
+        if( m_columnNames == null )
+            m_columnNames = new String[ m_metadata.getColumnCount() ];
+        if( columnNumber <= 0 || columnNumber > m_columnNames.length )
+            return m_metadata.getColumnName( columnNumber );
+
+        String columnName = m_columnNames[ columnNumber-1 ];
+        if( columnName == null )
+        {
+            columnName = m_metadata.getColumnName( columnNumber );
+            m_columnNames[ columnNumber-1 ] = columnName;
+        }
+        return columnName;
     }
 
     private Object getFieldValue( String columnName ) throws OdaException
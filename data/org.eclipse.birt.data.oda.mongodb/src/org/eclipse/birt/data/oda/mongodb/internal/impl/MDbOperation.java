@@ -15,12 +15,14 @@
 package org.eclipse.birt.data.oda.mongodb.internal.impl;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
 
 import org.bson.Document;
 import org.eclipse.birt.data.oda.mongodb.impl.MDbResultSet;
 import org.eclipse.birt.data.oda.mongodb.impl.MDbResultSetMetaData;
+import org.eclipse.birt.data.oda.mongodb.internal.impl.MDbMetaData.FieldMetaData;
 import org.eclipse.birt.data.oda.mongodb.nls.Messages;
 import org.eclipse.datatools.connectivity.oda.OdaException;
 
@@ -147,13 +149,15 @@ public class MDbOperation
         try
         {
             FindIterable<Document> findIterable = m_queryCollection.find( m_queryObj);
-			findIterable = findIterable.projection( m_fieldsObj );
+			findIterable = findIterable.projection( getExecutionProjectionKeys() );
 			
             // no search limit applies here; 
             // defer to MDbResultSet to set DBCursor#limit based on its maxRows
-            applyPropertiesToCursor( findIterable, getModel().getQueryProperties(), false, true );
+            QueryProperties queryProps = getModel().getQueryProperties();
+            applyPropertiesToCursor( findIterable, queryProps, false, true );
 
-            return new MDbResultSet( findIterable.iterator(), getResultSetMetaData(), getModel().getQueryProperties() );
+            return new MDbResultSet( createResultsIterator( findIterable, queryProps ), 
+                    getResultSetMetaData(), queryProps );
         }
         catch( RuntimeException ex )
         {
@@ -162,6 +166,67 @@ public class MDbOperation
         }        
     }
 
+    /*
+     * Returns the projection keys to apply when executing the query.
+     * If no fields are explicitly selected, the projection is derived from the 
+     * top-level fields of the result set columns, so that fields not mapped to 
+     * any column are not transferred from the server.
+     */
+    private BasicDBObject getExecutionProjectionKeys()
+    {
+        if( m_fieldsObj != null && ! m_fieldsObj.isEmpty() )
+            return m_fieldsObj;
+        
+        MDbResultSetMetaData rsmd = getResultSetMetaData();
+        if( rsmd == null )
+            return m_fieldsObj;
+
+        BasicDBObject keys = new BasicDBObject();
+        try
+        {
+            int numColumns = rsmd.getColumnCount();
+            for( int i = 1; i <= numColumns; i++ )
+            {
+                FieldMetaData fieldMD = rsmd.getColumnMetaData( rsmd.getColumnName( i ) );
+                if( fieldMD == null || fieldMD.getLevelNames().length == 0 )
+                    return m_fieldsObj;     // unknown column; fetch whole documents
+                keys.append( fieldMD.getLevelNames()[0], 1 );
+            }
+        }
+        catch( OdaException ex )
+        {
+            // log and ignore; fetch whole documents
+            DriverUtil.getLogger().log( Level.FINE, "Unable to derive projection keys from result set columns.", ex ); //$NON-NLS-1$
+            return m_fieldsObj;
+        }
+        if( keys.isEmpty() )
+            return m_fieldsObj;
+
+        // explicitly exclude docId field if not projected in result set
+        if( ! keys.containsField( QueryModel.DOC_ID_FIELD_NAME ) )
+            keys.append( QueryModel.DOC_ID_FIELD_NAME, 0 );
+        return keys;
+    }
+
+    /*
+     * Returns an iterator over the query results, which fetches result
+     * batches ahead on a background thread, if configured in data set properties.
+     */
+    static Iterator<Document> createResultsIterator( Iterable<Document> results,
+            QueryProperties queryProps )
+    {
+        Iterator<Document> resultsIterator = results.iterator();
+        
+        // in-memory results, e.g. of a db command, have nothing to prefetch
+        if( !( results instanceof MongoIterable ) )
+            return resultsIterator;
+        Integer numPrefetchBatches = queryProps.getPrefetchBatches();
+        if( numPrefetchBatches == null || numPrefetchBatches <= 0 )
+            return resultsIterator;
+        return new PrefetchingDocumentIterator( resultsIterator, 
+                queryProps.getBatchSize(), numPrefetchBatches );
+    }
+
     /* 
      * Applies data set query properties and hints on DBCursor.
      */
@@ -358,7 +423,7 @@ public class MDbOperation
             if( m_cmdResultObjs == null )
                 throw new OdaException( Messages.mDbOp_noCmdResults );
 
-            return new MDbResultSet( m_cmdResultObjs.iterator(), 
+            return new MDbResultSet( createResultsIterator( m_cmdResultObjs, getModel().getQueryProperties() ), 
                     getResultSetMetaData(), getModel().getQueryProperties() );        
         }
 
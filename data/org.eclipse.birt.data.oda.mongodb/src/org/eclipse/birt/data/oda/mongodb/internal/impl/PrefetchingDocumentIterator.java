@@ -0,0 +1,212 @@
+/*
+ *************************************************************************
+ * Copyright (c) 2013 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation - initial API and implementation
+ *  
+ *************************************************************************
+ */
+
+package org.eclipse.birt.data.oda.mongodb.internal.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.bson.Document;
+
+
+/**
+ * Internal iterator that wraps a MongoDB cursor and fetches the next
+ * result batches on a background thread, while the caller consumes
+ * the current batch.
+ * The number of batches held in memory ahead of the consumer is bounded
+ * by the Prefetch Batches data set property.
+ */
+public class PrefetchingDocumentIterator implements Iterator<Document>, Closeable
+{
+    private static final List<Document> END_OF_RESULTS = Collections.emptyList();
+    private static final long OFFER_WAIT_MILLIS = 100L;
+
+    private final Iterator<Document> m_sourceIterator;
+    private final int m_batchSize;
+    private final BlockingQueue<List<Document>> m_fetchedBatches;
+    private final Thread m_fetchThread;
+
+    private volatile boolean m_isClosed;
+    private volatile Throwable m_fetchException;
+
+    private Iterator<Document> m_currentBatch = Collections.<Document>emptyList().iterator();
+    private boolean m_reachedEnd;
+
+    public PrefetchingDocumentIterator( Iterator<Document> sourceIterator, 
+            int batchSize, int numPrefetchBatches )
+    {
+        if( sourceIterator == null )
+            throw new IllegalArgumentException( "null source iterator" ); //$NON-NLS-1$
+
+        m_sourceIterator = sourceIterator;
+        m_batchSize = batchSize > 0 ? batchSize : QueryProperties.DEFAULT_CURSOR_BATCH_SIZE;
+        m_fetchedBatches = new ArrayBlockingQueue<List<Document>>( Math.max( 1, numPrefetchBatches ) );
+
+        m_fetchThread = new Thread( new Runnable() 
+        {
+            public void run()
+            {
+                fetchBatches();
+            }
+        }, "MongoDB ODA result prefetch" ); //$NON-NLS-1$
+        m_fetchThread.setDaemon( true );
+        m_fetchThread.start();
+    }
+
+    /*
+     * Runs on the fetch thread; iterates the source cursor and queues
+     * its documents in batches, till the end of results or closed.
+     * The end of results is always queued, so that a failure of the
+     * fetch thread, including an Error, can't block the consumer.
+     */
+    private void fetchBatches()
+    {
+        try
+        {
+            while( ! m_isClosed && m_sourceIterator.hasNext() )
+            {
+                List<Document> batch = new ArrayList<Document>( m_batchSize );
+                while( batch.size() < m_batchSize && m_sourceIterator.hasNext() )
+                    batch.add( m_sourceIterator.next() );
+                if( ! queueBatch( batch ) )
+                    return;     // closed by consumer
+            }
+        }
+        catch( Throwable ex )
+        {
+            DriverUtil.getLogger().log( Level.SEVERE, "Unable to prefetch the next batch of result documents.", ex ); //$NON-NLS-1$
+            m_fetchException = ex;
+        }
+        finally
+        {
+            queueBatch( END_OF_RESULTS );
+        }
+    }
+
+    private boolean queueBatch( List<Document> batch )
+    {
+        try
+        {
+            while( ! m_isClosed )
+            {
+                if( m_fetchedBatches.offer( batch, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS ) )
+                    return true;
+            }
+        }
+        catch( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /*
+     * @see java.util.Iterator#hasNext()
+     */
+    public boolean hasNext()
+    {
+        if( m_isClosed )
+            return false;
+        if( m_currentBatch.hasNext() )
+            return true;
+        if( m_reachedEnd )
+            return false;
+
+        List<Document> nextBatch;
+        try
+        {
+            nextBatch = m_fetchedBatches.take();
+        }
+        catch( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        if( nextBatch == END_OF_RESULTS )
+        {
+            m_reachedEnd = true;
+            if( m_fetchException instanceof Error )
+                throw (Error)m_fetchException;
+            if( m_fetchException instanceof RuntimeException )
+                throw (RuntimeException)m_fetchException;
+            if( m_fetchException != null )
+                throw new RuntimeException( m_fetchException );
+            return false;
+        }
+        m_currentBatch = nextBatch.iterator();
+        return m_currentBatch.hasNext();
+    }
+
+    /*
+     * @see java.util.Iterator#next()
+     */
+    public Document next()
+    {
+        if( ! hasNext() )
+            throw new NoSuchElementException();
+        return m_currentBatch.next();
+    }
+
+    /*
+     * @see java.util.Iterator#remove()
+     */
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /*
+     * Stops the background fetching and releases the source cursor.
+     * @see java.io.Closeable#close()
+     */
+    public void close()
+    {
+        if( m_isClosed )
+            return;
+        m_isClosed = true;
+        m_fetchedBatches.clear();   // unblocks a pending offer by the fetch thread
+
+        try
+        {
+            m_fetchThread.join( OFFER_WAIT_MILLIS * 10 );
+        }
+        catch( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if( m_sourceIterator instanceof Closeable )
+        {
+            try
+            {
+                ((Closeable)m_sourceIterator).close();
+            }
+            catch( Exception ex )
+            {
+                // log and ignore
+                DriverUtil.getLogger().log( Level.FINE, "Unable to close the prefetched result cursor.", ex ); //$NON-NLS-1$
+            }
+        }
+    }
+
+}
@@ -58,6 +58,7 @@ public class QueryProperties
     private static final String QUERY_READ_PREF_TAGS_PROP = MONGO_PROP_PREFIX.concat( "queryReadPreferenceTags" ); //$NON-NLS-1$
     private static final String RT_META_DATA_SEARCH_LIMIT = MONGO_PROP_PREFIX.concat( "rtMDSearchLimit" ); //$NON-NLS-1$
     private static final String CURSOR_BATCH_SIZE_PROP = MONGO_PROP_PREFIX.concat( "batchSize" ); //$NON-NLS-1$
+    private static final String PREFETCH_BATCHES_PROP = MONGO_PROP_PREFIX.concat( "prefetchBatches" ); //$NON-NLS-1$
     private static final String SKIP_NUM_DOCS_PROP = MONGO_PROP_PREFIX.concat( "numSkipDocuments" ); //$NON-NLS-1$
     private static final String AUTO_FLATTENING_PROP = MONGO_PROP_PREFIX.concat( "flattenCollections" ); //$NON-NLS-1$
     private static final String INDEX_HINTS_PROP = MONGO_PROP_PREFIX.concat( "indexHints" ); //$NON-NLS-1$
@@ -66,6 +67,7 @@ public class QueryProperties
     
     public static final int DEFAULT_RUNTIME_METADATA_SEARCH_LIMIT = 10;
     public static final int DEFAULT_CURSOR_BATCH_SIZE = 101;    // default used by Mongo
+    public static final int DEFAULT_PREFETCH_BATCHES = 0;       // no background prefetching
 
     private static final String DOC_ID_FIELD_NAME = QueryModel.DOC_ID_FIELD_NAME;
     private static final String ARRAY_BEGIN_MARKER = "["; //$NON-NLS-1$
@@ -183,6 +185,7 @@ public class QueryProperties
         setQueryReadPreference( ReadPreferenceChoice.DEFAULT_PREFERENCE );
         setRuntimeMetaDataSearchLimit( DEFAULT_RUNTIME_METADATA_SEARCH_LIMIT );
         setBatchSize( DEFAULT_CURSOR_BATCH_SIZE );
+        setPrefetchBatches( DEFAULT_PREFETCH_BATCHES );
         setNumDocsToSkip( 0 );
         setAutoFlattening( false );
         setNoTimeOut( false );
@@ -746,6 +749,25 @@ public class QueryProperties
         return hasIntPropertyValue( getPropertiesMap(), CURSOR_BATCH_SIZE_PROP );
     }
 
+    public void setPrefetchBatches( Integer numBatches )
+    {
+        getPropertiesMap().put( PREFETCH_BATCHES_PROP, numBatches );
+    }
+
+    /**
+     * Returns the number of result batches to fetch ahead on a background thread 
+     * while the current batch is being consumed; 0 disables prefetching.
+     */
+    public Integer getPrefetchBatches()
+    {
+        return getIntPropOrDefaultValue( PREFETCH_BATCHES_PROP );
+    }
+
+    public boolean hasPrefetchBatches()
+    {
+        return hasIntPropertyValue( getPropertiesMap(), PREFETCH_BATCHES_PROP );
+    }
+
     public void setNumDocsToSkip( Integer numDocsToSkip )
     {
         getPropertiesMap().put( SKIP_NUM_DOCS_PROP, numDocsToSkip );
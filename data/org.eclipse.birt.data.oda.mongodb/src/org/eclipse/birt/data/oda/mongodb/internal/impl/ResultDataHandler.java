@@ -459,6 +459,10 @@ public class ResultDataHandler
         Object value = document.get( fieldLevelNames[0] );
         if( value == null )     // no data in document under the specified field name
             return null;
+
+        // fast path for a scalar value of a top-level field; no nested document to look up
+        if( fieldLevelNames.length == 1 && isScalarValue( value ) )
+            return value;
         Object fieldDoc = fetchFieldDocument( value );
 
         if( fieldLevelNames.length == 1 )
@@ -477,6 +481,13 @@ public class ResultDataHandler
         return fetchFieldValues( childFullName, fieldDoc );
     }
 
+    private static boolean isScalarValue( Object fieldValue )
+    {
+        return !( fieldValue instanceof Document || 
+                    fieldValue instanceof List || 
+                    fieldValue instanceof DBObject );
+    }
+
     private static BasicDBList fetchFieldValuesFromList( String fieldFullName, List<Document> documentList )
     {
         if( documentList == null || documentList.size() == 0 )
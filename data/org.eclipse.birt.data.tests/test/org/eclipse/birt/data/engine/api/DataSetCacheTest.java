@@ -10,7 +10,11 @@
  *******************************************************************************/
 package org.eclipse.birt.data.engine.api;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -34,8 +38,16 @@ import org.eclipse.birt.data.engine.api.querydefn.ScriptDataSetDesign;
 import org.eclipse.birt.data.engine.api.querydefn.ScriptDataSourceDesign;
 import org.eclipse.birt.data.engine.api.querydefn.ScriptExpression;
 import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.executor.CacheMapManager;
 import org.eclipse.birt.data.engine.executor.DataSetCacheManager;
+import org.eclipse.birt.data.engine.executor.DiskDataSetCacheObject;
+import org.eclipse.birt.data.engine.executor.IDataSetCacheObject;
+import org.eclipse.birt.data.engine.executor.ResultClass;
+import org.eclipse.birt.data.engine.executor.ResultFieldMetadata;
+import org.eclipse.birt.data.engine.executor.dscache.DataSetToCache;
 import org.eclipse.birt.data.engine.impl.DataEngineImpl;
+import org.eclipse.birt.data.engine.impl.DataSetCacheUtil;
+import org.eclipse.birt.data.engine.odi.IDataSetPopulator;
 
 import testutil.ConfigText;
 
@@ -132,6 +144,229 @@ public class DataSetCacheTest extends APITestCase
 		myDataEngine.shutdown( );
 	}
 	
+	/**
+	 * Test the cached data set is not used after it expires
+	 * @throws Exception
+	 */
+	@Test
+    public void testCacheTimeToLive( ) throws Exception
+	{
+		this.dataSet.setCacheRowCount( 4 );
+		Map timeToLive = new HashMap( );
+		timeToLive.put( this.dataSet.getName( ), "1" );
+		appContextMap.put( DataEngine.DATA_SET_CACHE_TIME_TO_LIVE, timeToLive );
+		
+		DataEngineImpl myDataEngine = newDataEngine( );
+		QueryDefinition qd = newReportQuery( );
+		rowBeArray = getRowExpr( );
+		totalBeArray = getAggrExpr( );
+		prepareExprNameAndQuery( rowBeArray, totalBeArray, qd );
+		IQueryResults qr = myDataEngine.prepare( qd, appContextMap ).execute( null );
+		qr.getResultIterator( ).next( );
+		qr.close( );
+		
+		Thread.sleep( 10 );
+		long missCount = CacheMapManager.getMissCount( );
+		assertFalse( getDataSetCacheManager( myDataEngine ).doesLoadFromCache( ) );
+		assertTrue( getDataSetCacheManager( myDataEngine ).doesSaveToCache( ) );
+		assertEquals( missCount + 1, CacheMapManager.getMissCount( ) );
+		myDataEngine.shutdown( );
+	}
+	
+	/**
+	 * Test the invalid time to live and max entries are taken as the default
+	 */
+	@Test
+    public void testInvalidCacheOption( )
+	{
+		Map timeToLive = new HashMap( );
+		timeToLive.put( this.dataSet.getName( ), "1 minute" );
+		appContextMap.put( DataEngine.DATA_SET_CACHE_TIME_TO_LIVE, timeToLive );
+		appContextMap.put( DataEngine.DATA_SET_CACHE_MAX_ENTRIES, "ten" );
+		assertEquals( 0, DataSetCacheUtil.getDataSetCacheTimeToLive( appContextMap, this.dataSet ) );
+		assertEquals( 0, DataSetCacheUtil.getDataSetCacheMaxEntries( appContextMap ) );
+		
+		timeToLive.put( this.dataSet.getName( ), "60000" );
+		appContextMap.put( DataEngine.DATA_SET_CACHE_MAX_ENTRIES, "10" );
+		assertEquals( 60000, DataSetCacheUtil.getDataSetCacheTimeToLive( appContextMap, this.dataSet ) );
+		assertEquals( 10, DataSetCacheUtil.getDataSetCacheMaxEntries( appContextMap ) );
+	}
+	
+	/**
+	 * Test the cached data set a session decides to load is not released
+	 * before the session finishes loading it
+	 * @throws Exception
+	 */
+	@Test
+    public void testPinnedCacheEntry( ) throws Exception
+	{
+		this.dataSet.setCacheRowCount( 4 );
+		
+		DataEngineImpl myDataEngine = newDataEngine( );
+		QueryDefinition qd = newReportQuery( );
+		rowBeArray = getRowExpr( );
+		totalBeArray = getAggrExpr( );
+		prepareExprNameAndQuery( rowBeArray, totalBeArray, qd );
+		IQueryResults qr = myDataEngine.prepare( qd, appContextMap ).execute( null );
+		qr.getResultIterator( ).next( );
+		qr.close( );
+		
+		DataSetCacheManager manager = getDataSetCacheManager( myDataEngine );
+		assertTrue( manager.doesLoadFromCache( ) );
+		IDataSetCacheObject cached = manager.getLoadedCacheObject( );
+		assertTrue( cached instanceof DiskDataSetCacheObject );
+		File cacheDir = new File( ( (DiskDataSetCacheObject) cached ).getCacheDir( ) );
+		assertTrue( cacheDir.exists( ) );
+		
+		// the cleared data set is kept for the session which decided to load it
+		myDataEngine.clearCache( this.dataSource, this.dataSet );
+		assertTrue( cacheDir.exists( ) );
+		manager.loadStart( );
+		assertSame( cached, manager.getLoadedCacheObject( ) );
+		assertTrue( cacheDir.exists( ) );
+		manager.loadFinished( );
+		assertFalse( cacheDir.exists( ) );
+		myDataEngine.shutdown( );
+	}
+	
+	/**
+	 * Test the data set whose saving fails is not waited for by the other
+	 * sessions
+	 * @throws Exception
+	 */
+	@Test
+    public void testFailedSaving( ) throws Exception
+	{
+		this.dataSet.setCacheRowCount( 4 );
+		
+		DataEngineImpl myDataEngine = newDataEngine( );
+		DataSetCacheManager manager = getDataSetCacheManager( myDataEngine );
+		// the session missing the data set claims to save it
+		assertFalse( manager.doesLoadFromCache( this.dataSource, this.dataSet, null, appContextMap ) );
+		assertTrue( manager.doesSaveToCache( ) );
+		
+		InvocationHandler failure = new InvocationHandler( ) {
+
+			public Object invoke( Object proxy, Method method, Object[] args )
+					throws Throwable
+			{
+				throw new DataException( "saving fails" );
+			}
+		};
+		List fields = new ArrayList( );
+		fields.add( new ResultFieldMetadata( 1, "COL0", "COL0", Integer.class, null, false ) );
+		DataSetToCache dataSetToCache = new DataSetToCache( (IDataSetPopulator) Proxy.newProxyInstance( getClass( ).getClassLoader( ),
+				new Class[]{ IDataSetPopulator.class },
+				failure ),
+				new ResultClass( fields ),
+				myDataEngine.getSession( ) );
+		try
+		{
+			dataSetToCache.saveDataSetResult( (org.eclipse.birt.data.engine.odi.IResultIterator) Proxy.newProxyInstance( getClass( ).getClassLoader( ),
+					new Class[]{ org.eclipse.birt.data.engine.odi.IResultIterator.class },
+					failure ) );
+			fail( "Should throw DataException" );
+		}
+		catch ( DataException e )
+		{
+		}
+		
+		// another session misses the data set at once, and saves it itself
+		DataEngineImpl otherDataEngine = newDataEngine( );
+		DataSetCacheManager otherManager = getDataSetCacheManager( otherDataEngine );
+		long start = System.currentTimeMillis( );
+		assertFalse( otherManager.doesLoadFromCache( this.dataSource, this.dataSet, null, appContextMap ) );
+		assertTrue( System.currentTimeMillis( ) - start < 10000 );
+		otherManager.stopSaving( );
+		otherDataEngine.shutdown( );
+		myDataEngine.shutdown( );
+	}
+	
+	/**
+	 * The data set saved by one JVM is loaded by the others from the shared
+	 * directory.
+	 * @throws Exception
+	 */
+	@Test
+    public void testSharedCache( ) throws Exception
+	{
+		this.dataSet.setCacheRowCount( 4 );
+		File sharedDir = new File( this.getTempDir( ), "sharedCache" );
+		appContextMap.put( DataEngine.DATA_SET_CACHE_SHARED_DIR,
+				sharedDir.getAbsolutePath( ) );
+		
+		DataEngineImpl myDataEngine = newDataEngine( );
+		QueryDefinition qd = newReportQuery( );
+		rowBeArray = getRowExpr( );
+		totalBeArray = getAggrExpr( );
+		prepareExprNameAndQuery( rowBeArray, totalBeArray, qd );
+		IQueryResults qr = myDataEngine.prepare( qd, appContextMap ).execute( null );
+		qr.getResultIterator( ).next( );
+		qr.close( );
+		assertTrue( new File( sharedDir, "index.data" ).exists( ) );
+		
+		// forget the JVM level cache, as another JVM would
+		getDataSetCacheManager( myDataEngine ).resetForTest( );
+		myDataEngine.shutdown( );
+		
+		myDataEngine = newDataEngine( );
+		qd = newReportQuery( );
+		prepareExprNameAndQuery( rowBeArray, totalBeArray, qd );
+		qr = myDataEngine.prepare( qd, appContextMap ).execute( null );
+		assertTrue( getDataSetCacheManager( myDataEngine ).doesLoadFromCache( ) );
+		IResultIterator ri = qr.getResultIterator( );
+		int count = 0;
+		while ( ri.next( ) )
+		{
+			count++;
+		}
+		assertEquals( 4, count );
+		qr.close( );
+		
+		myDataEngine.clearCache( this.dataSource, this.dataSet );
+		myDataEngine.shutdown( );
+	}
+	
+	/**
+	 * The removed data set is kept in the shared directory while it is used,
+	 * and deleted by a later removal.
+	 * @throws Exception
+	 */
+	@Test
+    public void testSharedCacheRetiredFolder( ) throws Exception
+	{
+		this.dataSet.setCacheRowCount( 4 );
+		File sharedDir = new File( this.getTempDir( ), "sharedCacheRetired" );
+		appContextMap.put( DataEngine.DATA_SET_CACHE_SHARED_DIR,
+				sharedDir.getAbsolutePath( ) );
+		
+		DataEngineImpl myDataEngine = newDataEngine( );
+		QueryDefinition qd = newReportQuery( );
+		rowBeArray = getRowExpr( );
+		totalBeArray = getAggrExpr( );
+		prepareExprNameAndQuery( rowBeArray, totalBeArray, qd );
+		IQueryResults qr = myDataEngine.prepare( qd, appContextMap ).execute( null );
+		qr.getResultIterator( ).next( );
+		qr.close( );
+		
+		DataSetCacheManager manager = getDataSetCacheManager( myDataEngine );
+		assertTrue( manager.doesLoadFromCache( ) );
+		File folder = new File( ( (DiskDataSetCacheObject) manager.getLoadedCacheObject( ) ).getCacheDir( ) );
+		assertEquals( sharedDir.getAbsolutePath( ), folder.getParent( ) );
+		
+		// the data set being loaded is not deleted
+		myDataEngine.clearCache( this.dataSource, this.dataSet );
+		assertTrue( folder.exists( ) );
+		manager.loadStart( );
+		manager.loadFinished( );
+		assertTrue( folder.exists( ) );
+		
+		// no one uses it now
+		myDataEngine.clearCache( this.dataSource, this.dataSet );
+		assertFalse( folder.exists( ) );
+		myDataEngine.shutdown( );
+	}
+	
 	/**
 	 * Test feature of whether cache will be used
 	 * @throws BirtException
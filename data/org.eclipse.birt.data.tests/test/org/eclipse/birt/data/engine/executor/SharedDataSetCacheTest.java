@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.executor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.eclipse.birt.data.engine.impl.DataSetCacheUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the retirement of the data sets published in the shared cache.
+ */
+public class SharedDataSetCacheTest
+{
+	private static final String DIGEST = "digest";
+	private static final String DESIGN_DIGEST = "design";
+
+	private File sharedDir;
+	private File privateDir;
+	private SharedDataSetCache cache;
+
+	@Before
+	public void setUp( ) throws IOException
+	{
+		sharedDir = createTempDir( "shared" );
+		privateDir = createTempDir( "private" );
+		cache = SharedDataSetCache.getInstance( sharedDir.getPath( ) );
+	}
+
+	@After
+	public void tearDown( )
+	{
+		DataSetCacheUtil.deleteFile( sharedDir );
+		DataSetCacheUtil.deleteFile( privateDir );
+	}
+
+	@Test
+	public void testLoad( ) throws IOException
+	{
+		publish( ).release( );
+		SharedDataSetCache.SharedCacheObject loaded = cache.load( DIGEST,
+				10,
+				60000 );
+		assertNotNull( loaded );
+		assertTrue( new File( loaded.getCacheDir( ) ).exists( ) );
+		loaded.release( );
+	}
+
+	/**
+	 * The expired data set is removed from the index and its folder is deleted
+	 * by the load which finds it.
+	 */
+	@Test
+	public void testExpiredEntryRetired( ) throws Exception
+	{
+		SharedDataSetCache.SharedCacheObject published = publish( );
+		File folder = new File( published.getCacheDir( ) );
+		published.release( );
+		Thread.sleep( 20 );
+
+		assertNull( cache.load( DIGEST, 10, 10 ) );
+		assertFalse( folder.exists( ) );
+		// it is not in the index any longer, whatever the time to live is
+		assertNull( cache.load( DIGEST, 10, 0 ) );
+	}
+
+	/**
+	 * The expired data set is kept while it is used, and deleted by a later
+	 * sweep.
+	 */
+	@Test
+	public void testExpiredEntryLeased( ) throws Exception
+	{
+		SharedDataSetCache.SharedCacheObject published = publish( );
+		File folder = new File( published.getCacheDir( ) );
+		Thread.sleep( 20 );
+
+		assertNull( cache.load( DIGEST, 10, 10 ) );
+		assertTrue( folder.exists( ) );
+		assertNull( cache.load( DIGEST, 10, 0 ) );
+
+		published.release( );
+		cache.remove( "other" );
+		assertFalse( folder.exists( ) );
+	}
+
+	/**
+	 * Saves a data set to a private folder and publishes it.
+	 */
+	private SharedDataSetCache.SharedCacheObject publish( ) throws IOException
+	{
+		DiskDataSetCacheObject cacheObject = new DiskDataSetCacheObject( privateDir.getPath( ),
+				10 );
+		new FileOutputStream( cacheObject.getMetaFile( ) ).close( );
+		SharedDataSetCache.SharedCacheObject published = cache.save( DIGEST,
+				DESIGN_DIGEST,
+				cacheObject,
+				10 );
+		assertNotNull( published );
+		return published;
+	}
+
+	private static File createTempDir( String prefix ) throws IOException
+	{
+		File dir = File.createTempFile( prefix, "" );
+		dir.delete( );
+		dir.mkdirs( );
+		return dir;
+	}
+}
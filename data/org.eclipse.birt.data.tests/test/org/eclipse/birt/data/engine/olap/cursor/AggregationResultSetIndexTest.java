@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2004, 2005 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.olap.cursor;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationFunctionDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultRow;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Member;
+import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
+import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the hash index used to locate measure values of a cube cursor.
+ */
+public class AggregationResultSetIndexTest
+{
+	private static final DimLevel ROW_LEVEL = new DimLevel( "dimRow", "row" );
+	private static final DimLevel COLUMN_LEVEL = new DimLevel( "dimColumn",
+			"column" );
+
+	@Test
+	public void testFind( ) throws IOException
+	{
+		IAggregationResultSet rs = createResultSet( 20, 20 );
+		rs.seek( 5 );
+		AggregationResultSetIndex index = AggregationResultSetIndex.build( rs );
+		assertNotNull( index );
+		assertEquals( 5, rs.getPosition( ) );
+
+		for ( int i = 0; i < 20; i++ )
+		{
+			for ( int j = 0; j < 20; j++ )
+			{
+				int position = index.find( createValueMap( "r" + i,
+						Integer.valueOf( j ) ) );
+				assertEquals( i * 20 + j, position );
+				rs.seek( position );
+				assertEquals( Double.valueOf( i * 20 + j ),
+						rs.getAggregationValue( 0 ) );
+			}
+		}
+	}
+
+	@Test
+	public void testMiss( ) throws IOException
+	{
+		AggregationResultSetIndex index = AggregationResultSetIndex.build( createResultSet( 20,
+				20 ) );
+		Map valueMap = createValueMap( "r1", Integer.valueOf( 20 ) );
+		assertEquals( -1, index.find( valueMap ) );
+		assertTrue( index.isDefiniteMiss( valueMap ) );
+
+		// equal by comparison but not by hash, the caller has to search
+		valueMap = createValueMap( "r1", new BigDecimal( "1.0" ) );
+		assertEquals( -1, index.find( valueMap ) );
+		assertFalse( index.isDefiniteMiss( valueMap ) );
+	}
+
+	@Test
+	public void testSmallResultSet( ) throws IOException
+	{
+		assertNull( AggregationResultSetIndex.build( createResultSet( 4, 4 ) ) );
+	}
+
+	@Test
+	public void testRowLimit( ) throws IOException
+	{
+		IAggregationResultSet rs = createResultSet( 20, 20 );
+		assertNull( AggregationResultSetIndex.build( rs, 399 ) );
+		assertNotNull( AggregationResultSetIndex.build( rs, 400 ) );
+	}
+
+	/**
+	 * Measures the lookups of all the cells of a 200x200 crosstab through the
+	 * index, including the build of the index, against the sequential search,
+	 * which is sampled on the last row of the crosstab. The index must make
+	 * a lookup at least ten times cheaper.
+	 */
+	@Test
+	public void testLookupCost( ) throws IOException
+	{
+		int size = 200;
+		IAggregationResultSet rs = createResultSet( size, size );
+
+		long start = System.nanoTime( );
+		AggregationResultSetIndex index = AggregationResultSetIndex.build( rs );
+		for ( int i = 0; i < size; i++ )
+		{
+			for ( int j = 0; j < size; j++ )
+			{
+				rs.seek( index.find( createValueMap( "r" + i,
+						Integer.valueOf( j ) ) ) );
+			}
+		}
+		long indexed = ( System.nanoTime( ) - start ) / ( size * size );
+
+		int samples = 20;
+		start = System.nanoTime( );
+		for ( int j = 0; j < samples; j++ )
+		{
+			assertEquals( ( size - 1 ) * size + j, findOneByOne( rs,
+					createValueMap( "r" + ( size - 1 ), Integer.valueOf( j ) ) ) );
+		}
+		long sequential = ( System.nanoTime( ) - start ) / samples;
+
+		assertTrue( "indexed lookup: " + indexed + "ns, sequential lookup: "
+				+ sequential + "ns", indexed * 10 < sequential );
+	}
+
+	private static int findOneByOne( IAggregationResultSet rs, Map valueMap )
+			throws IOException
+	{
+		DimLevel[] levels = rs.getAllLevels( );
+		for ( int position = 0; position < rs.length( ); position++ )
+		{
+			rs.seek( position );
+			boolean match = true;
+			for ( int i = 0; i < levels.length && match; i++ )
+			{
+				match = valueMap.get( levels[i] )
+						.equals( rs.getLevelKeyValue( i )[0] );
+			}
+			if ( match )
+				return position;
+		}
+		return -1;
+	}
+
+	private static Map createValueMap( Object row, Object column )
+	{
+		Map valueMap = new HashMap( );
+		valueMap.put( ROW_LEVEL, row );
+		valueMap.put( COLUMN_LEVEL, column );
+		return valueMap;
+	}
+
+	private static IAggregationResultSet createResultSet( int rowCount,
+			int columnCount ) throws IOException
+	{
+		DimLevel[] levels = new DimLevel[]{
+				ROW_LEVEL, COLUMN_LEVEL
+		};
+		AggregationFunctionDefinition[] functions = new AggregationFunctionDefinition[]{
+			new AggregationFunctionDefinition( "total", "value", "SUM" )
+		};
+		AggregationDefinition aggregation = new AggregationDefinition( levels,
+				new int[]{
+						0, 0
+				},
+				functions );
+		IDiskArray rows = new BufferedStructureArray( AggregationResultRow.getCreator( ),
+				4000 );
+		for ( int i = 0; i < rowCount; i++ )
+		{
+			for ( int j = 0; j < columnCount; j++ )
+			{
+				Member row = new Member( );
+				row.setKeyValues( new Object[]{
+					"r" + i
+				} );
+				Member column = new Member( );
+				column.setKeyValues( new Object[]{
+					Integer.valueOf( j )
+				} );
+				rows.add( new AggregationResultRow( new Member[]{
+						row, column
+				}, new Object[]{
+					Double.valueOf( i * columnCount + j )
+				} ) );
+			}
+		}
+		return new AggregationResultSet( aggregation,
+				rows,
+				new String[][]{
+						{
+							"row"
+						}, {
+							"column"
+						}
+				},
+				null );
+	}
+}
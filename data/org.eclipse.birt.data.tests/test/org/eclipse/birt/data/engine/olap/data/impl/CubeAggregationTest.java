@@ -19,6 +19,7 @@ import java.util.Date;
 import java.util.List;
 
 import org.eclipse.birt.core.archive.IDocArchiveWriter;
+import org.eclipse.birt.core.archive.RAOutputStream;
 import org.eclipse.birt.core.archive.compound.ArchiveFile;
 import org.eclipse.birt.core.archive.compound.ArchiveReader;
 import org.eclipse.birt.core.archive.compound.ArchiveWriter;
@@ -166,6 +167,33 @@ public class CubeAggregationTest extends BaseTestCase
 		documentManager.close(  ); 
 	}
 
+	/**
+	 * test aggregation of a cube loaded from a report document.
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	@Test
+    public void testLoadedAggregation1( ) throws IOException, BirtException
+	{
+		IDocArchiveWriter writer = createRAWriter( );
+		materializer.saveCubeToReportDocument( "cube1", writer , new StopSign( ) );
+		// the information of the cube cache isn't a document object
+		RAOutputStream info = writer.createRandomAccessStream( CubeMaterializer.CUBE_CACHE_INFO_STREAM );
+		info.writeInt( 1 );
+		info.close( );
+		writer.flush( );
+		writer.finish( );
+		ArchiveReader reader = new ArchiveReader( new ArchiveFile( pathName
+				+ File.separator + "docForTest", "r" ) );
+		CubeMaterializer loader = new CubeMaterializer( engine, "loadedCube" );
+		assertTrue( loader.loadCubeFromReportDocument( "cube1", reader, new StopSign( ) ) );
+		assertFalse( loader.loadCubeFromReportDocument( "cube2", reader, new StopSign( ) ) );
+		reader.close( );
+		documentManager = loader.getDocumentManager( );
+		assertFalse( documentManager.exist( CubeMaterializer.CUBE_CACHE_INFO_STREAM ) );
+		testCube1Aggregation( );
+	}
+
 	private IDocumentManager createRADocumentManager( ) throws IOException, DataException
 	{
 		ArchiveFile archiveFile = new ArchiveFile( pathName + File.separator+ "docForTest", "rw+" );
@@ -92,6 +92,30 @@ abstract public class DataEngine
 	 * DataEngineContext settings. 
 	 */
 	public static String MEMORY_DATA_SET_CACHE = "org.eclipse.birt.data.cache.memory";
+
+	/**
+	 * The milliseconds a data set saved to the JVM level cache can be reused.
+	 * The value is either a number used for all the data sets, or a map from
+	 * the data set names to their numbers. Zero or no value means the cached
+	 * data set doesn't expire.
+	 */
+	public static String DATA_SET_CACHE_TIME_TO_LIVE = "org.eclipse.birt.data.cache.TimeToLive";
+
+	/**
+	 * The max count of data sets kept in the JVM level cache. When a data set
+	 * is saved to a full cache, the least recently used data sets are removed
+	 * from it. Zero or no value means the count is not limited.
+	 */
+	public static String DATA_SET_CACHE_MAX_ENTRIES = "org.eclipse.birt.data.cache.MaxEntries";
+
+	/**
+	 * A directory shared by the JVMs on a host. The data sets cached on disk
+	 * in the JVM level cache are published to it, and the data sets missing in
+	 * the JVM level cache are looked up in it, so the JVMs reuse the data sets
+	 * queried by each other. Only the ODA data sets whose data source and data
+	 * set have no event script are shared.
+	 */
+	public static String DATA_SET_CACHE_SHARED_DIR = "org.eclipse.birt.data.cache.SharedDir";
 	
 	/**
 	 * Indicates the session id of which a set of queries will be executed. 
@@ -150,12 +174,37 @@ abstract public class DataEngine
 	 */
 	public static String CUBECURSOR_FETCH_LIMIT_ON_LEVEL = "org.eclipse.birt.data.engine.olap.cursor.onLevel";
 	
+	/**
+	 * The maximum row count of the aggregation result sets whose measure
+	 * values the cube cursor locates through a hash index of the member keys.
+	 * 
+	 * Positive integer: the result sets up to this number of rows are indexed.
+	 * Zero or Negative integer: no result set is indexed.
+	 * By default the result sets up to 131072 rows are indexed.
+	 */
+	public static String CUBECURSOR_INDEX_ROW_LIMIT = "org.eclipse.birt.data.engine.olap.cursor.indexRowLimit";
+	
 	/**
 	 * The size of cube to be saved in memory rather than in disk. The unit is MB. In case that the size
 	 * of materialized cube exceed the assigned memory size, the disk will automatically be used. 
 	 */
 	public static String IN_MEMORY_CUBE_SIZE = "org.eclipse.birt.data.engine.cube.inmemory.size";
 	
+	/**
+	 * The folder where the materialized cubes are saved, so the later runs of
+	 * the report use the saved cube rather than build it again. The cubes are
+	 * only saved if CUBE_CACHE_WATERMARK is set too.
+	 */
+	public static String CUBE_CACHE_DIR = "org.eclipse.birt.data.engine.cube.cache.dir";
+	
+	/**
+	 * The watermark of the data of the cubes, such as the last update time of
+	 * the fact table. A saved cube is only used if it is saved with the same
+	 * watermark, so the application changes the watermark when the data of
+	 * the cubes, or the data the user is allowed to see, is changed.
+	 */
+	public static String CUBE_CACHE_WATERMARK = "org.eclipse.birt.data.engine.cube.cache.watermark";
+	
 	/**
 	 * Creates a new instance of DataEngine, using the specified
 	 * DataEngineContext as its running environment
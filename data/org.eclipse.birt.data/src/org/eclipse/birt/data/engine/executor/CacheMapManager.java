@@ -11,42 +11,77 @@
 package org.eclipse.birt.data.engine.executor;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.odi.IResultClass;
 
 /**
- * Manage the cache map
+ * Manage the cache map.
+ * <p>
+ * The JVM level cache is shared by all the data engine sessions, so it is
+ * kept in concurrent maps and no lock is held across the data sets. A cached
+ * data set is pinned from the time a session decides to load it until the
+ * session finishes loading it, and a data set which is replaced, cleared,
+ * expired or evicted is released when its last reader finishes. When several
+ * sessions miss the same data set at the same time, only the first one saves
+ * it to the cache and the others wait for the saved data set instead of
+ * querying it again.
  */
 public class CacheMapManager
 {
+	/**
+	 * The time a session waits for another session saving the data set it
+	 * needs.
+	 */
+	private static final long SAVE_WAIT_TIME = 60000;
+
 	/**
 	 * Please notice that we must use static variable here for the sharing of
 	 * cached data set would be cross data set session.
 	 */
-	private static Map JVMLevelCacheMap = Collections.synchronizedMap( new HashMap( ) );
-	private static Map<DataSourceAndDataSet, Integer> lockedDataSetCacheMap = Collections.synchronizedMap( new HashMap( ) );	
-	
-	private Map<DataSourceAndDataSet, IDataSetCacheObject> cacheMap;
+	private static ConcurrentMap<DataSourceAndDataSet, CacheEntry> JVMLevelCacheMap = new ConcurrentHashMap<DataSourceAndDataSet, CacheEntry>( );
+	// the data sets being saved to the JVM level cache
+	private static ConcurrentMap<DataSourceAndDataSet, CountDownLatch> savingDataSetMap = new ConcurrentHashMap<DataSourceAndDataSet, CountDownLatch>( );
+
+	private static AtomicLong hitCount = new AtomicLong( );
+	private static AtomicLong missCount = new AtomicLong( );
+	private static AtomicLong saveCount = new AtomicLong( );
+	private static AtomicLong saveTime = new AtomicLong( );
+	private static AtomicLong evictionCount = new AtomicLong( );
+
+	private ConcurrentMap<DataSourceAndDataSet, CacheEntry> cacheMap;
 	// use this field temporarily keep the data set object need to be saved in
 	// cache. After the data set result has been cached, saved data set object
 	// into cachedMap
 	private Map<DataSourceAndDataSet, IDataSetCacheObject> tempDataSetCacheMap;
-	
+	// the data sets this manager is saving to the JVM level cache, and the
+	// time the saving started
+	private Map<DataSourceAndDataSet, CountDownLatch> savingLatchMap;
+	private Map<DataSourceAndDataSet, Long> saveStartTimeMap;
+	// the cache entries being loaded by this manager
+	private Map<DataSourceAndDataSet, LinkedList<CacheEntry>> loadingEntryMap;
+	// the cache entries this manager decided to load, which are not being
+	// loaded yet
+	private Map<DataSourceAndDataSet, CacheEntry> pinnedEntryMap;
+
 	private boolean useJVMLevelCache;
-	
+
 	//ensure that JVMLevelCache will be clear when JVM shutdown
 	static
 	{
 		new ShutdownHook( JVMLevelCacheMap );
 	}
-	
+
 	/**
 	 * construction
 	 */
@@ -59,127 +94,310 @@ public class CacheMapManager
 		}
 		else
 		{
-			cacheMap = new HashMap( );
+			cacheMap = new ConcurrentHashMap<DataSourceAndDataSet, CacheEntry>( );
 		}
 		tempDataSetCacheMap = new HashMap<DataSourceAndDataSet, IDataSetCacheObject>( );
+		savingLatchMap = new HashMap<DataSourceAndDataSet, CountDownLatch>( );
+		saveStartTimeMap = new HashMap<DataSourceAndDataSet, Long>( );
+		loadingEntryMap = new HashMap<DataSourceAndDataSet, LinkedList<CacheEntry>>( );
+		pinnedEntryMap = new HashMap<DataSourceAndDataSet, CacheEntry>( );
 	}
-	
+
 	/**
-	 * @param appContext 
-	 * @param collection 
-	 * @param baseDataSetDesign 
-	 * @param baseDataSourceDesign 
+	 * @param appContext
+	 * @param collection
+	 * @param baseDataSetDesign
+	 * @param baseDataSourceDesign
 	 * @return
-	 * @throws DataException 
+	 * @throws DataException
 	 */
 	boolean doesSaveToCache( DataSourceAndDataSet dsAndDs,
 			DataSetCacheConfig dscc) throws DataException
-	{		
-		synchronized ( cacheMap )
+	{
+		// another session may have started to save the data set after this
+		// one decided not to load it, wait for it rather than save it again
+		CacheEntry entry = waitForSaving( dsAndDs );
+		if ( entry != null )
+		{
+			return entry.cacheObject.needUpdateCache( dscc.getCacheCapability( ) );
+		}
+		synchronized ( tempDataSetCacheMap )
+		{
+			if ( !tempDataSetCacheMap.containsKey( dsAndDs ) )
+			{
+				IDataSetCacheObject dsco = dscc.createDataSetCacheObject( );
+				tempDataSetCacheMap.put( dsAndDs, dsco );
+				saveStartTimeMap.put( dsAndDs, System.currentTimeMillis( ) );
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Checks if the data set can be loaded from the cache. If it can, the
+	 * cached data set is pinned until the load is finished, so it is not
+	 * released in between.
+	 * 
+	 * @param dsAndDs
+	 * @return
+	 */
+	boolean doesLoadFromCache( DataSourceAndDataSet dsAndDs, int requiredCapability )
+	{
+		while ( true )
 		{
-			IDataSetCacheObject cacheObject = (IDataSetCacheObject)cacheMap.get( dsAndDs );
-			if (cacheObject != null)
+			CacheEntry entry = waitForSaving( dsAndDs );
+			if ( entry == null )
 			{
-				return cacheObject.needUpdateCache( dscc.getCacheCapability( ) );
+				missCount.incrementAndGet( );
+				return false;
 			}
-			else
+			if ( entry.isExpired( )
+					|| !entry.cacheObject.isCachedDataReusable( requiredCapability ) )
 			{
-				if( !tempDataSetCacheMap.containsKey( dsAndDs ) )
+				synchronized ( tempDataSetCacheMap )
+				{
+					tempDataSetCacheMap.remove( dsAndDs );
+				}
+				if ( cacheMap.remove( dsAndDs, entry ) )
 				{
-					IDataSetCacheObject dsco = dscc.createDataSetCacheObject( );
-					tempDataSetCacheMap.put( dsAndDs, dsco );					
+					entry.retire( );
 				}
+				// this session saves the data set again
+				waitForSaving( dsAndDs );
+				missCount.incrementAndGet( );
+				return false;
+			}
+			// the entry may be retired just after it is got, get it again
+			if ( pin( dsAndDs, entry ) )
+			{
+				entry.touch( );
+				hitCount.incrementAndGet( );
 				return true;
 			}
 		}
 	}
-	
+
 	/**
-	 * @param dsAndDs
-	 * @return
+	 * Pins the cache entry until this manager loads it.
+	 * 
+	 * @return false if the entry is retired and can't be loaded
 	 */
-	boolean doesLoadFromCache( DataSourceAndDataSet dsAndDs, int requiredCapability )
+	private boolean pin( DataSourceAndDataSet dsAndDs, CacheEntry entry )
+	{
+		synchronized ( loadingEntryMap )
+		{
+			if ( pinnedEntryMap.get( dsAndDs ) == entry )
+			{
+				return true;
+			}
+		}
+		if ( !entry.acquire( ) )
+		{
+			return false;
+		}
+		CacheEntry old;
+		synchronized ( loadingEntryMap )
+		{
+			old = pinnedEntryMap.put( dsAndDs, entry );
+		}
+		if ( old != null )
+		{
+			old.release( );
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the cached data set. In the JVM level cache, if another manager is
+	 * saving the data set, waits for it; if no manager is saving it, this
+	 * manager claims to save it, so the other managers wait for this one.
+	 * 
+	 * @return the cached data set, null if it is not cached
+	 */
+	private CacheEntry waitForSaving( DataSourceAndDataSet dsAndDs )
 	{
-		synchronized ( cacheMap )
+		while ( true )
 		{
-			IDataSetCacheObject cacheObject = (IDataSetCacheObject)cacheMap.get( dsAndDs );
-			if (cacheObject != null)
+			CacheEntry entry = cacheMap.get( dsAndDs );
+			if ( entry != null || !useJVMLevelCache )
+			{
+				return entry;
+			}
+			CountDownLatch latch;
+			synchronized ( tempDataSetCacheMap )
 			{
-				boolean reusable = cacheObject.isCachedDataReusable( requiredCapability );
-				if ( !reusable )
+				if ( savingLatchMap.containsKey( dsAndDs ) )
 				{
-					if ( useJVMLevelCache )
-					{
-						synchronized ( lockedDataSetCacheMap )
-						{
-							if ( lockedDataSetCacheMap.containsKey( dsAndDs ) )
-							{
-								try
-								{
-									// waiting for 60s
-									lockedDataSetCacheMap.wait( 60000 );
-								}
-								catch ( InterruptedException e )
-								{
-								}
-								lockedDataSetCacheMap.remove( dsAndDs );
-							}
-						}
-					}
-					cacheObject.release( );
-					tempDataSetCacheMap.remove( dsAndDs );
-					cacheMap.remove( dsAndDs );
+					return null;
 				}
-				else
-				if ( this.useJVMLevelCache )
+				CountDownLatch ownLatch = new CountDownLatch( 1 );
+				latch = savingDataSetMap.putIfAbsent( dsAndDs, ownLatch );
+				if ( latch == null )
 				{
-					if ( !lockedDataSetCacheMap.containsKey( dsAndDs ) )
+					// the data set may be saved just before the claim
+					entry = cacheMap.get( dsAndDs );
+					if ( entry != null )
 					{
-						lockedDataSetCacheMap.put( dsAndDs, 0 );
+						savingDataSetMap.remove( dsAndDs, ownLatch );
+						ownLatch.countDown( );
+						return entry;
 					}
+					savingLatchMap.put( dsAndDs, ownLatch );
+					return null;
 				}
-				return reusable;
 			}
-			else
+			try
 			{
-				return false;
+				if ( !latch.await( SAVE_WAIT_TIME, TimeUnit.MILLISECONDS ) )
+				{
+					// the saving session doesn't finish, don't wait for it again
+					savingDataSetMap.remove( dsAndDs, latch );
+				}
+			}
+			catch ( InterruptedException e )
+			{
+				Thread.currentThread( ).interrupt( );
+				return cacheMap.get( dsAndDs );
 			}
 		}
 	}
-	
+
+	/**
+	 * @return if the data set is in the cache, whether it is reusable or not
+	 */
+	boolean containsCacheObject( DataSourceAndDataSet dsAndDs )
+	{
+		return cacheMap.containsKey( dsAndDs );
+	}
+
+	/**
+	 * Puts a data set loaded from the shared cache unless the data set is
+	 * cached already, in which case the loaded one is released.
+	 */
+	void loadFinishOnSharedCache( DataSourceAndDataSet dsAndDs,
+			IDataSetCacheObject dsco, long timeToLive )
+	{
+		if ( cacheMap.putIfAbsent( dsAndDs, new CacheEntry( dsco, timeToLive ) ) != null )
+		{
+			dsco.release( );
+		}
+	}
+
 	/**
 	 * @return
 	 */
 	IDataSetCacheObject getSavedCacheObject( DataSourceAndDataSet dsAndDs )
-	{	
-		synchronized ( cacheMap )
+	{
+		synchronized ( tempDataSetCacheMap )
 		{
 			return tempDataSetCacheMap.get( dsAndDs );
 		}
 	}
-	
+
+	/**
+	 * @param dsAndDs
+	 * @param dsco
+	 * @param timeToLive
+	 *            the milliseconds the saved data set can be reused, 0 if it
+	 *            doesn't expire
+	 * @param maxEntries
+	 *            the max count of data sets kept in the cache, 0 if it is not
+	 *            limited
+	 */
 	void saveFinishOnCache( DataSourceAndDataSet dsAndDs,
-			IDataSetCacheObject dsco )
+			IDataSetCacheObject dsco, long timeToLive, int maxEntries )
+	{
+		CacheEntry entry = new CacheEntry( dsco, timeToLive );
+		CacheEntry old = cacheMap.put( dsAndDs, entry );
+		if ( old != null && old.cacheObject != dsco )
+		{
+			old.retire( );
+		}
+
+		CountDownLatch latch;
+		Long startTime;
+		synchronized ( tempDataSetCacheMap )
+		{
+			latch = savingLatchMap.remove( dsAndDs );
+			startTime = saveStartTimeMap.remove( dsAndDs );
+		}
+		if ( latch != null )
+		{
+			savingDataSetMap.remove( dsAndDs, latch );
+			latch.countDown( );
+		}
+		saveCount.incrementAndGet( );
+		if ( startTime != null )
+		{
+			saveTime.addAndGet( System.currentTimeMillis( ) - startTime );
+		}
+		if ( maxEntries > 0 )
+		{
+			evict( maxEntries, entry );
+		}
+	}
+
+	/**
+	 * Removes the least recently used data sets until the cache holds no more
+	 * than the max entries.
+	 */
+	private void evict( int maxEntries, CacheEntry kept )
 	{
-		synchronized ( cacheMap )
+		while ( cacheMap.size( ) > maxEntries )
 		{
-			cacheMap.put( dsAndDs, dsco );
+			DataSourceAndDataSet lruKey = null;
+			CacheEntry lruEntry = null;
+			for ( Map.Entry<DataSourceAndDataSet, CacheEntry> mapEntry : cacheMap.entrySet( ) )
+			{
+				CacheEntry entry = mapEntry.getValue( );
+				if ( entry != kept
+						&& ( lruEntry == null || entry.lastAccessTime < lruEntry.lastAccessTime ) )
+				{
+					lruKey = mapEntry.getKey( );
+					lruEntry = entry;
+				}
+			}
+			if ( lruEntry == null )
+			{
+				return;
+			}
+			if ( cacheMap.remove( lruKey, lruEntry ) )
+			{
+				lruEntry.retire( );
+				evictionCount.incrementAndGet( );
+			}
 		}
 	}
-	
+
 	/**
 	 */
 	void loadStart( DataSourceAndDataSet dsAndDs ) throws DataException
 	{
-		if ( this.useJVMLevelCache )
+		CacheEntry entry;
+		synchronized ( loadingEntryMap )
+		{
+			entry = pinnedEntryMap.remove( dsAndDs );
+		}
+		if ( entry == null )
+		{
+			entry = cacheMap.get( dsAndDs );
+			// the entry may be retired just after it is got, get it again
+			while ( entry != null && !entry.acquire( ) )
+			{
+				entry = cacheMap.get( dsAndDs );
+			}
+		}
+		if ( entry != null )
 		{
-			synchronized ( lockedDataSetCacheMap )
+			synchronized ( loadingEntryMap )
 			{
-				if ( lockedDataSetCacheMap.containsKey( dsAndDs ) )
+				LinkedList<CacheEntry> entries = loadingEntryMap.get( dsAndDs );
+				if ( entries == null )
 				{
-					Integer count = lockedDataSetCacheMap.get( dsAndDs );
-					lockedDataSetCacheMap.put( dsAndDs, count + 1 );
+					entries = new LinkedList<CacheEntry>( );
+					loadingEntryMap.put( dsAndDs, entries );
 				}
+				entries.add( entry );
 			}
 		}
 	}
@@ -188,78 +406,160 @@ public class CacheMapManager
 	 */
 	void loadFinishOnCache( DataSourceAndDataSet dsAndDs ) throws DataException
 	{
-		if( this.useJVMLevelCache )
+		CacheEntry entry = null;
+		synchronized ( loadingEntryMap )
 		{
-			synchronized ( lockedDataSetCacheMap )
+			LinkedList<CacheEntry> entries = loadingEntryMap.get( dsAndDs );
+			if ( entries != null )
 			{
-				if( lockedDataSetCacheMap.containsKey( dsAndDs ) )
+				entry = entries.removeLast( );
+				if ( entries.isEmpty( ) )
 				{
-					Integer count = lockedDataSetCacheMap.get( dsAndDs );
-					if( count<=1 )
-					{
-						lockedDataSetCacheMap.remove( dsAndDs );
-						lockedDataSetCacheMap.notifyAll( );
-					}
-					else
-					{
-						lockedDataSetCacheMap.put( dsAndDs, count-1 );
-					}
+					loadingEntryMap.remove( dsAndDs );
 				}
 			}
 		}
+		if ( entry != null )
+		{
+			entry.release( );
+		}
 	}
-	
-	
+
 	/**
 	 * @return
 	 */
 	IDataSetCacheObject getloadedCacheObject( DataSourceAndDataSet dsAndDs )
-	{	
-		return (IDataSetCacheObject) cacheMap.get( dsAndDs );
+	{
+		synchronized ( loadingEntryMap )
+		{
+			LinkedList<CacheEntry> entries = loadingEntryMap.get( dsAndDs );
+			if ( entries != null )
+			{
+				return entries.getLast( ).cacheObject;
+			}
+			CacheEntry pinned = pinnedEntryMap.get( dsAndDs );
+			if ( pinned != null )
+			{
+				return pinned.cacheObject;
+			}
+		}
+		CacheEntry entry = cacheMap.get( dsAndDs );
+		return entry == null ? null : entry.cacheObject;
 	}
-	
+
 	/**
+	 * Clears the cached data set, and stops the savings of it by this manager
+	 * so the other managers don't wait for them.
+	 * 
 	 * @param dataSourceDesign2
 	 * @param dataSetDesign2
 	 */
 	void clearCache( DataSourceAndDataSet dsAndDs )
 	{
-		List cacheObjects = new ArrayList( );
-		synchronized ( cacheMap )
+		DataSourceAndDataSet key = getKey( dsAndDs );
+		while ( key != null )
 		{
-			Object key = getKey(dsAndDs);
-			while ( key != null )
+			CacheEntry entry = cacheMap.remove( key );
+			synchronized ( tempDataSetCacheMap )
 			{
-				cacheObjects.add( cacheMap.remove( key ) );
 				tempDataSetCacheMap.remove( key );
-				key = getKey(dsAndDs);
 			}
+			if ( entry != null )
+			{
+				entry.retire( );
+			}
+			key = getKey( dsAndDs );
 		}
-		for ( int i = 0; i < cacheObjects.size( ); i++ )
+		List<DataSourceAndDataSet> savingKeys = new ArrayList<DataSourceAndDataSet>( );
+		synchronized ( tempDataSetCacheMap )
 		{
-			IDataSetCacheObject cacheObject = (IDataSetCacheObject)cacheObjects.get( i );
-			cacheObject.release( );
+			for ( DataSourceAndDataSet temp : savingLatchMap.keySet( ) )
+			{
+				if ( temp.isDataSourceDataSetEqual( dsAndDs, false ) )
+				{
+					savingKeys.add( temp );
+				}
+			}
+		}
+		for ( int i = 0; i < savingKeys.size( ); i++ )
+		{
+			stopSaving( savingKeys.get( i ) );
 		}
-
 	}
-	
+
 	/**
 	 * Reset for test case
 	 */
 	void resetForTest( )
 	{
-		synchronized ( this )
+		cacheMap.clear( );
+		synchronized ( tempDataSetCacheMap )
 		{
-			cacheMap.clear( );
 			tempDataSetCacheMap.clear( );
 		}
+		clearPinned( );
+		clearSaving( );
+	}
+
+	/**
+	 * Releases the cache entries this manager decided to load but didn't.
+	 */
+	void clearPinned( )
+	{
+		List<CacheEntry> entries;
+		synchronized ( loadingEntryMap )
+		{
+			entries = new ArrayList<CacheEntry>( pinnedEntryMap.values( ) );
+			pinnedEntryMap.clear( );
+		}
+		for ( int i = 0; i < entries.size( ); i++ )
+		{
+			entries.get( i ).release( );
+		}
+	}
+
+	/**
+	 * Stops the saving of the data set if this manager is saving it, so the
+	 * other managers don't wait for it.
+	 */
+	void stopSaving( DataSourceAndDataSet dsAndDs )
+	{
+		CountDownLatch latch;
+		synchronized ( tempDataSetCacheMap )
+		{
+			latch = savingLatchMap.remove( dsAndDs );
+			saveStartTimeMap.remove( dsAndDs );
+		}
+		if ( latch != null )
+		{
+			savingDataSetMap.remove( dsAndDs, latch );
+			latch.countDown( );
+		}
+	}
+
+	/**
+	 * Stops the savings of this manager which are not finished, so the other
+	 * managers don't wait for them.
+	 */
+	void clearSaving( )
+	{
+		synchronized ( tempDataSetCacheMap )
+		{
+			for ( Map.Entry<DataSourceAndDataSet, CountDownLatch> entry : savingLatchMap.entrySet( ) )
+			{
+				savingDataSetMap.remove( entry.getKey( ), entry.getValue( ) );
+				entry.getValue( ).countDown( );
+			}
+			savingLatchMap.clear( );
+			saveStartTimeMap.clear( );
+		}
 	}
-	
+
 	/**
 	 * Return the cached result metadata featured by the given
 	 * DataSourceAndDataSet. Please note that the paramter would have no impact
 	 * to DataSourceAndDataSet so that will be omited.
-	 * 
+	 *
 	 * @param dsAndDs
 	 * @return
 	 * @throws DataException
@@ -267,111 +567,209 @@ public class CacheMapManager
 	IResultClass getCachedResultClass( DataSourceAndDataSet dsAndDs )
 			throws DataException
 	{
-		IDataSetCacheObject cacheObject = null;
-		Object key = getKey( dsAndDs );
+		CacheEntry entry = null;
+		DataSourceAndDataSet key = getKey( dsAndDs );
 		if ( key != null )
 		{
-			cacheObject = (IDataSetCacheObject)cacheMap.get( key );
+			entry = cacheMap.get( key );
 		}
-		if (cacheObject != null)
+		if ( entry != null )
 		{
-			return cacheObject.getResultClass( );
+			return entry.cacheObject.getResultClass( );
 		}
 		else
 		{
 			return null;
 		}
 	}
-	
+
 	/**
-	 * 
+	 *
 	 * @param dsAndDs
 	 * @return
 	 */
-	private Object getKey ( DataSourceAndDataSet dsAndDs )
+	private DataSourceAndDataSet getKey( DataSourceAndDataSet dsAndDs )
 	{
-		synchronized ( cacheMap )
+		for ( DataSourceAndDataSet temp : cacheMap.keySet( ) )
 		{
-			for ( Iterator it = cacheMap.keySet( ).iterator( ); it.hasNext( ); )
+			if ( temp.isDataSourceDataSetEqual( dsAndDs, false ) )
 			{
-				DataSourceAndDataSet temp = (DataSourceAndDataSet) it.next( );
-				if ( temp.isDataSourceDataSetEqual( dsAndDs, false ) )
-				{
-					return temp;
-				}
+				return temp;
 			}
-			return null;
 		}
+		return null;
 	}
-	
-	public static void clearCache( Set<String> cacheIDs ) 
+
+	public static void clearCache( Set<String> cacheIDs )
 	{
-		List<IDataSetCacheObject> removed = new ArrayList<IDataSetCacheObject>( );
-		
-		Object[] keyArray = JVMLevelCacheMap.keySet( ).toArray( new DataSourceAndDataSet[]{} );
-		for( Object dsAndDs : keyArray )
+		for ( DataSourceAndDataSet dsAndDs : JVMLevelCacheMap.keySet( ) )
 		{
-			if( cacheIDs.contains( ((DataSourceAndDataSet)dsAndDs).getCacheScopeID( ) ))
+			if ( cacheIDs.contains( dsAndDs.getCacheScopeID( ) ) )
 			{
-				// here we do not use while clause to avoid thread suspending if
-				// cached is not properly closed.
-				synchronized ( lockedDataSetCacheMap ) 
+				// the data set being loaded is released after it is loaded
+				CacheEntry entry = JVMLevelCacheMap.remove( dsAndDs );
+				if ( entry != null )
 				{
-		          if ( lockedDataSetCacheMap.containsKey( dsAndDs ) )
-		          {
-		             try
-					 {
-		            	 //waiting for 60s
-		              	lockedDataSetCacheMap.wait( 60000 );
-					 }
-					 catch ( InterruptedException e )
-					 {
-					 }
-		             lockedDataSetCacheMap.remove( dsAndDs );
-			      }
+					entry.retire( );
 				}
-				IDataSetCacheObject cacheObj = (IDataSetCacheObject) JVMLevelCacheMap.remove( dsAndDs );
-				if( cacheObj != null )
-					removed.add( cacheObj );
-				
 			}
 		}
-		
-		for( IDataSetCacheObject dataSetCacheObject : removed )
-		{
-			dataSetCacheObject.release( );
-		}
 	}
-	
+
 	void clearCache( )
 	{
-		List cacheObjects = new ArrayList( );
-		synchronized ( cacheMap )
+		for ( DataSourceAndDataSet dataSetAndSource : cacheMap.keySet( ) )
 		{
-			for ( DataSourceAndDataSet dataSetAndSource : cacheMap.keySet( ).toArray( new DataSourceAndDataSet[0] ) )
- 			{
-				cacheObjects.add( cacheMap.remove( dataSetAndSource ) );
+			CacheEntry entry = cacheMap.remove( dataSetAndSource );
+			synchronized ( tempDataSetCacheMap )
+			{
 				tempDataSetCacheMap.remove( dataSetAndSource );
- 			}
+			}
+			if ( entry != null )
+			{
+				entry.retire( );
+			}
 		}
-		for ( int i = 0; i < cacheObjects.size( ); i++ )
+	}
+
+	/**
+	 * @return the count of the data sets loaded from the cache
+	 */
+	public static long getHitCount( )
+	{
+		return hitCount.get( );
+	}
+
+	/**
+	 * @return the count of the data sets which are not in the cache or whose
+	 *         cache is not reusable
+	 */
+	public static long getMissCount( )
+	{
+		return missCount.get( );
+	}
+
+	/**
+	 * @return the count of the data sets saved to the cache
+	 */
+	public static long getSaveCount( )
+	{
+		return saveCount.get( );
+	}
+
+	/**
+	 * @return the total milliseconds spent on querying and saving the data
+	 *         sets saved to the cache
+	 */
+	public static long getSaveTime( )
+	{
+		return saveTime.get( );
+	}
+
+	/**
+	 * @return the count of the data sets evicted from the cache because it
+	 *         exceeds its max entries
+	 */
+	public static long getEvictionCount( )
+	{
+		return evictionCount.get( );
+	}
+
+	/**
+	 * @return the count of the data sets in the JVM level cache
+	 */
+	public static int getJVMLevelCacheSize( )
+	{
+		return JVMLevelCacheMap.size( );
+	}
+
+	/**
+	 * A cached data set with its expiration and its readers. The data set is
+	 * released when the entry is retired and no reader is loading it.
+	 */
+	static class CacheEntry
+	{
+
+		final IDataSetCacheObject cacheObject;
+		private final long expireTime;
+		volatile long lastAccessTime;
+		private int readers;
+		private boolean retired;
+
+		CacheEntry( IDataSetCacheObject cacheObject, long timeToLive )
 		{
-			IDataSetCacheObject cacheObject = (IDataSetCacheObject)cacheObjects.get( i );
+			this.cacheObject = cacheObject;
+			this.lastAccessTime = System.currentTimeMillis( );
+			this.expireTime = timeToLive > 0
+					? lastAccessTime + timeToLive
+					: Long.MAX_VALUE;
+		}
+
+		boolean isExpired( )
+		{
+			return System.currentTimeMillis( ) >= expireTime;
+		}
+
+		void touch( )
+		{
+			lastAccessTime = System.currentTimeMillis( );
+		}
+
+		/**
+		 * @return false if the entry is retired and can't be loaded
+		 */
+		synchronized boolean acquire( )
+		{
+			if ( retired )
+			{
+				return false;
+			}
+			readers++;
+			return true;
+		}
+
+		void release( )
+		{
+			synchronized ( this )
+			{
+				readers--;
+				if ( !retired || readers > 0 )
+				{
+					return;
+				}
+			}
+			cacheObject.release( );
+		}
+
+		void retire( )
+		{
+			synchronized ( this )
+			{
+				if ( retired )
+				{
+					return;
+				}
+				retired = true;
+				if ( readers > 0 )
+				{
+					return;
+				}
+			}
 			cacheObject.release( );
 		}
 	}
 }
 /**
  * Register shutdown hook on JVM exit to ensure that JVM cache will be cleared correctly.
- * 
+ *
  *
  */
 class ShutdownHook implements Runnable
 {
-	private Map<DataSourceAndDataSet, IDataSetCacheObject> cacheMap;
+	private Map<DataSourceAndDataSet, CacheMapManager.CacheEntry> cacheMap;
 
 	ShutdownHook(
-			Map<DataSourceAndDataSet, IDataSetCacheObject> jvmLevelCacheMap )
+			Map<DataSourceAndDataSet, CacheMapManager.CacheEntry> jvmLevelCacheMap )
 	{
 		cacheMap = jvmLevelCacheMap;
 		Runtime.getRuntime( ).addShutdownHook( new Thread( this ) );
@@ -383,7 +781,11 @@ class ShutdownHook implements Runnable
 		for ( DataSourceAndDataSet dataSetAndSource : cacheMap.keySet( )
 				.toArray( new DataSourceAndDataSet[0] ) )
 		{
-			cacheObjects.add( cacheMap.remove( dataSetAndSource ) );
+			CacheMapManager.CacheEntry entry = cacheMap.remove( dataSetAndSource );
+			if ( entry != null )
+			{
+				cacheObjects.add( entry.cacheObject );
+			}
 		}
 		for ( int i = 0; i < cacheObjects.size( ); i++ )
 		{
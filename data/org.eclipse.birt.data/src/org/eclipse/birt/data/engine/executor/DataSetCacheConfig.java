@@ -74,6 +74,14 @@ public class DataSetCacheConfig
 		return cacheDir;
 	}
 	
+	/**
+	 * @return if the cached data set can be shared with the other JVMs
+	 */
+	boolean isSharable( )
+	{
+		return cacheMode == DataSetCacheMode.IN_DISK && !isIncremental;
+	}
+	
 	IDataSetCacheObject createDataSetCacheObject()
 	{
 		if (cacheMode == DataSetCacheMode.IN_MEMORY)
@@ -0,0 +1,339 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.executor;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.birt.core.data.DataTypeUtil;
+import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
+import org.eclipse.birt.data.engine.api.IBaseDataSourceDesign;
+import org.eclipse.birt.data.engine.api.IBaseExpression;
+import org.eclipse.birt.data.engine.api.IColumnDefinition;
+import org.eclipse.birt.data.engine.api.IComputedColumn;
+import org.eclipse.birt.data.engine.api.IConditionalExpression;
+import org.eclipse.birt.data.engine.api.IExpressionCollection;
+import org.eclipse.birt.data.engine.api.IFilterDefinition;
+import org.eclipse.birt.data.engine.api.IInputParameterBinding;
+import org.eclipse.birt.data.engine.api.IOdaDataSetDesign;
+import org.eclipse.birt.data.engine.api.IOdaDataSourceDesign;
+import org.eclipse.birt.data.engine.api.IParameterDefinition;
+import org.eclipse.birt.data.engine.api.IScriptExpression;
+import org.eclipse.birt.data.engine.impl.DataSetAdapter;
+import org.eclipse.birt.data.engine.odaconsumer.ParameterHint;
+
+/**
+ * Computes the digest identifying a data set in the shared data set cache. The
+ * digest covers what <code>DataSourceAndDataSet</code> compares: the data
+ * source, the data set and the parameter values. Only the ODA data sets whose
+ * data source and data set have no event script can be shared, since a script
+ * may give different rows in different engines.
+ */
+class DataSetCacheDigest
+{
+
+	private StringBuilder buffer = new StringBuilder( );
+	private boolean sharable = true;
+
+	private DataSetCacheDigest( )
+	{
+	}
+
+	/**
+	 * @return the digest of the data source and data set, null if the data
+	 *         set can't be shared
+	 */
+	static String getDesignDigest( IBaseDataSourceDesign dataSourceDesign,
+			IBaseDataSetDesign dataSetDesign )
+	{
+		DataSetCacheDigest digest = new DataSetCacheDigest( );
+		digest.appendDesign( dataSourceDesign, dataSetDesign );
+		return digest.getDigest( );
+	}
+
+	/**
+	 * @return the digest of the data source, data set and parameter values,
+	 *         null if the data set can't be shared
+	 */
+	static String getDigest( IBaseDataSourceDesign dataSourceDesign,
+			IBaseDataSetDesign dataSetDesign, Collection parameterHints )
+	{
+		DataSetCacheDigest digest = new DataSetCacheDigest( );
+		digest.appendDesign( dataSourceDesign, dataSetDesign );
+		digest.appendParameterHints( parameterHints );
+		return digest.getDigest( );
+	}
+
+	private void appendDesign( IBaseDataSourceDesign dataSourceDesign,
+			IBaseDataSetDesign dataSetDesign )
+	{
+		if ( dataSetDesign instanceof DataSetAdapter )
+		{
+			dataSetDesign = ( (DataSetAdapter) dataSetDesign ).getSource( );
+		}
+		if ( !( dataSourceDesign instanceof IOdaDataSourceDesign )
+				|| !( dataSetDesign instanceof IOdaDataSetDesign )
+				|| dataSourceDesign.getBeforeOpenScript( ) != null
+				|| dataSourceDesign.getAfterOpenScript( ) != null
+				|| dataSourceDesign.getBeforeCloseScript( ) != null
+				|| dataSourceDesign.getAfterCloseScript( ) != null
+				|| dataSetDesign.getBeforeOpenScript( ) != null
+				|| dataSetDesign.getAfterOpenScript( ) != null
+				|| dataSetDesign.getBeforeCloseScript( ) != null
+				|| dataSetDesign.getAfterCloseScript( ) != null
+				|| dataSetDesign.getOnFetchScript( ) != null )
+		{
+			sharable = false;
+			return;
+		}
+
+		IOdaDataSourceDesign dataSource = (IOdaDataSourceDesign) dataSourceDesign;
+		append( dataSource.getName( ) );
+		append( dataSource.getExtensionID( ) );
+		appendProps( dataSource.getPublicProperties( ) );
+		appendProps( dataSource.getPrivateProperties( ) );
+
+		IOdaDataSetDesign dataSet = (IOdaDataSetDesign) dataSetDesign;
+		append( dataSet.getName( ) );
+		append( dataSet.getExtensionID( ) );
+		append( dataSet.getQueryText( ) );
+		append( dataSet.getPrimaryResultSetName( ) );
+		appendProps( dataSet.getPublicProperties( ) );
+		appendProps( dataSet.getPrivateProperties( ) );
+		append( dataSet.getRowFetchLimit( ) );
+		append( dataSet.getCacheRowCount( ) );
+
+		List computedColumns = ComparatorUtil.getRealComputedColumn( dataSet.getComputedColumns( ) );
+		if ( computedColumns != null )
+		{
+			for ( Iterator it = computedColumns.iterator( ); it.hasNext( ); )
+			{
+				IComputedColumn column = (IComputedColumn) it.next( );
+				append( column.getName( ) );
+				append( column.getDataType( ) );
+				appendExpression( column.getExpression( ) );
+			}
+		}
+		append( ';' );
+		List filters = dataSet.getFilters( );
+		if ( filters != null )
+		{
+			for ( Iterator it = filters.iterator( ); it.hasNext( ); )
+			{
+				appendExpression( ( (IFilterDefinition) it.next( ) ).getExpression( ) );
+			}
+		}
+		append( ';' );
+		List parameters = dataSet.getParameters( );
+		if ( parameters != null )
+		{
+			for ( Iterator it = parameters.iterator( ); it.hasNext( ); )
+			{
+				IParameterDefinition parameter = (IParameterDefinition) it.next( );
+				append( parameter.getPosition( ) );
+				append( parameter.getType( ) );
+				append( parameter.getNativeType( ) );
+				append( String.valueOf( parameter.isInputMode( ) ) );
+				append( String.valueOf( parameter.isInputOptional( ) ) );
+				append( String.valueOf( parameter.isNullable( ) ) );
+				append( String.valueOf( parameter.isOutputMode( ) ) );
+				append( parameter.getDefaultInputValue( ) );
+			}
+		}
+		append( ';' );
+		List resultHints = dataSet.getResultSetHints( );
+		if ( resultHints != null )
+		{
+			for ( Iterator it = resultHints.iterator( ); it.hasNext( ); )
+			{
+				IColumnDefinition column = (IColumnDefinition) it.next( );
+				append( column.getColumnPosition( ) );
+				append( column.getDataType( ) );
+				append( column.getNativeDataType( ) );
+				append( column.getExportHint( ) );
+				append( column.getSearchHint( ) );
+				append( column.getAlias( ) );
+				append( column.getColumnName( ) );
+				append( column.getDisplayName( ) );
+			}
+		}
+		append( ';' );
+	}
+
+	private void appendParameterHints( Collection parameterHints )
+	{
+		if ( parameterHints == null )
+		{
+			return;
+		}
+		for ( Iterator it = parameterHints.iterator( ); it.hasNext( ); )
+		{
+			Object hint = it.next( );
+			if ( hint instanceof ParameterHint )
+			{
+				ParameterHint parameterHint = (ParameterHint) hint;
+				append( parameterHint.getPosition( ) );
+				append( parameterHint.getName( ) );
+				append( DataTypeUtil.toApiDataType( parameterHint.getDataType( ) ) );
+				append( parameterHint.getNativeDataType( ) );
+				appendValue( parameterHint.getDefaultInputValue( ) );
+			}
+			else if ( hint instanceof IInputParameterBinding )
+			{
+				IInputParameterBinding binding = (IInputParameterBinding) hint;
+				append( binding.getName( ) );
+				append( binding.getPosition( ) );
+				appendExpression( binding.getExpr( ) );
+			}
+			else
+			{
+				sharable = false;
+			}
+		}
+	}
+
+	private void appendExpression( IBaseExpression expression )
+	{
+		if ( expression == null )
+		{
+			append( (String) null );
+		}
+		else if ( expression instanceof IScriptExpression )
+		{
+			append( expression.getDataType( ) );
+			append( ( (IScriptExpression) expression ).getText( ) );
+		}
+		else if ( expression instanceof IConditionalExpression )
+		{
+			IConditionalExpression condition = (IConditionalExpression) expression;
+			append( '?' );
+			append( condition.getDataType( ) );
+			append( condition.getOperator( ) );
+			appendExpression( condition.getExpression( ) );
+			appendExpression( condition.getOperand1( ) );
+			appendExpression( condition.getOperand2( ) );
+		}
+		else if ( expression instanceof IExpressionCollection )
+		{
+			append( '[' );
+			append( expression.getDataType( ) );
+			Collection expressions = ( (IExpressionCollection) expression ).getExpressions( );
+			for ( Iterator it = expressions.iterator( ); it.hasNext( ); )
+			{
+				appendExpression( (IBaseExpression) it.next( ) );
+			}
+			append( ']' );
+		}
+		else
+		{
+			sharable = false;
+		}
+	}
+
+	private void appendProps( Map props )
+	{
+		if ( props == null )
+		{
+			append( (String) null );
+			return;
+		}
+		// the order of the properties doesn't matter
+		Map<String, String> sorted = new TreeMap<String, String>( );
+		for ( Iterator it = props.entrySet( ).iterator( ); it.hasNext( ); )
+		{
+			Map.Entry entry = (Map.Entry) it.next( );
+			sorted.put( String.valueOf( entry.getKey( ) ),
+					entry.getValue( ) == null ? null : entry.getValue( )
+							.toString( ) );
+		}
+		append( sorted.size( ) );
+		for ( Map.Entry<String, String> entry : sorted.entrySet( ) )
+		{
+			append( entry.getKey( ) );
+			append( entry.getValue( ) );
+		}
+	}
+
+	private void appendValue( Object value )
+	{
+		if ( value instanceof Object[] )
+		{
+			append( Arrays.deepToString( (Object[]) value ) );
+		}
+		else if ( value != null )
+		{
+			append( value.getClass( ).getName( ) );
+			append( value.toString( ) );
+		}
+		else
+		{
+			append( (String) null );
+		}
+	}
+
+	private void append( int value )
+	{
+		buffer.append( value ).append( ',' );
+	}
+
+	private void append( char value )
+	{
+		buffer.append( value );
+	}
+
+	private void append( String value )
+	{
+		// the length separates the strings whatever they contain
+		if ( value == null )
+		{
+			buffer.append( "-1:" ); //$NON-NLS-1$
+		}
+		else
+		{
+			buffer.append( value.length( ) ).append( ':' ).append( value );
+		}
+	}
+
+	private String getDigest( )
+	{
+		if ( !sharable )
+		{
+			return null;
+		}
+		try
+		{
+			byte[] digest = MessageDigest.getInstance( "SHA-256" ) //$NON-NLS-1$
+					.digest( buffer.toString( ).getBytes( "UTF-8" ) ); //$NON-NLS-1$
+			StringBuilder hex = new StringBuilder( digest.length * 2 );
+			for ( int i = 0; i < digest.length; i++ )
+			{
+				hex.append( Character.forDigit( ( digest[i] >> 4 ) & 0xF, 16 ) );
+				hex.append( Character.forDigit( digest[i] & 0xF, 16 ) );
+			}
+			return hex.toString( );
+		}
+		catch ( NoSuchAlgorithmException e )
+		{
+			return null;
+		}
+		catch ( UnsupportedEncodingException e )
+		{
+			return null;
+		}
+	}
+}
@@ -17,6 +17,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.birt.data.engine.api.DataEngine;
 import org.eclipse.birt.data.engine.api.DataEngineContext;
 import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
 import org.eclipse.birt.data.engine.api.IBaseDataSourceDesign;
@@ -89,7 +90,10 @@ public class DataSetCacheManager
 			{
 				try
 				{
+					dteLevelCacheMapManager.clearPinned( );
 					dteLevelCacheMapManager.clearCache( );
+					jvmLevelCacheMapManager.clearPinned( );
+					jvmLevelCacheMapManager.clearSaving( );
 				}
 				catch ( Exception e )
 				{
@@ -207,9 +211,11 @@ public class DataSetCacheManager
 				parameterHints,
 				appContext);
 		switchCacheMap( dataSetDesign );
-		return cacheMapManager.doesLoadFromCache( DataSourceAndDataSet.newInstance( this.dataSourceDesign,
+		DataSourceAndDataSet dsAndDs = DataSourceAndDataSet.newInstance( this.dataSourceDesign,
 				dataSetDesign,
-				parameterHints, this.cacheID, this.enableSamplePreview ),
+				parameterHints, this.cacheID, this.enableSamplePreview );
+		loadFromSharedCache( dsAndDs, dscc );
+		return cacheMapManager.doesLoadFromCache( dsAndDs,
 				dscc.getCacheCapability( ));
 	}
 
@@ -292,6 +298,16 @@ public class DataSetCacheManager
 		//cacheMapManager.clearCache( ds );
 		jvmLevelCacheMapManager.clearCache( ds );
 		dteLevelCacheMapManager.clearCache( ds );
+
+		Object sharedDir = appContext == null ? null
+				: appContext.get( DataEngine.DATA_SET_CACHE_SHARED_DIR );
+		String designDigest = DataSetCacheDigest.getDesignDigest( dataSourceDesign,
+				dataSetDesign );
+		if ( sharedDir != null && designDigest != null )
+		{
+			SharedDataSetCache.getInstance( sharedDir.toString( ) )
+					.remove( designDigest );
+		}
 	}
 
 	public void clearCache( String cacheID )
@@ -329,9 +345,26 @@ public class DataSetCacheManager
 		
 		cacheMapManager.saveFinishOnCache( DataSourceAndDataSet.newInstance( this.dataSourceDesign,
 				this.dataSetDesign,
-				this.parameterHints, this.cacheID, this.enableSamplePreview ), dsco );
+				this.parameterHints, this.cacheID, this.enableSamplePreview ), saveToSharedCache( dsco ),
+				DataSetCacheUtil.getDataSetCacheTimeToLive( appContext, dataSetDesign ),
+				DataSetCacheUtil.getDataSetCacheMaxEntries( appContext ) );
 	}
 	
+	/**
+	 * Stops saving the current data set after its query fails, so the other
+	 * sessions don't wait for it. Only the JVM level cache is waited for.
+	 */
+	public void stopSaving( )
+	{
+		if ( dataSetDesign == null )
+		{
+			return;
+		}
+		jvmLevelCacheMapManager.stopSaving( DataSourceAndDataSet.newInstance( this.dataSourceDesign,
+				this.dataSetDesign,
+				this.parameterHints, this.cacheID, this.enableSamplePreview ) );
+	}
+
 	/**
 	 * 
 	 * @param dsco
@@ -434,6 +467,97 @@ public class DataSetCacheManager
 	}
 
 	
+	/**
+	 * Loads the data set from the cache shared by the JVMs if it is not in the
+	 * JVM level cache.
+	 */
+	private void loadFromSharedCache( DataSourceAndDataSet dsAndDs,
+			DataSetCacheConfig dscc )
+	{
+		SharedDataSetCache sharedCache = getSharedDataSetCache( dscc );
+		if ( sharedCache == null
+				|| cacheMapManager.containsCacheObject( dsAndDs ) )
+		{
+			return;
+		}
+		String digest = DataSetCacheDigest.getDigest( this.dataSourceDesign,
+				this.dataSetDesign,
+				this.parameterHints );
+		if ( digest == null )
+		{
+			return;
+		}
+		long timeToLive = DataSetCacheUtil.getDataSetCacheTimeToLive( appContext,
+				dataSetDesign );
+		SharedDataSetCache.SharedCacheObject cacheObject = sharedCache.load( digest,
+				dscc.getCacheCapability( ),
+				timeToLive );
+		if ( cacheObject != null )
+		{
+			// the data set expires when the one saved by the other JVM does
+			cacheMapManager.loadFinishOnSharedCache( dsAndDs,
+					cacheObject,
+					timeToLive > 0 ? Math.max( 1, cacheObject.getSaveTime( )
+							+ timeToLive - System.currentTimeMillis( ) ) : 0 );
+		}
+	}
+
+	/**
+	 * Publishes the data set saved to the disk to the cache shared by the
+	 * JVMs.
+	 * 
+	 * @return the published data set, or the saved one if it is not published
+	 * @throws DataException
+	 */
+	private IDataSetCacheObject saveToSharedCache( IDataSetCacheObject dsco )
+			throws DataException
+	{
+		if ( !( dsco instanceof DiskDataSetCacheObject ) )
+		{
+			return dsco;
+		}
+		DataSetCacheConfig dscc = getDataSetCacheConfig( dataSetDesign, appContext );
+		SharedDataSetCache sharedCache = dscc == null ? null
+				: getSharedDataSetCache( dscc );
+		if ( sharedCache == null )
+		{
+			return dsco;
+		}
+		String digest = DataSetCacheDigest.getDigest( this.dataSourceDesign,
+				this.dataSetDesign,
+				this.parameterHints );
+		if ( digest == null )
+		{
+			return dsco;
+		}
+		IDataSetCacheObject published = sharedCache.save( digest,
+				DataSetCacheDigest.getDesignDigest( this.dataSourceDesign,
+						this.dataSetDesign ),
+				(DiskDataSetCacheObject) dsco,
+				dscc.getCacheCapability( ) );
+		return published == null ? dsco : published;
+	}
+
+	/**
+	 * @return the cache shared by the JVMs, null if the data set is not
+	 *         shared
+	 */
+	private SharedDataSetCache getSharedDataSetCache( DataSetCacheConfig dscc )
+	{
+		// the data sets of a cache scope or changed by a delta file are not
+		// shared
+		if ( cacheMapManager != jvmLevelCacheMapManager
+				|| !dscc.isSharable( ) || appContext == null
+				|| cacheID != null
+				|| appContext.get( DataEngine.DATA_SET_CACHE_DELTA_FILE ) != null )
+		{
+			return null;
+		}
+		Object sharedDir = appContext.get( DataEngine.DATA_SET_CACHE_SHARED_DIR );
+		return sharedDir == null ? null
+				: SharedDataSetCache.getInstance( sharedDir.toString( ) );
+	}
+
 	/**
 	 * 
 	 * @param dataSetDesign
@@ -61,6 +61,18 @@ public class DiskDataSetCacheObject implements IDataSetCacheObject
 		this.cacheCapability = cacheCapability;
 	}
 	
+	/**
+	 * Uses the data set cached in an existing folder.
+	 * 
+	 * @param cacheFolder
+	 * @param cacheCapability
+	 */
+	protected DiskDataSetCacheObject( File cacheFolder, int cacheCapability )
+	{
+		this.cacheDir = cacheFolder.getPath( );
+		this.cacheCapability = cacheCapability;
+	}
+	
 	/**
 	 * 
 	 * @return
@@ -0,0 +1,772 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.executor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.core.security.FileSecurity;
+import org.eclipse.birt.data.engine.impl.DataSetCacheUtil;
+
+/**
+ * The disk data set cache shared by the JVMs on a host. Each data set is saved
+ * in a folder of the shared directory, and the index file maps the digests of
+ * the data sets to their folders. The index is read and written under a lock
+ * of the lock file, so the JVMs can populate and read the cache at the same
+ * time.
+ * <p>
+ * A data set is saved to a private folder first and then moved to the shared
+ * directory, so the other JVMs never see an incomplete data set. A folder is
+ * not changed once it is published: a newer data set is published to a new
+ * folder and the index is changed to it.
+ * <p>
+ * A JVM holds a shared lock of the lease file of each folder it uses. A folder
+ * which is superseded, removed or expired is kept in the index as retired, and
+ * it is deleted by a later save, remove or load once no JVM holds its lease,
+ * since the other JVMs may still read its files.
+ */
+class SharedDataSetCache
+{
+
+	private static Logger logger = Logger.getLogger( SharedDataSetCache.class.getName( ) );
+
+	static final int MAGIC = 0x44534348; // "DSCH"
+	static final int VERSION = 2;
+
+	static final String INDEX_FILE = "index.data"; //$NON-NLS-1$
+	static final String LOCK_FILE = "index.lock"; //$NON-NLS-1$
+	static final String LEASE_SUFFIX = ".lease"; //$NON-NLS-1$
+
+	private static ConcurrentMap<String, SharedDataSetCache> caches = new ConcurrentHashMap<String, SharedDataSetCache>( );
+
+	private File dir;
+	private File indexFile;
+	private File lockFile;
+	private ReentrantLock threadLock = new ReentrantLock( );
+	// the leases this JVM holds, by the folder
+	private Map<String, Lease> leases = new HashMap<String, Lease>( );
+
+	/**
+	 * @return the shared cache of the directory
+	 */
+	static SharedDataSetCache getInstance( String dir )
+	{
+		String key = new File( dir ).getAbsolutePath( );
+		SharedDataSetCache cache = caches.get( key );
+		if ( cache == null )
+		{
+			cache = new SharedDataSetCache( new File( key ) );
+			SharedDataSetCache old = caches.putIfAbsent( key, cache );
+			if ( old != null )
+			{
+				cache = old;
+			}
+		}
+		return cache;
+	}
+
+	private SharedDataSetCache( File dir )
+	{
+		this.dir = dir;
+		this.indexFile = new File( dir, INDEX_FILE );
+		this.lockFile = new File( dir, LOCK_FILE );
+	}
+
+	/**
+	 * Loads a data set published by any JVM.
+	 *
+	 * @param digest
+	 *            the digest of the data set
+	 * @param requiredCapability
+	 * @param timeToLive
+	 *            the milliseconds a published data set can be used, 0 if it
+	 *            doesn't expire
+	 * @return the cached data set, null if it isn't published or expires
+	 */
+	SharedCacheObject load( String digest, int requiredCapability,
+			long timeToLive )
+	{
+		if ( !FileSecurity.fileExist( indexFile ) )
+		{
+			return null;
+		}
+		String expiredFolder = null;
+		try
+		{
+			FileLock lock = lock( true );
+			try
+			{
+				Entry entry = readIndex( ).entries.get( digest );
+				if ( entry == null )
+				{
+					return null;
+				}
+				if ( timeToLive > 0
+						&& System.currentTimeMillis( ) >= entry.saveTime
+								+ timeToLive )
+				{
+					expiredFolder = entry.folder;
+					return null;
+				}
+				SharedCacheObject cacheObject = new SharedCacheObject( this,
+						entry.folder,
+						entry.capability,
+						entry.saveTime );
+				// the lease is taken before the index is unlocked, so the
+				// folder isn't deleted in between
+				return cacheObject.isCachedDataReusable( requiredCapability )
+						&& acquireLease( entry.folder ) ? cacheObject : null;
+			}
+			finally
+			{
+				unlock( lock );
+			}
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to read the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+			return null;
+		}
+		catch ( DataException ex )
+		{
+			logger.log( Level.FINE, "Failed to read the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+			return null;
+		}
+		finally
+		{
+			if ( expiredFolder != null )
+			{
+				retire( digest, expiredFolder );
+			}
+		}
+	}
+
+	/**
+	 * Retires the expired data set, unless it is superseded in between. The
+	 * index is locked exclusively again, since a shared lock can't be
+	 * upgraded.
+	 */
+	private void retire( String digest, String folder )
+	{
+		try
+		{
+			FileLock lock = lock( false );
+			try
+			{
+				Index index = readIndex( );
+				Entry entry = index.entries.get( digest );
+				if ( entry == null || !folder.equals( entry.folder ) )
+				{
+					return;
+				}
+				index.entries.remove( digest );
+				index.retiredFolders.add( folder );
+				sweep( index );
+				writeIndex( index );
+			}
+			finally
+			{
+				unlock( lock );
+			}
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+		}
+		catch ( DataException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+		}
+	}
+
+	/**
+	 * Publishes a data set saved to a private folder. The private folder is
+	 * moved to the shared directory, or copied and released if the shared
+	 * directory is in another file system.
+	 *
+	 * @param digest
+	 *            the digest of the data set
+	 * @param designDigest
+	 *            the digest of its data source and data set, without the
+	 *            parameter values
+	 * @param cacheObject
+	 *            the data set saved to a private folder
+	 * @param capability
+	 * @return the published data set, null if it isn't published
+	 */
+	SharedCacheObject save( String digest, String designDigest,
+			DiskDataSetCacheObject cacheObject, int capability )
+	{
+		File source = new File( cacheObject.getCacheDir( ) );
+		Entry entry = new Entry( );
+		entry.designDigest = designDigest;
+		entry.folder = digest + "_" + Long.toString( System.nanoTime( ), 36 ); //$NON-NLS-1$
+		entry.capability = capability;
+		File target = new File( dir, entry.folder );
+		FileSecurity.fileMakeDirs( dir );
+		if ( !acquireLease( entry.folder ) )
+		{
+			return null;
+		}
+		try
+		{
+			if ( !source.renameTo( target ) )
+			{
+				// the private folder is in another file system, copy it and
+				// then rename the copy, so it is complete once it is seen.
+				File copy = new File( dir, entry.folder + ".tmp" ); //$NON-NLS-1$
+				copyFolder( source, copy );
+				if ( !copy.renameTo( target ) )
+				{
+					DataSetCacheUtil.deleteFile( copy );
+					releaseLease( entry.folder );
+					FileSecurity.fileDelete( getLeaseFile( entry.folder ) );
+					return null;
+				}
+				cacheObject.release( );
+			}
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+			DataSetCacheUtil.deleteFile( new File( dir, entry.folder + ".tmp" ) ); //$NON-NLS-1$
+			releaseLease( entry.folder );
+			FileSecurity.fileDelete( getLeaseFile( entry.folder ) );
+			return null;
+		}
+		catch ( DataException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+			DataSetCacheUtil.deleteFile( new File( dir, entry.folder + ".tmp" ) ); //$NON-NLS-1$
+			releaseLease( entry.folder );
+			FileSecurity.fileDelete( getLeaseFile( entry.folder ) );
+			return null;
+		}
+
+		// the data set is moved, it is used by this JVM even if the index
+		// can't be written
+		entry.saveTime = System.currentTimeMillis( );
+		try
+		{
+			FileLock lock = lock( false );
+			try
+			{
+				Index index = readIndex( );
+				Entry old = index.entries.put( digest, entry );
+				if ( old != null )
+				{
+					// the other JVMs may still load the old data set
+					index.retiredFolders.add( old.folder );
+				}
+				sweep( index );
+				writeIndex( index );
+			}
+			finally
+			{
+				unlock( lock );
+			}
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+		}
+		catch ( DataException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+		}
+		return new SharedCacheObject( this,
+				entry.folder,
+				capability,
+				entry.saveTime );
+	}
+
+	/**
+	 * Removes the published data sets of the data source and data set,
+	 * whatever their parameter values are.
+	 */
+	void remove( String designDigest )
+	{
+		if ( !FileSecurity.fileExist( indexFile ) )
+		{
+			return;
+		}
+		try
+		{
+			FileLock lock = lock( false );
+			try
+			{
+				Index index = readIndex( );
+				boolean changed = false;
+				for ( Iterator<Entry> it = index.entries.values( ).iterator( ); it.hasNext( ); )
+				{
+					Entry entry = it.next( );
+					if ( designDigest.equals( entry.designDigest ) )
+					{
+						it.remove( );
+						index.retiredFolders.add( entry.folder );
+						changed = true;
+					}
+				}
+				if ( sweep( index ) )
+				{
+					changed = true;
+				}
+				if ( changed )
+				{
+					writeIndex( index );
+				}
+			}
+			finally
+			{
+				unlock( lock );
+			}
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+		}
+		catch ( DataException ex )
+		{
+			logger.log( Level.FINE, "Failed to write the shared data set cache " //$NON-NLS-1$
+					+ dir, ex );
+		}
+	}
+
+	/**
+	 * Deletes the retired folders which no JVM holds the lease of. It is
+	 * called while the index is locked exclusively, so no JVM takes a lease
+	 * of a retired folder in between.
+	 *
+	 * @return whether any retired folder is deleted
+	 */
+	private boolean sweep( Index index )
+	{
+		boolean changed = false;
+		synchronized ( leases )
+		{
+			for ( Iterator<String> it = index.retiredFolders.iterator( ); it.hasNext( ); )
+			{
+				String folder = it.next( );
+				if ( isLeased( folder ) )
+				{
+					continue;
+				}
+				File file = new File( dir, folder );
+				DataSetCacheUtil.deleteFile( file );
+				if ( FileSecurity.fileExist( file ) )
+				{
+					continue;
+				}
+				FileSecurity.fileDelete( getLeaseFile( folder ) );
+				it.remove( );
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @return whether this JVM or another one holds the lease of the folder
+	 */
+	private boolean isLeased( String folder )
+	{
+		if ( leases.containsKey( folder ) )
+		{
+			return true;
+		}
+		try
+		{
+			RandomAccessFile file = FileSecurity.createRandomAccessFile( getLeaseFile( folder ),
+					"rw" ); //$NON-NLS-1$
+			try
+			{
+				FileLock lock = file.getChannel( ).tryLock( );
+				if ( lock == null )
+				{
+					return true;
+				}
+				lock.release( );
+				return false;
+			}
+			finally
+			{
+				file.close( );
+			}
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to check the lease of " //$NON-NLS-1$
+					+ folder, ex );
+			return true;
+		}
+	}
+
+	/**
+	 * Takes a lease of the folder for this JVM. The first lease locks the
+	 * lease file of the folder, and the lock is kept until the last lease is
+	 * released.
+	 *
+	 * @return false if the lease can't be taken
+	 */
+	private boolean acquireLease( String folder )
+	{
+		synchronized ( leases )
+		{
+			Lease lease = leases.get( folder );
+			if ( lease == null )
+			{
+				try
+				{
+					RandomAccessFile file = FileSecurity.createRandomAccessFile( getLeaseFile( folder ),
+							"rw" ); //$NON-NLS-1$
+					FileLock lock = null;
+					try
+					{
+						lock = file.getChannel( ).tryLock( 0,
+								Long.MAX_VALUE,
+								true );
+					}
+					finally
+					{
+						if ( lock == null )
+						{
+							file.close( );
+						}
+					}
+					if ( lock == null )
+					{
+						return false;
+					}
+					lease = new Lease( lock );
+				}
+				catch ( IOException ex )
+				{
+					logger.log( Level.FINE, "Failed to lease " + folder, ex ); //$NON-NLS-1$
+					return false;
+				}
+				leases.put( folder, lease );
+			}
+			lease.count++;
+			return true;
+		}
+	}
+
+	/**
+	 * Releases a lease of the folder taken by this JVM.
+	 */
+	private void releaseLease( String folder )
+	{
+		synchronized ( leases )
+		{
+			Lease lease = leases.get( folder );
+			if ( lease == null || --lease.count > 0 )
+			{
+				return;
+			}
+			leases.remove( folder );
+			try
+			{
+				lease.lock.release( );
+				lease.lock.channel( ).close( );
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.FINE, "Failed to release the lease of " //$NON-NLS-1$
+						+ folder, ex );
+			}
+		}
+	}
+
+	private File getLeaseFile( String folder )
+	{
+		return new File( dir, folder + LEASE_SUFFIX );
+	}
+
+	/**
+	 * Locks the index against the other JVMs. The threads of this JVM are
+	 * serialized first, since a JVM can't hold two locks of the same file.
+	 */
+	private FileLock lock( boolean shared ) throws IOException
+	{
+		threadLock.lock( );
+		FileLock lock = null;
+		try
+		{
+			FileSecurity.fileMakeDirs( dir );
+			RandomAccessFile file = FileSecurity.createRandomAccessFile( lockFile,
+					"rw" ); //$NON-NLS-1$
+			try
+			{
+				FileChannel channel = file.getChannel( );
+				lock = channel.lock( 0, Long.MAX_VALUE, shared );
+				return lock;
+			}
+			finally
+			{
+				if ( lock == null )
+				{
+					file.close( );
+				}
+			}
+		}
+		finally
+		{
+			if ( lock == null )
+			{
+				threadLock.unlock( );
+			}
+		}
+	}
+
+	private void unlock( FileLock lock ) throws IOException
+	{
+		try
+		{
+			lock.release( );
+			lock.channel( ).close( );
+		}
+		finally
+		{
+			threadLock.unlock( );
+		}
+	}
+
+	private Index readIndex( ) throws IOException, DataException
+	{
+		Index index = new Index( );
+		if ( !FileSecurity.fileExist( indexFile ) )
+		{
+			return index;
+		}
+		DataInputStream in = new DataInputStream( new BufferedInputStream(
+				FileSecurity.createFileInputStream( indexFile ) ) );
+		try
+		{
+			if ( in.readInt( ) != MAGIC || in.readInt( ) != VERSION )
+			{
+				return index;
+			}
+			int size = in.readInt( );
+			for ( int i = 0; i < size; i++ )
+			{
+				String digest = in.readUTF( );
+				Entry entry = new Entry( );
+				entry.designDigest = in.readUTF( );
+				entry.folder = in.readUTF( );
+				entry.capability = in.readInt( );
+				entry.saveTime = in.readLong( );
+				index.entries.put( digest, entry );
+			}
+			size = in.readInt( );
+			for ( int i = 0; i < size; i++ )
+			{
+				index.retiredFolders.add( in.readUTF( ) );
+			}
+		}
+		finally
+		{
+			in.close( );
+		}
+		return index;
+	}
+
+	private void writeIndex( Index index ) throws IOException, DataException
+	{
+		// the readers of the index don't lock it on every platform, write it
+		// to a temporary file and then rename it.
+		File tempFile = File.createTempFile( INDEX_FILE, ".tmp", dir ); //$NON-NLS-1$
+		try
+		{
+			DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+					FileSecurity.createFileOutputStream( tempFile ) ) );
+			try
+			{
+				out.writeInt( MAGIC );
+				out.writeInt( VERSION );
+				out.writeInt( index.entries.size( ) );
+				for ( Map.Entry<String, Entry> mapEntry : index.entries.entrySet( ) )
+				{
+					Entry entry = mapEntry.getValue( );
+					out.writeUTF( mapEntry.getKey( ) );
+					out.writeUTF( entry.designDigest );
+					out.writeUTF( entry.folder );
+					out.writeInt( entry.capability );
+					out.writeLong( entry.saveTime );
+				}
+				out.writeInt( index.retiredFolders.size( ) );
+				for ( String folder : index.retiredFolders )
+				{
+					out.writeUTF( folder );
+				}
+			}
+			finally
+			{
+				out.close( );
+			}
+			if ( !tempFile.renameTo( indexFile ) )
+			{
+				FileSecurity.fileDelete( indexFile );
+				if ( !tempFile.renameTo( indexFile ) )
+				{
+					throw new IOException( "Failed to rename " + tempFile ); //$NON-NLS-1$
+				}
+			}
+		}
+		finally
+		{
+			FileSecurity.fileDelete( tempFile );
+		}
+	}
+
+	private static void copyFolder( File source, File target )
+			throws IOException, DataException
+	{
+		FileSecurity.fileMakeDirs( target );
+		File[] files = FileSecurity.fileListFiles( source );
+		if ( files == null )
+		{
+			return;
+		}
+		byte[] buffer = new byte[8192];
+		for ( File file : files )
+		{
+			if ( FileSecurity.fileIsDirectory( file ) )
+			{
+				copyFolder( file, new File( target, file.getName( ) ) );
+				continue;
+			}
+			InputStream in = FileSecurity.createFileInputStream( file );
+			try
+			{
+				OutputStream out = FileSecurity.createFileOutputStream( new File( target,
+						file.getName( ) ) );
+				try
+				{
+					int length;
+					while ( ( length = in.read( buffer ) ) != -1 )
+					{
+						out.write( buffer, 0, length );
+					}
+				}
+				finally
+				{
+					out.close( );
+				}
+			}
+			finally
+			{
+				in.close( );
+			}
+		}
+	}
+
+	private static class Index
+	{
+
+		Map<String, Entry> entries = new HashMap<String, Entry>( );
+		// the superseded and removed folders which are not deleted yet
+		List<String> retiredFolders = new ArrayList<String>( );
+	}
+
+	private static class Entry
+	{
+
+		String designDigest;
+		String folder;
+		int capability;
+		long saveTime;
+	}
+
+	private static class Lease
+	{
+
+		FileLock lock;
+		int count;
+
+		Lease( FileLock lock )
+		{
+			this.lock = lock;
+		}
+	}
+
+	/**
+	 * A data set published in the shared directory. It is not deleted when it
+	 * is released, since the other JVMs use it too, only its lease is
+	 * released.
+	 */
+	static class SharedCacheObject extends DiskDataSetCacheObject
+	{
+
+		private SharedDataSetCache cache;
+		private String folder;
+		private long saveTime;
+		private boolean released;
+
+		SharedCacheObject( SharedDataSetCache cache, String folder,
+				int capability, long saveTime )
+		{
+			super( new File( cache.dir, folder ), capability );
+			this.cache = cache;
+			this.folder = folder;
+			this.saveTime = saveTime;
+		}
+
+		/**
+		 * @return the time the data set is published
+		 */
+		long getSaveTime( )
+		{
+			return saveTime;
+		}
+
+		public void release( )
+		{
+			synchronized ( this )
+			{
+				if ( released )
+				{
+					return;
+				}
+				released = true;
+			}
+			cache.releaseLease( folder );
+		}
+	}
+}
@@ -66,6 +66,9 @@ public class OdiAdapter
 	private IResultClass resultClass;
 	
 	private Set columnIndexListForTypeConvert = null ;
+	
+	// the date formats which matched the previous values of the columns
+	private DataTypeUtil.DateFormatHint[] dateFormatHints;
 	/**
 	 * Construction
 	 * 
@@ -175,15 +178,23 @@ public class OdiAdapter
 		if ( columnIndexListForTypeConvert == null )
 			return resultObject;
 		Object[] obj = new Object[resultClass.getFieldCount( )];
+		if ( dateFormatHints == null )
+		{
+			dateFormatHints = new DataTypeUtil.DateFormatHint[obj.length];
+		}
 		for ( int i = 1; i <= resultClass.getFieldCount( ); i++ )
 		{
 			if ( columnIndexListForTypeConvert.contains( i ) )
 			{
 				try
 				{
+					if ( dateFormatHints[i - 1] == null )
+					{
+						dateFormatHints[i - 1] = new DataTypeUtil.DateFormatHint( );
+					}
 					obj[i - 1] = DataTypeUtil.convert( resultObject.getFieldValue( i ),
 							DataTypeUtil.toApiDataType( resultClass.getFieldMetaData( i )
-									.getDataType( ) ) );
+									.getDataType( ) ), dateFormatHints[i - 1] );
 				}
 				catch ( BirtException e )
 				{
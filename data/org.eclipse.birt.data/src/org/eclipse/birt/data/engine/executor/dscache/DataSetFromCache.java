@@ -36,6 +36,7 @@ public class DataSetFromCache
 	
 	private ILoadUtil loadUtil;
 	private DataEngineSession session;
+	private boolean loadStarted;
 	
 	// for computed column
 	private List addedTempComputedColumn;
@@ -50,6 +51,7 @@ public class DataSetFromCache
 		{
 			countLimit = session.getDataSetCacheManager( ).getCacheCapability( );
 			session.getDataSetCacheManager( ).loadStart( );
+			loadStarted = true;
 		}
 		catch ( DataException e )
 		{
@@ -241,9 +243,14 @@ public class DataSetFromCache
 	public void close( ) throws DataException
 	{
 		// when in save status, close might be done automatically
-		if ( loadUtil != null )
+		if ( loadStarted )
 		{
+			// the cached data set is released only after all its readers finish
 			session.getDataSetCacheManager( ).loadFinished( );
+			loadStarted = false;
+		}
+		if ( loadUtil != null )
+		{
 			loadUtil.close( );
 			loadUtil = null;
 		}
@@ -206,6 +206,11 @@ public class DataSetToCache
 			removeCacheObject( );
 			throw de;
 		}
+		catch ( RuntimeException e )
+		{
+			removeCacheObject( );
+			throw e;
+		}
 		finally
 		{
 			try 
@@ -220,14 +225,23 @@ public class DataSetToCache
 	}
 
 	/**
-	 * @throws DataException 
+	 * Removes the data set being saved, and stops its saving so the other
+	 * sessions don't wait for it.
 	 * 
+	 * @throws DataException 
 	 */
 	private void removeCacheObject( ) throws DataException
 	{
 		DataSetCacheManager dataSetCacheManager = getDataSetCacheManager( );
-		dataSetCacheManager.clearCache( dataSetCacheManager.getCurrentDataSourceDesign( ),
-				dataSetCacheManager.getCurrentDataSetDesign( ) );
+		try
+		{
+			dataSetCacheManager.clearCache( dataSetCacheManager.getCurrentDataSourceDesign( ),
+					dataSetCacheManager.getCurrentDataSetDesign( ) );
+		}
+		finally
+		{
+			dataSetCacheManager.stopSaving( );
+		}
 	}
 	
 	/**
@@ -271,9 +285,10 @@ public class DataSetToCache
 	{
 		if ( saveUtil != null )
 		{
-			getDataSetCacheManager( ).saveFinished( dataSetCachedObject );
+			// the data set is complete before the other sessions see it
 			saveUtil.close( );
 			saveUtil = null;
+			getDataSetCacheManager( ).saveFinished( dataSetCachedObject );
 		}
 	}
 
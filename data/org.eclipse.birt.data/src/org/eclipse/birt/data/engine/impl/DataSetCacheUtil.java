@@ -12,6 +12,8 @@ package org.eclipse.birt.data.engine.impl;
 
 import java.io.File;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.eclipse.birt.data.engine.api.DataEngine;
 import org.eclipse.birt.data.engine.api.DataEngineContext;
@@ -26,6 +28,8 @@ import org.eclipse.birt.data.engine.executor.DataSetCacheConfig.DataSetCacheMode
  */
 public class DataSetCacheUtil
 {
+	private static Logger logger = Logger.getLogger( DataSetCacheUtil.class.getName( ) );
+
 	/**
 	 * used to get DataSetCacheConfig from all boring options outside
 	 * @param appContext
@@ -131,6 +135,66 @@ public class DataSetCacheUtil
 	}
 	
 	
+	/**
+	 * @param appContext
+	 * @param dataSetDesign
+	 * @return the milliseconds the cached data set can be reused, 0 if it
+	 *         doesn't expire
+	 */
+	public static long getDataSetCacheTimeToLive( Map appContext,
+			IBaseDataSetDesign dataSetDesign )
+	{
+		if ( appContext == null )
+		{
+			return 0;
+		}
+		Object option = appContext.get( DataEngine.DATA_SET_CACHE_TIME_TO_LIVE );
+		if ( option instanceof Map )
+		{
+			option = dataSetDesign == null ? null
+					: ( (Map) option ).get( dataSetDesign.getName( ) );
+		}
+		return getOptionValue( option, DataEngine.DATA_SET_CACHE_TIME_TO_LIVE );
+	}
+
+	/**
+	 * @param appContext
+	 * @return the max count of data sets kept in the JVM level cache, 0 if it
+	 *         is not limited
+	 */
+	public static int getDataSetCacheMaxEntries( Map appContext )
+	{
+		if ( appContext == null )
+		{
+			return 0;
+		}
+		Object option = appContext.get( DataEngine.DATA_SET_CACHE_MAX_ENTRIES );
+		return (int) Math.min( Integer.MAX_VALUE,
+				getOptionValue( option, DataEngine.DATA_SET_CACHE_MAX_ENTRIES ) );
+	}
+
+	/**
+	 * @return the value of a cache option which is not negative, 0 if the
+	 *         option is not set or is not valid
+	 */
+	private static long getOptionValue( Object option, String name )
+	{
+		if ( option == null )
+		{
+			return 0;
+		}
+		try
+		{
+			return Math.max( 0, Long.parseLong( option.toString( ).trim( ) ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			logger.log( Level.WARNING, "Invalid value of " + name + ": " //$NON-NLS-1$ //$NON-NLS-2$
+					+ option );
+			return 0;
+		}
+	}
+
 	/**
 	 * 
 	 * @param dir
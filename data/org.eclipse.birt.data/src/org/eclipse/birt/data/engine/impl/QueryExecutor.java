@@ -280,6 +280,30 @@ public abstract class QueryExecutor implements IQueryExecutor
 	 */
 	void prepareExecution( IBaseQueryResults outerRts, Scriptable targetScope )
 			throws DataException
+	{
+		try
+		{
+			doPrepareExecution( outerRts, targetScope );
+		}
+		catch ( DataException e )
+		{
+			stopSaving( );
+			throw e;
+		}
+		catch ( RuntimeException e )
+		{
+			stopSaving( );
+			throw e;
+		}
+	}
+
+	/**
+	 * @param outerRts
+	 * @param targetScope
+	 * @throws DataException
+	 */
+	private void doPrepareExecution( IBaseQueryResults outerRts,
+			Scriptable targetScope ) throws DataException
 	{
 		if ( isPrepared )
 			return;
@@ -402,6 +426,18 @@ public abstract class QueryExecutor implements IQueryExecutor
 		}
 	}
 	
+	/**
+	 * Lets the other sessions stop waiting for the data set this query was
+	 * to save to the cache.
+	 */
+	private void stopSaving( )
+	{
+		if ( !loadFromCache && session != null )
+		{
+			session.getDataSetCacheManager( ).stopSaving( );
+		}
+	}
+
 	/**
 	 * 
 	 * @return
@@ -1274,7 +1310,20 @@ public abstract class QueryExecutor implements IQueryExecutor
 		}
 		    
 		// Execute the query
-		odiResult = executeOdiQuery( eventHandler );
+		try
+		{
+			odiResult = executeOdiQuery( eventHandler );
+		}
+		catch ( DataException e )
+		{
+			stopSaving( );
+			throw e;
+		}
+		catch ( RuntimeException e )
+		{
+			stopSaving( );
+			throw e;
+		}
 
 		helper.setScriptable( this.dataSet.getJSResultRowObject( ) );
 		
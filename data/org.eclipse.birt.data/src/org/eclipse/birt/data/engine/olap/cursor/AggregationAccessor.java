@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +23,7 @@ import javax.olap.OLAPException;
 import javax.olap.cursor.DimensionCursor;
 import javax.olap.cursor.EdgeCursor;
 
+import org.eclipse.birt.data.engine.api.DataEngine;
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
 import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
@@ -69,6 +71,9 @@ public class AggregationAccessor extends Accessor
 	private boolean dimensionPrepared = false;
 	private Map dimensionCursorMap;
 	private Map<String, Integer> aggregationResultSetIDMap;
+	// hash index of each measure result set, null value if it is not indexed
+	private Map<IAggregationResultSet, AggregationResultSetIndex> indexMap;
+	private int indexRowLimit;
 
 	
 	/**
@@ -87,6 +92,8 @@ public class AggregationAccessor extends Accessor
 		this.dimensionPrepared = false;
 		this.dimensionCursorMap = new HashMap( );
 		this.aggregationResultSetIDMap = new HashMap<String, Integer>( );
+		this.indexMap = new IdentityHashMap<IAggregationResultSet, AggregationResultSetIndex>( );
+		this.indexRowLimit = populateIndexRowLimit( view.getAppContext( ) );
 
 		if ( result == null || result.getMeasureResult( ) == null )
 			return;
@@ -238,6 +245,7 @@ public class AggregationAccessor extends Accessor
 	 */
 	public void close( ) throws OLAPException
 	{
+		indexMap.clear( );
 		if ( this.resultSet == null || this.resultSet.getMeasureResult( ) == null )
 			return;
 		List errorList = new ArrayList( );
@@ -383,6 +391,21 @@ public class AggregationAccessor extends Accessor
 
 		List memberList = Arrays.asList( rs.getAllLevels( ) );
 
+		AggregationResultSetIndex resultSetIndex = getIndex( rs );
+		if ( resultSetIndex != null && resultSetIndex.isIndexedOn( memberList ) )
+		{
+			int position = resultSetIndex.find( valueMap );
+			if ( position >= 0 )
+			{
+				rs.seek( position );
+				if ( currentPosition != null && index < currentPosition.length )
+					currentPosition[index] = position;
+				return true;
+			}
+			if ( resultSetIndex.isDefiniteMiss( valueMap ) )
+				return false;
+		}
+
 		CalculatedMember member = this.view.getAggregationRegisterTable( ).getCalculatedMember( aggrName );
 		if( member!= null && member.getCubeAggrDefn( ) instanceof CubeRunningNestAggrDefn) 
 		{
@@ -395,6 +418,51 @@ public class AggregationAccessor extends Accessor
 		}
 	}
 	
+	/**
+	 * Returns the hash index of the result set, building it on first use.
+	 * 
+	 * @param rs
+	 * @return null if the result set is not indexed
+	 * @throws IOException
+	 */
+	private AggregationResultSetIndex getIndex( IAggregationResultSet rs )
+			throws IOException
+	{
+		if ( indexRowLimit <= 0 )
+			return null;
+		if ( indexMap.containsKey( rs ) )
+			return indexMap.get( rs );
+		AggregationResultSetIndex resultSetIndex = AggregationResultSetIndex.build( rs,
+				indexRowLimit );
+		indexMap.put( rs, resultSetIndex );
+		return resultSetIndex;
+	}
+
+	/**
+	 * Returns the maximum row count of the indexed result sets set in the
+	 * application context.
+	 * 
+	 * @param appContext
+	 * @return
+	 */
+	private static int populateIndexRowLimit( Map appContext )
+	{
+		Object value = appContext == null ? null
+				: appContext.get( DataEngine.CUBECURSOR_INDEX_ROW_LIMIT );
+		if ( value == null )
+			return AggregationResultSetIndex.MAX_INDEXED_ROWS;
+		if ( value instanceof Number )
+			return ( (Number) value ).intValue( );
+		try
+		{
+			return Integer.parseInt( value.toString( ).trim( ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			return AggregationResultSetIndex.MAX_INDEXED_ROWS;
+		}
+	}
+
 	/*
 	 * 
 	 */
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2004, 2005 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.olap.cursor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
+
+/**
+ * A hash index from the member key tuple of an aggregation result set to the
+ * position of its row. It is built with one pass over the result set, and
+ * replaces the row by row seeking done when a measure value is located from
+ * the current edge members.
+ *
+ * A key which is not in the index is only a definite miss when all its values
+ * compare the same way as they hash; otherwise the caller has to fall back to
+ * the comparison based search.
+ */
+class AggregationResultSetIndex
+{
+	/**
+	 * Result sets smaller than this are cheap to walk and are not indexed.
+	 */
+	static final int MIN_INDEXED_ROWS = 64;
+
+	/**
+	 * Default upper bound of the indexed rows, which keeps the index memory
+	 * bounded.
+	 * 
+	 * @see org.eclipse.birt.data.engine.api.DataEngine#CUBECURSOR_INDEX_ROW_LIMIT
+	 */
+	static final int MAX_INDEXED_ROWS = 128 * 1024;
+
+	private DimLevel[] levels;
+	private Map<Key, Integer> positions;
+
+	private AggregationResultSetIndex( DimLevel[] levels, int size )
+	{
+		this.levels = levels;
+		this.positions = new HashMap<Key, Integer>( Math.max( 16,
+				(int) ( size / 0.75f ) + 1 ) );
+	}
+
+	/**
+	 * Builds the index of the given result set, or returns null if it is not
+	 * worth indexing. The position of the result set is restored afterwards.
+	 *
+	 * @param rs
+	 * @return
+	 * @throws IOException
+	 */
+	static AggregationResultSetIndex build( IAggregationResultSet rs )
+			throws IOException
+	{
+		return build( rs, MAX_INDEXED_ROWS );
+	}
+
+	/**
+	 * Builds the index of the given result set, or returns null if it is not
+	 * worth indexing or has more rows than the limit.
+	 *
+	 * @param rs
+	 * @param maxRows
+	 *            the maximum row count of the indexed result set
+	 * @return
+	 * @throws IOException
+	 */
+	static AggregationResultSetIndex build( IAggregationResultSet rs,
+			int maxRows ) throws IOException
+	{
+		int length = rs.length( );
+		DimLevel[] levels = rs.getAllLevels( );
+		if ( length < MIN_INDEXED_ROWS
+				|| length > maxRows || levels == null
+				|| levels.length == 0 )
+			return null;
+
+		AggregationResultSetIndex index = new AggregationResultSetIndex( levels,
+				length );
+		int position = rs.getPosition( );
+		try
+		{
+			for ( int i = 0; i < length; i++ )
+			{
+				rs.seek( i );
+				Object[] values = new Object[levels.length];
+				for ( int j = 0; j < levels.length; j++ )
+				{
+					values[j] = getKeyValue( rs, j );
+				}
+				Key key = new Key( values );
+				// keep the first row of duplicated keys, as the sequential
+				// search does
+				if ( !index.positions.containsKey( key ) )
+					index.positions.put( key, Integer.valueOf( i ) );
+			}
+		}
+		finally
+		{
+			if ( position >= 0 && position < length )
+				rs.seek( position );
+		}
+		return index;
+	}
+
+	private static Object getKeyValue( IAggregationResultSet rs, int levelIndex )
+	{
+		Object[] keyValues = rs.getLevelKeyValue( levelIndex );
+		if ( keyValues == null )
+			return null;
+		return keyValues[rs.getLevelKeyColCount( levelIndex ) - 1];
+	}
+
+	/**
+	 * Looks up the row whose level keys equal the values of the given map.
+	 *
+	 * @param valueMap
+	 *            level to member value of the current edge positions
+	 * @return the row position, or -1 if there is no such row
+	 */
+	int find( Map valueMap )
+	{
+		Integer position = positions.get( createKey( valueMap ) );
+		return position == null ? -1 : position.intValue( );
+	}
+
+	/**
+	 * Tells whether a miss of the given values in the index means that no row
+	 * compares equal to them either.
+	 *
+	 * @param valueMap
+	 * @return
+	 */
+	boolean isDefiniteMiss( Map valueMap )
+	{
+		for ( int i = 0; i < levels.length; i++ )
+		{
+			if ( !isHashConsistent( valueMap.get( levels[i] ) ) )
+				return false;
+		}
+		return true;
+	}
+
+	private Key createKey( Map valueMap )
+	{
+		Object[] values = new Object[levels.length];
+		for ( int i = 0; i < levels.length; i++ )
+		{
+			values[i] = valueMap.get( levels[i] );
+		}
+		return new Key( values );
+	}
+
+	/**
+	 * Whether equals() of the value agrees with compareTo(). BigDecimal,
+	 * dates and doubles do not, e.g. for scale, subclasses or signed zero.
+	 */
+	private static boolean isHashConsistent( Object value )
+	{
+		return value == null
+				|| value instanceof String || value instanceof Integer
+				|| value instanceof Long || value instanceof Short
+				|| value instanceof Byte || value instanceof Boolean
+				|| value instanceof Character;
+	}
+
+	/**
+	 * Whether the index covers the given member levels of the result set.
+	 *
+	 * @param levelList
+	 * @return
+	 */
+	boolean isIndexedOn( List levelList )
+	{
+		return levelList.equals( Arrays.asList( levels ) );
+	}
+
+	/**
+	 * The member key tuple of one row.
+	 */
+	private static class Key
+	{
+		private Object[] values;
+		private int hash;
+
+		Key( Object[] values )
+		{
+			this.values = values;
+			this.hash = Arrays.hashCode( values );
+		}
+
+		public int hashCode( )
+		{
+			return hash;
+		}
+
+		public boolean equals( Object o )
+		{
+			if ( !( o instanceof Key ) )
+				return false;
+			Key other = (Key) o;
+			return hash == other.hash && Arrays.equals( values, other.values );
+		}
+	}
+}
@@ -13,9 +13,12 @@ package org.eclipse.birt.data.engine.olap.data.api.cube;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
+import org.eclipse.birt.core.archive.IDocArchiveReader;
 import org.eclipse.birt.core.archive.IDocArchiveWriter;
+import org.eclipse.birt.core.archive.RAInputStream;
 import org.eclipse.birt.core.archive.RAOutputStream;
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.data.engine.api.DataEngine;
@@ -39,6 +42,12 @@ import org.eclipse.birt.data.engine.olap.data.impl.dimension.Hierarchy;
 
 public class CubeMaterializer
 {
+	/**
+	 * The stream which describes a cube saved by the cube cache. It is not a
+	 * document object, and is skipped by loadCubeFromReportDocument.
+	 */
+	public static final String CUBE_CACHE_INFO_STREAM = "CubeCacheInfo"; //$NON-NLS-1$
+
 	private IDocumentManager documentManager;
 	private DataEngine dataEngine;
 	
@@ -328,6 +337,67 @@ public class CubeMaterializer
 		documentObject.close( );
 	}
 	
+	/**
+	 * Loads a cube saved by saveCubeToReportDocument into an archive which
+	 * holds no other streams than the cube cache information. The document
+	 * objects which exist already, such as the dimensions shared with another
+	 * cube, are not loaded again.
+	 * 
+	 * @param cubeName
+	 * @param reader
+	 * @param stopSign
+	 * @return false if the cube is not in the report document
+	 * @throws IOException
+	 */
+	public boolean loadCubeFromReportDocument( String cubeName,
+			IDocArchiveReader reader, StopSign stopSign ) throws IOException
+	{
+		if ( !reader.exists( NamingUtil.getCubeDocName( cubeName ) ) )
+		{
+			return false;
+		}
+		List<String> names = reader.listAllStreams( );
+		for ( int i = 0; i < names.size( ) && !stopSign.isStopped( ); i++ )
+		{
+			// the stream names of the archive start with "/"
+			String name = names.get( i ).substring( 1 );
+			if ( !CUBE_CACHE_INFO_STREAM.equals( name )
+					&& !documentManager.exist( name ) )
+			{
+				loadDocObjFromReportDocument( name, reader );
+			}
+		}
+		documentManager.flush( );
+		return !stopSign.isStopped( );
+	}
+	
+	/**
+	 * 
+	 * @param name
+	 * @param reader
+	 * @throws IOException
+	 */
+	private void loadDocObjFromReportDocument( String name, IDocArchiveReader reader ) throws IOException
+	{
+		RAInputStream inputStream = reader.getStream( name );
+		IDocumentObject documentObject = documentManager.createDocumentObject( name );
+		try
+		{
+			byte[] buffer = new byte[4096];
+			int readSize = inputStream.read( buffer, 0, buffer.length );
+			while ( readSize >= 0 )
+			{
+				documentObject.write( buffer, 0, readSize );
+				readSize = inputStream.read( buffer, 0, buffer.length );
+			}
+		}
+		finally
+		{
+			documentObject.close( );
+			inputStream.close( );
+		}
+	}
+	
 	/**
 	 * @throws IOException 
 	 * 
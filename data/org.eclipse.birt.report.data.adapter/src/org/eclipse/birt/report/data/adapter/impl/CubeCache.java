@@ -0,0 +1,495 @@
+/*******************************************************************************
+ * Copyright (c) 2004, 2007 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.adapter.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.core.archive.FileArchiveReader;
+import org.eclipse.birt.core.archive.FileArchiveWriter;
+import org.eclipse.birt.core.archive.IDocArchiveReader;
+import org.eclipse.birt.core.archive.IDocArchiveWriter;
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.script.JavascriptEvalUtil;
+import org.eclipse.birt.core.script.ScriptContext;
+import org.eclipse.birt.core.util.IOUtil;
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.api.querydefn.ScriptExpression;
+import org.eclipse.birt.data.engine.impl.StopSign;
+import org.eclipse.birt.data.engine.olap.data.api.cube.CubeMaterializer;
+import org.eclipse.birt.data.engine.script.ScriptEvalUtil;
+import org.eclipse.birt.report.model.api.ComputedColumnHandle;
+import org.eclipse.birt.report.model.api.DataSetHandle;
+import org.eclipse.birt.report.model.api.DataSetParameterHandle;
+import org.eclipse.birt.report.model.api.DerivedDataSetHandle;
+import org.eclipse.birt.report.model.api.FilterConditionElementHandle;
+import org.eclipse.birt.report.model.api.FilterConditionHandle;
+import org.eclipse.birt.report.model.api.JointDataSetHandle;
+import org.eclipse.birt.report.model.api.LevelAttributeHandle;
+import org.eclipse.birt.report.model.api.OdaDataSetHandle;
+import org.eclipse.birt.report.model.api.OdaDataSetParameterHandle;
+import org.eclipse.birt.report.model.api.ParamBindingHandle;
+import org.eclipse.birt.report.model.api.ParameterHandle;
+import org.eclipse.birt.report.model.api.olap.CubeHandle;
+import org.eclipse.birt.report.model.api.olap.DimensionHandle;
+import org.eclipse.birt.report.model.api.olap.HierarchyHandle;
+import org.eclipse.birt.report.model.api.olap.LevelHandle;
+import org.eclipse.birt.report.model.api.olap.MeasureGroupHandle;
+import org.eclipse.birt.report.model.api.olap.MeasureHandle;
+import org.eclipse.birt.report.model.api.olap.TabularCubeHandle;
+import org.eclipse.birt.report.model.api.olap.TabularHierarchyHandle;
+import org.eclipse.birt.report.model.api.olap.TabularLevelHandle;
+
+/**
+ * Saves the materialized cubes in the folder set by
+ * DataEngine.CUBE_CACHE_DIR, so the later runs of the report load the saved
+ * cube rather than build it from its data sets again.
+ * 
+ * A saved cube is only loaded if it is saved with the same watermark, the same
+ * report parameter values, and the same data sets, queries, filters,
+ * dimensions, levels and measures. Each cube is saved in its own
+ * archive file, which is written to a temporary file and then renamed, so
+ * other sessions may load the cube while it is saved.
+ */
+class CubeCache
+{
+
+	private static Logger logger = Logger.getLogger( CubeCache.class.getName( ) );
+
+	private static final String INFO_STREAM = CubeMaterializer.CUBE_CACHE_INFO_STREAM;
+	private static final String FILE_EXTENSION = ".cube"; //$NON-NLS-1$
+
+	private File folder;
+	private String watermark;
+	private ScriptContext scriptContext;
+
+	private CubeCache( File folder, String watermark,
+			ScriptContext scriptContext )
+	{
+		this.folder = folder;
+		this.watermark = watermark;
+		this.scriptContext = scriptContext;
+	}
+
+	/**
+	 * Gets the cube cache set in the application context.
+	 * 
+	 * @param appContext
+	 * @param scriptContext
+	 *            the script context to evaluate the report parameters
+	 * @return the cube cache, null if the cube cache is not used
+	 */
+	static CubeCache getCubeCache( Map appContext, ScriptContext scriptContext )
+	{
+		if ( appContext == null )
+		{
+			return null;
+		}
+		Object folder = appContext.get( DataEngine.CUBE_CACHE_DIR );
+		Object watermark = appContext.get( DataEngine.CUBE_CACHE_WATERMARK );
+		if ( folder == null || watermark == null )
+		{
+			return null;
+		}
+		return new CubeCache( new File( folder.toString( ) ),
+				watermark.toString( ),
+				scriptContext );
+	}
+
+	/**
+	 * Loads the saved cube.
+	 * 
+	 * @param cubeHandle
+	 * @param cubeMaterializer
+	 * @param stopSign
+	 * @return false if the cube is not saved or is out of date
+	 */
+	boolean load( TabularCubeHandle cubeHandle,
+			CubeMaterializer cubeMaterializer, StopSign stopSign )
+	{
+		File file = getFile( cubeHandle );
+		if ( !file.isFile( ) )
+		{
+			return false;
+		}
+		String signature = getSignature( cubeHandle );
+		if ( signature == null )
+		{
+			return false;
+		}
+		try
+		{
+			IDocArchiveReader reader = new FileArchiveReader( file.getAbsolutePath( ) );
+			try
+			{
+				if ( !signature.equals( readInfo( reader ) ) )
+				{
+					return false;
+				}
+				return cubeMaterializer.loadCubeFromReportDocument( cubeHandle.getQualifiedName( ),
+						reader,
+						stopSign );
+			}
+			finally
+			{
+				reader.close( );
+			}
+		}
+		catch ( IOException e )
+		{
+			logger.log( Level.WARNING, "Failed to load the saved cube " + file, //$NON-NLS-1$
+					e );
+			return false;
+		}
+	}
+
+	/**
+	 * Saves the cube materialized by the cube materializer.
+	 * 
+	 * @param cubeHandle
+	 * @param cubeMaterializer
+	 * @param stopSign
+	 */
+	void save( TabularCubeHandle cubeHandle,
+			CubeMaterializer cubeMaterializer, StopSign stopSign )
+	{
+		File file = getFile( cubeHandle );
+		String signature = getSignature( cubeHandle );
+		if ( signature == null )
+		{
+			return;
+		}
+		try
+		{
+			folder.mkdirs( );
+			File tempFile = File.createTempFile( file.getName( ), ".tmp", //$NON-NLS-1$
+					folder );
+			try
+			{
+				IDocArchiveWriter writer = new FileArchiveWriter( tempFile.getAbsolutePath( ) );
+				try
+				{
+					cubeMaterializer.saveCubeToReportDocument( cubeHandle.getQualifiedName( ),
+							writer,
+							stopSign );
+					writeInfo( writer, signature );
+				}
+				finally
+				{
+					writer.finish( );
+				}
+				if ( stopSign.isStopped( ) )
+				{
+					return;
+				}
+				if ( !tempFile.renameTo( file ) )
+				{
+					file.delete( );
+					tempFile.renameTo( file );
+				}
+			}
+			finally
+			{
+				tempFile.delete( );
+			}
+		}
+		catch ( Exception e )
+		{
+			logger.log( Level.WARNING, "Failed to save the cube " + file, e ); //$NON-NLS-1$
+		}
+	}
+
+	private File getFile( CubeHandle cubeHandle )
+	{
+		String key = cubeHandle.getModuleHandle( ).getFileName( ) + "/" //$NON-NLS-1$
+				+ cubeHandle.getQualifiedName( );
+		StringBuilder name = new StringBuilder( );
+		String cubeName = cubeHandle.getName( );
+		for ( int i = 0; i < cubeName.length( ) && i < 32; i++ )
+		{
+			char c = cubeName.charAt( i );
+			name.append( Character.isLetterOrDigit( c ) ? c : '_' );
+		}
+		name.append( '_' ).append( Integer.toHexString( key.hashCode( ) ) );
+		return new File( folder, name.append( FILE_EXTENSION ).toString( ) );
+	}
+
+	/**
+	 * Gets the watermark, the report parameter values, and the data sets,
+	 * filters, dimensions, level keys and measure expressions of the cube.
+	 * 
+	 * @return the signature, null if a report parameter can't be evaluated
+	 */
+	private String getSignature( TabularCubeHandle cubeHandle )
+	{
+		StringBuilder signature = new StringBuilder( watermark );
+		signature.append( '\n' ).append( cubeHandle.getQualifiedName( ) );
+		if ( !appendParameters( signature, cubeHandle ) )
+		{
+			return null;
+		}
+		appendDataSet( signature, cubeHandle.getDataSet( ) );
+		Iterator filters = cubeHandle.filtersIterator( );
+		while ( filters.hasNext( ) )
+		{
+			FilterConditionElementHandle filter = (FilterConditionElementHandle) filters.next( );
+			signature.append( "\nF:" ).append( filter.getExpr( ) ) //$NON-NLS-1$
+					.append( ':' )
+					.append( filter.getOperator( ) )
+					.append( ':' )
+					.append( filter.getValue1List( ) )
+					.append( ':' )
+					.append( filter.getValue2( ) );
+		}
+		List dimensions = cubeHandle.getContents( CubeHandle.DIMENSIONS_PROP );
+		for ( int i = 0; i < dimensions.size( ); i++ )
+		{
+			DimensionHandle dimension = (DimensionHandle) dimensions.get( i );
+			signature.append( "\nD:" ).append( dimension.getName( ) ); //$NON-NLS-1$
+			HierarchyHandle hierarchy = dimension.getDefaultHierarchy( );
+			if ( hierarchy == null )
+			{
+				continue;
+			}
+			if ( hierarchy instanceof TabularHierarchyHandle )
+			{
+				appendDataSet( signature,
+						( (TabularHierarchyHandle) hierarchy ).getDataSet( ) );
+			}
+			List levels = hierarchy.getContents( HierarchyHandle.LEVELS_PROP );
+			for ( int j = 0; j < levels.size( ); j++ )
+			{
+				LevelHandle level = (LevelHandle) levels.get( j );
+				signature.append( "\nL:" ).append( level.getName( ) ); //$NON-NLS-1$
+				if ( level instanceof TabularLevelHandle )
+				{
+					TabularLevelHandle tabularLevel = (TabularLevelHandle) level;
+					signature.append( ':' )
+							.append( tabularLevel.getColumnName( ) )
+							.append( ':' )
+							.append( tabularLevel.getDisplayColumnName( ) );
+				}
+				signature.append( ':' )
+						.append( level.getDataType( ) )
+						.append( ':' )
+						.append( level.getDateTimeLevelType( ) );
+				Iterator attributes = level.attributesIterator( );
+				while ( attributes.hasNext( ) )
+				{
+					LevelAttributeHandle attribute = (LevelAttributeHandle) attributes.next( );
+					signature.append( ':' ).append( attribute.getName( ) );
+				}
+			}
+		}
+		List measureGroups = cubeHandle.getContents( CubeHandle.MEASURE_GROUPS_PROP );
+		for ( int i = 0; i < measureGroups.size( ); i++ )
+		{
+			MeasureGroupHandle measureGroup = (MeasureGroupHandle) measureGroups.get( i );
+			List measures = measureGroup.getContents( MeasureGroupHandle.MEASURES_PROP );
+			for ( int j = 0; j < measures.size( ); j++ )
+			{
+				MeasureHandle measure = (MeasureHandle) measures.get( j );
+				signature.append( "\nM:" ).append( measure.getName( ) ) //$NON-NLS-1$
+						.append( ':' )
+						.append( measure.getFunction( ) )
+						.append( ':' )
+						.append( measure.getDataType( ) )
+						.append( ':' )
+						.append( measure.getMeasureExpression( ) );
+			}
+		}
+		return signature.toString( );
+	}
+
+	/**
+	 * Appends the values of the report parameters, which the data set
+	 * parameters, the filters and the expressions of the cube may refer to.
+	 * 
+	 * @return false if a report parameter can't be evaluated
+	 */
+	private boolean appendParameters( StringBuilder signature,
+			CubeHandle cubeHandle )
+	{
+		List parameters = cubeHandle.getModuleHandle( ).getAllParameters( );
+		for ( int i = 0; i < parameters.size( ); i++ )
+		{
+			if ( !( parameters.get( i ) instanceof ParameterHandle ) )
+			{
+				continue;
+			}
+			String name = ( (ParameterHandle) parameters.get( i ) ).getName( );
+			try
+			{
+				Object value = ScriptEvalUtil.evalExpr( new ScriptExpression( "params[\"" //$NON-NLS-1$
+						+ JavascriptEvalUtil.transformToJsConstants( name )
+						+ "\"].value" ), //$NON-NLS-1$
+						scriptContext,
+						org.eclipse.birt.core.script.ScriptExpression.defaultID,
+						0 );
+				signature.append( "\nP:" ).append( name ).append( '=' ); //$NON-NLS-1$
+				appendValue( signature, value );
+			}
+			catch ( BirtException e )
+			{
+				logger.log( Level.FINE, "Failed to evaluate the parameter " //$NON-NLS-1$
+						+ name, e );
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void appendValue( StringBuilder signature, Object value )
+	{
+		if ( value instanceof Object[] )
+		{
+			Object[] values = (Object[]) value;
+			signature.append( '[' );
+			for ( int i = 0; i < values.length; i++ )
+			{
+				appendValue( signature, values[i] );
+				signature.append( ',' );
+			}
+			signature.append( ']' );
+		}
+		else if ( value instanceof java.util.Date )
+		{
+			signature.append( ( (java.util.Date) value ).getTime( ) );
+		}
+		else
+		{
+			signature.append( value );
+		}
+	}
+
+	/**
+	 * Appends the query text, the parameters, the parameter bindings, the
+	 * computed columns and the filters of the data set and of its input data
+	 * sets.
+	 */
+	private void appendDataSet( StringBuilder signature, DataSetHandle dataSet )
+	{
+		signature.append( "\nS:" ); //$NON-NLS-1$
+		if ( dataSet == null )
+		{
+			return;
+		}
+		signature.append( dataSet.getQualifiedName( ) );
+		if ( dataSet instanceof OdaDataSetHandle )
+		{
+			signature.append( "\nQ:" ) //$NON-NLS-1$
+					.append( ( (OdaDataSetHandle) dataSet ).getQueryText( ) );
+		}
+		else if ( dataSet instanceof DerivedDataSetHandle )
+		{
+			signature.append( "\nQ:" ) //$NON-NLS-1$
+					.append( ( (DerivedDataSetHandle) dataSet ).getQueryText( ) );
+		}
+		Iterator parameters = dataSet.parametersIterator( );
+		while ( parameters.hasNext( ) )
+		{
+			DataSetParameterHandle parameter = (DataSetParameterHandle) parameters.next( );
+			signature.append( "\nDP:" ).append( parameter.getName( ) ) //$NON-NLS-1$
+					.append( '=' )
+					.append( parameter.getDefaultValue( ) );
+			if ( parameter instanceof OdaDataSetParameterHandle )
+			{
+				signature.append( ':' )
+						.append( ( (OdaDataSetParameterHandle) parameter ).getParamName( ) );
+			}
+		}
+		Iterator bindings = dataSet.paramBindingsIterator( );
+		while ( bindings.hasNext( ) )
+		{
+			ParamBindingHandle binding = (ParamBindingHandle) bindings.next( );
+			signature.append( "\nB:" ).append( binding.getParamName( ) ) //$NON-NLS-1$
+					.append( '=' )
+					.append( binding.getExpression( ) );
+		}
+		Iterator columns = dataSet.computedColumnsIterator( );
+		while ( columns.hasNext( ) )
+		{
+			ComputedColumnHandle column = (ComputedColumnHandle) columns.next( );
+			signature.append( "\nC:" ).append( column.getName( ) ) //$NON-NLS-1$
+					.append( '=' )
+					.append( column.getExpression( ) )
+					.append( ':' )
+					.append( column.getAggregateFunction( ) );
+		}
+		Iterator filters = dataSet.filtersIterator( );
+		while ( filters.hasNext( ) )
+		{
+			FilterConditionHandle filter = (FilterConditionHandle) filters.next( );
+			signature.append( "\nF:" ).append( filter.getExpr( ) ) //$NON-NLS-1$
+					.append( ':' )
+					.append( filter.getOperator( ) )
+					.append( ':' )
+					.append( filter.getValue1List( ) )
+					.append( ':' )
+					.append( filter.getValue2( ) );
+		}
+		if ( dataSet instanceof JointDataSetHandle )
+		{
+			Iterator dataSets = ( (JointDataSetHandle) dataSet ).dataSetsIterator( );
+			while ( dataSets.hasNext( ) )
+			{
+				appendDataSet( signature, (DataSetHandle) dataSets.next( ) );
+			}
+		}
+		else if ( dataSet instanceof DerivedDataSetHandle )
+		{
+			List<DataSetHandle> dataSets = ( (DerivedDataSetHandle) dataSet ).getInputDataSets( );
+			for ( int i = 0; i < dataSets.size( ); i++ )
+			{
+				appendDataSet( signature, dataSets.get( i ) );
+			}
+		}
+	}
+
+	private String readInfo( IDocArchiveReader reader ) throws IOException
+	{
+		if ( !reader.exists( INFO_STREAM ) )
+		{
+			return null;
+		}
+		DataInputStream in = new DataInputStream( reader.getStream( INFO_STREAM ) );
+		try
+		{
+			return IOUtil.readString( in );
+		}
+		finally
+		{
+			in.close( );
+		}
+	}
+
+	private void writeInfo( IDocArchiveWriter writer, String signature )
+			throws IOException
+	{
+		DataOutputStream out = new DataOutputStream( writer.createRandomAccessStream( INFO_STREAM ) );
+		try
+		{
+			IOUtil.writeString( out, signature );
+		}
+		finally
+		{
+			out.close( );
+		}
+	}
+}
@@ -71,6 +71,7 @@ import org.eclipse.birt.data.engine.expression.ExpressionCompilerUtil;
 import org.eclipse.birt.data.engine.impl.CubeCreationQueryDefinition;
 import org.eclipse.birt.data.engine.impl.DataEngineImpl;
 import org.eclipse.birt.data.engine.impl.MemoryUsageSetting;
+import org.eclipse.birt.data.engine.impl.StopSign;
 import org.eclipse.birt.data.engine.olap.api.IPreparedCubeQuery;
 import org.eclipse.birt.data.engine.olap.api.query.ICubeQueryDefinition;
 import org.eclipse.birt.data.engine.olap.api.query.IDerivedMeasureDefinition;
@@ -790,14 +791,14 @@ public class DataRequestSessionImpl extends DataRequestSession
 					}
 				}
 				CubeMaterializer cm = getCubeMaterializer( size );
-				createCube( (TabularCubeHandle) cubeHandle,
+				createOrLoadCube( (TabularCubeHandle) cubeHandle,
 						cm,
 						appContext );
 			}
 			else if ( mode == DataEngineContext.MODE_GENERATION )
 			{
 				CubeMaterializer cm = getCubeMaterializer( 0 );
-				createCube(  (TabularCubeHandle)cubeHandle, cm, appContext );
+				createOrLoadCube( (TabularCubeHandle) cubeHandle, cm, appContext );
 				cm.saveCubeToReportDocument( cubeHandle.getQualifiedName( ),
 						this.sessionContext.getDocumentWriter( ),
 						this.dataEngine.getSession( ).getStopSign( ) );
@@ -809,6 +810,33 @@ public class DataRequestSessionImpl extends DataRequestSession
 		}
 	}
 
+	/**
+	 * Loads the cube saved by a previous run if the cube cache is set in the
+	 * application context, otherwise creates the cube and saves it.
+	 *
+	 * @param cubeHandle
+	 * @param cubeMaterializer
+	 * @param appContext
+	 * @throws BirtException
+	 */
+	protected void createOrLoadCube( TabularCubeHandle cubeHandle,
+			CubeMaterializer cubeMaterializer, Map appContext ) throws BirtException
+	{
+		CubeCache cubeCache = CubeCache.getCubeCache( appContext,
+				this.sessionContext.getDataEngineContext( ).getScriptContext( ) );
+		StopSign stopSign = this.dataEngine.getSession( ).getStopSign( );
+		if ( cubeCache != null
+				&& cubeCache.load( cubeHandle, cubeMaterializer, stopSign ) )
+		{
+			return;
+		}
+		createCube( cubeHandle, cubeMaterializer, appContext );
+		if ( cubeCache != null )
+		{
+			cubeCache.save( cubeHandle, cubeMaterializer, stopSign );
+		}
+	}
+
 	// Appcontext entries that may be temporarily modified during createCube call
 	protected static final String[] APPCONTEXT_BACKUP_KEYS = {
 				DataEngine.MEMORY_DATA_SET_CACHE,
@@ -30,6 +30,7 @@ public class AllTests
 		suite.addTestSuite( org.eclipse.birt.report.data.adapter.internal.script.DataAdapterTopLevelScopeTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.data.adapter.internal.script.DataAdapterUtilTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.data.adapter.internal.script.DataRequestSessionTest.class );
+		suite.addTestSuite( org.eclipse.birt.report.data.adapter.impl.CubeCacheTest.class );
 		return suite;
 	}
 	
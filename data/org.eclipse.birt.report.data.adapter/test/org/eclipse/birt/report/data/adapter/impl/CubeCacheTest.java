@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.adapter.impl;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.script.ScriptContext;
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.api.DataEngineContext;
+import org.eclipse.birt.data.engine.api.querydefn.ScriptExpression;
+import org.eclipse.birt.data.engine.impl.DataEngineImpl;
+import org.eclipse.birt.data.engine.impl.StopSign;
+import org.eclipse.birt.data.engine.olap.data.api.cube.CubeMaterializer;
+import org.eclipse.birt.data.engine.olap.data.api.cube.IDatasetIterator;
+import org.eclipse.birt.data.engine.olap.data.api.cube.IDimension;
+import org.eclipse.birt.data.engine.olap.data.api.cube.IHierarchy;
+import org.eclipse.birt.data.engine.olap.data.api.cube.ILevelDefn;
+import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.LevelDefinition;
+import org.eclipse.birt.data.engine.script.ScriptEvalUtil;
+import org.eclipse.birt.report.model.api.DesignEngine;
+import org.eclipse.birt.report.model.api.ElementFactory;
+import org.eclipse.birt.report.model.api.OdaDataSetHandle;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.model.api.olap.TabularCubeHandle;
+
+import com.ibm.icu.util.ULocale;
+
+/**
+ * Checks that the saved cube is loaded until the report parameters, the data
+ * set or the watermark change.
+ */
+public class CubeCacheTest extends TestCase
+{
+
+	private ReportDesignHandle design;
+	private OdaDataSetHandle dataSet;
+	private TabularCubeHandle cubeHandle;
+	private ScriptContext scriptContext;
+	private DataEngineImpl dataEngine;
+	private File folder;
+	private Map appContext;
+	private int loads;
+
+	protected void setUp( ) throws Exception
+	{
+		design = DesignEngine.newSession( ULocale.getDefault( ) )
+				.createDesign( );
+		design.setFileName( "cubeCache.rptdesign" ); //$NON-NLS-1$
+		ElementFactory factory = design.getElementFactory( );
+		design.getParameters( ).add( factory.newScalarParameter( "year" ) ); //$NON-NLS-1$
+		dataSet = factory.newOdaDataSet( "sales", null ); //$NON-NLS-1$
+		dataSet.setQueryText( "select * from sales" ); //$NON-NLS-1$
+		design.getDataSets( ).add( dataSet );
+		cubeHandle = factory.newTabularCube( "cube" ); //$NON-NLS-1$
+		cubeHandle.setDataSet( dataSet );
+		design.getCubes( ).add( cubeHandle );
+
+		scriptContext = new ScriptContext( );
+		setParameter( "2020" ); //$NON-NLS-1$
+		dataEngine = (DataEngineImpl) DataEngine.newDataEngine( DataEngineContext.newInstance( DataEngineContext.DIRECT_PRESENTATION,
+				scriptContext,
+				null,
+				null,
+				null ) );
+
+		folder = File.createTempFile( "cubeCache", "" ); //$NON-NLS-1$ //$NON-NLS-2$
+		folder.delete( );
+		appContext = new HashMap( );
+		appContext.put( DataEngine.CUBE_CACHE_DIR, folder.getPath( ) );
+		appContext.put( DataEngine.CUBE_CACHE_WATERMARK, "1" ); //$NON-NLS-1$
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		dataEngine.shutdown( );
+		scriptContext.close( );
+		File[] files = folder.listFiles( );
+		if ( files != null )
+		{
+			for ( int i = 0; i < files.length; i++ )
+			{
+				files[i].delete( );
+			}
+		}
+		folder.delete( );
+	}
+
+	public void testNotSaved( ) throws Exception
+	{
+		assertFalse( load( ) );
+	}
+
+	public void testSaveAndLoad( ) throws Exception
+	{
+		save( );
+		assertTrue( load( ) );
+		assertTrue( load( ) );
+	}
+
+	public void testParameterChanged( ) throws Exception
+	{
+		save( );
+		setParameter( "2021" ); //$NON-NLS-1$
+		assertFalse( load( ) );
+		setParameter( "2020" ); //$NON-NLS-1$
+		assertTrue( load( ) );
+	}
+
+	public void testQueryTextChanged( ) throws Exception
+	{
+		save( );
+		dataSet.setQueryText( "select * from sales where year = ?" ); //$NON-NLS-1$
+		assertFalse( load( ) );
+	}
+
+	public void testWatermarkChanged( ) throws Exception
+	{
+		save( );
+		appContext.put( DataEngine.CUBE_CACHE_WATERMARK, "2" ); //$NON-NLS-1$
+		assertFalse( load( ) );
+	}
+
+	/**
+	 * the rebuilt cube replaces the saved one.
+	 */
+	public void testRebuilt( ) throws Exception
+	{
+		save( );
+		dataSet.setQueryText( "select * from sales where year = ?" ); //$NON-NLS-1$
+		assertFalse( load( ) );
+		save( );
+		assertTrue( load( ) );
+	}
+
+	private void setParameter( String value ) throws BirtException
+	{
+		ScriptEvalUtil.evalExpr( new ScriptExpression( "params = { year : { value : \"" //$NON-NLS-1$
+				+ value + "\" } }" ), //$NON-NLS-1$
+				scriptContext,
+				org.eclipse.birt.core.script.ScriptExpression.defaultID,
+				0 );
+	}
+
+	/**
+	 * creates the cube and saves it in the cube cache.
+	 */
+	private void save( ) throws Exception
+	{
+		CubeMaterializer materializer = new CubeMaterializer( dataEngine,
+				"save" + ( loads++ ) ); //$NON-NLS-1$
+		StopSign stopSign = new StopSign( );
+		IHierarchy hierarchy = materializer.createHierarchy( "region", //$NON-NLS-1$
+				"region", //$NON-NLS-1$
+				new DatasetIterator( new String[]{
+					"region" //$NON-NLS-1$
+				}, new Object[][]{
+						{
+							"east" //$NON-NLS-1$
+						}, {
+							"west" //$NON-NLS-1$
+						}
+				} ),
+				new ILevelDefn[]{
+					new LevelDefinition( "region", new String[]{ //$NON-NLS-1$
+								"region" //$NON-NLS-1$
+							}, null )
+				},
+				stopSign );
+		IDimension dimension = materializer.createDimension( "region", //$NON-NLS-1$
+				hierarchy );
+		materializer.createCube( cubeHandle.getQualifiedName( ),
+				new String[][]{
+					{
+						"region" //$NON-NLS-1$
+					}
+				},
+				new String[][]{
+					{
+						"region" //$NON-NLS-1$
+					}
+				},
+				new IDimension[]{
+					dimension
+				},
+				new DatasetIterator( new String[]{
+						"region", "amount" //$NON-NLS-1$ //$NON-NLS-2$
+				}, new Object[][]{
+						{
+								"east", new Integer( 1 ) //$NON-NLS-1$
+						}, {
+								"west", new Integer( 2 ) //$NON-NLS-1$
+						}
+				} ),
+				new String[]{
+					"amount" //$NON-NLS-1$
+				},
+				0,
+				stopSign );
+		CubeCache.getCubeCache( appContext, scriptContext ).save( cubeHandle,
+				materializer,
+				stopSign );
+		materializer.close( );
+	}
+
+	/**
+	 * loads the saved cube into a new cube materializer.
+	 */
+	private boolean load( ) throws Exception
+	{
+		CubeMaterializer materializer = new CubeMaterializer( dataEngine,
+				"load" + ( loads++ ) ); //$NON-NLS-1$
+		try
+		{
+			if ( !CubeCache.getCubeCache( appContext, scriptContext )
+					.load( cubeHandle, materializer, new StopSign( ) ) )
+			{
+				return false;
+			}
+			assertTrue( materializer.getDocumentManager( )
+					.exist( NamingUtil.getCubeDocName( cubeHandle.getQualifiedName( ) ) ) );
+			return true;
+		}
+		finally
+		{
+			materializer.close( );
+		}
+	}
+
+	private static class DatasetIterator implements IDatasetIterator
+	{
+
+		private String[] names;
+		private Object[][] rows;
+		private int index = -1;
+
+		DatasetIterator( String[] names, Object[][] rows )
+		{
+			this.names = names;
+			this.rows = rows;
+		}
+
+		public int getFieldIndex( String name ) throws BirtException
+		{
+			for ( int i = 0; i < names.length; i++ )
+			{
+				if ( names[i].equals( name ) )
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		public int getFieldType( String name ) throws BirtException
+		{
+			return rows[0][getFieldIndex( name )] instanceof Integer
+					? DataType.INTEGER_TYPE : DataType.STRING_TYPE;
+		}
+
+		public boolean next( ) throws BirtException
+		{
+			return ++index < rows.length;
+		}
+
+		public Object getValue( int fieldIndex ) throws BirtException
+		{
+			return rows[index][fieldIndex];
+		}
+
+		public void close( ) throws BirtException
+		{
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.xml.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.core.framework.Platform;
+import org.eclipse.birt.report.data.oda.xml.Constants;
+import org.eclipse.datatools.connectivity.oda.IQuery;
+import org.eclipse.datatools.connectivity.oda.IResultSet;
+import org.eclipse.datatools.connectivity.oda.IResultSetMetaData;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+
+/**
+ * Compares the rows of the streaming result set with the rows of the DTP
+ * result set for the same relation.
+ */
+public class StreamingResultSetTest extends TestCase
+{
+
+	private static final String BOOKS = "books#-TNAME-#books#:#[/library/shelf/book]#:#" //$NON-NLS-1$
+			+ "{id;INT;/@id},{lang;STRING;/@lang},{title;STRING;/title}," //$NON-NLS-1$
+			+ "{author;STRING;/author/name},{country;STRING;/author/country/@code}," //$NON-NLS-1$
+			+ "{price;DOUBLE;/price},{amount;BIGDECIMAL;/price},{currency;STRING;/price/@currency}," //$NON-NLS-1$
+			+ "{published;DATE;/published},{note;STRING;/note}," //$NON-NLS-1$
+			+ "{shelf;STRING;../@name},{floor;INT;../@floor},{library;STRING;../../@name}"; //$NON-NLS-1$
+
+	private static final String AUTHORS = "authors#-TNAME-#authors#:#[/library/shelf/book/author]#:#" //$NON-NLS-1$
+			+ "{name;STRING;/name},{country;STRING;/country},{code;STRING;/country/@code}," //$NON-NLS-1$
+			+ "{book;INT;../@id},{shelf;STRING;../../@name}"; //$NON-NLS-1$
+
+	private File file;
+	private Connection connection;
+
+	protected void setUp( ) throws Exception
+	{
+		Platform.startup( null );
+		file = File.createTempFile( "library", ".xml" ); //$NON-NLS-1$ //$NON-NLS-2$
+		InputStream in = getClass( ).getResourceAsStream( "library.xml" ); //$NON-NLS-1$
+		OutputStream out = new FileOutputStream( file );
+		try
+		{
+			byte[] buffer = new byte[4096];
+			int size = in.read( buffer );
+			while ( size > 0 )
+			{
+				out.write( buffer, 0, size );
+				size = in.read( buffer );
+			}
+		}
+		finally
+		{
+			in.close( );
+			out.close( );
+		}
+		connection = new Connection( );
+		Properties properties = new Properties( );
+		properties.put( Constants.CONST_PROP_FILELIST, file.getAbsolutePath( ) );
+		connection.open( properties );
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		connection.close( );
+		file.delete( );
+	}
+
+	public void testNestedAndAttributeColumns( ) throws Exception
+	{
+		List<String> rows = assertSameRows( BOOKS, 0 );
+		assertEquals( 3, rows.size( ) );
+		assertEquals( "1|en|First|Ann|US|12.5|12.50|USD|2001-02-03|null|A|1|City|", //$NON-NLS-1$
+				rows.get( 0 ) );
+	}
+
+	public void testNestedRows( ) throws Exception
+	{
+		List<String> rows = assertSameRows( AUTHORS, 0 );
+		assertEquals( 3, rows.size( ) );
+		assertEquals( "Carl|null|null|3|B|", rows.get( 2 ) ); //$NON-NLS-1$
+	}
+
+	public void testMaxRows( ) throws Exception
+	{
+		assertEquals( 2, assertSameRows( BOOKS, 2 ).size( ) );
+		assertEquals( 1, assertSameRows( AUTHORS, 1 ).size( ) );
+	}
+
+	public void testUnsupportedRelation( ) throws Exception
+	{
+		// a descendant step is left to the DTP result set
+		String query = "books#-TNAME-#books#:#[//book]#:#{title;STRING;/title}"; //$NON-NLS-1$
+		IQuery birtQuery = new Query( connection );
+		birtQuery.prepare( query );
+		IResultSet resultSet = birtQuery.executeQuery( );
+		assertFalse( resultSet instanceof StreamingResultSet );
+		resultSet.close( );
+	}
+
+	public void testInvalidQueryText( ) throws Exception
+	{
+		IQuery birtQuery = new Query( connection );
+		try
+		{
+			birtQuery.prepare( "books#:#[/library/shelf/book]#:#{title;STRING;/title}" ); //$NON-NLS-1$
+			fail( );
+		}
+		catch ( OdaException e )
+		{
+			assertEquals( "The query text is invalid.", e.getMessage( ) ); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * reads the relation with both result sets and checks that every getter
+	 * returns the same value.
+	 */
+	private List<String> assertSameRows( String queryText, int maxRows )
+			throws Exception
+	{
+		IQuery dtpQuery = new org.eclipse.datatools.enablement.oda.xml.impl.Query( connection );
+		IQuery birtQuery = new Query( connection );
+		dtpQuery.prepare( queryText );
+		birtQuery.prepare( queryText );
+		dtpQuery.setMaxRows( maxRows );
+		birtQuery.setMaxRows( maxRows );
+		IResultSet expected = dtpQuery.executeQuery( );
+		IResultSet actual = birtQuery.executeQuery( );
+		assertTrue( actual instanceof StreamingResultSet );
+
+		List<String> rows = new ArrayList<String>( );
+		IResultSetMetaData metaData = expected.getMetaData( );
+		int columnCount = metaData.getColumnCount( );
+		assertEquals( columnCount, actual.getMetaData( ).getColumnCount( ) );
+		while ( expected.next( ) )
+		{
+			assertTrue( actual.next( ) );
+			assertEquals( expected.getRow( ), actual.getRow( ) );
+			StringBuffer row = new StringBuffer( );
+			for ( int i = 1; i <= columnCount; i++ )
+			{
+				String name = metaData.getColumnName( i );
+				assertEquals( name, expected.getString( i ), actual.getString( i ) );
+				assertEquals( name, expected.wasNull( ), actual.wasNull( ) );
+				assertEquals( name, expected.getString( name ),
+						actual.getString( name ) );
+				Object value = getValue( expected, i, metaData.getColumnType( i ) );
+				assertEquals( name, value, getValue( actual, i,
+						metaData.getColumnType( i ) ) );
+				assertEquals( name, expected.wasNull( ), actual.wasNull( ) );
+				row.append( value ).append( '|' );
+			}
+			rows.add( row.toString( ) );
+		}
+		assertFalse( actual.next( ) );
+		expected.close( );
+		actual.close( );
+		return rows;
+	}
+
+	/**
+	 * returns the value of the typed getter, or the class of its exception.
+	 */
+	private Object getValue( IResultSet resultSet, int index, int type )
+	{
+		try
+		{
+			switch ( type )
+			{
+				case Types.INTEGER :
+					return Integer.valueOf( resultSet.getInt( index ) );
+				case Types.DOUBLE :
+					return Double.valueOf( resultSet.getDouble( index ) );
+				case Types.DECIMAL :
+					return resultSet.getBigDecimal( index );
+				case Types.DATE :
+					return resultSet.getDate( index );
+				default :
+					return resultSet.getString( index );
+			}
+		}
+		catch ( Exception e )
+		{
+			return e.getClass( );
+		}
+	}
+}
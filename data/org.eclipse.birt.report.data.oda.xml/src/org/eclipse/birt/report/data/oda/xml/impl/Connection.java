@@ -14,6 +14,7 @@ package org.eclipse.birt.report.data.oda.xml.impl;
 import java.util.Map;
 
 import org.eclipse.birt.report.data.oda.xml.Constants;
+import org.eclipse.datatools.connectivity.oda.IQuery;
 import org.eclipse.datatools.connectivity.oda.OdaException;
 import org.eclipse.datatools.enablement.oda.xml.i18n.Messages;
 
@@ -50,4 +51,14 @@ public class Connection
 		}
 		super.setAppContext( (Map) context );
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.datatools.connectivity.oda.IConnection#newQuery(java.lang.String)
+	 */
+	public IQuery newQuery( String dataSetType ) throws OdaException
+	{
+		return new Query( this );
+	}
 }
@@ -11,6 +11,11 @@
 
 package org.eclipse.birt.report.data.oda.xml.impl;
 
+import org.eclipse.birt.report.data.oda.xml.i18n.Messages;
+import org.eclipse.datatools.connectivity.oda.IResultSet;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+import org.eclipse.datatools.enablement.oda.xml.util.MappedTables;
+
 /**
  * This class implements IQuery interface.
  * @deprecated Please use DTP xml driver
@@ -18,6 +23,12 @@ package org.eclipse.birt.report.data.oda.xml.impl;
 public class Query extends org.eclipse.datatools.enablement.oda.xml.impl.Query
 {
 
+	private static final String TABLE_NAME_DELIMITER = "#-TNAME-#"; //$NON-NLS-1$
+
+	private org.eclipse.datatools.enablement.oda.xml.impl.Connection connection;
+	private String tableName;
+	private MappedTables mt;
+
 	/**
 	 * 
 	 * @param creator
@@ -26,6 +37,36 @@ public class Query extends org.eclipse.datatools.enablement.oda.xml.impl.Query
 			org.eclipse.datatools.enablement.oda.xml.impl.Connection conn )
 	{
 		super( conn );
+		this.connection = conn;
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IQuery#prepare(java.lang.String)
+	 */
+	public void prepare( String queryText ) throws OdaException
+	{
+		super.prepare( queryText );
+		String[] parts = queryText.trim( ).split( TABLE_NAME_DELIMITER );
+		if ( parts.length < 2 )
+			throw new OdaException( Messages.getString( "Query.InvalidQueryText" ) ); //$NON-NLS-1$
+		this.tableName = parts[0];
+		this.mt = new MappedTables( parts[1] );
+	}
+
+	/*
+	 * Simple relations are read in a single streaming pass over the xml
+	 * source, the others keep the DTP result set.
+	 * 
+	 * @see org.eclipse.datatools.connectivity.oda.IQuery#executeQuery()
+	 */
+	public IResultSet executeQuery( ) throws OdaException
+	{
+		if ( StreamingResultSet.isSupported( mt, tableName ) )
+			return new StreamingResultSet( connection,
+					mt,
+					tableName.trim( ),
+					getMaxRows( ) );
+		return super.executeQuery( );
 	}
 
 }
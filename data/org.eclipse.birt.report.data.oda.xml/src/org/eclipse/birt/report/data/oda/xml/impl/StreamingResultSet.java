@@ -0,0 +1,853 @@
+/*******************************************************************************
+ * Copyright (c) 2004, 2005 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.xml.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.datatools.connectivity.oda.IBlob;
+import org.eclipse.datatools.connectivity.oda.IClob;
+import org.eclipse.datatools.connectivity.oda.IResultSet;
+import org.eclipse.datatools.connectivity.oda.IResultSetMetaData;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+import org.eclipse.datatools.enablement.oda.xml.util.IXMLSource;
+import org.eclipse.datatools.enablement.oda.xml.util.MappedTables;
+import org.eclipse.datatools.enablement.oda.xml.util.date.DateUtil;
+
+/**
+ * A result set which evaluates the column mappings of a simple relation in a
+ * single pull-parse of the xml source. Only the row being read is held in
+ * memory, and no parser thread or row cache is needed, so large documents are
+ * read with flat memory and parsed exactly once.
+ * <p>
+ * The relation is supported when the row path is an absolute chain of element
+ * names and every column path is a chain of child elements of the row,
+ * optionally ending with an attribute, or an attribute of the row element or
+ * of one of its ancestors ("../@name"). Filters, wildcards, descendant steps,
+ * query parameters and name spaces are left to the DTP result set. As with
+ * the DTP driver, the first match of a column path within a row wins.
+ */
+public class StreamingResultSet implements IResultSet
+{
+
+	private static final String PARENT_STEP = "../"; //$NON-NLS-1$
+	private static final String TRUE_LITERAL = "true"; //$NON-NLS-1$
+	private static final String FALSE_LITERAL = "false"; //$NON-NLS-1$
+
+	private static XMLInputFactory inputFactory;
+
+	private IXMLSource xmlSource;
+	private MappedTables mt;
+	private String tableName;
+	private int maxRows;
+
+	private String[] rowSteps;
+	private ColumnPath[] columns;
+
+	private InputStream stream;
+	private XMLStreamReader reader;
+
+	// element names from the document root to the current element
+	private List<String> openElements;
+	// values of the ancestor attribute columns, filled while descending
+	private String[] ancestorValues;
+	private String[] currentRow;
+	private StringBuffer[] textBuffers;
+	private int rowId;
+	private boolean wasNull;
+	private boolean isClosed;
+	private boolean isFinished;
+
+	/**
+	 *
+	 * @param conn
+	 * @param mt
+	 * @param tableName
+	 * @param maxRows
+	 * @throws OdaException
+	 */
+	public StreamingResultSet(
+			org.eclipse.datatools.enablement.oda.xml.impl.Connection conn,
+			MappedTables mt, String tableName, int maxRows )
+			throws OdaException
+	{
+		MappedTables.Table table = findTable( mt, tableName );
+		if ( table == null || !isSupported( table ) )
+			throw new OdaException( "Relation " + tableName //$NON-NLS-1$
+					+ " can not be evaluated by a streaming result set" ); //$NON-NLS-1$
+		this.xmlSource = conn.getXMLSource( );
+		this.mt = mt;
+		this.tableName = tableName;
+		this.maxRows = maxRows;
+		this.rowSteps = splitSteps( table.getRowPath( ) );
+		MappedTables.Column[] tableColumns = table.getColumns( );
+		this.columns = new ColumnPath[tableColumns.length];
+		for ( int i = 0; i < tableColumns.length; i++ )
+			this.columns[i] = ColumnPath.parse( tableColumns[i].getPath( ) );
+		this.openElements = new ArrayList<String>( );
+		this.ancestorValues = new String[columns.length];
+		this.textBuffers = new StringBuffer[columns.length];
+	}
+
+	/**
+	 * Tells whether the given relation of the mapped tables can be evaluated by
+	 * a streaming result set.
+	 *
+	 * @param mt
+	 * @param tableName
+	 * @return
+	 */
+	public static boolean isSupported( MappedTables mt, String tableName )
+	{
+		if ( mt == null || tableName == null )
+			return false;
+		if ( mt.getParameters( ) != null && mt.getParameters( ).length > 0 )
+			return false;
+		if ( mt.getNameSpacePart( ) != null
+				&& mt.getNameSpacePart( ).trim( ).length( ) > 0 )
+			return false;
+		MappedTables.Table table = findTable( mt, tableName.trim( ) );
+		return table != null && isSupported( table );
+	}
+
+	private static boolean isSupported( MappedTables.Table table )
+	{
+		String rowPath = table.getRowPath( );
+		if ( rowPath == null || !rowPath.trim( ).startsWith( "/" ) ) //$NON-NLS-1$
+			return false;
+		String[] steps = splitSteps( rowPath );
+		if ( steps == null || steps.length == 0 )
+			return false;
+		int rowDepth = steps.length;
+		MappedTables.Column[] tableColumns = table.getColumns( );
+		if ( tableColumns == null || tableColumns.length == 0 )
+			return false;
+		for ( int i = 0; i < tableColumns.length; i++ )
+		{
+			ColumnPath column = ColumnPath.parse( tableColumns[i].getPath( ) );
+			if ( column == null || column.ancestorLevel >= rowDepth )
+				return false;
+		}
+		return true;
+	}
+
+	private static MappedTables.Table findTable( MappedTables mt,
+			String tableName )
+	{
+		Iterator it = mt.getTables( ).iterator( );
+		while ( it.hasNext( ) )
+		{
+			MappedTables.Table table = (MappedTables.Table) it.next( );
+			if ( tableName.equals( table.getName( ) ) )
+				return table;
+		}
+		return null;
+	}
+
+	/**
+	 * Splits a path into its element names, or returns null if any step is
+	 * not a plain element name.
+	 *
+	 * @param path
+	 * @return
+	 */
+	private static String[] splitSteps( String path )
+	{
+		String trimmed = path.trim( );
+		if ( trimmed.startsWith( "/" ) ) //$NON-NLS-1$
+			trimmed = trimmed.substring( 1 );
+		if ( trimmed.length( ) == 0 )
+			return new String[0];
+		String[] steps = trimmed.split( "/" ); //$NON-NLS-1$
+		for ( int i = 0; i < steps.length; i++ )
+		{
+			if ( !isPlainName( steps[i] ) )
+				return null;
+		}
+		return steps;
+	}
+
+	private static boolean isPlainName( String step )
+	{
+		if ( step.length( ) == 0 )
+			return false;
+		for ( int i = 0; i < step.length( ); i++ )
+		{
+			char c = step.charAt( i );
+			if ( !( Character.isLetterOrDigit( c ) || c == '_' || c == '-' || c == '.' ) )
+				return false;
+		}
+		return !".".equals( step ) && !"..".equals( step ); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getMetaData()
+	 */
+	public IResultSetMetaData getMetaData( ) throws OdaException
+	{
+		return new org.eclipse.datatools.enablement.oda.xml.impl.ResultSetMetaData( mt,
+				tableName );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#close()
+	 */
+	public void close( ) throws OdaException
+	{
+		if ( isClosed )
+			return;
+		isClosed = true;
+		currentRow = null;
+		closeStream( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#setMaxRows(int)
+	 */
+	public void setMaxRows( int max ) throws OdaException
+	{
+		this.maxRows = max;
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#next()
+	 */
+	public boolean next( ) throws OdaException
+	{
+		testClosed( );
+		currentRow = null;
+		if ( isFinished || ( maxRows > 0 && rowId >= maxRows ) )
+		{
+			finish( );
+			return false;
+		}
+		if ( reader == null )
+			openStream( );
+		try
+		{
+			if ( !readRow( ) )
+			{
+				finish( );
+				return false;
+			}
+		}
+		catch ( XMLStreamException e )
+		{
+			finish( );
+			throw new OdaException( e.getLocalizedMessage( ) );
+		}
+		rowId++;
+		return true;
+	}
+
+	/**
+	 * Advances the reader to the end of the next row element, filling the
+	 * current row on the way.
+	 *
+	 * @return false if the document holds no more rows
+	 * @throws XMLStreamException
+	 */
+	private boolean readRow( ) throws XMLStreamException
+	{
+		int rowDepth = rowSteps.length;
+		String[] row = null;
+		while ( reader.hasNext( ) )
+		{
+			int event = reader.next( );
+			if ( event == XMLStreamConstants.START_ELEMENT )
+			{
+				openElements.add( getName( ) );
+				int depth = openElements.size( );
+				if ( row == null )
+				{
+					if ( depth <= rowDepth && matchesRowPath( depth ) )
+					{
+						if ( depth < rowDepth )
+						{
+							fillAncestorValues( depth );
+						}
+						else
+						{
+							row = new String[columns.length];
+							for ( int i = 0; i < columns.length; i++ )
+							{
+								textBuffers[i] = null;
+								if ( columns[i].ancestorLevel > 0 )
+									row[i] = ancestorValues[i];
+							}
+							fillRowValues( row, depth );
+						}
+					}
+				}
+				else
+				{
+					fillRowValues( row, depth );
+				}
+			}
+			else if ( event == XMLStreamConstants.CHARACTERS
+					|| event == XMLStreamConstants.CDATA
+					|| event == XMLStreamConstants.SPACE )
+			{
+				if ( row != null )
+				{
+					for ( int i = 0; i < textBuffers.length; i++ )
+					{
+						if ( textBuffers[i] != null
+								&& columns[i].depth( rowDepth ) == openElements.size( ) )
+							textBuffers[i].append( reader.getText( ) );
+					}
+				}
+			}
+			else if ( event == XMLStreamConstants.END_ELEMENT )
+			{
+				int depth = openElements.size( );
+				if ( row != null )
+				{
+					for ( int i = 0; i < textBuffers.length; i++ )
+					{
+						if ( textBuffers[i] != null
+								&& columns[i].depth( rowDepth ) == depth )
+						{
+							row[i] = textBuffers[i].toString( );
+							textBuffers[i] = null;
+						}
+					}
+				}
+				openElements.remove( depth - 1 );
+				if ( row != null && depth == rowDepth )
+				{
+					currentRow = row;
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private String getName( )
+	{
+		String prefix = reader.getPrefix( );
+		if ( prefix == null || prefix.length( ) == 0 )
+			return reader.getLocalName( );
+		return prefix + ":" + reader.getLocalName( ); //$NON-NLS-1$
+	}
+
+	private boolean matchesRowPath( int depth )
+	{
+		for ( int i = 0; i < depth; i++ )
+		{
+			if ( !rowSteps[i].equals( openElements.get( i ) ) )
+				return false;
+		}
+		return true;
+	}
+
+	private void fillAncestorValues( int depth )
+	{
+		for ( int i = 0; i < columns.length; i++ )
+		{
+			if ( columns[i].ancestorLevel > 0
+					&& rowSteps.length - columns[i].ancestorLevel == depth )
+				ancestorValues[i] = reader.getAttributeValue( null,
+						columns[i].attribute );
+		}
+	}
+
+	private void fillRowValues( String[] row, int depth )
+	{
+		int rowDepth = rowSteps.length;
+		for ( int i = 0; i < columns.length; i++ )
+		{
+			ColumnPath column = columns[i];
+			if ( column.ancestorLevel > 0 || row[i] != null
+					|| textBuffers[i] != null
+					|| column.depth( rowDepth ) != depth
+					|| !column.matches( openElements, rowDepth ) )
+				continue;
+			if ( column.attribute != null )
+				row[i] = reader.getAttributeValue( null, column.attribute );
+			else
+				textBuffers[i] = new StringBuffer( );
+		}
+	}
+
+	private void openStream( ) throws OdaException
+	{
+		stream = xmlSource.openInputStream( );
+		try
+		{
+			String encoding = xmlSource.getEncoding( );
+			reader = encoding == null
+					? getInputFactory( ).createXMLStreamReader( stream )
+					: getInputFactory( ).createXMLStreamReader( stream,
+							encoding );
+		}
+		catch ( XMLStreamException e )
+		{
+			closeStream( );
+			throw new OdaException( e.getLocalizedMessage( ) );
+		}
+	}
+
+	private static synchronized XMLInputFactory getInputFactory( )
+	{
+		if ( inputFactory == null )
+		{
+			inputFactory = XMLInputFactory.newInstance( );
+			inputFactory.setProperty( XMLInputFactory.SUPPORT_DTD,
+					Boolean.FALSE );
+			inputFactory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+					Boolean.FALSE );
+			inputFactory.setProperty( XMLInputFactory.IS_COALESCING,
+					Boolean.TRUE );
+		}
+		return inputFactory;
+	}
+
+	/**
+	 * Stops reading once the last row has been returned, so the rest of the
+	 * document is never parsed.
+	 */
+	private void finish( )
+	{
+		isFinished = true;
+		closeStream( );
+	}
+
+	private void closeStream( )
+	{
+		if ( reader != null )
+		{
+			try
+			{
+				reader.close( );
+			}
+			catch ( XMLStreamException e )
+			{
+			}
+			reader = null;
+		}
+		if ( stream != null )
+		{
+			try
+			{
+				stream.close( );
+			}
+			catch ( IOException e )
+			{
+			}
+			stream = null;
+		}
+		openElements.clear( );
+	}
+
+	private void testClosed( ) throws OdaException
+	{
+		if ( isClosed )
+			throw new OdaException( "ResultSet has been closed" ); //$NON-NLS-1$
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getRow()
+	 */
+	public int getRow( ) throws OdaException
+	{
+		testClosed( );
+		return rowId;
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getString(int)
+	 */
+	public String getString( int index ) throws OdaException
+	{
+		testClosed( );
+		String result = currentRow == null ? null : currentRow[index - 1];
+		wasNull = result == null;
+		return result;
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getString(java.lang.String)
+	 */
+	public String getString( String columnName ) throws OdaException
+	{
+		return getString( findColumn( columnName ) );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getInt(int)
+	 */
+	public int getInt( int index ) throws OdaException
+	{
+		Number result = stringToNumber( getString( index ), false );
+		return result == null ? 0 : result.intValue( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getInt(java.lang.String)
+	 */
+	public int getInt( String columnName ) throws OdaException
+	{
+		return getInt( findColumn( columnName ) );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getDouble(int)
+	 */
+	public double getDouble( int index ) throws OdaException
+	{
+		Number result = stringToNumber( getString( index ), true );
+		return result == null ? 0 : result.doubleValue( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getDouble(java.lang.String)
+	 */
+	public double getDouble( String columnName ) throws OdaException
+	{
+		return getDouble( findColumn( columnName ) );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getBigDecimal(int)
+	 */
+	public BigDecimal getBigDecimal( int index ) throws OdaException
+	{
+		String value = getString( index );
+		if ( value == null )
+			return null;
+		try
+		{
+			return new BigDecimal( value.trim( ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			Number result = stringToNumber( value, true );
+			return result == null
+					? null : new BigDecimal( result.toString( ) );
+		}
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getBigDecimal(java.lang.String)
+	 */
+	public BigDecimal getBigDecimal( String columnName ) throws OdaException
+	{
+		return getBigDecimal( findColumn( columnName ) );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getDate(int)
+	 */
+	public Date getDate( int index ) throws OdaException
+	{
+		String value = getString( index );
+		if ( value == null )
+			return null;
+		try
+		{
+			return DateUtil.toSqlDate( value );
+		}
+		catch ( OdaException e )
+		{
+			wasNull = true;
+			return null;
+		}
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getDate(java.lang.String)
+	 */
+	public Date getDate( String columnName ) throws OdaException
+	{
+		return getDate( findColumn( columnName ) );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getTime(int)
+	 */
+	public Time getTime( int index ) throws OdaException
+	{
+		String value = getString( index );
+		if ( value == null )
+			return null;
+		try
+		{
+			return DateUtil.toSqlTime( value );
+		}
+		catch ( OdaException e )
+		{
+			wasNull = true;
+			return null;
+		}
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getTime(java.lang.String)
+	 */
+	public Time getTime( String columnName ) throws OdaException
+	{
+		return getTime( findColumn( columnName ) );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getTimestamp(int)
+	 */
+	public Timestamp getTimestamp( int index ) throws OdaException
+	{
+		String value = getString( index );
+		if ( value == null )
+			return null;
+		try
+		{
+			String timestamp = value;
+			if ( timestamp.endsWith( "Z" ) ) //$NON-NLS-1$
+				timestamp = timestamp.replaceAll( "\\QT\\E", " " ) //$NON-NLS-1$ //$NON-NLS-2$
+						.split( "\\QZ\\E" )[0]; //$NON-NLS-1$
+			return Timestamp.valueOf( timestamp );
+		}
+		catch ( IllegalArgumentException e )
+		{
+			try
+			{
+				return new Timestamp( Long.parseLong( value ) );
+			}
+			catch ( NumberFormatException e1 )
+			{
+				try
+				{
+					return new Timestamp( DateUtil.toDate( value ).getTime( ) );
+				}
+				catch ( OdaException e2 )
+				{
+					wasNull = true;
+					return null;
+				}
+			}
+		}
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getTimestamp(java.lang.String)
+	 */
+	public Timestamp getTimestamp( String columnName ) throws OdaException
+	{
+		return getTimestamp( findColumn( columnName ) );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getBlob(int)
+	 */
+	public IBlob getBlob( int index ) throws OdaException
+	{
+		throw new UnsupportedOperationException( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getBlob(java.lang.String)
+	 */
+	public IBlob getBlob( String columnName ) throws OdaException
+	{
+		throw new UnsupportedOperationException( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getClob(int)
+	 */
+	public IClob getClob( int index ) throws OdaException
+	{
+		throw new UnsupportedOperationException( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getClob(java.lang.String)
+	 */
+	public IClob getClob( String columnName ) throws OdaException
+	{
+		throw new UnsupportedOperationException( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getBoolean(int)
+	 */
+	public boolean getBoolean( int index ) throws OdaException
+	{
+		String value = getString( index );
+		if ( value == null )
+			return false;
+		if ( TRUE_LITERAL.equalsIgnoreCase( value ) )
+			return true;
+		if ( FALSE_LITERAL.equalsIgnoreCase( value ) )
+			return false;
+		Number result = stringToNumber( value, false );
+		return result != null && result.intValue( ) != 0;
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getBoolean(java.lang.String)
+	 */
+	public boolean getBoolean( String columnName ) throws OdaException
+	{
+		return getBoolean( findColumn( columnName ) );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getObject(int)
+	 */
+	public Object getObject( int index ) throws OdaException
+	{
+		throw new UnsupportedOperationException( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getObject(java.lang.String)
+	 */
+	public Object getObject( String columnName ) throws OdaException
+	{
+		throw new UnsupportedOperationException( );
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#wasNull()
+	 */
+	public boolean wasNull( ) throws OdaException
+	{
+		return wasNull;
+	}
+
+	/*
+	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#findColumn(java.lang.String)
+	 */
+	public int findColumn( String columnName ) throws OdaException
+	{
+		testClosed( );
+		return mt.getColumnIndex( tableName, columnName );
+	}
+
+	/**
+	 * Converts a column value the way the DTP result set does: a java
+	 * literal first, then a number in the default locale. Values which can
+	 * not be converted are reported as null.
+	 *
+	 * @param value
+	 * @param isDecimal
+	 * @return
+	 */
+	private Number stringToNumber( String value, boolean isDecimal )
+	{
+		if ( value == null )
+			return null;
+		try
+		{
+			return isDecimal
+					? (Number) Double.valueOf( value )
+					: (Number) Integer.valueOf( value );
+		}
+		catch ( NumberFormatException e )
+		{
+			try
+			{
+				return NumberFormat.getInstance( ).parse( value );
+			}
+			catch ( ParseException e1 )
+			{
+				wasNull = true;
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * The location of a column value relative to the row element.
+	 */
+	private static class ColumnPath
+	{
+
+		// number of "../" steps, the value is then an ancestor attribute
+		int ancestorLevel;
+		String[] elementSteps;
+		String attribute;
+
+		/**
+		 * Parses a column path, or returns null if it needs more than the
+		 * streaming evaluation supports.
+		 *
+		 * @param path
+		 * @return
+		 */
+		static ColumnPath parse( String path )
+		{
+			if ( path == null )
+				return null;
+			ColumnPath column = new ColumnPath( );
+			String rest = path.trim( );
+			while ( rest.startsWith( PARENT_STEP ) )
+			{
+				column.ancestorLevel++;
+				rest = rest.substring( PARENT_STEP.length( ) );
+			}
+			if ( column.ancestorLevel > 0 )
+				rest = "/" + rest; //$NON-NLS-1$
+			int attrIndex = rest.lastIndexOf( "@" ); //$NON-NLS-1$
+			if ( attrIndex >= 0 )
+			{
+				if ( attrIndex == 0 || rest.charAt( attrIndex - 1 ) != '/' )
+					return null;
+				column.attribute = rest.substring( attrIndex + 1 );
+				if ( !isPlainName( column.attribute ) )
+					return null;
+				rest = rest.substring( 0, attrIndex - 1 );
+			}
+			if ( rest.length( ) > 0 && !rest.startsWith( "/" ) ) //$NON-NLS-1$
+				return null;
+			column.elementSteps = splitSteps( rest );
+			if ( column.elementSteps == null )
+				return null;
+			// the children of an ancestor may follow the row in the document,
+			// so only its attributes can be taken in a single pass
+			if ( column.ancestorLevel > 0
+					&& ( column.attribute == null || column.elementSteps.length > 0 ) )
+				return null;
+			return column;
+		}
+
+		int depth( int rowDepth )
+		{
+			return rowDepth - ancestorLevel + elementSteps.length;
+		}
+
+		boolean matches( List<String> openElements, int rowDepth )
+		{
+			for ( int i = 0; i < elementSteps.length; i++ )
+			{
+				if ( !elementSteps[i].equals( openElements.get( rowDepth + i ) ) )
+					return false;
+			}
+			return true;
+		}
+	}
+}
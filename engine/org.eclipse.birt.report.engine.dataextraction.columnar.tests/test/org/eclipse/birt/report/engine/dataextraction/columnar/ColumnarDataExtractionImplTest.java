@@ -0,0 +1,462 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.report.engine.dataextraction.columnar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.api.DataExtractionOption;
+import org.eclipse.birt.report.engine.api.IDataExtractionOption;
+import org.eclipse.birt.report.engine.dataextraction.ColumnarDataExtractionOption;
+import org.eclipse.birt.report.engine.dataextraction.columnar.mock.MockExtractionResults;
+
+/**
+ * Extracts rows of every data type and decodes the output, in the stored and
+ * the deflated mode and across the batches.
+ */
+public class ColumnarDataExtractionImplTest extends TestCase
+{
+
+	private static final String[] TEST_DATA_COLUMNS = new String[]{
+			"booleanColumn", //$NON-NLS-1$
+			"integerColumn", //$NON-NLS-1$
+			"doubleColumn", //$NON-NLS-1$
+			"decimalColumn", //$NON-NLS-1$
+			"dateColumn", //$NON-NLS-1$
+			"sqlDateColumn", //$NON-NLS-1$
+			"sqlTimeColumn", //$NON-NLS-1$
+			"blobColumn", //$NON-NLS-1$
+			"binaryColumn", //$NON-NLS-1$
+			"stringColumn" //$NON-NLS-1$
+	};
+
+	private static final int[] TEST_DATA_TYPES = new int[]{
+			DataType.BOOLEAN_TYPE,
+			DataType.INTEGER_TYPE,
+			DataType.DOUBLE_TYPE,
+			DataType.DECIMAL_TYPE,
+			DataType.DATE_TYPE,
+			DataType.SQL_DATE_TYPE,
+			DataType.SQL_TIME_TYPE,
+			DataType.BLOB_TYPE,
+			DataType.BINARY_TYPE,
+			DataType.STRING_TYPE
+	};
+
+	// is initialized in setUp()
+	private Object[][] TEST_DATA = null;
+
+	private ByteArrayOutputStream out;
+
+	public void setUp( ) throws Exception
+	{
+		out = new ByteArrayOutputStream( );
+		TEST_DATA = new Object[][]{
+				new Object[]{
+						Boolean.TRUE,
+						Integer.valueOf( 5 ),
+						Double.valueOf( 25.689 ),
+						new BigDecimal( "-987.654321" ), //$NON-NLS-1$
+						new Date( 1218184200000L ),
+						java.sql.Date.valueOf( "2008-08-08" ), //$NON-NLS-1$
+						Time.valueOf( "10:30:00" ), //$NON-NLS-1$
+						new SerialBlob( new byte[]{1, 2, 3} ),
+						new byte[]{4, 5},
+						"myString1" //$NON-NLS-1$
+				},
+				// a row of nulls
+				new Object[10],
+				new Object[]{
+						Boolean.FALSE,
+						Integer.valueOf( Integer.MIN_VALUE ),
+						Double.valueOf( Double.NaN ),
+						new BigDecimal( new BigInteger( "123456789012345678901234567890" ), //$NON-NLS-1$
+								-5 ),
+						new Date( -1000L ),
+						null,
+						null,
+						new byte[0],
+						null,
+						"" //$NON-NLS-1$
+				},
+				// the non-ASCII strings are encoded by UTF-8
+				new Object[]{
+						null,
+						Integer.valueOf( 0 ),
+						Double.valueOf( -0.5 ),
+						BigDecimal.ZERO,
+						null,
+						java.sql.Date.valueOf( "1999-12-31" ), //$NON-NLS-1$
+						Time.valueOf( "23:59:59" ), //$NON-NLS-1$
+						null,
+						new byte[]{-1, 0, 127},
+						"\u00fc\u4f60\u00df\u00e9" //$NON-NLS-1$
+				},
+				new Object[]{
+						Boolean.TRUE,
+						null,
+						null,
+						null,
+						new Date( 0L ),
+						null,
+						Time.valueOf( "00:00:00" ), //$NON-NLS-1$
+						new SerialBlob( new byte[]{9} ),
+						new byte[]{8},
+						null
+				},
+				new Object[]{
+						Boolean.FALSE,
+						Integer.valueOf( Integer.MAX_VALUE ),
+						Double.valueOf( Double.MAX_VALUE ),
+						new BigDecimal( "0.1" ), //$NON-NLS-1$
+						null,
+						java.sql.Date.valueOf( "2020-02-29" ), //$NON-NLS-1$
+						null,
+						null,
+						null,
+						"ascii then \u00e9" //$NON-NLS-1$
+				},
+				new Object[]{
+						null,
+						Integer.valueOf( -12 ),
+						Double.valueOf( 0.0 ),
+						new BigDecimal( "1E+3" ), //$NON-NLS-1$
+						new Date( 946684800000L ),
+						null,
+						Time.valueOf( "12:00:00" ), //$NON-NLS-1$
+						new SerialBlob( new byte[]{0} ),
+						new byte[]{0},
+						"last" //$NON-NLS-1$
+				}
+		};
+	}
+
+	public void tearDown( ) throws Exception
+	{
+		out.close( );
+		out = null;
+	}
+
+	public void testStored( ) throws Exception
+	{
+		ColumnarDataExtractionOption option = new ColumnarDataExtractionOption( );
+		option.setBatchSize( 3 );
+		option.setCompressionLevel( 0 );
+		Output output = extract( option, TEST_DATA_COLUMNS, TEST_DATA );
+
+		assertSchema( output, TEST_DATA_COLUMNS, TEST_DATA_TYPES );
+		// the last batch holds the rows after the batch boundary
+		assertEquals( Arrays.asList( 3, 3, 1 ), output.batchSizes );
+		assertMethods( output, ColumnarDataExtractionImpl.METHOD_STORED );
+		assertRows( TEST_DATA, output.rows );
+	}
+
+	public void testDeflated( ) throws Exception
+	{
+		ColumnarDataExtractionOption option = new ColumnarDataExtractionOption( );
+		option.setBatchSize( 3 );
+		option.setCompressionLevel( 9 );
+		Output output = extract( option, TEST_DATA_COLUMNS, TEST_DATA );
+
+		assertSchema( output, TEST_DATA_COLUMNS, TEST_DATA_TYPES );
+		assertEquals( Arrays.asList( 3, 3, 1 ), output.batchSizes );
+		assertMethods( output, ColumnarDataExtractionImpl.METHOD_DEFLATED );
+		assertRows( TEST_DATA, output.rows );
+	}
+
+	public void testFullBatches( ) throws Exception
+	{
+		// the rows end at a batch boundary, no partial batch is written
+		ColumnarDataExtractionOption option = new ColumnarDataExtractionOption( );
+		option.setBatchSize( TEST_DATA.length );
+		option.setCompressionLevel( 0 );
+		Output output = extract( option, TEST_DATA_COLUMNS, TEST_DATA );
+		assertEquals( Arrays.asList( TEST_DATA.length ), output.batchSizes );
+		assertRows( TEST_DATA, output.rows );
+
+		out.reset( );
+		option.setBatchSize( 1 );
+		option.setCompressionLevel( 1 );
+		output = extract( option, TEST_DATA_COLUMNS, TEST_DATA );
+		assertEquals( TEST_DATA.length, output.batchSizes.size( ) );
+		assertMethods( output, ColumnarDataExtractionImpl.METHOD_DEFLATED );
+		assertRows( TEST_DATA, output.rows );
+	}
+
+	public void testDefaultOptions( ) throws Exception
+	{
+		IDataExtractionOption option = new DataExtractionOption( );
+		option.setOutputFormat( "columnar" ); //$NON-NLS-1$
+		Output output = extract( option, TEST_DATA_COLUMNS, TEST_DATA );
+
+		assertSchema( output, TEST_DATA_COLUMNS, TEST_DATA_TYPES );
+		assertEquals( Arrays.asList( TEST_DATA.length ), output.batchSizes );
+		assertMethods( output, ColumnarDataExtractionImpl.METHOD_DEFLATED );
+		assertRows( TEST_DATA, output.rows );
+	}
+
+	public void testSelectedColumns( ) throws Exception
+	{
+		ColumnarDataExtractionOption option = new ColumnarDataExtractionOption( );
+		option.setBatchSize( 2 );
+		option.setSelectedColumns( new String[]{"stringColumn", //$NON-NLS-1$
+				"invalidColumn", //$NON-NLS-1$
+				"integerColumn" //$NON-NLS-1$
+		} );
+		Output output = extract( option, TEST_DATA_COLUMNS, TEST_DATA );
+
+		assertSchema( output, new String[]{"stringColumn", "integerColumn"}, //$NON-NLS-1$ //$NON-NLS-2$
+				new int[]{DataType.STRING_TYPE, DataType.INTEGER_TYPE} );
+		assertEquals( Arrays.asList( 2, 2, 2, 1 ), output.batchSizes );
+		Object[][] expected = new Object[TEST_DATA.length][];
+		for ( int i = 0; i < TEST_DATA.length; i++ )
+		{
+			expected[i] = new Object[]{TEST_DATA[i][9], TEST_DATA[i][1]};
+		}
+		assertRows( expected, output.rows );
+	}
+
+	public void testNoRows( ) throws Exception
+	{
+		ColumnarDataExtractionOption option = new ColumnarDataExtractionOption( );
+		Output output = extract( option, TEST_DATA_COLUMNS, new Object[0][] );
+		assertSchema( output, TEST_DATA_COLUMNS, TEST_DATA_TYPES );
+		assertTrue( output.batchSizes.isEmpty( ) );
+		assertTrue( output.rows.isEmpty( ) );
+	}
+
+	private Output extract( IDataExtractionOption option, String[] columns,
+			Object[][] data ) throws Exception
+	{
+		ColumnarDataExtractionImpl extract = createExtraction( out, option );
+		extract.output( new MockExtractionResults( columns,
+				TEST_DATA_TYPES,
+				data ) );
+		return read( out.toByteArray( ) );
+	}
+
+	private ColumnarDataExtractionImpl createExtraction( OutputStream out,
+			IDataExtractionOption option ) throws BirtException
+	{
+		ColumnarDataExtractionImpl extract = new ColumnarDataExtractionImpl( );
+
+		// simulate engine's DataExtractionTaskV1.setupExtractOption() by
+		// copying the values to a new object of instance DataExtractionOption
+		Map allOptions = new HashMap( );
+		allOptions.putAll( option.getOptions( ) );
+
+		DataExtractionOption deOptions = new DataExtractionOption( allOptions );
+		deOptions.setOutputStream( out );
+		extract.initialize( null, deOptions );
+		return extract;
+	}
+
+	private void assertSchema( Output output, String[] names, int[] types )
+	{
+		assertEquals( names.length, output.names.size( ) );
+		for ( int i = 0; i < names.length; i++ )
+		{
+			assertEquals( names[i], output.names.get( i ) );
+			assertEquals( names[i], output.labels.get( i ) );
+			assertEquals( types[i], output.types.get( i ).intValue( ) );
+		}
+	}
+
+	private void assertMethods( Output output, byte method )
+	{
+		assertFalse( output.methods.isEmpty( ) );
+		for ( Byte value : output.methods )
+		{
+			assertEquals( method, value.byteValue( ) );
+		}
+	}
+
+	/**
+	 * checks the decoded rows against the rows given to the extraction, the
+	 * dates are decoded as the milliseconds and the blobs as the bytes.
+	 */
+	private void assertRows( Object[][] expected, List<Object[]> rows )
+			throws Exception
+	{
+		assertEquals( expected.length, rows.size( ) );
+		for ( int i = 0; i < expected.length; i++ )
+		{
+			Object[] row = rows.get( i );
+			assertEquals( expected[i].length, row.length );
+			for ( int j = 0; j < row.length; j++ )
+			{
+				String message = "row " + i + " column " + j; //$NON-NLS-1$ //$NON-NLS-2$
+				Object value = expected[i][j];
+				if ( value instanceof Date )
+				{
+					value = Long.valueOf( ( (Date) value ).getTime( ) );
+				}
+				else if ( value instanceof SerialBlob )
+				{
+					SerialBlob blob = (SerialBlob) value;
+					value = blob.getBytes( 1, (int) blob.length( ) );
+				}
+				if ( value instanceof byte[] )
+				{
+					assertTrue( message, row[j] instanceof byte[] );
+					assertTrue( message, Arrays.equals( (byte[]) value,
+							(byte[]) row[j] ) );
+				}
+				else
+				{
+					assertEquals( message, value, row[j] );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decodes the output of the extraction.
+	 */
+	private Output read( byte[] bytes ) throws IOException,
+			DataFormatException
+	{
+		Output output = new Output( );
+		DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes ) );
+		byte[] magic = new byte[ColumnarDataExtractionImpl.MAGIC.length];
+		in.readFully( magic );
+		assertTrue( Arrays.equals( ColumnarDataExtractionImpl.MAGIC, magic ) );
+		assertEquals( ColumnarDataExtractionImpl.VERSION, in.readInt( ) );
+		int columnCount = in.readInt( );
+		for ( int i = 0; i < columnCount; i++ )
+		{
+			output.names.add( in.readUTF( ) );
+			output.labels.add( in.readUTF( ) );
+			output.types.add( Integer.valueOf( in.readInt( ) ) );
+		}
+
+		int rowCount = in.readInt( );
+		while ( rowCount != 0 )
+		{
+			output.batchSizes.add( Integer.valueOf( rowCount ) );
+			Object[][] batch = new Object[rowCount][columnCount];
+			for ( int i = 0; i < columnCount; i++ )
+			{
+				byte method = in.readByte( );
+				output.methods.add( Byte.valueOf( method ) );
+				byte[] block = new byte[in.readInt( )];
+				byte[] content = new byte[in.readInt( )];
+				in.readFully( content );
+				if ( method == ColumnarDataExtractionImpl.METHOD_DEFLATED )
+				{
+					Inflater inflater = new Inflater( );
+					inflater.setInput( content );
+					assertEquals( block.length, inflater.inflate( block ) );
+					assertTrue( inflater.finished( ) );
+					inflater.end( );
+				}
+				else
+				{
+					assertEquals( ColumnarDataExtractionImpl.METHOD_STORED,
+							method );
+					assertEquals( block.length, content.length );
+					block = content;
+				}
+				readBlock( block, output.types.get( i ).intValue( ), batch, i );
+			}
+			output.rows.addAll( Arrays.asList( batch ) );
+			rowCount = in.readInt( );
+		}
+		assertEquals( -1, in.read( ) );
+		return output;
+	}
+
+	private void readBlock( byte[] block, int type, Object[][] batch,
+			int column ) throws IOException
+	{
+		DataInputStream in = new DataInputStream( new ByteArrayInputStream( block,
+				batch.length,
+				block.length - batch.length ) );
+		for ( int row = 0; row < batch.length; row++ )
+		{
+			if ( block[row] == 1 )
+			{
+				continue;
+			}
+			assertEquals( 0, block[row] );
+			switch ( type )
+			{
+				case DataType.BOOLEAN_TYPE :
+					batch[row][column] = Boolean.valueOf( in.readByte( ) == 1 );
+					break;
+				case DataType.INTEGER_TYPE :
+					batch[row][column] = Integer.valueOf( in.readInt( ) );
+					break;
+				case DataType.DOUBLE_TYPE :
+					batch[row][column] = Double.valueOf( in.readDouble( ) );
+					break;
+				case DataType.DECIMAL_TYPE :
+					int scale = in.readInt( );
+					batch[row][column] = new BigDecimal( new BigInteger( readBytes( in ) ),
+							scale );
+					break;
+				case DataType.DATE_TYPE :
+				case DataType.SQL_DATE_TYPE :
+				case DataType.SQL_TIME_TYPE :
+					batch[row][column] = Long.valueOf( in.readLong( ) );
+					break;
+				case DataType.BLOB_TYPE :
+				case DataType.BINARY_TYPE :
+					batch[row][column] = readBytes( in );
+					break;
+				default :
+					batch[row][column] = new String( readBytes( in ), "UTF-8" ); //$NON-NLS-1$
+			}
+		}
+		assertEquals( 0, in.available( ) );
+	}
+
+	private byte[] readBytes( DataInputStream in ) throws IOException
+	{
+		byte[] bytes = new byte[in.readInt( )];
+		in.readFully( bytes );
+		return bytes;
+	}
+
+	/**
+	 * The decoded output.
+	 */
+	private static class Output
+	{
+
+		List<String> names = new ArrayList<String>( );
+		List<String> labels = new ArrayList<String>( );
+		List<Integer> types = new ArrayList<Integer>( );
+		List<Integer> batchSizes = new ArrayList<Integer>( );
+		List<Byte> methods = new ArrayList<Byte>( );
+		List<Object[]> rows = new ArrayList<Object[]>( );
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.report.engine.dataextraction.columnar.mock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.api.IResultIterator;
+import org.eclipse.birt.report.engine.api.IDataIterator;
+import org.eclipse.birt.report.engine.api.IExtractionResults;
+import org.eclipse.birt.report.engine.api.IResultMetaData;
+
+/**
+ * Iterates the rows given as an array.
+ */
+public class MockDataIterator implements IDataIterator
+{
+
+	private Object[][] data;
+	private IExtractionResults queryResults;
+	private int currentRow = -1;
+	private Map<String, Integer> columnIndexes = new HashMap<String, Integer>( );
+
+	public MockDataIterator( String[] columnNames, Object[][] data,
+			IExtractionResults queryResults )
+	{
+		this.data = data;
+		this.queryResults = queryResults;
+		for ( int i = 0; i < columnNames.length; i++ )
+		{
+			columnIndexes.put( columnNames[i], Integer.valueOf( i ) );
+		}
+	}
+
+	public void close( )
+	{
+	}
+
+	public IExtractionResults getQueryResults( )
+	{
+		return queryResults;
+	}
+
+	public IResultMetaData getResultMetaData( ) throws BirtException
+	{
+		return queryResults.getResultMetaData( );
+	}
+
+	public Object getValue( String columnName ) throws BirtException
+	{
+		Integer index = columnIndexes.get( columnName );
+		if ( index == null )
+		{
+			throw new BirtException( null, "Invalid column name \"" //$NON-NLS-1$
+					+ columnName + "\".", null ); //$NON-NLS-1$
+		}
+		return getValue( index.intValue( ) );
+	}
+
+	public Object getValue( int index ) throws BirtException
+	{
+		return data[currentRow][index];
+	}
+
+	public boolean next( ) throws BirtException
+	{
+		if ( currentRow < data.length - 1 )
+		{
+			currentRow++;
+			return true;
+		}
+		return false;
+	}
+
+	public boolean isEmpty( ) throws BirtException
+	{
+		return data.length == 0;
+	}
+
+	public IResultIterator getResultIterator( )
+	{
+		throw new UnsupportedOperationException( "Not implemented" ); //$NON-NLS-1$
+	}
+}
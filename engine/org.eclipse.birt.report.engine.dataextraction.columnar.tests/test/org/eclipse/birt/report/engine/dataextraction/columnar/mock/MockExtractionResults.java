@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.report.engine.dataextraction.columnar.mock;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.api.IDataIterator;
+import org.eclipse.birt.report.engine.api.IExtractionResults;
+import org.eclipse.birt.report.engine.api.IResultMetaData;
+
+/**
+ * Extraction results of the rows given as an array.
+ */
+public class MockExtractionResults implements IExtractionResults
+{
+
+	private MockResultMetaData metaData;
+	private MockDataIterator iterator;
+
+	public MockExtractionResults( String[] columnNames, int[] columnTypes,
+			Object[][] data )
+	{
+		metaData = new MockResultMetaData( columnNames, columnTypes );
+		iterator = new MockDataIterator( columnNames, data, this );
+	}
+
+	public void close( )
+	{
+		iterator.close( );
+	}
+
+	public IResultMetaData getResultMetaData( ) throws BirtException
+	{
+		return metaData;
+	}
+
+	public IDataIterator nextResultIterator( ) throws BirtException
+	{
+		return iterator;
+	}
+}
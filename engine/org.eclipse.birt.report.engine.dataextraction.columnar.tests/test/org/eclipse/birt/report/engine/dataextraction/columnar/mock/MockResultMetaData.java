@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.report.engine.dataextraction.columnar.mock;
+
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.api.IResultMetaData;
+
+/**
+ * Meta data of the columns given as arrays, the labels are the names.
+ */
+public class MockResultMetaData implements IResultMetaData
+{
+
+	private String[] columnNames;
+	private int[] columnTypes;
+
+	public MockResultMetaData( String[] columnNames, int[] columnTypes )
+	{
+		this.columnNames = columnNames;
+		this.columnTypes = columnTypes;
+	}
+
+	public String getColumnAlias( int index ) throws BirtException
+	{
+		return columnNames[index];
+	}
+
+	public int getColumnCount( )
+	{
+		return columnNames.length;
+	}
+
+	public String getColumnLabel( int index ) throws BirtException
+	{
+		return columnNames[index];
+	}
+
+	public String getColumnName( int index ) throws BirtException
+	{
+		return columnNames[index];
+	}
+
+	public int getColumnType( int index ) throws BirtException
+	{
+		return columnTypes[index];
+	}
+
+	public String getColumnTypeName( int index ) throws BirtException
+	{
+		return DataType.getName( getColumnType( index ) );
+	}
+
+	public boolean getAllowExport( int index ) throws BirtException
+	{
+		return true;
+	}
+}
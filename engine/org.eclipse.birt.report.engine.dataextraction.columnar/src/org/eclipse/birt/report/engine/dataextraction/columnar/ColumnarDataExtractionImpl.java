@@ -0,0 +1,512 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.report.engine.dataextraction.columnar;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.zip.Deflater;
+
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.core.data.DataTypeUtil;
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.api.IDataExtractionOption;
+import org.eclipse.birt.report.engine.api.IDataIterator;
+import org.eclipse.birt.report.engine.api.IExtractionResults;
+import org.eclipse.birt.report.engine.api.IResultMetaData;
+import org.eclipse.birt.report.engine.api.script.IReportContext;
+import org.eclipse.birt.report.engine.dataextraction.ColumnarDataExtractionOption;
+import org.eclipse.birt.report.engine.dataextraction.IColumnarDataExtractionOption;
+import org.eclipse.birt.report.engine.dataextraction.i18n.Messages;
+import org.eclipse.birt.report.engine.dataextraction.impl.CommonDataExtractionImpl;
+
+/**
+ * Implements the logic to extract data as a typed columnar binary format. The
+ * values are written in their binary form, no formatter is involved.
+ * <p>
+ * The output is:
+ *
+ * <pre>
+ * MAGIC, VERSION
+ * column count, {name, label, data type}*
+ * {row count, {method, raw length, length, column block}*}*
+ * 0
+ * </pre>
+ *
+ * The rows are written in batches. In a batch each column is a block holding
+ * the null flags of the rows followed by the non-null values, deflated as a
+ * whole when the compression level is not 0. All numbers are big endian, the
+ * names and labels are written by <code>DataOutput.writeUTF</code>.
+ * <ul>
+ * <li>BOOLEAN: a byte</li>
+ * <li>INTEGER: an int</li>
+ * <li>DOUBLE: a double</li>
+ * <li>DECIMAL: the scale as an int, then the unscaled value as bytes</li>
+ * <li>DATE, SQL_DATE, SQL_TIME: the milliseconds since the epoch as a long</li>
+ * <li>BLOB, BINARY: bytes</li>
+ * <li>others: the string value as UTF-8 bytes</li>
+ * </ul>
+ * where the bytes are an int length followed by the content.
+ */
+public class ColumnarDataExtractionImpl extends CommonDataExtractionImpl
+{
+
+	public static final String PLUGIN_ID = "org.eclipse.birt.report.engine.dataextraction.columnar"; //$NON-NLS-1$
+
+	public static final byte[] MAGIC = {'B', 'I', 'R', 'T', 'C', 'O', 'L', '1'};
+	public static final int VERSION = 1;
+
+	/**
+	 * the column block is stored as it is
+	 */
+	public static final byte METHOD_STORED = 0;
+
+	/**
+	 * the column block is deflated
+	 */
+	public static final byte METHOD_DEFLATED = 1;
+
+	private OutputStream outputStream;
+	private int batchSize;
+	private int compressionLevel;
+	private String[] selectedColumnNames;
+
+	/**
+	 * @see org.eclipse.birt.report.engine.extension.IDataExtractionExtension#initialize(org.eclipse.birt.report.engine.api.script.IReportContext,
+	 *      org.eclipse.birt.report.engine.api.IDataExtractionOption)
+	 */
+	public void initialize( IReportContext context, IDataExtractionOption options )
+			throws BirtException
+	{
+		super.initialize( context, options );
+		initColumnarOptions( options );
+	}
+
+	/**
+	 * Initializes the columnar options based on the data extraction option.
+	 * If the passed option doesn't contain the options, use default values.
+	 *
+	 * @param options
+	 *            options
+	 */
+	private void initColumnarOptions( IDataExtractionOption options )
+	{
+		this.outputStream = options.getOutputStream( );
+		IColumnarDataExtractionOption columnarOptions;
+		if ( options instanceof IColumnarDataExtractionOption )
+		{
+			columnarOptions = (IColumnarDataExtractionOption) options;
+		}
+		else
+		{
+			columnarOptions = new ColumnarDataExtractionOption( options.getOptions( ) );
+		}
+
+		batchSize = columnarOptions.getBatchSize( );
+		if ( batchSize <= 0 )
+		{
+			batchSize = IColumnarDataExtractionOption.DEFAULT_BATCH_SIZE;
+		}
+		compressionLevel = columnarOptions.getCompressionLevel( );
+		if ( compressionLevel < Deflater.NO_COMPRESSION
+				|| compressionLevel > Deflater.BEST_COMPRESSION )
+		{
+			compressionLevel = IColumnarDataExtractionOption.DEFAULT_COMPRESSION_LEVEL;
+		}
+		selectedColumnNames = columnarOptions.getSelectedColumns( );
+	}
+
+	/**
+	 * @see org.eclipse.birt.report.engine.extension.IDataExtractionExtension#output(org.eclipse.birt.report.engine.api.IExtractionResults)
+	 */
+	public void output( IExtractionResults results ) throws BirtException
+	{
+		if ( results == null )
+		{
+			throw new BirtException( PLUGIN_ID,
+					Messages.getString( "exception.dataextraction.no_extraction_result_error" ), //$NON-NLS-1$
+					(ResourceBundle) null );
+		}
+		Deflater deflater = null;
+		try
+		{
+			IResultMetaData metaData = results.getResultMetaData( );
+			int count = metaData.getColumnCount( );
+			List<String> nameList = new ArrayList<String>( );
+			List<String> labelList = new ArrayList<String>( );
+			List<Integer> typeList = new ArrayList<Integer>( );
+
+			// if selected columns are null or empty, returns all columns
+			if ( selectedColumnNames == null || selectedColumnNames.length <= 0 )
+			{
+				for ( int i = 0; i < count; i++ )
+				{
+					nameList.add( metaData.getColumnName( i ) );
+					labelList.add( metaData.getColumnLabel( i ) );
+					typeList.add( Integer.valueOf( metaData.getColumnType( i ) ) );
+				}
+			}
+			else
+			{
+				Map<String, Integer> nameIndexMap = new HashMap<String, Integer>( );
+				for ( int i = 0; i < count; i++ )
+				{
+					nameIndexMap.put( metaData.getColumnName( i ),
+							Integer.valueOf( i ) );
+				}
+				for ( int i = 0; i < selectedColumnNames.length; i++ )
+				{
+					Integer index = nameIndexMap.get( selectedColumnNames[i] );
+					if ( index != null )
+					{
+						nameList.add( selectedColumnNames[i] );
+						labelList.add( metaData.getColumnLabel( index.intValue( ) ) );
+						typeList.add( Integer.valueOf( metaData.getColumnType( index.intValue( ) ) ) );
+					}
+				}
+			}
+
+			String[] columnNames = nameList.toArray( new String[nameList.size( )] );
+			ColumnBlock[] columns = new ColumnBlock[columnNames.length];
+			DataOutputStream out = new DataOutputStream( outputStream );
+			out.write( MAGIC );
+			out.writeInt( VERSION );
+			out.writeInt( columnNames.length );
+			for ( int i = 0; i < columnNames.length; i++ )
+			{
+				int type = typeList.get( i ).intValue( );
+				String label = labelList.get( i );
+				out.writeUTF( columnNames[i] );
+				out.writeUTF( label == null ? columnNames[i] : label );
+				out.writeInt( type );
+				columns[i] = new ColumnBlock( type, batchSize );
+			}
+
+			IDataIterator iData = results.nextResultIterator( );
+			if ( iData != null && columnNames.length > 0 )
+			{
+				if ( compressionLevel != Deflater.NO_COMPRESSION )
+				{
+					deflater = new Deflater( compressionLevel );
+				}
+				ByteBuffer output = new ByteBuffer( );
+				int rowCount = 0;
+				while ( iData.next( ) )
+				{
+					for ( int i = 0; i < columnNames.length; i++ )
+					{
+						columns[i].add( iData.getValue( columnNames[i] ) );
+					}
+					rowCount++;
+					if ( rowCount == batchSize )
+					{
+						writeBatch( out, columns, rowCount, deflater, output );
+						rowCount = 0;
+					}
+				}
+				if ( rowCount > 0 )
+				{
+					writeBatch( out, columns, rowCount, deflater, output );
+				}
+			}
+			out.writeInt( 0 );
+			out.flush( );
+		}
+		catch ( Exception e )
+		{
+			throw new BirtException( PLUGIN_ID,
+					Messages.getString( "exception.dataextraction.exception_occured" ), //$NON-NLS-1$
+					(ResourceBundle) null,
+					e );
+		}
+		finally
+		{
+			if ( deflater != null )
+			{
+				deflater.end( );
+			}
+		}
+	}
+
+	/**
+	 * Writes the rows buffered in the column blocks, the blocks are reset
+	 * after writing.
+	 */
+	private void writeBatch( DataOutputStream out, ColumnBlock[] columns,
+			int rowCount, Deflater deflater, ByteBuffer output )
+			throws IOException
+	{
+		out.writeInt( rowCount );
+		for ( int i = 0; i < columns.length; i++ )
+		{
+			ByteBuffer block = columns[i].finish( rowCount );
+			if ( deflater == null )
+			{
+				out.writeByte( METHOD_STORED );
+				out.writeInt( block.size( ) );
+				out.writeInt( block.size( ) );
+				out.write( block.buffer( ), 0, block.size( ) );
+			}
+			else
+			{
+				deflater.reset( );
+				deflater.setInput( block.buffer( ), 0, block.size( ) );
+				deflater.finish( );
+				output.reset( );
+				while ( !deflater.finished( ) )
+				{
+					output.ensureCapacity( output.size( ) + 4096 );
+					output.setSize( output.size( )
+							+ deflater.deflate( output.buffer( ),
+									output.size( ),
+									output.capacity( ) - output.size( ) ) );
+				}
+				out.writeByte( METHOD_DEFLATED );
+				out.writeInt( block.size( ) );
+				out.writeInt( output.size( ) );
+				out.write( output.buffer( ), 0, output.size( ) );
+			}
+			columns[i].reset( );
+		}
+	}
+
+	/**
+	 * Buffers the values of a column in a batch.
+	 */
+	private static class ColumnBlock
+	{
+
+		private int type;
+		private byte[] nulls;
+		private ByteBuffer values = new ByteBuffer( );
+		private ByteBuffer block = new ByteBuffer( );
+		private int rowCount;
+
+		ColumnBlock( int type, int batchSize )
+		{
+			this.type = type;
+			this.nulls = new byte[batchSize];
+		}
+
+		void add( Object value ) throws BirtException, SQLException
+		{
+			value = toValue( value );
+			if ( value == null )
+			{
+				nulls[rowCount++] = 1;
+				return;
+			}
+			nulls[rowCount++] = 0;
+			switch ( type )
+			{
+				case DataType.BOOLEAN_TYPE :
+					values.writeByte( ( (Boolean) value ).booleanValue( )
+							? 1
+							: 0 );
+					break;
+				case DataType.INTEGER_TYPE :
+					values.writeInt( ( (Integer) value ).intValue( ) );
+					break;
+				case DataType.DOUBLE_TYPE :
+					values.writeLong( Double.doubleToLongBits( ( (Double) value ).doubleValue( ) ) );
+					break;
+				case DataType.DECIMAL_TYPE :
+					BigDecimal decimal = (BigDecimal) value;
+					values.writeInt( decimal.scale( ) );
+					values.writeBytes( decimal.unscaledValue( ).toByteArray( ) );
+					break;
+				case DataType.DATE_TYPE :
+				case DataType.SQL_DATE_TYPE :
+				case DataType.SQL_TIME_TYPE :
+					values.writeLong( ( (Date) value ).getTime( ) );
+					break;
+				case DataType.BLOB_TYPE :
+				case DataType.BINARY_TYPE :
+					values.writeBytes( (byte[]) value );
+					break;
+				default :
+					values.writeString( (String) value );
+			}
+		}
+
+		/**
+		 * Converts the value to the Java class written for the column type.
+		 */
+		private Object toValue( Object value ) throws BirtException,
+				SQLException
+		{
+			if ( value == null )
+			{
+				return null;
+			}
+			switch ( type )
+			{
+				case DataType.BLOB_TYPE :
+				case DataType.BINARY_TYPE :
+					if ( value instanceof Blob )
+					{
+						Blob blob = (Blob) value;
+						return blob.getBytes( 1, (int) blob.length( ) );
+					}
+					if ( value instanceof byte[] )
+					{
+						return value;
+					}
+					return DataTypeUtil.toBytes( value );
+				case DataType.BOOLEAN_TYPE :
+				case DataType.INTEGER_TYPE :
+				case DataType.DOUBLE_TYPE :
+				case DataType.DECIMAL_TYPE :
+				case DataType.DATE_TYPE :
+				case DataType.SQL_DATE_TYPE :
+				case DataType.SQL_TIME_TYPE :
+					return DataTypeUtil.convert( value, type );
+				default :
+					return DataTypeUtil.toString( value );
+			}
+		}
+
+		/**
+		 * @return the block of the rows added since the last reset
+		 */
+		ByteBuffer finish( int count )
+		{
+			block.reset( );
+			block.ensureCapacity( count + values.size( ) );
+			System.arraycopy( nulls, 0, block.buffer( ), 0, count );
+			System.arraycopy( values.buffer( ),
+					0,
+					block.buffer( ),
+					count,
+					values.size( ) );
+			block.setSize( count + values.size( ) );
+			return block;
+		}
+
+		void reset( )
+		{
+			rowCount = 0;
+			values.reset( );
+		}
+	}
+
+	/**
+	 * A growing byte buffer reused between the batches.
+	 */
+	private static class ByteBuffer
+	{
+
+		private byte[] buffer = new byte[4096];
+		private int size;
+
+		byte[] buffer( )
+		{
+			return buffer;
+		}
+
+		int size( )
+		{
+			return size;
+		}
+
+		int capacity( )
+		{
+			return buffer.length;
+		}
+
+		void setSize( int size )
+		{
+			this.size = size;
+		}
+
+		void reset( )
+		{
+			size = 0;
+		}
+
+		void ensureCapacity( int capacity )
+		{
+			if ( capacity > buffer.length )
+			{
+				byte[] newBuffer = new byte[Math.max( capacity,
+						buffer.length * 2 )];
+				System.arraycopy( buffer, 0, newBuffer, 0, size );
+				buffer = newBuffer;
+			}
+		}
+
+		void writeByte( int v )
+		{
+			ensureCapacity( size + 1 );
+			buffer[size++] = (byte) v;
+		}
+
+		void writeInt( int v )
+		{
+			ensureCapacity( size + 4 );
+			buffer[size++] = (byte) ( v >>> 24 );
+			buffer[size++] = (byte) ( v >>> 16 );
+			buffer[size++] = (byte) ( v >>> 8 );
+			buffer[size++] = (byte) v;
+		}
+
+		void writeLong( long v )
+		{
+			writeInt( (int) ( v >>> 32 ) );
+			writeInt( (int) v );
+		}
+
+		void writeBytes( byte[] bytes )
+		{
+			writeInt( bytes.length );
+			ensureCapacity( size + bytes.length );
+			System.arraycopy( bytes, 0, buffer, size, bytes.length );
+			size += bytes.length;
+		}
+
+		void writeString( String v )
+		{
+			// encode the ASCII strings without the charset encoder
+			int length = v.length( );
+			int start = size;
+			writeInt( length );
+			ensureCapacity( size + length );
+			for ( int i = 0; i < length; i++ )
+			{
+				char ch = v.charAt( i );
+				if ( ch >= 0x80 )
+				{
+					size = start;
+					try
+					{
+						writeBytes( v.getBytes( "UTF-8" ) ); //$NON-NLS-1$
+					}
+					catch ( UnsupportedEncodingException e )
+					{
+						// UTF-8 is always supported
+					}
+					return;
+				}
+				buffer[size++] = (byte) ch;
+			}
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.dataextraction;
+
+import java.util.Map;
+
+/**
+ * Extends Data Extraction options for the columnar binary format
+ * 
+ */
+public class ColumnarDataExtractionOption extends CommonDataExtractionOption
+		implements
+			IColumnarDataExtractionOption
+{
+
+	public ColumnarDataExtractionOption( )
+	{
+		super( );
+	}
+
+	public ColumnarDataExtractionOption( Map options )
+	{
+		super( options );
+	}
+
+	public int getBatchSize( )
+	{
+		return getIntOption( OUTPUT_BATCH_SIZE, DEFAULT_BATCH_SIZE );
+	}
+
+	public void setBatchSize( int batchSize )
+	{
+		setOption( OUTPUT_BATCH_SIZE, batchSize );
+	}
+
+	public int getCompressionLevel( )
+	{
+		return getIntOption( OUTPUT_COMPRESSION_LEVEL,
+				DEFAULT_COMPRESSION_LEVEL );
+	}
+
+	public void setCompressionLevel( int level )
+	{
+		setOption( OUTPUT_COMPRESSION_LEVEL, level );
+	}
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.dataextraction;
+
+/**
+ * Extends Data Extraction options for the columnar binary format
+ * 
+ */
+public interface IColumnarDataExtractionOption
+		extends
+			ICommonDataExtractionOption
+{
+
+	/**
+	 * the count of the rows written in a batch.
+	 */
+	public static final String OUTPUT_BATCH_SIZE = "BatchSize"; //$NON-NLS-1$
+
+	/**
+	 * the deflate level of the column blocks, from 0 to 9.
+	 */
+	public static final String OUTPUT_COMPRESSION_LEVEL = "CompressionLevel"; //$NON-NLS-1$
+
+	public static final int DEFAULT_BATCH_SIZE = 4096;
+
+	public static final int DEFAULT_COMPRESSION_LEVEL = 1;
+
+	/**
+	 * Sets the count of the rows written in a batch
+	 * 
+	 * @param batchSize
+	 */
+	void setBatchSize( int batchSize );
+
+	/**
+	 * Returns the count of the rows written in a batch
+	 * 
+	 * @return int
+	 */
+	int getBatchSize( );
+
+	/**
+	 * Sets the deflate level of the column blocks
+	 * 
+	 * @param level
+	 */
+	void setCompressionLevel( int level );
+
+	/**
+	 * Returns the deflate level of the column blocks
+	 * 
+	 * @return int
+	 */
+	int getCompressionLevel( );
+}
@@ -47,9 +47,11 @@ public class DocxEmitterImpl extends AbstractEmitterImpl
 		super.initialize( service );
 		String tempFileDir = service.getReportEngine( ).getConfig( )
 				.getTempDir( );
-		wordWriter = new DocxWriter( out, tempFileDir, getCompressionMode( service )
-				.getValue( ) );
 		IRenderOption renderOption = service.getRenderOption( );
+		boolean streaming = ( (RenderOption) renderOption ).getBooleanOption(
+				DocxRenderOption.OPTION_STREAMING, false );
+		wordWriter = new DocxWriter( out, tempFileDir, getCompressionMode( service )
+				.getValue( ), streaming );
 		Object value = renderOption.getOption( DocxRenderOption.OPTION_EMBED_HTML );
 		if ( value instanceof Boolean )
 		{
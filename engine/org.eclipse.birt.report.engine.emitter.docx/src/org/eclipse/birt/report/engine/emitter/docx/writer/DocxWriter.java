@@ -46,7 +46,14 @@ public class DocxWriter implements IWordWriter
 
 	public DocxWriter( OutputStream out, String tempFileDir, int compressionMode )
 	{
-		pkg = Package.createInstance( out, tempFileDir, compressionMode );
+		this( out, tempFileDir, compressionMode, false );
+	}
+
+	public DocxWriter( OutputStream out, String tempFileDir,
+			int compressionMode, boolean streaming )
+	{
+		pkg = Package.createInstance( out, tempFileDir, compressionMode,
+				streaming );
 		pkg.setExtensionData( new ImageManager( ) );
 	}
 
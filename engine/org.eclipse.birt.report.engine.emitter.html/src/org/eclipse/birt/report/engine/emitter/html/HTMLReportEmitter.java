@@ -62,12 +62,14 @@ import org.eclipse.birt.report.engine.content.ITableBandContent;
 import org.eclipse.birt.report.engine.content.ITableContent;
 import org.eclipse.birt.report.engine.content.ITableGroupContent;
 import org.eclipse.birt.report.engine.content.ITextContent;
+import org.eclipse.birt.report.engine.content.impl.AbstractContent;
 import org.eclipse.birt.report.engine.css.engine.value.css.CSSConstants;
 import org.eclipse.birt.report.engine.emitter.ContentEmitterAdapter;
 import org.eclipse.birt.report.engine.emitter.EmitterUtil;
 import org.eclipse.birt.report.engine.emitter.HTMLTags;
 import org.eclipse.birt.report.engine.emitter.HTMLWriter;
 import org.eclipse.birt.report.engine.emitter.IEmitterServices;
+import org.eclipse.birt.report.engine.emitter.IPageRangeOutput;
 import org.eclipse.birt.report.engine.emitter.html.util.DiagonalLineImage;
 import org.eclipse.birt.report.engine.emitter.html.util.HTMLEmitterUtil;
 import org.eclipse.birt.report.engine.executor.ExecutionContext.ElementExceptionInfo;
@@ -156,6 +158,8 @@ import com.ibm.icu.util.ULocale;
  * 
  */
 public class HTMLReportEmitter extends ContentEmitterAdapter
+		implements
+			IPageRangeOutput
 {
 	/**
 	 * the name of the root DIV for BIRT html output.
@@ -347,6 +351,22 @@ public class HTMLReportEmitter extends ContentEmitterAdapter
 		contentVisitor = new ContentEmitterVisitor( this );
 	}
 
+	public String getPageRangeFileName( String fileName, long firstPage,
+			long lastPage )
+	{
+		return EmitterUtil.getPageRangeFileName( fileName, firstPage, lastPage );
+	}
+
+	/**
+	 * each html file is a complete document, the pages of the ranges are kept
+	 * in their own files.
+	 */
+	public boolean mergePageRangeFiles( List<String> rangeFileNames,
+			String fileName )
+	{
+		return false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -4081,6 +4101,14 @@ class TableLayout
 	protected void endCell(ICellContent cell)
 	{
 		currentCell = cell;
+		if ( cell instanceof AbstractContent
+				&& ( (AbstractContent) cell ).isRecyclable( ) )
+		{
+			// the recycled cell is reused by a following cell of the row,
+			// keep a copy as the template of the empty cells.
+			currentCell = (ICellContent) cell.cloneContent( false );
+			currentCell.setParent( cell.getParent( ) );
+		}
 		for ( int i = cell.getColumn( ); i < cell.getColumn( )
 				+ cell.getColSpan( ); i++ )
 		{
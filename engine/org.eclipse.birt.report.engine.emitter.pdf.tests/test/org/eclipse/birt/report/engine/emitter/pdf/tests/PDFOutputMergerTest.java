@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.emitter.pdf.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.report.engine.emitter.pdf.PDFOutputMerger;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfAction;
+import com.lowagie.text.pdf.PdfDestination;
+import com.lowagie.text.pdf.PdfOutline;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.SimpleBookmark;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+
+/**
+ * Checks that the PDF files of the page ranges are concatenated with their
+ * outlines.
+ */
+public class PDFOutputMergerTest extends TestCase
+{
+
+	private List<File> files = new ArrayList<File>( );
+
+	protected void tearDown( ) throws Exception
+	{
+		for ( File file : files )
+		{
+			file.delete( );
+		}
+	}
+
+	public void testMerge( ) throws Exception
+	{
+		List<String> ranges = new ArrayList<String>( );
+		ranges.add( createPDF( 1, 2 ) );
+		ranges.add( createPDF( 3, 3 ) );
+		String output = createTempFile( ).getPath( );
+
+		assertEquals( 3, PDFOutputMerger.merge( ranges, output ) );
+
+		PdfReader reader = new PdfReader( output );
+		try
+		{
+			assertEquals( 3, reader.getNumberOfPages( ) );
+			PdfTextExtractor text = new PdfTextExtractor( reader );
+			for ( int i = 1; i <= 3; i++ )
+			{
+				assertEquals( "page " + i, text.getTextFromPage( i ).trim( ) );
+			}
+			assertEquals( "report", reader.getInfo( ).get( "Title" ) );
+
+			List outlines = SimpleBookmark.getBookmark( reader );
+			assertEquals( 3, outlines.size( ) );
+			for ( int i = 0; i < 3; i++ )
+			{
+				Map outline = (Map) outlines.get( i );
+				assertEquals( "page " + ( i + 1 ), outline.get( "Title" ) );
+				assertTrue( ( (String) outline.get( "Page" ) ).startsWith( ( i + 1 )
+						+ " " ) );
+			}
+		}
+		finally
+		{
+			reader.close( );
+		}
+	}
+
+	public void testMergeEmpty( ) throws Exception
+	{
+		String output = createTempFile( ).getPath( );
+		assertEquals( 0, PDFOutputMerger.merge( new ArrayList<String>( ),
+				output ) );
+		assertTrue( new File( output ).exists( ) );
+	}
+
+	/**
+	 * create a PDF file with a page and an outline for each page number.
+	 */
+	private String createPDF( int firstPage, int lastPage ) throws Exception
+	{
+		File file = createTempFile( );
+		Document document = new Document( );
+		PdfWriter writer = PdfWriter.getInstance( document,
+				new FileOutputStream( file ) );
+		document.addTitle( "report" );
+		document.open( );
+		for ( int i = firstPage; i <= lastPage; i++ )
+		{
+			if ( i > firstPage )
+			{
+				document.newPage( );
+			}
+			document.add( new Paragraph( "page " + i ) );
+			new PdfOutline( writer.getRootOutline( ), PdfAction.gotoLocalPage(
+					i - firstPage + 1, new PdfDestination( PdfDestination.FIT ),
+					writer ), "page " + i );
+		}
+		document.close( );
+		return file.getPath( );
+	}
+
+	private File createTempFile( ) throws Exception
+	{
+		File file = File.createTempFile( "merger", ".pdf" );
+		files.add( file );
+		return file;
+	}
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.emitter.pdf.tests;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.report.engine.emitter.pdf.PDFPage;
+import org.eclipse.birt.report.engine.emitter.pdf.PDFPageDevice;
+import org.eclipse.birt.report.engine.nLayout.area.style.BackgroundImageInfo;
+
+import com.lowagie.text.pdf.PdfTemplate;
+
+/**
+ * Checks that the images without id are cached by their content, usage and
+ * size.
+ */
+public class PDFPageImageCacheTest extends TestCase
+{
+
+	private PDFPageDevice device;
+	private PDFPage page;
+	private byte[] imageData;
+
+	protected void setUp( ) throws Exception
+	{
+		device = new PDFPageDevice( new ByteArrayOutputStream( ) );
+		page = (PDFPage) device.newPage( 200000, 200000, null );
+
+		BufferedImage image = new BufferedImage( 4, 2,
+				BufferedImage.TYPE_INT_RGB );
+		image.setRGB( 0, 0, Color.RED.getRGB( ) );
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		ImageIO.write( image, "png", out ); //$NON-NLS-1$
+		imageData = out.toByteArray( );
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		device.close( );
+	}
+
+	public void testImageAtTwoSizes( ) throws Exception
+	{
+		drawImage( 20000, 10000 );
+		drawImage( 40000, 20000 );
+		Map<String, PdfTemplate> cache = device.getImageCache( );
+		assertEquals( 2, cache.size( ) );
+		assertSizes( cache, 20, 10, 40, 20 );
+
+		// the same image at the same size is drawn from the cache
+		drawImage( 20000, 10000 );
+		drawImage( 40000, 20000 );
+		assertEquals( 2, cache.size( ) );
+	}
+
+	public void testBackgroundAndForegroundImage( ) throws Exception
+	{
+		drawImage( 20000, 10000 );
+		page.drawBackgroundImage( 0, 0, 100000, 100000, 40000, 20000,
+				BackgroundImageInfo.NO_REPEAT, null, imageData, 0, 0 );
+		Map<String, PdfTemplate> cache = device.getImageCache( );
+		assertEquals( 2, cache.size( ) );
+		assertSizes( cache, 20, 10, 40, 20 );
+
+		// a background image of the foreground size has its own template
+		page.drawBackgroundImage( 0, 0, 100000, 100000, 20000, 10000,
+				BackgroundImageInfo.REPEAT, null, imageData, 0, 0 );
+		assertEquals( 3, cache.size( ) );
+		page.drawBackgroundImage( 0, 0, 100000, 100000, 40000, 20000,
+				BackgroundImageInfo.REPEAT, null, imageData, 0, 0 );
+		assertEquals( 3, cache.size( ) );
+	}
+
+	protected void drawImage( int width, int height ) throws Exception
+	{
+		page.drawImage( null, imageData, "png", 0, 0, height, width, null, //$NON-NLS-1$
+				null );
+	}
+
+	/**
+	 * checks that the cache holds a template of each width and height pair.
+	 */
+	protected void assertSizes( Map<String, PdfTemplate> cache,
+			float... sizes )
+	{
+		for ( int i = 0; i < sizes.length; i += 2 )
+		{
+			boolean found = false;
+			for ( PdfTemplate template : cache.values( ) )
+			{
+				if ( template.getWidth( ) == sizes[i]
+						&& template.getHeight( ) == sizes[i + 1] )
+				{
+					found = true;
+				}
+			}
+			assertTrue( sizes[i] + "x" + sizes[i + 1], found ); //$NON-NLS-1$
+		}
+	}
+}
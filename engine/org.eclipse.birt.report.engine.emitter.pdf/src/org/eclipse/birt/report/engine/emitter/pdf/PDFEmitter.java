@@ -11,12 +11,18 @@
 
 package org.eclipse.birt.report.engine.emitter.pdf;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.emitter.EmitterUtil;
 import org.eclipse.birt.report.engine.emitter.IEmitterServices;
+import org.eclipse.birt.report.engine.emitter.IPageRangeOutput;
 import org.eclipse.birt.report.engine.layout.emitter.PageDeviceRender;
 import org.eclipse.birt.report.engine.layout.emitter.PageEmitter;
 
-public class PDFEmitter extends PageEmitter
+public class PDFEmitter extends PageEmitter implements IPageRangeOutput
 {
 
 	public PageDeviceRender createRender( IEmitterServices services )
@@ -24,4 +30,24 @@ public class PDFEmitter extends PageEmitter
 	{
 		return new PDFRender( services );
 	}
+
+	public String getPageRangeFileName( String fileName, long firstPage,
+			long lastPage )
+	{
+		return EmitterUtil.getPageRangeFileName( fileName, firstPage, lastPage );
+	}
+
+	/**
+	 * the ranges are concatenated into the output file and removed.
+	 */
+	public boolean mergePageRangeFiles( List<String> rangeFileNames,
+			String fileName ) throws IOException
+	{
+		PDFOutputMerger.merge( rangeFileNames, fileName );
+		for ( String rangeFileName : rangeFileNames )
+		{
+			new File( rangeFileName ).delete( );
+		}
+		return true;
+	}
 }
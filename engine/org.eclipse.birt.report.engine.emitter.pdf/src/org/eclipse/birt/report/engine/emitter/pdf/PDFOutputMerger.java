@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.emitter.pdf;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.SimpleBookmark;
+
+/**
+ * Concatenates the PDF files of the page ranges rendered in parallel.
+ * <p>
+ * The pages are copied in order, the outlines of the files are appended with
+ * their pages shifted, and the document information is taken from the first
+ * file.
+ */
+public class PDFOutputMerger
+{
+
+	/**
+	 * merge the PDF files into the output file.
+	 *
+	 * @param fileNames
+	 *            the files to merge, in page order.
+	 * @param fileName
+	 *            the output file.
+	 * @return the page count of the output.
+	 * @throws IOException
+	 */
+	public static int merge( List<String> fileNames, String fileName )
+			throws IOException
+	{
+		OutputStream out = new BufferedOutputStream( new FileOutputStream(
+				fileName ) );
+		Document document = null;
+		PdfCopy copy = null;
+		List outlines = new ArrayList( );
+		int pageCount = 0;
+		try
+		{
+			for ( String name : fileNames )
+			{
+				PdfReader reader = new PdfReader( name );
+				try
+				{
+					reader.consolidateNamedDestinations( );
+					int pages = reader.getNumberOfPages( );
+					if ( pages == 0 )
+					{
+						continue;
+					}
+					if ( copy == null )
+					{
+						document = new Document( reader
+								.getPageSizeWithRotation( 1 ) );
+						copy = new PdfCopy( document, out );
+						copyInfo( reader, document );
+						document.open( );
+					}
+					List bookmarks = SimpleBookmark.getBookmark( reader );
+					if ( bookmarks != null )
+					{
+						if ( pageCount > 0 )
+						{
+							SimpleBookmark.shiftPageNumbers( bookmarks,
+									pageCount, null );
+						}
+						outlines.addAll( bookmarks );
+					}
+					for ( int i = 1; i <= pages; i++ )
+					{
+						copy.addPage( copy.getImportedPage( reader, i ) );
+					}
+					copy.freeReader( reader );
+					pageCount += pages;
+				}
+				finally
+				{
+					reader.close( );
+				}
+			}
+			if ( copy != null && !outlines.isEmpty( ) )
+			{
+				copy.setOutlines( outlines );
+			}
+		}
+		catch ( DocumentException ex )
+		{
+			IOException error = new IOException( ex.getMessage( ) );
+			error.initCause( ex );
+			throw error;
+		}
+		finally
+		{
+			// closing the document closes the output stream
+			if ( document != null && document.isOpen( ) )
+			{
+				document.close( );
+			}
+			else
+			{
+				out.close( );
+			}
+		}
+		return pageCount;
+	}
+
+	/**
+	 * the producer and the dates are set by the writer of the merged file.
+	 */
+	private static void copyInfo( PdfReader reader, Document document )
+	{
+		Map info = reader.getInfo( );
+		Iterator iter = info.entrySet( ).iterator( );
+		while ( iter.hasNext( ) )
+		{
+			Map.Entry entry = (Map.Entry) iter.next( );
+			String key = (String) entry.getKey( );
+			if ( !"Producer".equals( key ) //$NON-NLS-1$
+					&& !"CreationDate".equals( key ) //$NON-NLS-1$
+					&& !"ModDate".equals( key ) ) //$NON-NLS-1$
+			{
+				document.addHeader( key, (String) entry.getValue( ) );
+			}
+		}
+	}
+}
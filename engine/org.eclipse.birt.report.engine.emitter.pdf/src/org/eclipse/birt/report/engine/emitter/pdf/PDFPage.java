@@ -17,6 +17,8 @@ import java.awt.print.PageFormat;
 import java.awt.print.Paper;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -70,6 +72,17 @@ public class PDFPage extends AbstractPage
 	protected static Logger logger = Logger
 			.getLogger( PDFPage.class.getName( ) );
 
+	/**
+	 * The prefix of the image cache keys generated from the image data.
+	 */
+	private static final String IMAGE_KEY_PREFIX = "data:sha1:"; //$NON-NLS-1$
+
+	/**
+	 * The usages of the images in the image cache keys.
+	 */
+	private static final String BACKGROUND_IMAGE = "background"; //$NON-NLS-1$
+	private static final String FOREGROUND_IMAGE = "image"; //$NON-NLS-1$
+
 	protected float containerHeight;
 
 	protected PDFPageDevice pageDevice;
@@ -146,6 +159,11 @@ public class PDFPage extends AbstractPage
 		clip( x, y, width, height );
 		
 		PdfTemplate image = null;
+		if ( imageUrl == null )
+		{
+			imageUrl = getImageKey( BACKGROUND_IMAGE, imageData, imageWidth,
+					imageHeight );
+		}
 		if ( imageUrl != null )
 		{
 			if ( pageDevice.getImageCache( ).containsKey( imageUrl ) )
@@ -223,8 +241,12 @@ public class PDFPage extends AbstractPage
 			return;
 		}
 
-		// Cached Image
+		// Cached Image, the images without id are cached by their content
 		PdfTemplate template = null;
+		if ( imageId == null )
+		{
+			imageId = getImageKey( FOREGROUND_IMAGE, imageData, width, height );
+		}
 		if ( imageId != null )
 		{
 			if ( pageDevice.getImageCache( ).containsKey( imageId ) )
@@ -268,6 +290,50 @@ public class PDFPage extends AbstractPage
 		}
 	}
 
+	/**
+	 * Gets the key of the image in the image cache from the image data, so
+	 * the same image is only decoded and embedded once in the document. The
+	 * template of an image has the size it is drawn with, so the usage and the
+	 * size are part of the key.
+	 * 
+	 * @param usage
+	 *            the usage of the image, a background or a foreground image
+	 * @param imageData
+	 *            the image data
+	 * @param width
+	 *            the width the image is drawn with
+	 * @param height
+	 *            the height the image is drawn with
+	 * @return the key, null if the image can't be cached.
+	 */
+	protected String getImageKey( String usage, byte[] imageData, float width,
+			float height )
+	{
+		if ( imageData == null )
+		{
+			return null;
+		}
+		try
+		{
+			byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( //$NON-NLS-1$
+					imageData );
+			StringBuilder key = new StringBuilder( IMAGE_KEY_PREFIX );
+			for ( int i = 0; i < digest.length; i++ )
+			{
+				key.append( Character.forDigit( ( digest[i] >> 4 ) & 0xF, 16 ) );
+				key.append( Character.forDigit( digest[i] & 0xF, 16 ) );
+			}
+			key.append( ':' ).append( imageData.length );
+			key.append( ':' ).append( usage );
+			key.append( ':' ).append( width ).append( 'x' ).append( height );
+			return key.toString( );
+		}
+		catch ( NoSuchAlgorithmException e )
+		{
+			return null;
+		}
+	}
+
 	/**
 	 * @deprecated
 	 */
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.emitter.pptx.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.eclipse.birt.report.engine.api.DocxRenderOption;
+import org.eclipse.birt.report.engine.api.IRenderTask;
+import org.eclipse.birt.report.engine.api.IReportDocument;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.RenderOption;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Renders the same report document into docx and pptx with and without the
+ * streaming package, and checks that both modes write the same parts.
+ */
+public class StreamingPackageTest
+{
+
+	private static final String DESIGNS = "org/eclipse/birt/report/engine/emitter/pptx/tests/designs/pptx_project/Report Designs/";
+
+	private DesignToPNG converter = new DesignToPNG( );
+	private IReportEngine engine;
+	private File folder = new File( "./utest/streaming" );
+
+	@Before
+	public void setUp( ) throws Exception
+	{
+		engine = converter.getReportEngine( );
+	}
+
+	@After
+	public void tearDown( )
+	{
+		converter.closeReportEngine( engine );
+	}
+
+	@Test
+	public void testText( ) throws Exception
+	{
+		checkDesign( "text.rptdesign" );
+	}
+
+	@Test
+	public void testTable( ) throws Exception
+	{
+		checkDesign( "table.rptdesign" );
+	}
+
+	@Test
+	public void testNestedTable( ) throws Exception
+	{
+		checkDesign( "nest-table.rptdesign" );
+	}
+
+	protected void checkDesign( String name ) throws Exception
+	{
+		File output = new File( folder, name );
+		String design = new File( output, "report.rptdesign" ).getPath( );
+		String document = new File( output, "report.rptdocument" ).getPath( );
+		TestPPTX2PNG.copyResource( DESIGNS + name, design );
+		converter.toDocument( engine, design, document );
+
+		for ( String format : new String[]{"docx", "pptx"} )
+		{
+			File cached = new File( output, "cached." + format );
+			File streamed = new File( output, "streamed." + format );
+			render( document, format, cached, false );
+			render( document, format, streamed, true );
+
+			Map<String, byte[]> cachedEntries = readEntries( cached );
+			Map<String, byte[]> streamedEntries = readEntries( streamed );
+			assertFalse( cachedEntries.isEmpty( ) );
+			assertEquals( cachedEntries.keySet( ), streamedEntries.keySet( ) );
+			for ( Map.Entry<String, byte[]> entry : cachedEntries.entrySet( ) )
+			{
+				assertArrayEquals( entry.getKey( ), entry.getValue( ),
+						streamedEntries.get( entry.getKey( ) ) );
+			}
+
+			// the streamed package is read back as an office document
+			InputStream in = new FileInputStream( streamed );
+			try
+			{
+				if ( "docx".equals( format ) )
+				{
+					assertFalse( new XWPFDocument( in ).getBodyElements( )
+							.isEmpty( ) );
+				}
+				else
+				{
+					assertTrue( new XMLSlideShow( in ).getPageSize( ).width > 0 );
+				}
+			}
+			finally
+			{
+				in.close( );
+			}
+		}
+	}
+
+	protected void render( String reportDocument, String format, File output,
+			boolean streaming ) throws Exception
+	{
+		IReportDocument document = engine.openReportDocument( reportDocument );
+		try
+		{
+			IRenderTask task = engine.createRenderTask( document );
+			try
+			{
+				RenderOption option = new RenderOption( );
+				option.setOutputFormat( format );
+				option.setOutputFileName( output.getPath( ) );
+				option.setOption( DocxRenderOption.OPTION_STREAMING,
+						Boolean.valueOf( streaming ) );
+				task.setRenderOption( option );
+				task.render( );
+			}
+			finally
+			{
+				task.close( );
+			}
+		}
+		finally
+		{
+			document.close( );
+		}
+	}
+
+	protected Map<String, byte[]> readEntries( File file ) throws IOException
+	{
+		Map<String, byte[]> entries = new TreeMap<String, byte[]>( );
+		ZipInputStream in = new ZipInputStream( new FileInputStream( file ) );
+		try
+		{
+			byte[] buffer = new byte[4096];
+			ZipEntry entry = in.getNextEntry( );
+			while ( entry != null )
+			{
+				ByteArrayOutputStream out = new ByteArrayOutputStream( );
+				int size = in.read( buffer );
+				while ( size > 0 )
+				{
+					out.write( buffer, 0, size );
+					size = in.read( buffer );
+				}
+				assertFalse( entry.getName( ), entries.containsKey( entry
+						.getName( ) ) );
+				entries.put( entry.getName( ), out.toByteArray( ) );
+				entry = in.getNextEntry( );
+			}
+		}
+		finally
+		{
+			in.close( );
+		}
+		return entries;
+	}
+}
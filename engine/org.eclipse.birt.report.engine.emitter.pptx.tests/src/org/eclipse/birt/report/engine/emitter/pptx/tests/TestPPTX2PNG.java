@@ -39,7 +39,7 @@ public class TestPPTX2PNG
 		new DesignToPNG( ).convert( input, output );
 	}
 
-	private void copyResource( String resource, String fileName )
+	static void copyResource( String resource, String fileName )
 			throws IOException
 	{
 		InputStream in = DesignToPNG.class.getClassLoader( )
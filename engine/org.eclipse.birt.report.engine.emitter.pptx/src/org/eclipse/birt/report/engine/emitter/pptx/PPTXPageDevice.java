@@ -31,7 +31,16 @@ public class PPTXPageDevice implements IPageDevice
 			String description, String subject, String tempFileDir,
 			int compressionMode )
 	{
-		presentation = new Presentation( output, tempFileDir, compressionMode );
+		this( output, title, author, description, subject, tempFileDir,
+				compressionMode, false );
+	}
+
+	public PPTXPageDevice( OutputStream output, String title, String author,
+			String description, String subject, String tempFileDir,
+			int compressionMode, boolean streaming )
+	{
+		presentation = new Presentation( output, tempFileDir, compressionMode,
+				streaming );
 		presentation.setAuthor( author );
 		presentation.setTitle( title );
 		presentation.setDescription( description );
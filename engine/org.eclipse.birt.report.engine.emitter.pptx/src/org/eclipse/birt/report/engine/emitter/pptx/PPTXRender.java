@@ -115,7 +115,9 @@ public class PPTXRender extends PageDeviceRender
 					description,
 					subject,
 					tempFileDir,
-					compressionMode );
+					compressionMode,
+					renderOption.getBooleanOption(
+							DocxRenderOption.OPTION_STREAMING, false ) );
 			isTextWrap = renderOption.getBooleanOption( "pdfRenderOption.textWrapping", true );
 			return pageDevice;
 		}
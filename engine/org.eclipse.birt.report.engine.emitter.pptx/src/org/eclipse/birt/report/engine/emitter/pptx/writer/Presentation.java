@@ -75,7 +75,14 @@ public class Presentation extends Component
 	public Presentation( OutputStream out, String tempFileDir,
 			int compressionMode )
 	{
-		pkg = Package.createInstance( out, tempFileDir, compressionMode );
+		this( out, tempFileDir, compressionMode, false );
+	}
+
+	public Presentation( OutputStream out, String tempFileDir,
+			int compressionMode, boolean streaming )
+	{
+		pkg = Package.createInstance( out, tempFileDir, compressionMode,
+				streaming );
 		String uri = "ppt/presentation.xml";
 		String type = ContentTypes.PRESENTATIONML;
 		String relationshipType = RelationshipTypes.DOCUMENT;
@@ -11,6 +11,7 @@
 
 package org.eclipse.birt.report.engine.ooxml;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FilterOutputStream;
 import java.io.IOException;
@@ -45,14 +46,63 @@ public class Package extends PartContainer
 	private ZipOutputStream zipStream;
 	
 	private boolean hasEntryWriter = false;
+
+	/**
+	 * The size of the memory buffer of a part in the streaming mode.
+	 */
+	static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+	private boolean streaming = false;
+
+	/**
+	 * The entry which is written into the zip stream, null if no entry is
+	 * open. Only used in the streaming mode.
+	 */
+	private StreamEntry currentEntry;
+
+	/**
+	 * The entries which are not written into the zip stream yet. Only used in
+	 * the streaming mode.
+	 */
+	private List<StreamEntry> pendingEntries = new ArrayList<StreamEntry>( );
 	
 	public static Package createInstance( OutputStream out, String tempFileDir,
 			int compressionMode )
+	{
+		return createInstance( out, tempFileDir, compressionMode, false );
+	}
+
+	/**
+	 * Creates a package.
+	 * <p>
+	 * In the streaming mode the parts are written into the output stream while
+	 * they are generated. A part is kept in memory until it is closed or its
+	 * size exceeds the memory buffer, then it is written straight into the zip
+	 * stream if no other part is written into it. Only the parts which are
+	 * written at the same time as another part are buffered in the temporary
+	 * file, and copied into the zip stream when the part is closed or the
+	 * package is saved.
+	 * 
+	 * @param out
+	 *            the output stream
+	 * @param tempFileDir
+	 *            the folder of the temporary file
+	 * @param compressionMode
+	 *            the compression level of the zip stream
+	 * @param streaming
+	 *            if the parts are streamed into the output stream
+	 * @return the package, null if the temporary file can't be created
+	 */
+	public static Package createInstance( OutputStream out, String tempFileDir,
+			int compressionMode, boolean streaming )
 	{
 		try
 		{
 			File tempFile = File.createTempFile("BIRT_OOXML_Temp_", "", new File(tempFileDir));
-			return new Package( tempFile.getAbsolutePath(), out, compressionMode);
+			Package pkg = new Package( tempFile.getAbsolutePath( ), out,
+					compressionMode );
+			pkg.streaming = streaming;
+			return pkg;
 		}
 		catch ( IOException e )
 		{
@@ -94,7 +144,8 @@ public class Package extends PartContainer
 
 	OOXmlWriter getTempWriter( String uri ) throws IOException
 	{
-		OutputStream out = getOutputStream( uri );
+		OutputStream out = streaming ? new StreamEntry( uri, false )
+				: getOutputStream( uri );
 		OOXmlWriter writer = new OOXmlWriter( );
 		writer.open( out, "UTF-8" );
 		return writer;
@@ -118,6 +169,10 @@ public class Package extends PartContainer
 	{
 		try
 		{
+			if ( streaming )
+			{
+				writePendingEntries( );
+			}
 			outputRelationships( );
 			outputContentTypes( );
 
@@ -165,14 +220,44 @@ public class Package extends PartContainer
 	private void writePartData( Part part )
 			throws IOException
 	{
-		if ( !part.isCached( ) )
+		// the streamed parts are written already
+		if ( !part.isCached( ) || streaming )
 		{
 			return;
 		}
+		copyEntry( part.getAbsoluteUri( ).toString( ) );
+	}
+
+	/**
+	 * Writes the entries which are still open or buffered in the temporary
+	 * file.
+	 */
+	private void writePendingEntries( ) throws IOException
+	{
+		if ( currentEntry != null )
+		{
+			currentEntry.close( );
+		}
+		while ( !pendingEntries.isEmpty( ) )
+		{
+			StreamEntry entry = pendingEntries.get( 0 );
+			if ( !entry.closed )
+			{
+				entry.close( );
+			}
+			else
+			{
+				copyEntry( entry.uri );
+				pendingEntries.remove( 0 );
+			}
+		}
+	}
+
+	private void copyEntry( String uri ) throws IOException
+	{
 		InputStream inStream = null;
 		try
 		{
-			String uri = part.getAbsoluteUri( ).toString( );
 			inStream = getInputStream( uri );
 			zipStream.putNextEntry( new ZipEntry( uri.substring( 1 ) ) );
 
@@ -253,9 +338,122 @@ public class Package extends PartContainer
 	OutputStream getFinalOutputStream( String entry ) throws IOException
 	{
 		assert( entry != null && entry.length( ) > 0 );
+		if ( streaming )
+		{
+			return new StreamEntry( entry, true );
+		}
 		return new FinalOutputStream( entry.substring( 1 ) );
 	}
 
+	/**
+	 * The output stream of a part in the streaming mode. The data is written
+	 * into the memory buffer first, then into the zip stream if no other entry
+	 * is written into it, otherwise into the temporary file.
+	 */
+	private class StreamEntry extends OutputStream
+	{
+
+		String uri;
+		boolean closed = false;
+
+		private ByteArrayOutputStream buffer;
+		private OutputStream tempStream;
+
+		/**
+		 * @param uri
+		 *            the absolute uri of the part
+		 * @param direct
+		 *            if the part is written into the zip stream at once, the
+		 *            parts written by the entry writers are not kept open
+		 */
+		StreamEntry( String uri, boolean direct ) throws IOException
+		{
+			this.uri = uri;
+			if ( direct && currentEntry == null )
+			{
+				startEntry( );
+			}
+			else
+			{
+				buffer = new ByteArrayOutputStream( );
+				pendingEntries.add( this );
+			}
+		}
+
+		private void startEntry( ) throws IOException
+		{
+			currentEntry = this;
+			zipStream.putNextEntry( new ZipEntry( uri.substring( 1 ) ) );
+		}
+
+		public void write( int b ) throws IOException
+		{
+			write( new byte[]{(byte) b}, 0, 1 );
+		}
+
+		public void write( byte[] b, int off, int len ) throws IOException
+		{
+			if ( currentEntry == this )
+			{
+				zipStream.write( b, off, len );
+			}
+			else if ( tempStream != null )
+			{
+				tempStream.write( b, off, len );
+			}
+			else
+			{
+				buffer.write( b, off, len );
+				if ( buffer.size( ) > STREAM_BUFFER_SIZE )
+				{
+					flushBuffer( );
+				}
+			}
+		}
+
+		/**
+		 * Writes the memory buffer into the zip stream if it is free,
+		 * otherwise into the temporary file.
+		 */
+		private void flushBuffer( ) throws IOException
+		{
+			if ( currentEntry == null )
+			{
+				pendingEntries.remove( this );
+				startEntry( );
+				buffer.writeTo( zipStream );
+			}
+			else
+			{
+				tempStream = getOutputStream( uri );
+				buffer.writeTo( tempStream );
+			}
+			buffer = null;
+		}
+
+		public void close( ) throws IOException
+		{
+			if ( closed )
+			{
+				return;
+			}
+			if ( buffer != null )
+			{
+				flushBuffer( );
+			}
+			closed = true;
+			if ( currentEntry == this )
+			{
+				zipStream.closeEntry( );
+				currentEntry = null;
+			}
+			else
+			{
+				tempStream.close( );
+			}
+		}
+	}
+
 	private class FinalOutputStream extends FilterOutputStream
 	{
 
@@ -13,6 +13,7 @@ package org.eclipse.birt.report.engine.api;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
@@ -26,6 +27,9 @@ import org.eclipse.birt.core.archive.compound.ArchiveWriter;
 import org.eclipse.birt.report.engine.EngineCase;
 import org.eclipse.birt.report.engine.api.impl.ReportDocumentConstants;
 
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+
 public class RenderTaskTest extends EngineCase
 {
 
@@ -430,6 +434,101 @@ public class RenderTaskTest extends EngineCase
 		reportDoc.close( );
 	}
 
+	public void testParallelRenderPDF( ) throws Exception
+	{
+		String sequentialFileName = ".render_sequential.pdf";
+		String parallelFileName = ".render_parallel.pdf";
+		createReportDocument( );
+
+		IReportDocument reportDoc = engine.openReportDocument( REPORT_DOCUMENT );
+		assertEquals( 3, reportDoc.getPageCount( ) );
+		render( reportDoc, "pdf", sequentialFileName, 1 );
+		render( reportDoc, "pdf", parallelFileName, 2 );
+		reportDoc.close( );
+
+		// the ranges 1-2 and 3 are merged into the output file
+		assertFalse( new File( ".render_parallel_1-2.pdf" ).exists( ) );
+		assertFalse( new File( ".render_parallel_3.pdf" ).exists( ) );
+
+		PdfReader sequential = new PdfReader( sequentialFileName );
+		PdfReader parallel = new PdfReader( parallelFileName );
+		assertEquals( 3, parallel.getNumberOfPages( ) );
+		assertEquals( sequential.getNumberOfPages( ), parallel
+				.getNumberOfPages( ) );
+		PdfTextExtractor sequentialText = new PdfTextExtractor( sequential );
+		PdfTextExtractor parallelText = new PdfTextExtractor( parallel );
+		for ( int i = 1; i <= parallel.getNumberOfPages( ); i++ )
+		{
+			assertEquals( sequentialText.getTextFromPage( i ), parallelText
+					.getTextFromPage( i ) );
+		}
+		assertTrue( parallelText.getTextFromPage( 3 ).indexOf(
+				"start of third page" ) != -1 );
+		sequential.close( );
+		parallel.close( );
+		removeFile( sequentialFileName );
+		removeFile( parallelFileName );
+	}
+
+	public void testParallelRenderHTML( ) throws Exception
+	{
+		String outputFileName = ".render_parallel.html";
+		createReportDocument( );
+
+		IReportDocument reportDoc = engine.openReportDocument( REPORT_DOCUMENT );
+		render( reportDoc, "html", outputFileName, 2 );
+		reportDoc.close( );
+
+		// the html pages are kept in a file per range
+		assertFalse( new File( outputFileName ).exists( ) );
+		String first = new String( readFile( ".render_parallel_1-2.html" ),
+				"UTF-8" );
+		String last = new String( readFile( ".render_parallel_3.html" ),
+				"UTF-8" );
+		assertTrue( first.indexOf( "start of second page" ) != -1 );
+		assertTrue( first.indexOf( "start of third page" ) == -1 );
+		assertTrue( last.indexOf( "start of third page" ) != -1 );
+		assertTrue( last.indexOf( "start of first page" ) == -1 );
+		removeFile( ".render_parallel_1-2.html" );
+		removeFile( ".render_parallel_3.html" );
+	}
+
+	private void render( IReportDocument reportDoc, String format,
+			String outputFileName, int threads ) throws EngineException
+	{
+		IRenderTask task = engine.createRenderTask( reportDoc );
+		IRenderOption option = new RenderOption( );
+		option.setOutputFormat( format );
+		option.setOutputFileName( outputFileName );
+		option.setOption( IRenderOption.RENDER_THREADS, Integer
+				.valueOf( threads ) );
+		task.setRenderOption( option );
+		task.render( );
+		assertTrue( task.getErrors( ).isEmpty( ) );
+		task.close( );
+	}
+
+	private byte[] readFile( String fileName ) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		FileInputStream in = new FileInputStream( fileName );
+		try
+		{
+			byte[] buffer = new byte[4096];
+			int size = in.read( buffer );
+			while ( size != -1 )
+			{
+				out.write( buffer, 0, size );
+				size = in.read( buffer );
+			}
+		}
+		finally
+		{
+			in.close( );
+		}
+		return out.toByteArray( );
+	}
+
 	public void testCloseOnExitRenderOption( ) throws EngineException
 	{
 		String design = "org/eclipse/birt/report/engine/api/testCloseOnExit.rptdesign";
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.io.ByteArrayOutputStream;
+
+import org.eclipse.birt.report.engine.EngineCase;
+import org.eclipse.birt.report.engine.api.IRenderOption;
+import org.eclipse.birt.report.engine.api.IRunAndRenderTask;
+import org.eclipse.birt.report.engine.api.RenderOption;
+
+/**
+ * Runs and renders a table whose detail contents are recycled, and checks
+ * that the output is the same as the one without recycling. The detail rows
+ * have missing cells and a cell spanning a hidden column, so the emitter adds
+ * cells based on the previous cell of the row.
+ */
+public class ContentRecycleTest extends EngineCase
+{
+
+	static final String REPORT_DESIGN_RESOURCE = "org/eclipse/birt/report/engine/api/impl/content_recycle.xml"; //$NON-NLS-1$
+
+	public void testHtml( ) throws Exception
+	{
+		String recycled = runAndRender( "html", true ); //$NON-NLS-1$
+		String created = runAndRender( "html", false ); //$NON-NLS-1$
+		assertTrue( recycled.indexOf( "name49" ) != -1 ); //$NON-NLS-1$
+		assertEquals( created, recycled );
+	}
+
+	public void testXls( ) throws Exception
+	{
+		String recycled = runAndRender( "xls", true ); //$NON-NLS-1$
+		String created = runAndRender( "xls", false ); //$NON-NLS-1$
+		assertTrue( recycled.indexOf( "name49" ) != -1 ); //$NON-NLS-1$
+		assertEquals( created, recycled );
+	}
+
+	protected String runAndRender( String format, boolean recycleContent )
+			throws Exception
+	{
+		IRunAndRenderTask task = createRunAndRenderTask( REPORT_DESIGN_RESOURCE );
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream( );
+			RenderOption options = new RenderOption( );
+			options.setOutputFormat( format );
+			options.setOutputStream( out );
+			options.setOption( IRenderOption.HTML_PAGINATION, Boolean.FALSE );
+			options.setOption( IRenderOption.RECYCLE_CONTENT,
+					Boolean.valueOf( recycleContent ) );
+			task.setRenderOption( options );
+			task.run( );
+			return new String( out.toByteArray( ), "UTF-8" ); //$NON-NLS-1$
+		}
+		finally
+		{
+			task.close( );
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.report.engine.emitter.EmitterUtil;
+
+public class ParallelPageRenderTest extends TestCase
+{
+
+	public void testSplitPages( )
+	{
+		ArrayList<long[]> pages = new ArrayList<long[]>( );
+		pages.add( new long[]{1, 5} );
+		pages.add( new long[]{8, 12} );
+
+		ParallelPageRender render = new ParallelPageRender( null, null, null,
+				pages, 2, 0 );
+		assertEquals( 2, render.getOutputCount( ) );
+		assertEquals( "1-5", ParallelPageRender.getPageRange( render.outputs
+				.get( 0 ) ) );
+		assertEquals( "8-12", ParallelPageRender.getPageRange( render.outputs
+				.get( 1 ) ) );
+
+		render = new ParallelPageRender( null, null, null, pages, 2, 4 );
+		assertEquals( 3, render.getOutputCount( ) );
+		assertEquals( "1-4", ParallelPageRender.getPageRange( render.outputs
+				.get( 0 ) ) );
+		assertEquals( "5,8-10", ParallelPageRender.getPageRange( render.outputs
+				.get( 1 ) ) );
+		assertEquals( "11-12", ParallelPageRender.getPageRange( render.outputs
+				.get( 2 ) ) );
+	}
+
+	public void testNoPages( ) throws Exception
+	{
+		ParallelPageRender render = new ParallelPageRender( null, null, null,
+				new ArrayList<long[]>( ), 2, 0 );
+		assertEquals( 0, render.getOutputCount( ) );
+		assertEquals( 0, render.render( ) );
+	}
+
+	public void testOutputFileName( )
+	{
+		assertEquals( "report_1-50.pdf", EmitterUtil.getPageRangeFileName(
+				"report.pdf", 1, 50 ) );
+		assertEquals( "/tmp/a.b/report_3", EmitterUtil.getPageRangeFileName(
+				"/tmp/a.b/report", 3, 3 ) );
+		assertEquals( "c:\\out\\.report_2-4", EmitterUtil
+				.getPageRangeFileName( "c:\\out\\.report", 2, 4 ) );
+	}
+}
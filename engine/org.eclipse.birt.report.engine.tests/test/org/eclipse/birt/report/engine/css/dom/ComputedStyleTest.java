@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.css.dom;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.report.engine.content.IContainerContent;
+import org.eclipse.birt.report.engine.content.IStyle;
+import org.eclipse.birt.report.engine.content.ITextContent;
+import org.eclipse.birt.report.engine.content.impl.ReportContent;
+
+public class ComputedStyleTest extends TestCase
+{
+
+	public void testSharedStyle( )
+	{
+		ReportContent report = new ReportContent( );
+		IContainerContent container = report.createContainerContent( );
+		container.getStyle( ).setColor( "red" );
+
+		ITextContent text1 = createText( report, container, "blue" );
+		ITextContent text2 = createText( report, container, "blue" );
+		ITextContent text3 = createText( report, container, "green" );
+		ITextContent text4 = createText( report, container, null );
+
+		IStyle style = text1.getComputedStyle( );
+		assertSame( style, text2.getComputedStyle( ) );
+		assertNotSame( style, text3.getComputedStyle( ) );
+		assertNotSame( style, text4.getComputedStyle( ) );
+		assertEquals( "rgb(0, 128, 0)", text3.getComputedStyle( )
+				.getBackgroundColor( ) );
+		assertEquals( "rgb(255, 0, 0)", text4.getComputedStyle( ).getColor( ) );
+
+		// the shared style doesn't change with the content which creates it
+		text1.getStyle( ).setBackgroundColor( "green" );
+		assertEquals( "rgb(0, 0, 255)", style.getBackgroundColor( ) );
+		assertSame( text3.getComputedStyle( ), text1.getComputedStyle( ) );
+		assertSame( style, text2.getComputedStyle( ) );
+	}
+
+	private ITextContent createText( ReportContent report,
+			IContainerContent container, String background )
+	{
+		ITextContent text = report.createTextContent( );
+		text.setParent( container );
+		if ( background != null )
+		{
+			IStyle style = report.createStyle( );
+			style.setBackgroundColor( background );
+			text.setInlineStyle( style );
+		}
+		return text;
+	}
+}
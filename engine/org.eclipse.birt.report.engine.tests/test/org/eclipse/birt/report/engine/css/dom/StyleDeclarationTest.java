@@ -42,4 +42,19 @@ public class StyleDeclarationTest extends TestCase
 		String output = style.getFontFamily( );
 		assertEquals( golden, output );
 	}
+
+	public void testEquals( )
+	{
+		CSSEngine engine = new BIRTCSSEngine( );
+		StyleDeclaration style = new StyleDeclaration( engine );
+		style.setFontWeight( "bold" );
+		style.setColor( "#FF0000" );
+		style.setFontSize( "10pt" );
+		StyleDeclaration style1 = new StyleDeclaration( engine );
+		style1.setCssText( style.getCssText( ) );
+		assertEquals( style, style1 );
+		assertEquals( style.hashCode( ), style1.hashCode( ) );
+		style1.setColor( "#00FF00" );
+		assertFalse( style.equals( style1 ) );
+	}
 }
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.internal.document;
+
+import junit.framework.TestCase;
+
+public class DocumentExtensionTest extends TestCase
+{
+
+	public void testPreviousChild( )
+	{
+		DocumentExtension parent = new DocumentExtension( 0 );
+		assertEquals( -1, parent.getPreviousChild( 0 ) );
+
+		// the children 0, 1 are saved, 2 isn't saved.
+		parent.add( createChild( 0, 100 ) );
+		parent.add( createChild( 1, 200 ) );
+		assertEquals( 200, parent.getPreviousChild( 2 ) );
+
+		// the children 3, 4 and 6 are saved, 5 isn't saved.
+		parent.add( createChild( 3, 300 ) );
+		parent.add( createChild( 4, 400 ) );
+		parent.add( createChild( 6, 600 ) );
+		assertEquals( 200, parent.getPreviousChild( 2 ) );
+		assertEquals( 400, parent.getPreviousChild( 5 ) );
+		assertEquals( 600, parent.getPreviousChild( 7 ) );
+
+		DocumentExtension first = new DocumentExtension( 0 );
+		first.add( createChild( 2, 100 ) );
+		assertEquals( -1, first.getPreviousChild( 1 ) );
+		assertEquals( 100, first.getPreviousChild( 3 ) );
+	}
+
+	private DocumentExtension createChild( long contentId, long index )
+	{
+		DocumentExtension child = new DocumentExtension( index );
+		child.setContentId( contentId );
+		return child;
+	}
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.internal.document.v3;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.birt.core.archive.RAInputStream;
+import org.eclipse.birt.core.archive.compound.ArchiveFile;
+import org.eclipse.birt.core.archive.compound.ArchiveReader;
+import org.eclipse.birt.core.archive.compound.ArchiveWriter;
+import org.eclipse.birt.report.engine.EngineCase;
+import org.eclipse.birt.report.engine.api.InstanceID;
+import org.eclipse.birt.report.engine.content.IContent;
+import org.eclipse.birt.report.engine.content.ILabelContent;
+import org.eclipse.birt.report.engine.content.impl.ReportContent;
+import org.eclipse.birt.report.engine.executor.ExecutionContext;
+import org.eclipse.birt.report.engine.internal.document.DocumentExtension;
+
+/**
+ * Reads the contents of a content stream through the cached reader, with the
+ * cache full and with the records larger than the reused buffer.
+ */
+public class CachedReportContentReaderV3Test extends EngineCase
+{
+
+	static final String ARCHIVE_FILE = "./utest/content.rptdocument";
+	static final String CONTENT_STREAM = "/content/content.dat";
+
+	protected ArchiveFile archive;
+	protected ReportContent report = new ReportContent( );
+	protected ReportContentWriterV3 writer;
+	protected long uniqueId;
+
+	protected void setUp( ) throws Exception
+	{
+		super.setUp( );
+		new File( ARCHIVE_FILE ).getParentFile( ).mkdirs( );
+		new File( ARCHIVE_FILE ).delete( );
+		archive = new ArchiveFile( ARCHIVE_FILE, "rw" );
+		writer = new ReportContentWriterV3( new ArchiveWriter( archive ),
+				CONTENT_STREAM );
+		writer.writeReport( report );
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		archive.close( );
+		new File( ARCHIVE_FILE ).delete( );
+		super.tearDown( );
+	}
+
+	public void testEvictionKeepsAncestors( ) throws Exception
+	{
+		IContent table = writeContent( null, "table" );
+		IContent row = writeContent( table, "row" );
+		int count = CachedReportContentReaderV3.MAX_CACHE_SIZE + 10;
+		long[] offsets = new long[count];
+		for ( int i = 0; i < count; i++ )
+		{
+			offsets[i] = getOffset( writeContent( row, "label" + i ) );
+		}
+		writer.close( );
+
+		TestReader reader = openReader( );
+		try
+		{
+			IContent parent = null;
+			for ( int i = 0; i < count; i++ )
+			{
+				IContent label = reader.loadContent( offsets[i] );
+				assertEquals( "label" + i, getName( label ) );
+				// the ancestors are used by every load, they are never evicted
+				if ( parent == null )
+				{
+					parent = (IContent) label.getParent( );
+				}
+				assertSame( parent, label.getParent( ) );
+			}
+			assertEquals( CachedReportContentReaderV3.MAX_CACHE_SIZE,
+					reader.getCacheSize( ) );
+			assertEquals( count + 2, reader.readCount );
+
+			// the least recently used labels are evicted, the ancestors aren't
+			assertNull( reader.findCache( offsets[0] ) );
+			assertNull( reader.findCache( offsets[11] ) );
+			assertNotNull( reader.findCache( offsets[12] ) );
+			assertSame( parent, reader.findCache( getOffset( row ) ) );
+			assertSame( parent.getParent( ), reader.findCache( getOffset( table ) ) );
+			assertNotNull( reader.findCache( offsets[count - 1] ) );
+		}
+		finally
+		{
+			reader.close( );
+		}
+	}
+
+	public void testReloadEvictedParent( ) throws Exception
+	{
+		IContent table = writeContent( null, "table" );
+		IContent first = writeContent( table, "first" );
+		IContent firstLabel = writeContent( first, "firstLabel" );
+		IContent second = writeContent( table, "second" );
+		// the labels of the second row fill the cache with the table and the
+		// second row
+		int count = CachedReportContentReaderV3.MAX_CACHE_SIZE - 2;
+		long[] offsets = new long[count];
+		for ( int i = 0; i < count; i++ )
+		{
+			offsets[i] = getOffset( writeContent( second, "label" + i ) );
+		}
+		long firstOffset = getOffset( first );
+		long labelOffset = getOffset( firstLabel );
+		writer.close( );
+
+		TestReader reader = openReader( );
+		try
+		{
+			IContent label = reader.loadContent( labelOffset );
+			IContent parent = (IContent) label.getParent( );
+			assertEquals( "first", getName( parent ) );
+			for ( int i = 0; i < count; i++ )
+			{
+				reader.loadContent( offsets[i] );
+			}
+			// the first row and its label are evicted
+			assertNull( reader.findCache( firstOffset ) );
+			assertNull( reader.findCache( labelOffset ) );
+
+			// the label is read again with its parent
+			int readCount = reader.readCount;
+			IContent reloaded = reader.loadContent( labelOffset );
+			assertEquals( readCount + 2, reader.readCount );
+			assertNotSame( label, reloaded );
+			assertEquals( "firstLabel", getName( reloaded ) );
+			IContent reloadedParent = (IContent) reloaded.getParent( );
+			assertNotSame( parent, reloadedParent );
+			assertEquals( "first", getName( reloadedParent ) );
+			assertEquals( parent.getInstanceID( ).toUniqueString( ),
+					reloadedParent.getInstanceID( ).toUniqueString( ) );
+			// the table is still cached, it is shared by both rows
+			assertSame( parent.getParent( ), reloadedParent.getParent( ) );
+			assertSame( reloadedParent, reader.findCache( firstOffset ) );
+		}
+		finally
+		{
+			reader.close( );
+		}
+	}
+
+	public void testLargeRecord( ) throws Exception
+	{
+		StringBuffer text = new StringBuffer( );
+		while ( text.length( ) < ReportContentReaderV3.MAX_BUFFER_SIZE * 2 )
+		{
+			text.append( "large record " );
+		}
+		IContent table = writeContent( null, "table" );
+		writeContent( table, "small0" );
+		writeContent( table, text.toString( ) );
+		for ( int i = 1; i < 10; i++ )
+		{
+			writeContent( table, "small" + i );
+		}
+		writer.close( );
+
+		TestReader reader = openReader( );
+		try
+		{
+			assertEquals( "table", getName( reader.loadContent( getOffset( table ) ) ) );
+			assertEquals( "small0", getName( reader.loadContent( getOffset( table, 0 ) ) ) );
+			assertEquals( text.toString( ), getName( reader.loadContent( getOffset( table, 1 ) ) ) );
+			// the small records after the large one are read into the reused
+			// buffer
+			for ( int i = 1; i < 10; i++ )
+			{
+				IContent label = reader.loadContent( getOffset( table, i + 1 ) );
+				assertEquals( "small" + i, getName( label ) );
+			}
+		}
+		finally
+		{
+			reader.close( );
+		}
+	}
+
+	protected IContent writeContent( IContent parent, String text )
+			throws IOException
+	{
+		ILabelContent content = report.createLabelContent( );
+		content.setLabelText( text );
+		content.setInstanceID( new InstanceID( null, uniqueId++, 1, null ) );
+		if ( parent != null )
+		{
+			content.setParent( parent );
+			parent.getChildren( ).add( content );
+		}
+		writer.writeContent( content );
+		return content;
+	}
+
+	protected long getOffset( IContent content )
+	{
+		return ( (DocumentExtension) content.getExtension( IContent.DOCUMENT_EXTENSION ) )
+				.getIndex( );
+	}
+
+	protected long getOffset( IContent parent, int index )
+	{
+		return getOffset( (IContent) parent.getChildren( ).toArray( )[index] );
+	}
+
+	protected String getName( IContent content )
+	{
+		return ( (ILabelContent) content ).getLabelText( );
+	}
+
+	protected TestReader openReader( ) throws IOException
+	{
+		ExecutionContext context = new ExecutionContext( );
+		context.setApplicationClassLoader( getClass( ).getClassLoader( ) );
+		RAInputStream stream = new ArchiveReader( archive )
+				.getStream( CONTENT_STREAM );
+		return new TestReader( new ReportContent( ), stream, context );
+	}
+
+	/**
+	 * exposes the cache and counts the contents read from the stream.
+	 */
+	static class TestReader extends CachedReportContentReaderV3
+	{
+
+		int readCount;
+
+		TestReader( ReportContent reportContent, RAInputStream stream,
+				ExecutionContext context ) throws IOException
+		{
+			super( reportContent, stream, context );
+			reader = new ReportContentReaderV3( reportContent,
+					stream,
+					context.getApplicationClassLoader( ) ) {
+
+				public IContent readContent( long offset ) throws IOException
+				{
+					readCount++;
+					return super.readContent( offset );
+				}
+			};
+		}
+
+		int getCacheSize( )
+		{
+			return cacheSize;
+		}
+
+		protected IContent findCache( long offset )
+		{
+			return super.findCache( offset );
+		}
+	}
+}
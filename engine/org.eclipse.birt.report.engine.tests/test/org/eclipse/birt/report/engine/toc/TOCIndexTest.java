@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.toc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.birt.core.archive.RAOutputStream;
+import org.eclipse.birt.core.archive.compound.ArchiveFile;
+import org.eclipse.birt.core.archive.compound.ArchiveReader;
+import org.eclipse.birt.core.archive.compound.ArchiveWriter;
+import org.eclipse.birt.report.engine.api.TOCNode;
+import org.eclipse.birt.report.engine.toc.document.DocTreeNode;
+
+import com.ibm.icu.util.TimeZone;
+import com.ibm.icu.util.ULocale;
+
+public class TOCIndexTest extends TOCTestCase
+{
+
+	static final String TOC_FILE = "./utest/index.toc";
+
+	public void testIndexedSearch( ) throws IOException
+	{
+		checkSearch( null, true );
+	}
+
+	public void testMissingIndex( ) throws IOException
+	{
+		checkSearch( new CorruptIndex( ) {
+
+			public void corrupt( ArchiveFile archive ) throws IOException
+			{
+				archive.removeEntry( ITOCConstants.TOC_VALUE_INDEX_STREAM );
+			}
+		}, false );
+	}
+
+	public void testCorruptIndex( ) throws IOException
+	{
+		checkSearch( new CorruptIndex( ) {
+
+			public void corrupt( ArchiveFile archive ) throws IOException
+			{
+				RAOutputStream out = new ArchiveWriter( archive )
+						.createOutputStream( ITOCConstants.TOC_ID_INDEX_STREAM );
+				out.write( new byte[]{1, 2, 3} );
+				out.close( );
+			}
+		}, false );
+	}
+
+	/**
+	 * the boolean value is displayed as "true", it is found by its display
+	 * string though the index doesn't contain it.
+	 */
+	public void testDisplayStringSearch( ) throws IOException
+	{
+		new File( TOC_FILE ).delete( );
+		ArchiveFile archive = new ArchiveFile( TOC_FILE, "rw" );
+		try
+		{
+			ITOCWriter writer = new TOCWriter( new ArchiveWriter( archive ) );
+			try
+			{
+				TOCBuilder builder = new TOCBuilder( writer );
+				TOCEntry table = startEntry( builder, null, "table" );
+				{
+					createEntry( builder, table, "true" );
+					closeEntry( builder, builder.startEntry( table,
+							Boolean.TRUE, null, -1 ) );
+					createEntry( builder, table, "false" );
+				}
+				closeEntry( builder, table );
+			}
+			finally
+			{
+				writer.close( );
+			}
+
+			TOCReader reader = new TOCReader( new ArchiveReader( archive ),
+					ClassLoader.getSystemClassLoader( ) );
+			try
+			{
+				ITreeNode tree = reader.readTree( );
+				assertNotNull( ( (DocTreeNode) tree ).getIndex( ) );
+				TOCView view = new TOCView( tree, null, ULocale.ENGLISH,
+						TimeZone.getTimeZone( "GMT+08:00" ), "html" );
+
+				// one node is matched by its value, the other by its display
+				// string
+				List<ViewNode> nodes = view.findTOCByValue( "true" );
+				assertEquals( 2, nodes.size( ) );
+				assertEquals( "__TOC_0_0", nodes.get( 0 ).getNodeID( ) );
+				assertEquals( "true", nodes.get( 0 ).getTOCValue( ) );
+				assertEquals( "__TOC_0_1", nodes.get( 1 ).getNodeID( ) );
+				assertEquals( Boolean.TRUE, nodes.get( 1 ).getTOCValue( ) );
+				assertEquals( "true", nodes.get( 1 ).getDisplayString( ) );
+
+				// a value which isn't a string is only matched by the value
+				nodes = view.findTOCByValue( Boolean.TRUE );
+				assertEquals( 1, nodes.size( ) );
+				assertEquals( "__TOC_0_1", nodes.get( 0 ).getNodeID( ) );
+			}
+			finally
+			{
+				reader.close( );
+			}
+		}
+		finally
+		{
+			archive.close( );
+		}
+	}
+
+	interface CorruptIndex
+	{
+
+		void corrupt( ArchiveFile archive ) throws IOException;
+	}
+
+	/**
+	 * the TOC is searched with or without the index, the results are the
+	 * same.
+	 */
+	void checkSearch( CorruptIndex corruptIndex, boolean indexed )
+			throws IOException
+	{
+		new File( TOC_FILE ).delete( );
+		ArchiveFile archive = new ArchiveFile( TOC_FILE, "rw" );
+		try
+		{
+			ITOCWriter writer = new TOCWriter( new ArchiveWriter( archive ) );
+			try
+			{
+				createTOC( new TOCBuilder( writer ) );
+			}
+			finally
+			{
+				writer.close( );
+			}
+			if ( corruptIndex != null )
+			{
+				corruptIndex.corrupt( archive );
+			}
+
+			TOCReader reader = new TOCReader( new ArchiveReader( archive ),
+					ClassLoader.getSystemClassLoader( ) );
+			try
+			{
+				ITreeNode tree = reader.readTree( );
+				assertEquals( indexed, ( (DocTreeNode) tree ).getIndex( ) != null );
+				TOCView view = new TOCView( tree, null, ULocale.ENGLISH,
+						TimeZone.getTimeZone( "GMT+08:00" ), "html" );
+
+				checkTocNode( view, "__TOC_0", "report header", 0 );
+				checkTocNode( view, "__TOC_1", "table", 2 );
+				checkTocNode( view, "__TOC_1_0", "group 1", 2 );
+				checkTocNode( view, "__TOC_1_0_1", "detail 2", 0 );
+				checkTocNode( view, "__TOC_1_1_0", "detail 1", 0 );
+				checkTocNode( view, "__TOC_2_0", "chart 1", 0 );
+				// the node hidden in html
+				assertNull( view.findTOC( "__TOC_3" ) );
+				assertNull( view.findTOC( "__TOC_1_1_2" ) );
+				assertNull( view.findTOC( "__TOC_1_2" ) );
+
+				List<ViewNode> nodes = view.findTOCByValue( "detail 1" );
+				assertEquals( 2, nodes.size( ) );
+				assertEquals( "__TOC_1_0_0", nodes.get( 0 ).getNodeID( ) );
+				assertEquals( "__TOC_1_1_0", nodes.get( 1 ).getNodeID( ) );
+				assertEquals( "group 2", nodes.get( 1 ).getParent( )
+						.getDisplayString( ) );
+
+				nodes = view.findTOCByValue( "chart 2" );
+				assertEquals( 1, nodes.size( ) );
+				assertEquals( "__TOC_2_1", nodes.get( 0 ).getNodeID( ) );
+
+				assertNull( view.findTOCByValue( "hidden" ) );
+				assertNull( view.findTOCByValue( "detail 5" ) );
+			}
+			finally
+			{
+				reader.close( );
+			}
+		}
+		finally
+		{
+			archive.close( );
+		}
+	}
+
+	void checkTocNode( TOCView view, String id, String label, int children )
+	{
+		TOCNode node = view.findTOC( id );
+		assertEquals( id, node.getNodeID( ) );
+		assertEquals( label, node.getDisplayString( ) );
+		assertEquals( children, node.getChildren( ).size( ) );
+	}
+
+	protected void createTOC( TOCBuilder builder )
+	{
+		createEntry( builder, null, "report header" );
+
+		TOCEntry table = startEntry( builder, null, "table" );
+		{
+			TOCEntry group1 = startEntry( builder, table, "group 1" );
+			{
+				createEntry( builder, group1, "detail 1" );
+				createEntry( builder, group1, "detail 2" );
+			}
+			closeEntry( builder, group1 );
+
+			TOCEntry group2 = startEntry( builder, table, "group 2" );
+			{
+				createEntry( builder, group2, "detail 1" );
+				createEntry( builder, group2, "detail 3" );
+			}
+			closeEntry( builder, group2 );
+		}
+		closeEntry( builder, table );
+
+		TOCEntry dummyGrid = startDummyEntry( builder, null, "pdf" );
+		{
+			createEntry( builder, dummyGrid, "chart 1" );
+			createEntry( builder, dummyGrid, "chart 2" );
+		}
+		closeEntry( builder, dummyGrid );
+
+		createEntry( builder, null, "hidden", "html" );
+	}
+}
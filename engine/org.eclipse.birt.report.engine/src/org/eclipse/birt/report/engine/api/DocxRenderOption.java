@@ -20,6 +20,13 @@ public class DocxRenderOption extends RenderOption
 	
 	public static final String OPTION_EMBED_HTML = "EmbedHtml";
 
+	/**
+	 * If the parts of the output file are streamed into the output stream
+	 * while they are generated, instead of being written into a temporary file
+	 * first. The default is false.
+	 */
+	public static final String OPTION_STREAMING = "Streaming"; //$NON-NLS-1$
+
 	@SuppressWarnings("unchecked")
 	public void setCompressionMode( CompressionMode compressionMode )
 	{
@@ -35,4 +42,14 @@ public class DocxRenderOption extends RenderOption
 		}
 		return CompressionMode.BEST_COMPRESSION;
 	}
+
+	public void setStreaming( boolean streaming )
+	{
+		setOption( OPTION_STREAMING, Boolean.valueOf( streaming ) );
+	}
+
+	public boolean isStreaming( )
+	{
+		return getBooleanOption( OPTION_STREAMING, false );
+	}
 }
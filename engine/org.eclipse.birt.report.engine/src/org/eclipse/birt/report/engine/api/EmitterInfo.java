@@ -33,6 +33,7 @@ public class EmitterInfo
 	private boolean needOutputResultSet;
 	private int overridePriority;
 	private boolean isFormatDeprecated;
+	private boolean retainContent = true;
 
 	/**
 	 * whether emitter need to output the display:none or process it in layout
@@ -221,4 +222,24 @@ public class EmitterInfo
 	{
 		this.isFormatDeprecated = isFormatDeprecated;
 	}
+
+	/**
+	 * If the emitter retains the contents after they are ended.
+	 * 
+	 * @return
+	 */
+	public boolean retainContent( )
+	{
+		return retainContent;
+	}
+
+	/**
+	 * Set retainContent.
+	 * 
+	 * @param retainContent
+	 */
+	public void setRetainContent( boolean retainContent )
+	{
+		this.retainContent = retainContent;
+	}
 }
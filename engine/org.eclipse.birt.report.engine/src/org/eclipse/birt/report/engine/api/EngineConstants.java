@@ -76,6 +76,14 @@ public class EngineConstants {
 	 */
 	public final static String APPCONTEXT_MAX_PAGE_BREAK_INTERVAL = "MAX_PAGE_BREAK_INTERVAL"; //$NON-NLS-1$
 	
+	/**
+	 * the deflate level, from 1 to 9, of the streams of the report document
+	 * written by the run task. The streams are compressed block by block, so
+	 * they are still read by random access. The streams are not compressed if
+	 * it is not set, which is the default.
+	 */
+	public final static String APPCONTEXT_DOCUMENT_COMPRESSION_LEVEL = "DOCUMENT_COMPRESSION_LEVEL"; //$NON-NLS-1$
+
 	/**
 	 * The Engine task owning the application context
 	 */
@@ -73,6 +73,34 @@ public interface IRenderOption extends ITaskOption
 	
 	public static final String REPORTLET_SIZE = "reportletSize";
 
+	/**
+	 * The count of the threads which render the pages of a completed report
+	 * document in parallel. The value is an Integer object, default is 1.
+	 * Each thread renders a range of pages into its own output file, which is
+	 * named by the emitter after the output file name and the page range, for
+	 * example report_1-50.html. The emitters which can stitch the ranges, such
+	 * as PDF, merge them into the output file once they are rendered. It is
+	 * used only if the output file name is set and the emitter implements
+	 * <code>IPageRangeOutput</code>.
+	 */
+	public static final String RENDER_THREADS = "renderThreads"; //$NON-NLS-1$
+
+	/**
+	 * The count of the pages in each output file of the parallel render. The
+	 * value is an Integer object, by default the pages are split evenly
+	 * between the threads.
+	 */
+	public static final String RENDER_PAGES_PER_OUTPUT = "renderPagesPerOutput"; //$NON-NLS-1$
+
+	/**
+	 * Should the run and render task reuse the contents of the table detail
+	 * rows once they are emitted. The value is a Boolean object, default is
+	 * <code>Boolean.FALSE</code>. The contents are reused only if the output
+	 * isn't paginated and the emitter declares that it doesn't keep them with
+	 * the retainContent attribute of the emitters extension point.
+	 */
+	public static final String RECYCLE_CONTENT = "recycleContent"; //$NON-NLS-1$
+
 	/**
 	 * @return
 	 * @deprecated use getOptions instead
@@ -0,0 +1,326 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.IEngineTask;
+import org.eclipse.birt.report.engine.api.IRenderOption;
+import org.eclipse.birt.report.engine.api.IRenderTask;
+import org.eclipse.birt.report.engine.api.RenderOption;
+import org.eclipse.birt.report.engine.emitter.IPageRangeOutput;
+import org.eclipse.birt.report.engine.i18n.MessageConstants;
+
+/**
+ * Renders the pages of a completed report document with several threads.
+ * <p>
+ * The pages are split into ranges of sequential pages, each range is rendered
+ * by a render task of its own into its own output file. The tasks open their
+ * own report document on the archive of the rendered document, with its
+ * options, so they don't share any reader or execution state.
+ * <p>
+ * The emitter names the files of the ranges and, once all the ranges are
+ * rendered, merges them into the output file if its format supports it.
+ */
+class ParallelPageRender
+{
+
+	protected ReportEngine engine;
+	protected RenderTask task;
+	protected IPageRangeOutput output;
+	protected int threadCount;
+
+	/**
+	 * the page ranges rendered into each output, in page order.
+	 */
+	protected List<List<long[]>> outputs = new ArrayList<List<long[]>>( );
+
+	/**
+	 * the running render tasks, used to cancel the render.
+	 */
+	protected List<IRenderTask> workers = new ArrayList<IRenderTask>( );
+	protected boolean cancelled;
+
+	/**
+	 * set if a range isn't rendered completely, the ranges are not merged then.
+	 */
+	protected volatile boolean incomplete;
+
+	ParallelPageRender( ReportEngine engine, RenderTask task,
+			IPageRangeOutput output, List<long[]> pageSequences,
+			int threadCount, int pagesPerOutput )
+	{
+		this.engine = engine;
+		this.task = task;
+		this.output = output;
+		this.threadCount = threadCount;
+
+		long pageCount = 0;
+		for ( long[] pages : pageSequences )
+		{
+			pageCount += pages[1] - pages[0] + 1;
+		}
+		if ( pagesPerOutput <= 0 )
+		{
+			pagesPerOutput = (int) ( ( pageCount + threadCount - 1 ) / threadCount );
+		}
+		splitPages( pageSequences, pagesPerOutput );
+	}
+
+	private void splitPages( List<long[]> pageSequences, long pagesPerOutput )
+	{
+		List<long[]> output = new ArrayList<long[]>( );
+		long outputPages = 0;
+		for ( long[] pages : pageSequences )
+		{
+			long start = pages[0];
+			while ( start <= pages[1] )
+			{
+				long end = Math.min( pages[1], start + pagesPerOutput
+						- outputPages - 1 );
+				output.add( new long[]{start, end} );
+				outputPages += end - start + 1;
+				if ( outputPages == pagesPerOutput )
+				{
+					outputs.add( output );
+					output = new ArrayList<long[]>( );
+					outputPages = 0;
+				}
+				start = end + 1;
+			}
+		}
+		if ( !output.isEmpty( ) )
+		{
+			outputs.add( output );
+		}
+	}
+
+	int getOutputCount( )
+	{
+		return outputs.size( );
+	}
+
+	/**
+	 * render all the outputs.
+	 *
+	 * @return the count of the rendered pages.
+	 */
+	long render( ) throws EngineException
+	{
+		if ( outputs.isEmpty( ) )
+		{
+			return 0;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool( Math.min(
+				threadCount, outputs.size( ) ), new ThreadFactory( ) {
+
+			public Thread newThread( Runnable runnable )
+			{
+				Thread thread = new Thread( runnable, "BIRT page render" ); //$NON-NLS-1$
+				thread.setDaemon( true );
+				return thread;
+			}
+		} );
+		try
+		{
+			String fileName = task.getRenderOption( ).getOutputFileName( );
+			List<String> fileNames = new ArrayList<String>( );
+			List<Future<Long>> results = new ArrayList<Future<Long>>( );
+			for ( final List<long[]> pages : outputs )
+			{
+				long firstPage = pages.get( 0 )[0];
+				long lastPage = pages.get( pages.size( ) - 1 )[1];
+				// a single range is rendered into the output file itself
+				final String outputFileName = outputs.size( ) == 1
+						? fileName
+						: output.getPageRangeFileName( fileName, firstPage,
+								lastPage );
+				fileNames.add( outputFileName );
+				results.add( executor.submit( new Callable<Long>( ) {
+
+					public Long call( ) throws Exception
+					{
+						return Long.valueOf( renderPages( pages,
+								outputFileName ) );
+					}
+				} ) );
+			}
+
+			long pageCount = 0;
+			EngineException error = null;
+			for ( Future<Long> result : results )
+			{
+				try
+				{
+					pageCount += result.get( ).longValue( );
+				}
+				catch ( ExecutionException ex )
+				{
+					if ( error == null )
+					{
+						Throwable cause = ex.getCause( );
+						if ( cause instanceof EngineException )
+						{
+							error = (EngineException) cause;
+						}
+						else
+						{
+							error = new EngineException(
+									MessageConstants.REPORT_RUN_ERROR, cause );
+						}
+					}
+				}
+				catch ( InterruptedException ex )
+				{
+					Thread.currentThread( ).interrupt( );
+					cancel( );
+					break;
+				}
+			}
+			if ( error != null )
+			{
+				throw error;
+			}
+			if ( fileNames.size( ) > 1 && !incomplete && !cancelled )
+			{
+				try
+				{
+					output.mergePageRangeFiles( fileNames, fileName );
+				}
+				catch ( IOException ex )
+				{
+					throw new EngineException(
+							MessageConstants.REPORT_RUN_ERROR, ex );
+				}
+			}
+			return pageCount;
+		}
+		finally
+		{
+			executor.shutdownNow( );
+		}
+	}
+
+	protected long renderPages( List<long[]> pages, String outputFileName )
+			throws BirtException
+	{
+		ReportDocumentReader source = (ReportDocumentReader) task.reportDocument;
+		// the archive is shared with the rendered document, it is closed with
+		// that document.
+		ReportDocumentReader document = new ReportDocumentReader( source
+				.getSystemId( ), engine, source.getArchive( ), true, source
+				.getModuleOptions( ) );
+		try
+		{
+			IRenderTask worker = engine.createRenderTask( document );
+			try
+			{
+				if ( !addWorker( worker ) )
+				{
+					incomplete = true;
+					return 0;
+				}
+				HashMap options = new HashMap( task.getRenderOption( )
+						.getOptions( ) );
+				options.remove( IRenderOption.RENDER_THREADS );
+				options.remove( IRenderOption.RENDER_PAGES_PER_OUTPUT );
+				RenderOption renderOption = new RenderOption( options );
+				renderOption.setOutputFileName( outputFileName );
+				worker.setRenderOption( renderOption );
+				if ( task.getEmitterID( ) != null )
+				{
+					worker.setEmitterID( task.getEmitterID( ) );
+				}
+				worker.setLocale( task.getULocale( ) );
+				worker.setTimeZone( task.getTimeZone( ) );
+				worker.setAppContext( task.getAppContext( ) );
+				worker.setPageRange( getPageRange( pages ) );
+				worker.render( );
+
+				List errors = worker.getErrors( );
+				for ( int i = 0; i < errors.size( ); i++ )
+				{
+					task.addRenderError( errors.get( i ) );
+				}
+				if ( worker.getStatus( ) != IEngineTask.STATUS_SUCCEEDED )
+				{
+					incomplete = true;
+					return 0;
+				}
+				return worker.getPageCount( );
+			}
+			finally
+			{
+				removeWorker( worker );
+				worker.close( );
+			}
+		}
+		finally
+		{
+			document.close( );
+		}
+	}
+
+	private synchronized boolean addWorker( IRenderTask worker )
+	{
+		if ( cancelled )
+		{
+			return false;
+		}
+		workers.add( worker );
+		return true;
+	}
+
+	private synchronized void removeWorker( IRenderTask worker )
+	{
+		workers.remove( worker );
+	}
+
+	synchronized void cancel( )
+	{
+		cancelled = true;
+		for ( IRenderTask worker : workers )
+		{
+			worker.cancel( );
+		}
+	}
+
+	static String getPageRange( List<long[]> pages )
+	{
+		StringBuffer buffer = new StringBuffer( );
+		for ( long[] range : pages )
+		{
+			if ( buffer.length( ) > 0 )
+			{
+				buffer.append( ',' );
+			}
+			buffer.append( range[0] );
+			if ( range[1] != range[0] )
+			{
+				buffer.append( '-' );
+				buffer.append( range[1] );
+			}
+		}
+		return buffer.toString( );
+	}
+}
@@ -34,6 +34,7 @@ import org.eclipse.birt.report.engine.api.ITOCTree;
 import org.eclipse.birt.report.engine.api.InstanceID;
 import org.eclipse.birt.report.engine.content.IReportContent;
 import org.eclipse.birt.report.engine.emitter.IContentEmitter;
+import org.eclipse.birt.report.engine.emitter.IPageRangeOutput;
 import org.eclipse.birt.report.engine.executor.EngineExtensionManager;
 import org.eclipse.birt.report.engine.executor.IReportExecutor;
 import org.eclipse.birt.report.engine.executor.PageVariable;
@@ -87,6 +88,9 @@ public class RenderTask extends EngineTask implements IRenderTask
 	// the html layout engine
 	private IReportLayoutEngine layoutEngine = null;
 
+	// the render of the pages in several threads
+	private ParallelPageRender parallelRender = null;
+
 	/**
 	 * @param engine
 	 *            the report engine
@@ -318,7 +322,18 @@ public class RenderTask extends EngineTask implements IRenderTask
 				} );
 			}
 
-			innerRender.render( );
+			if ( innerRender instanceof PageRangeRender )
+			{
+				parallelRender = createParallelRender( (PageRangeRender) innerRender );
+			}
+			if ( parallelRender != null )
+			{
+				outputPageCount = parallelRender.render( );
+			}
+			else
+			{
+				innerRender.render( );
+			}
 		}
 		catch ( Throwable t )
 		{
@@ -326,6 +341,7 @@ public class RenderTask extends EngineTask implements IRenderTask
 		}
 		finally
 		{
+			parallelRender = null;
 			changeStatusToStopped( );
 			switchClassLoaderBack( );
 			if ( progressMonitor != null )
@@ -421,6 +437,60 @@ public class RenderTask extends EngineTask implements IRenderTask
 		{
 			layoutEngine.cancel( );
 		}
+		ParallelPageRender render = parallelRender;
+		if ( render != null )
+		{
+			render.cancel( );
+		}
+	}
+
+	/**
+	 * the pages of a completed document are rendered in several threads only
+	 * if the render threads are set, the output is a file and the emitter
+	 * supports the page range outputs. The threads open the document on its
+	 * archive, so it must be a document reader.
+	 */
+	private ParallelPageRender createParallelRender( PageRangeRender render )
+	{
+		Object threads = renderOptions.getOption( IRenderOption.RENDER_THREADS );
+		if ( !( threads instanceof Number )
+				|| ( (Number) threads ).intValue( ) <= 1
+				|| renderOptions.getOutputFileName( ) == null
+				|| renderOptions.getOutputStream( ) != null
+				|| !( reportDocument instanceof ReportDocumentReader )
+				|| !reportDocument.isComplete( ) )
+		{
+			return null;
+		}
+		IContentEmitter emitter = ExtensionManager.getInstance( )
+				.createEmitter( emitterID );
+		if ( !( emitter instanceof IPageRangeOutput ) )
+		{
+			return null;
+		}
+		Object pagesPerOutput = renderOptions
+				.getOption( IRenderOption.RENDER_PAGES_PER_OUTPUT );
+		return new ParallelPageRender( engine, this,
+				(IPageRangeOutput) emitter, render.pageSequences,
+				( (Number) threads ).intValue( ),
+				pagesPerOutput instanceof Number ? ( (Number) pagesPerOutput )
+						.intValue( ) : 0 );
+	}
+
+	/**
+	 * collect the errors of the tasks rendering the pages in parallel.
+	 */
+	synchronized void addRenderError( Object error )
+	{
+		if ( error instanceof BirtException )
+		{
+			executionContext.addException( (BirtException) error );
+		}
+		else if ( error instanceof Throwable )
+		{
+			executionContext.addException( new EngineException(
+					MessageConstants.REPORT_RUN_ERROR, (Throwable) error ) );
+		}
 	}
 
 	private interface InnerRender
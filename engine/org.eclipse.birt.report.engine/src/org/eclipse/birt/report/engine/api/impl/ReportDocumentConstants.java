@@ -48,6 +48,16 @@ public interface ReportDocumentConstants
 	 * layout).
 	 */
 	static final String TOC_STREAM = "/toc"; //$NON-NLS-1$
+	/**
+	 * btree index of the toc nodes, saves the node id and offset of each toc
+	 * node in the toc stream. Only one copy in one report document.
+	 */
+	static final String TOC_ID_INDEX_STREAM = "/tocIds"; //$NON-NLS-1$
+	/**
+	 * btree index of the toc values, saves the toc value and node id of each
+	 * toc node. Only one copy in one report document.
+	 */
+	static final String TOC_VALUE_INDEX_STREAM = "/tocValues"; //$NON-NLS-1$
 	/**
 	 * content saved in the folder
 	 * 
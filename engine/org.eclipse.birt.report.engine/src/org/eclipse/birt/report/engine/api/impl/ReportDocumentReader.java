@@ -181,6 +181,15 @@ public class ReportDocumentReader
 		return this.archive;
 	}
 
+	/**
+	 * @return the options used to open the report design of the document,
+	 *         such as the resource locator.
+	 */
+	Map getModuleOptions( )
+	{
+		return moduleOptions;
+	}
+
 	public String getVersion( )
 	{
 		return (String) properties.get( BIRT_ENGINE_VERSION_KEY );
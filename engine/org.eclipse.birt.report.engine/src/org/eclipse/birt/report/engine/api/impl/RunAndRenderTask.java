@@ -136,6 +136,18 @@ public class RunAndRenderTask extends EngineTask implements IRunAndRenderTask
 			{
 				paginate = false;
 			}
+			// no document is written, the contents can be recycled if
+			// neither the layout engine nor the emitter keeps them.
+			RenderOption recycleOption = new RenderOption(
+					executionContext.getRenderOption( ) );
+			executionContext.setRecycleContent( !paginate
+					&& !ExtensionManager.PAPER_SIZE_PAGINATION
+							.equals( pagination )
+					&& !executionContext.isFixedLayout( )
+					&& !ExtensionManager.getInstance( ).retainContent(
+							emitterID )
+					&& recycleOption.getBooleanOption(
+							IRenderOption.RECYCLE_CONTENT, false ) );
 
 			synchronized ( this )
 			{
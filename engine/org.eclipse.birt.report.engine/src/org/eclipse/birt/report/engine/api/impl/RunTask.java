@@ -15,13 +15,16 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 
 import org.eclipse.birt.core.archive.FileArchiveWriter;
 import org.eclipse.birt.core.archive.FolderArchive;
 import org.eclipse.birt.core.archive.FolderArchiveWriter;
 import org.eclipse.birt.core.archive.IDocArchiveWriter;
+import org.eclipse.birt.core.archive.compound.ArchiveFile;
 import org.eclipse.birt.core.archive.compound.ArchiveWriter;
 import org.eclipse.birt.core.archive.compound.IArchiveFile;
+import org.eclipse.birt.report.engine.api.EngineConstants;
 import org.eclipse.birt.report.engine.api.EngineException;
 import org.eclipse.birt.report.engine.api.IEngineTask;
 import org.eclipse.birt.report.engine.api.IProgressMonitor;
@@ -126,6 +129,7 @@ public class RunTask extends AbstractRunTask implements IRunTask
 		if ( archive != null )
 		{
 			archiveWriter = new ArchiveWriter( archive );
+			setCompressionLevel( );
 			return;
 		}
 		File file = new File( documentName );
@@ -151,6 +155,53 @@ public class RunTask extends AbstractRunTask implements IRunTask
 				archiveWriter = new FileArchiveWriter( documentName );
 			}
 		}
+		setCompressionLevel( );
+	}
+
+	/**
+	 * compresses the streams of the document if it is set in the application
+	 * context. An invalid level is ignored with a warning.
+	 * 
+	 * @see EngineConstants#APPCONTEXT_DOCUMENT_COMPRESSION_LEVEL
+	 */
+	private void setCompressionLevel( )
+	{
+		Object level = executionContext.getAppContext( ).get(
+				EngineConstants.APPCONTEXT_DOCUMENT_COMPRESSION_LEVEL );
+		if ( level == null )
+		{
+			return;
+		}
+		// the folder archives don't have an archive file
+		IArchiveFile archiveFile = archiveWriter instanceof FolderArchiveWriter
+				? null
+				: archiveWriter.getArchiveFile( );
+		if ( !( archiveFile instanceof ArchiveFile ) )
+		{
+			log.log( Level.WARNING,
+					"The document {0} can't be compressed.", documentName ); //$NON-NLS-1$
+			return;
+		}
+		try
+		{
+			int value;
+			if ( level instanceof Number )
+			{
+				value = ( (Number) level ).intValue( );
+			}
+			else
+			{
+				value = Integer.parseInt( level.toString( ).trim( ) );
+			}
+			( (ArchiveFile) archiveFile ).setCompressionLevel( value );
+		}
+		catch ( IllegalArgumentException ex )
+		{
+			// NumberFormatException is an IllegalArgumentException
+			log.log( Level.WARNING,
+					"Invalid document compression level {0} is ignored.", //$NON-NLS-1$
+					level );
+		}
 	}
 
 	private void openReportDocument( ) throws EngineException
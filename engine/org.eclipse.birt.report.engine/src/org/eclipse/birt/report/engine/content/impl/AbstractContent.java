@@ -104,6 +104,16 @@ abstract public class AbstractContent extends AbstractElement
 	
 	transient protected int version = -1;
 
+	/**
+	 * the content is recycled by the executor, see recycle()
+	 */
+	transient protected boolean recyclable = false;
+
+	/**
+	 * the computed style owned by a recyclable content
+	 */
+	transient protected ComputedStyle recycledStyle;
+
 	/**
 	 * Constructor of the AbstractContent
 	 * @param report report can't be null
@@ -127,6 +137,63 @@ abstract public class AbstractContent extends AbstractElement
 		this.cssEngine = ( (ReportContent) report ).getCSSEngine( );
 	}
 
+	public boolean isRecyclable( )
+	{
+		return recyclable;
+	}
+
+	/**
+	 * Mark the content as recyclable. The computed style of a recyclable
+	 * content is not shared with its siblings.
+	 * 
+	 * @param recyclable
+	 */
+	public void setRecyclable( boolean recyclable )
+	{
+		this.recyclable = recyclable;
+		this.computedStyle = null;
+	}
+
+	/**
+	 * Reset the content to the state of a newly created one, so the object
+	 * can be reused for another instance. Only the content nobody refers
+	 * to can be recycled.
+	 */
+	public void recycle( )
+	{
+		this.parent = report.getRoot( );
+		this.children = null;
+		this.name = null;
+		this.x = null;
+		this.y = null;
+		this.width = null;
+		this.height = null;
+		this.hyperlink = null;
+		this.bookmark = null;
+		this.altText = null;
+		this.altTextKey = null;
+		this.helpText = null;
+		this.styleClass = null;
+		this.inlineStyle = null;
+		this.style = null;
+		this.computedStyle = null;
+		if ( recycledStyle != null )
+		{
+			recycledStyle.reset( );
+		}
+		this.generateBy = null;
+		this.instanceId = null;
+		this.toc = null;
+		this.acl = null;
+		this.userProperties = null;
+		this.extProperties = null;
+		this.offset = -1;
+		this.isLastChild = false;
+		this.hasChildren = false;
+		this.version = -1;
+		this.extensions = null;
+	}
+
 	/**
 	 * Constructor of the AbstractContent
 	 * @param content content can't be null
@@ -331,29 +398,33 @@ abstract public class AbstractContent extends AbstractElement
 	{
 		if ( computedStyle == null )
 		{
-			if ( parent == null )
+			if ( recyclable )
+			{
+				// the parent may cache the style after this content is
+				// recycled, so the recyclable content never shares it.
+				if ( recycledStyle == null )
+				{
+					recycledStyle = new ComputedStyle( this );
+				}
+				computedStyle = recycledStyle;
+			}
+			else if ( parent == null )
 			{
 				computedStyle = new ComputedStyle( this );
 			}
 			else
 			{
-				if ( inlineStyle == null || inlineStyle.isEmpty( ) )
-				{
-					String styleClass = getStyleClass();
-					ComputedStyle pcs = (ComputedStyle) ( (IContent) parent )
-							.getComputedStyle( );
-					ComputedStyle cs = pcs.getCachedStyle( styleClass );
-					if ( cs == null )
-					{
-						cs = new ComputedStyle( this );
-						pcs.addCachedStyle( styleClass, cs );
-					}
-					computedStyle = cs;
-				}
-				else
+				// the children with the same style share the computed style
+				String styleClass = getStyleClass();
+				ComputedStyle pcs = (ComputedStyle) ( (IContent) parent )
+						.getComputedStyle( );
+				ComputedStyle cs = pcs.getCachedStyle( styleClass, inlineStyle );
+				if ( cs == null )
 				{
-					computedStyle = new ComputedStyle( this );
+					cs = new ComputedStyle( this );
+					pcs.addCachedStyle( styleClass, inlineStyle, cs );
 				}
+				computedStyle = cs;
 			}
 		}
 		return computedStyle;
@@ -129,6 +129,30 @@ public class CellContent extends AbstractContent implements ICellContent
 		super( report );
 	}
 	
+	public void recycle( )
+	{
+		super.recycle( );
+		this.rowSpan = -1;
+		this.colSpan = -1;
+		this.column = -1;
+		this.displayGroupIcon = null;
+		this.repeatContent = false;
+		this.cellDesign = null;
+		this.headers = null;
+		this.scope = null;
+		this.drop = null;
+		this.hasDiagonalLine = null;
+		this.diagonalNumber = -1;
+		this.diagonalStyle = null;
+		this.diagonalWidth = null;
+		this.diagonalColor = null;
+		this.antidiagonalNumber = -1;
+		this.antidiagonalStyle = null;
+		this.antidiagonalWidth = null;
+		this.antidiagonalColor = null;
+		this.columnInstance = null;
+	}
+
 	CellContent(ICellContent cell)
 	{
 		super(cell);
@@ -238,38 +262,37 @@ public class CellContent extends AbstractContent implements ICellContent
 	{
 		if ( computedStyle == null )
 		{
-			if ( inlineStyle == null || inlineStyle.isEmpty( ) )
+			if ( recyclable )
+			{
+				// the row and column styles differ once the cell is recycled
+				computedStyle = new CellComputedStyle( this );
+				return computedStyle;
+			}
+			String cacheKey = getStyleClass();
+			ITableContent table = ( (IRowContent) parent ).getTable( );
+			int column = getColumn( );
+			if ( column >= 0 && column < table.getColumnCount( ) )
 			{
-				String cacheKey = getStyleClass();
-				ITableContent table = ( (IRowContent) parent ).getTable( );
-				int column = getColumn( );
-				if ( column >= 0 && column < table.getColumnCount( ) )
+				IColumn tblColumn = table.getColumn( column );
+				if ( tblColumn != null )
 				{
-					IColumn tblColumn = table.getColumn( column );
-					if ( tblColumn != null )
+					String columnStyleClass = tblColumn.getStyleClass( );
+					if ( columnStyleClass != null )
 					{
-						String columnStyleClass = tblColumn.getStyleClass( );
-						if ( columnStyleClass != null )
-						{
-							cacheKey = cacheKey + columnStyleClass;
-						}
+						cacheKey = cacheKey + columnStyleClass;
 					}
 				}
-
-				ComputedStyle pcs = (ComputedStyle) ( (IContent) parent )
-						.getComputedStyle( );
-				ComputedStyle cs = pcs.getCachedStyle( cacheKey );
-				if ( cs == null )
-				{
-					cs = new CellComputedStyle( this );
-					pcs.addCachedStyle( cacheKey, cs );
-				}
-				computedStyle = cs;
 			}
-			else
+
+			ComputedStyle pcs = (ComputedStyle) ( (IContent) parent )
+					.getComputedStyle( );
+			ComputedStyle cs = pcs.getCachedStyle( cacheKey, inlineStyle );
+			if ( cs == null )
 			{
-				computedStyle = new CellComputedStyle( this );
+				cs = new CellComputedStyle( this );
+				pcs.addCachedStyle( cacheKey, inlineStyle, cs );
 			}
+			computedStyle = cs;
 		}
 		return computedStyle;
 	}
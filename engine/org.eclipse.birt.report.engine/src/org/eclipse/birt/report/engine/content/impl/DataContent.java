@@ -49,6 +49,15 @@ public class DataContent extends TextContent implements IDataContent
 		super( content );
 	}
 
+	public void recycle( )
+	{
+		super.recycle( );
+		this.value = null;
+		this.labelText = null;
+		this.labelKey = null;
+		this.helpKey = null;
+	}
+
 	DataContent( IDataContent data )
 	{
 		super( data );
@@ -63,6 +63,15 @@ public class RowContent extends AbstractContent implements IRowContent
 		super( report );
 	}
 
+	public void recycle( )
+	{
+		super.recycle( );
+		this.rowID = -1;
+		this.groupId = null;
+		this.repeatable = null;
+		this.table = null;
+	}
+
 	public Object accept( IContentVisitor visitor, Object value )
 			throws BirtException
 	{
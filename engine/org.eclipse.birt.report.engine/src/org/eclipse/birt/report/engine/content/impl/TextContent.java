@@ -50,6 +50,14 @@ public class TextContent extends AbstractContent implements ITextContent
 		super( content );
 	}
 
+	public void recycle( )
+	{
+		super.recycle( );
+		this.text = null;
+		this.textKey = null;
+		this.textType = null;
+	}
+
 	public String getText( )
 	{
 		return text;
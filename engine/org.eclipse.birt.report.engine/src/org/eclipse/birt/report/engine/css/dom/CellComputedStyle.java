@@ -47,7 +47,7 @@ public class CellComputedStyle extends ComputedStyle
 			pcs = parent.getComputedStyle( );
 		}
 		// get the specified style
-		IStyle s = cell.getStyle( );
+		IStyle s = getSpecifiedStyle( );
 
 		Value sv = s == null ? null : (Value) s.getProperty( index );
 		
@@ -101,6 +101,16 @@ public class CellComputedStyle extends ComputedStyle
 		return cv;
 	}
 	
+	protected void share( )
+	{
+		if ( specifiedStyle == null )
+		{
+			super.share( );
+			rowStyle = copyStyle( rowStyle );
+			columnStyle = copyStyle( columnStyle );
+		}
+	}
+
 	private boolean isBackgroundProperties(int index)
 	{
 		if (StyleConstants.STYLE_BACKGROUND_COLOR==index 
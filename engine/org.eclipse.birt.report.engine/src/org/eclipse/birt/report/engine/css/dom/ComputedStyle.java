@@ -1,6 +1,7 @@
 
 package org.eclipse.birt.report.engine.css.dom;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -11,11 +12,29 @@ import org.w3c.dom.css.CSSValue;
 
 public class ComputedStyle extends AbstractStyle
 {
-	Map<String, ComputedStyle> cachedStyles = new HashMap<String, ComputedStyle>( );
+
+	/**
+	 * the max count of the interned styles with inline style of a parent, the
+	 * inline styles created by expressions may differ in each content.
+	 */
+	static final int MAX_INLINE_STYLES = 256;
+
+	/**
+	 * the computed styles of the children, keyed by the style class, or by the
+	 * style class and the inline style.
+	 */
+	Map<Object, ComputedStyle> cachedStyles = new HashMap<Object, ComputedStyle>( );
+	int inlineStyleCount;
 	boolean[] caculated;
 	CSSStylableElement elt;
 	CSSValue[] values;
 
+	/**
+	 * the specified style of the element when the style is shared, so the
+	 * shared style doesn't change with the element which creates it.
+	 */
+	IStyle specifiedStyle;
+
 	public ComputedStyle( CSSStylableElement elt )
 	{
 		super( elt.getCSSEngine( ) );
@@ -53,7 +72,7 @@ public class ComputedStyle extends AbstractStyle
 		}
 
 		// get the specified style
-		IStyle s = elt.getStyle( );
+		IStyle s = getSpecifiedStyle( );
 
 		Value sv = s != null ? (Value) s.getProperty( index ) : null;
 		Value cv = engine.resolveStyle( elt, index, sv, pcs );
@@ -70,11 +89,64 @@ public class ComputedStyle extends AbstractStyle
 	{
 		caculated[index] = false;
 		values[index] = null;
+		if ( specifiedStyle != null )
+		{
+			specifiedStyle.setProperty( index, value );
+		}
 		elt.getStyle( ).setProperty( index, value );
 	}
 
+	protected IStyle getSpecifiedStyle( )
+	{
+		if ( specifiedStyle != null )
+		{
+			return specifiedStyle;
+		}
+		return elt.getStyle( );
+	}
+
+	/**
+	 * copy the specified styles of the element, the style is shared by other
+	 * elements once it is cached in the parent style.
+	 */
+	protected void share( )
+	{
+		if ( specifiedStyle == null )
+		{
+			specifiedStyle = copyStyle( elt.getStyle( ) );
+		}
+	}
+
+	protected IStyle copyStyle( IStyle style )
+	{
+		if ( style == null )
+		{
+			return null;
+		}
+		StyleDeclaration copy = new StyleDeclaration( engine );
+		copy.setProperties( style );
+		return copy;
+	}
+
+	/**
+	 * clear the computed values and the cached styles of the children, so
+	 * the style can be reused by the same element.
+	 */
+	public void reset( )
+	{
+		if ( caculated != null )
+		{
+			Arrays.fill( caculated, false );
+			Arrays.fill( values, null );
+		}
+		cachedStyles.clear( );
+		inlineStyleCount = 0;
+		specifiedStyle = null;
+	}
+
 	public void addCachedStyle( String styleClass, ComputedStyle style )
 	{
+		style.share( );
 		cachedStyles.put( styleClass, style );
 	}
 
@@ -82,4 +154,80 @@ public class ComputedStyle extends AbstractStyle
 	{
 		return (ComputedStyle) cachedStyles.get( styleClass );
 	}
+
+	/**
+	 * Cache the computed style of a child with the inline style. The children
+	 * with the same style class and the equal inline style share the style.
+	 * Only the inline styles of StyleDeclaration can be shared.
+	 * 
+	 * @param styleClass
+	 *            the style class of the child.
+	 * @param inlineStyle
+	 *            the inline style of the child, may be null.
+	 * @param style
+	 *            the computed style of the child.
+	 */
+	public void addCachedStyle( String styleClass, IStyle inlineStyle,
+			ComputedStyle style )
+	{
+		if ( inlineStyle == null || inlineStyle.isEmpty( ) )
+		{
+			addCachedStyle( styleClass, style );
+		}
+		else if ( inlineStyle instanceof StyleDeclaration
+				&& inlineStyleCount < MAX_INLINE_STYLES )
+		{
+			style.share( );
+			cachedStyles.put( new StyleKey( styleClass,
+					copyStyle( inlineStyle ) ), style );
+			inlineStyleCount++;
+		}
+	}
+
+	public ComputedStyle getCachedStyle( String styleClass, IStyle inlineStyle )
+	{
+		if ( inlineStyle == null || inlineStyle.isEmpty( ) )
+		{
+			return getCachedStyle( styleClass );
+		}
+		if ( inlineStyle instanceof StyleDeclaration && inlineStyleCount > 0 )
+		{
+			return (ComputedStyle) cachedStyles.get( new StyleKey( styleClass,
+					inlineStyle ) );
+		}
+		return null;
+	}
+
+	static class StyleKey
+	{
+
+		String styleClass;
+		IStyle inlineStyle;
+
+		StyleKey( String styleClass, IStyle inlineStyle )
+		{
+			this.styleClass = styleClass;
+			this.inlineStyle = inlineStyle;
+		}
+
+		public int hashCode( )
+		{
+			int hash = styleClass == null ? 0 : styleClass.hashCode( );
+			return hash * 31 + inlineStyle.hashCode( );
+		}
+
+		public boolean equals( Object obj )
+		{
+			if ( obj instanceof StyleKey )
+			{
+				StyleKey key = (StyleKey) obj;
+				if ( styleClass == null ? key.styleClass == null : styleClass
+						.equals( key.styleClass ) )
+				{
+					return inlineStyle.equals( key.inlineStyle );
+				}
+			}
+			return false;
+		}
+	}
 }
@@ -391,4 +391,11 @@ public class FloatValue extends Value implements CSSPrimitiveValue
 		return false;
 	}
 
+	public int hashCode( )
+	{
+		// 0.0 and -0.0 are equal values
+		float value = floatValue == 0 ? 0 : floatValue;
+		return Float.floatToIntBits( value ) * 31 + unitType;
+	}
+
 }
@@ -211,4 +211,15 @@ public class ListValue extends Value implements CSSValueList
 		}
 		return false;
 	}
+
+	public int hashCode( )
+	{
+		int hash = length;
+		for ( int i = 0; i < length; i++ )
+		{
+			CSSValue item = items[i];
+			hash = hash * 31 + ( item == null ? 0 : item.hashCode( ) );
+		}
+		return hash;
+	}
 }
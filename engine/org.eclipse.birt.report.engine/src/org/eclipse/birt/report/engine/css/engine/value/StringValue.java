@@ -81,6 +81,12 @@ public class StringValue extends Value
 
 	}
 
+	public int hashCode( )
+	{
+		int hash = value == null ? 0 : value.hashCode( );
+		return hash * 31 + unitType;
+	}
+
 	/**
 	 * A string representation of the current value.
 	 */
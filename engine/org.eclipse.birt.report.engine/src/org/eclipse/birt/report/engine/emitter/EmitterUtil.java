@@ -288,6 +288,27 @@ public class EmitterUtil
 		buffer.append( hex );
 	}
 
+	/**
+	 * insert the page range before the extension of the output file name,
+	 * for example report_1-50.pdf.
+	 */
+	public static String getPageRangeFileName( String fileName,
+			long firstPage, long lastPage )
+	{
+		String range = firstPage == lastPage
+				? String.valueOf( firstPage )
+				: firstPage + "-" + lastPage; //$NON-NLS-1$
+		int separator = Math.max( fileName.lastIndexOf( '/' ), fileName
+				.lastIndexOf( '\\' ) );
+		int dot = fileName.lastIndexOf( '.' );
+		if ( dot > separator + 1 )
+		{
+			return fileName.substring( 0, dot ) + "_" + range //$NON-NLS-1$
+					+ fileName.substring( dot );
+		}
+		return fileName + "_" + range; //$NON-NLS-1$
+	}
+
 	public static String getImageExtension( String imageURI )
 	{
 		String rectifiedImageURI = imageURI.replace( '.', '&' );
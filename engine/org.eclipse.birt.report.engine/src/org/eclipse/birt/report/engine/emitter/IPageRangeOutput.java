@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.emitter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Implemented by the emitters whose output can be rendered in page ranges by
+ * several threads. Each range is rendered into a file of its own, the emitter
+ * names those files and stitches them into the requested output if its format
+ * supports it.
+ * <p>
+ * The pages of a report document are rendered in parallel only if the emitter
+ * implements this interface.
+ */
+public interface IPageRangeOutput
+{
+
+	/**
+	 * returns the name of the file the pages of a range are rendered into.
+	 *
+	 * @param fileName
+	 *            the output file name of the render.
+	 * @param firstPage
+	 *            the first page of the range.
+	 * @param lastPage
+	 *            the last page of the range.
+	 * @return the file name of the range.
+	 */
+	String getPageRangeFileName( String fileName, long firstPage, long lastPage );
+
+	/**
+	 * merges the outputs of the page ranges into the output file.
+	 *
+	 * @param rangeFileNames
+	 *            the files of the ranges, in page order.
+	 * @param fileName
+	 *            the output file name of the render.
+	 * @return true if the ranges are merged into the output file, false if they
+	 *         are kept as separated files.
+	 * @throws IOException
+	 */
+	boolean mergePageRangeFiles( List<String> rangeFileNames, String fileName )
+			throws IOException;
+}
@@ -32,7 +32,7 @@ public class CellExecutor extends QueryItemExecutor
 	{
 		CellDesign cellDesign = (CellDesign)getDesign();
 		
-		ICellContent cellContent = report.createCellContent( );
+		ICellContent cellContent = manager.createCellContent( cellDesign );
 		setContent(cellContent);
 		
 		executeQuery( );
@@ -91,6 +91,7 @@ public class CellExecutor extends QueryItemExecutor
 	{
 		finishTOCEntry( );
 		closeQuery( );
+		manager.releaseContent( content );
 		this.cellId = 0;
 		super.close( );
 	}
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.executor;
+
+import java.util.HashSet;
+
+import org.eclipse.birt.report.engine.content.ICellContent;
+import org.eclipse.birt.report.engine.content.IContent;
+import org.eclipse.birt.report.engine.content.IDataContent;
+import org.eclipse.birt.report.engine.content.IReportContent;
+import org.eclipse.birt.report.engine.content.IRowContent;
+import org.eclipse.birt.report.engine.content.impl.AbstractContent;
+import org.eclipse.birt.report.engine.ir.BandDesign;
+import org.eclipse.birt.report.engine.ir.CellDesign;
+import org.eclipse.birt.report.engine.ir.DataItemDesign;
+import org.eclipse.birt.report.engine.ir.GridItemDesign;
+import org.eclipse.birt.report.engine.ir.GroupDesign;
+import org.eclipse.birt.report.engine.ir.MasterPageDesign;
+import org.eclipse.birt.report.engine.ir.PageSetupDesign;
+import org.eclipse.birt.report.engine.ir.Report;
+import org.eclipse.birt.report.engine.ir.ReportItemDesign;
+import org.eclipse.birt.report.engine.ir.RowDesign;
+import org.eclipse.birt.report.engine.ir.TableItemDesign;
+import org.eclipse.birt.report.engine.util.FastPool;
+
+/**
+ * Recycles the row, cell and data contents of the table details.
+ * <p>
+ * It is used when the contents are dropped once they are emitted: in a run
+ * and render task without pagination whose emitter doesn't retain the
+ * contents. Even then a content is recycled only if nobody refers to it after
+ * its executor is closed:
+ * <li>the table has no dropped or row spanned cell, so the layout engine
+ * doesn't buffer its rows.
+ * <li>the table isn't in a list or table, whose repeated header keeps the
+ * contents.
+ * <li>no script or event handler can get the content.
+ */
+class ContentPool
+{
+
+	static final int ROW_CONTENT = 0;
+	static final int CELL_CONTENT = 1;
+	static final int DATA_CONTENT = 2;
+
+	protected IReportContent report;
+
+	/**
+	 * the designs whose contents can be recycled
+	 */
+	protected HashSet<ReportItemDesign> designs = new HashSet<ReportItemDesign>( );
+
+	protected FastPool[] freeList = new FastPool[]{new FastPool( ),
+			new FastPool( ), new FastPool( )};
+
+	ContentPool( IReportContent report, Report design )
+	{
+		this.report = report;
+		for ( int i = 0; i < design.getContentCount( ); i++ )
+		{
+			collectDesigns( design.getContent( i ) );
+		}
+	}
+
+	/**
+	 * the contents can't be recycled if the page scripts buffer all the
+	 * contents of the page.
+	 */
+	static boolean isSupported( Report design )
+	{
+		if ( design.getJavaClass( ) != null
+				|| design.getOnPageStart( ) != null
+				|| design.getOnPageEnd( ) != null )
+		{
+			return false;
+		}
+		PageSetupDesign pageSetup = design.getPageSetup( );
+		for ( int i = 0; i < pageSetup.getMasterPageCount( ); i++ )
+		{
+			MasterPageDesign masterPage = pageSetup.getMasterPage( i );
+			if ( masterPage.getOnPageStart( ) != null
+					|| masterPage.getOnPageEnd( ) != null )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void collectDesigns( ReportItemDesign item )
+	{
+		if ( item instanceof TableItemDesign )
+		{
+			TableItemDesign table = (TableItemDesign) item;
+			if ( isUnbufferedTable( table ) && table.getDetail( ) != null )
+			{
+				BandDesign detail = table.getDetail( );
+				for ( int i = 0; i < detail.getContentCount( ); i++ )
+				{
+					collectRow( (RowDesign) detail.getContent( i ) );
+				}
+			}
+		}
+		else if ( item instanceof GridItemDesign )
+		{
+			GridItemDesign grid = (GridItemDesign) item;
+			for ( int i = 0; i < grid.getRowCount( ); i++ )
+			{
+				RowDesign row = grid.getRow( i );
+				if ( !isUnbufferedRow( row ) )
+				{
+					return;
+				}
+			}
+			for ( int i = 0; i < grid.getRowCount( ); i++ )
+			{
+				RowDesign row = grid.getRow( i );
+				for ( int j = 0; j < row.getCellCount( ); j++ )
+				{
+					CellDesign cell = row.getCell( j );
+					for ( int k = 0; k < cell.getContentCount( ); k++ )
+					{
+						collectDesigns( cell.getContent( k ) );
+					}
+				}
+			}
+		}
+	}
+
+	private void collectRow( RowDesign row )
+	{
+		if ( !isRecyclable( row ) )
+		{
+			return;
+		}
+		designs.add( row );
+		for ( int i = 0; i < row.getCellCount( ); i++ )
+		{
+			CellDesign cell = row.getCell( i );
+			if ( isRecyclable( cell ) )
+			{
+				designs.add( cell );
+				for ( int j = 0; j < cell.getContentCount( ); j++ )
+				{
+					ReportItemDesign content = cell.getContent( j );
+					if ( content instanceof DataItemDesign
+							&& isRecyclable( content ) )
+					{
+						designs.add( content );
+					}
+				}
+			}
+		}
+	}
+
+	private boolean isRecyclable( ReportItemDesign design )
+	{
+		return design.getQueries( ) == null && design.getOnCreate( ) == null
+				&& design.getOnRender( ) == null
+				&& design.getOnPageBreak( ) == null
+				&& design.getJavaClass( ) == null;
+	}
+
+	private boolean isUnbufferedTable( TableItemDesign table )
+	{
+		if ( !isUnbufferedBand( table.getHeader( ) )
+				|| !isUnbufferedBand( table.getDetail( ) )
+				|| !isUnbufferedBand( table.getFooter( ) ) )
+		{
+			return false;
+		}
+		for ( int i = 0; i < table.getGroupCount( ); i++ )
+		{
+			GroupDesign group = table.getGroup( i );
+			if ( !isUnbufferedBand( group.getHeader( ) )
+					|| !isUnbufferedBand( group.getFooter( ) ) )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isUnbufferedBand( BandDesign band )
+	{
+		if ( band != null )
+		{
+			for ( int i = 0; i < band.getContentCount( ); i++ )
+			{
+				ReportItemDesign row = band.getContent( i );
+				if ( !( row instanceof RowDesign )
+						|| !isUnbufferedRow( (RowDesign) row ) )
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean isUnbufferedRow( RowDesign row )
+	{
+		for ( int i = 0; i < row.getCellCount( ); i++ )
+		{
+			CellDesign cell = row.getCell( i );
+			String drop = cell.getDrop( );
+			if ( cell.getRowSpan( ) > 1 || drop != null
+					&& !"none".equals( drop ) ) //$NON-NLS-1$
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	IRowContent createRowContent( RowDesign design )
+	{
+		if ( designs.contains( design ) )
+		{
+			return (IRowContent) getContent( ROW_CONTENT );
+		}
+		return report.createRowContent( );
+	}
+
+	ICellContent createCellContent( CellDesign design )
+	{
+		if ( designs.contains( design ) )
+		{
+			return (ICellContent) getContent( CELL_CONTENT );
+		}
+		return report.createCellContent( );
+	}
+
+	IDataContent createDataContent( DataItemDesign design )
+	{
+		if ( designs.contains( design ) )
+		{
+			return (IDataContent) getContent( DATA_CONTENT );
+		}
+		return report.createDataContent( );
+	}
+
+	private IContent getContent( int type )
+	{
+		if ( !freeList[type].isEmpty( ) )
+		{
+			AbstractContent content = (AbstractContent) freeList[type]
+					.remove( );
+			content.recycle( );
+			return content;
+		}
+		IContent content = null;
+		switch ( type )
+		{
+			case ROW_CONTENT :
+				content = report.createRowContent( );
+				break;
+			case CELL_CONTENT :
+				content = report.createCellContent( );
+				break;
+			default :
+				content = report.createDataContent( );
+		}
+		if ( content instanceof AbstractContent )
+		{
+			( (AbstractContent) content ).setRecyclable( true );
+		}
+		return content;
+	}
+
+	/**
+	 * release the content once its executor is closed.
+	 */
+	void releaseContent( IContent content )
+	{
+		if ( content instanceof AbstractContent
+				&& ( (AbstractContent) content ).isRecyclable( ) )
+		{
+			switch ( content.getContentType( ) )
+			{
+				case IContent.ROW_CONTENT :
+					freeList[ROW_CONTENT].add( content );
+					break;
+				case IContent.CELL_CONTENT :
+					freeList[CELL_CONTENT].add( content );
+					break;
+				case IContent.DATA_CONTENT :
+					freeList[DATA_CONTENT].add( content );
+					break;
+			}
+		}
+	}
+}
@@ -69,7 +69,7 @@ public class DataItemExecutor extends QueryItemExecutor
 	public IContent execute( )
 	{
 		DataItemDesign dataDesign = (DataItemDesign) getDesign( );
-		IDataContent dataContent = report.createDataContent( );
+		IDataContent dataContent = manager.createDataContent( dataDesign );
 		setContent( dataContent );
 
 		executeQuery( );
@@ -149,6 +149,7 @@ public class DataItemExecutor extends QueryItemExecutor
 	{
 		finishTOCEntry( );
 		closeQuery( );
+		manager.releaseContent( content );
 		super.close( );
 	}
 }
\ No newline at end of file
@@ -268,7 +268,9 @@ public class ExecutionContext
 	private boolean cancelOnError = false;
 
 	/**
-	 * utilities used in the report execution.
+	 * utilities used in the report execution. The formatters are not thread
+	 * safe, so each task keeps its own instances; the parsed number and date
+	 * patterns they copy are shared JVM-wide by the formatters themselves.
 	 */
 	private HashMap<String, StringFormatter> stringFormatters = new HashMap<String, StringFormatter>( );
 
@@ -316,6 +318,11 @@ public class ExecutionContext
 
 	private boolean isFixedLayout = false;
 
+	/**
+	 * the executor can recycle the contents once they are closed.
+	 */
+	private boolean recycleContent = false;
+
 	private IDesignElement element = null;
 	
 	private boolean refreshData = false;
@@ -2413,6 +2420,23 @@ public class ExecutionContext
 		this.isFixedLayout = isFixedLayout;
 	}
 
+	public boolean isRecycleContent( )
+	{
+		return recycleContent;
+	}
+
+	/**
+	 * Set if the contents can be recycled once their executors are closed.
+	 * It can only be set if the contents are dropped after they are
+	 * emitted.
+	 * 
+	 * @param recycleContent
+	 */
+	public void setRecycleContent( boolean recycleContent )
+	{
+		this.recycleContent = recycleContent;
+	}
+
 	public int getTaskType( )
 	{
 		return task.getTaskType( );
@@ -17,7 +17,11 @@ import java.util.logging.Logger;
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.data.engine.api.IDataQueryDefinition;
 import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.content.ICellContent;
+import org.eclipse.birt.report.engine.content.IContent;
+import org.eclipse.birt.report.engine.content.IDataContent;
 import org.eclipse.birt.report.engine.content.IReportContent;
+import org.eclipse.birt.report.engine.content.IRowContent;
 import org.eclipse.birt.report.engine.data.IDataEngine;
 import org.eclipse.birt.report.engine.executor.optimize.ExecutionPolicy;
 import org.eclipse.birt.report.engine.extension.IBaseResultSet;
@@ -108,6 +112,12 @@ public class ExecutorManager
 	 * array of free list
 	 */
 	protected FastPool[] freeList = new FastPool[NUMBER];
+
+	/**
+	 * the pool of the recycled contents, created when the task recycles the
+	 * contents.
+	 */
+	protected ContentPool contentPool;
 	
 	/**
 	 * the sequence id of the auto generated bookmarks for the report items that
@@ -269,6 +279,72 @@ public class ExecutorManager
 		}
 	}
 	
+	/**
+	 * the content pool if the contents can be recycled, otherwise null.
+	 */
+	private ContentPool getContentPool( )
+	{
+		if ( contentPool == null && context.isRecycleContent( ) )
+		{
+			Report report = context.getReport( );
+			if ( ContentPool.isSupported( report ) )
+			{
+				contentPool = new ContentPool( context.getReportContent( ),
+						report );
+			}
+			else
+			{
+				context.setRecycleContent( false );
+			}
+		}
+		return contentPool;
+	}
+
+	IRowContent createRowContent( RowDesign design )
+	{
+		ContentPool pool = getContentPool( );
+		if ( pool != null )
+		{
+			return pool.createRowContent( design );
+		}
+		return context.getReportContent( ).createRowContent( );
+	}
+
+	ICellContent createCellContent( CellDesign design )
+	{
+		ContentPool pool = getContentPool( );
+		if ( pool != null )
+		{
+			return pool.createCellContent( design );
+		}
+		return context.getReportContent( ).createCellContent( );
+	}
+
+	IDataContent createDataContent( DataItemDesign design )
+	{
+		ContentPool pool = getContentPool( );
+		if ( pool != null )
+		{
+			return pool.createDataContent( design );
+		}
+		return context.getReportContent( ).createDataContent( );
+	}
+
+	/**
+	 * release the content created by the executor when the executor is
+	 * closed. The content is reused if it is created by the content pool.
+	 * 
+	 * @param content
+	 *            the content
+	 */
+	void releaseContent( IContent content )
+	{
+		if ( contentPool != null && content != null )
+		{
+			contentPool.releaseContent( content );
+		}
+	}
+
 	protected Logger getLogger( )
 	{
 		return context.getLogger( );
@@ -63,7 +63,7 @@ public class RowExecutor extends QueryItemExecutor
 	public IContent execute( )
 	{
 		RowDesign rowDesign = (RowDesign) getDesign( );
-		IRowContent rowContent = report.createRowContent( );
+		IRowContent rowContent = manager.createRowContent( rowDesign );
 		setContent( rowContent );
 
 		executeQuery( );
@@ -106,6 +106,7 @@ public class RowExecutor extends QueryItemExecutor
 	{
 		finishTOCEntry( );
 		closeQuery( );
+		manager.releaseContent( content );
 		this.rowId = 0;
 		super.close( );
 	}
@@ -169,6 +169,11 @@ public class ExtensionManager
 	 */
 	public static final boolean DEFAULT_NEED_OUTPUT_RESULTSET = false;
 
+	/**
+	 * Emitter retains the contents defaultly.
+	 */
+	public static final boolean DEFAULT_RETAIN_CONTENT = true;
+
 	/**
 	 * Dummy constructor
 	 */
@@ -617,6 +622,11 @@ public class ExtensionManager
 				if ( null != isFormatDeprecated ) {
 					deprecated = Boolean.valueOf( isFormatDeprecated ).booleanValue( );
 				}
+				String retainContent = configs[j].getAttribute( "retainContent" );
+				boolean retain = DEFAULT_RETAIN_CONTENT;
+				if ( null != retainContent ) {
+					retain = Boolean.valueOf( retainContent ).booleanValue( );
+				}
 				if ( !Pattern.matches( emitterFormatPattern, format ) )
 				{
 					logger.log(
@@ -634,6 +644,7 @@ public class ExtensionManager
 							configs[j] );
 					emitterInfo.setOverridePriority( priority );
 					emitterInfo.setFormatDeprecated( deprecated );
+					emitterInfo.setRetainContent( retain );
 
 					EmitterInfo existedInfo = (EmitterInfo) emitters.get( id );
 					if ( existedInfo != null )
@@ -850,6 +861,14 @@ public class ExtensionManager
 				: emitterInfo.needOutputResultSet( );
 	}
 
+	public boolean retainContent( String emitterId )
+	{
+		EmitterInfo emitterInfo = getEmitter( emitterId );
+		return emitterInfo == null
+				? DEFAULT_RETAIN_CONTENT
+				: emitterInfo.retainContent( );
+	}
+
 	private EmitterInfo getEmitter( String emitterId )
 	{
 		if ( emitterId != null )
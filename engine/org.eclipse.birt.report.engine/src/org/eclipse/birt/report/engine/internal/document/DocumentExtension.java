@@ -135,6 +135,43 @@ public class DocumentExtension
 		}
 	}
 
+	/**
+	 * get the index of the last saved child before an unsaved child.
+	 * 
+	 * The unsaved child can be located by walking the saved children from
+	 * that index. The search starts from the latest segment, as the unsaved
+	 * child is usually one of the latest children.
+	 * 
+	 * @param contentId
+	 *            the content id of the unsaved child.
+	 * @return the index of the previous saved child, -1 if there is none.
+	 */
+	public long getPreviousChild( long contentId )
+	{
+		if ( head == null )
+		{
+			if ( firstChild != -1 && lastChildId < contentId )
+			{
+				return lastChild;
+			}
+			return -1;
+		}
+		ExtensionSegment current = latest != null ? latest : head;
+		if ( current.endId < contentId )
+		{
+			while ( current.next != null && current.next.endId < contentId )
+			{
+				current = current.next;
+			}
+			return current.endIndex;
+		}
+		while ( current != null && current.endId >= contentId )
+		{
+			current = current.prev;
+		}
+		return current != null ? current.endIndex : -1;
+	}
+
 	private void updateFirstChild( DocumentExtension ext )
 	{
 		firstChild = ext.index;
@@ -30,6 +30,12 @@ public class PageIndexReader
 	
 	long offset = 0;
 	
+	/**
+	 * the length of the loaded index stream, the stream is loaded again only
+	 * if more master pages are written into it.
+	 */
+	long loadedLength = -1;
+	
 	public PageIndexReader(IDocArchiveReader reader) throws IOException
 	{
 		this.reader = reader;
@@ -61,8 +67,11 @@ public class PageIndexReader
 			try
 			{
 				indexStream = reader.getStream( ReportDocumentConstants.PAGE_INDEX_STREAM );
+				long length = indexStream.length( );
+				boolean changed = length != loadedLength;
+				loadedLength = length;
 				DataInputStream input = new DataInputStream( indexStream );
-				while (true)
+				while ( changed )
 				{
 					String masterPageName = IOUtil.readString( input );
 					long pageOffset = IOUtil.readLong( input );
@@ -98,11 +107,11 @@ public class PageIndexReader
 			{
 				return ((Long)value).longValue( );
 			}
-			Iterator iterator = pages.values( ).iterator( );
-			while ( iterator.hasNext( ) )
-			{
-				return ( (Long) iterator.next( ) ).longValue( );
-			}
+		}
+		Iterator iterator = pages.values( ).iterator( );
+		while ( iterator.hasNext( ) )
+		{
+			return ( (Long) iterator.next( ) ).longValue( );
 		}
 		return 0;
 	}
@@ -12,7 +12,6 @@
 package org.eclipse.birt.report.engine.internal.document.v3;
 
 import java.io.IOException;
-import java.util.HashMap;
 
 import org.eclipse.birt.core.archive.RAInputStream;
 import org.eclipse.birt.report.engine.content.IContent;
@@ -41,15 +40,30 @@ public class CachedReportContentReaderV3
 		if (reader != null)
 		{
 			reader.close( );
-			caches.clear( );
+			clearCache( );
 			reader = null;
 		}
 	}
 	
+	/**
+	 * the max count of the cached contents. The least recently used content
+	 * is removed when it is exceeded. The ancestors are used whenever a
+	 * content is loaded, so they are removed after their descendants.
+	 */
+	protected final static int MAX_CACHE_SIZE = 4096;
+
 	protected static class CacheEntry
 	{
 		long offset;
 		IContent content;
+		/**
+		 * the next entry in the same bucket
+		 */
+		CacheEntry nextInBucket;
+		/**
+		 * the entries used before and after this one
+		 */
+		CacheEntry before, after;
 		public CacheEntry(long offset, IContent content)
 		{
 			this.offset = offset;
@@ -57,28 +71,123 @@ public class CachedReportContentReaderV3
 		}
 	}
 	
-	protected HashMap caches = new HashMap();
+	/**
+	 * the cached contents hashed by the offset, the size is a power of 2.
+	 */
+	protected CacheEntry[] buckets = new CacheEntry[64];
+	protected int cacheSize;
+	/**
+	 * the head of the least recently used list, the head.after is the least
+	 * recently used one.
+	 */
+	protected CacheEntry header = new CacheEntry( -1, null );
+	{
+		header.before = header;
+		header.after = header;
+	}
+
+	private int indexOf( long offset, int length )
+	{
+		int hash = (int) ( offset ^ ( offset >>> 32 ) );
+		hash ^= ( hash >>> 16 );
+		return hash & ( length - 1 );
+	}
 
 	protected void addCache(long offset, IContent content)
 	{
-		caches.put(new Long(offset), new CacheEntry(offset, content));
+		removeCache( offset );
+		if ( cacheSize >= MAX_CACHE_SIZE )
+		{
+			removeCache( header.after.offset );
+		}
+		if ( cacheSize >= buckets.length * 3 / 4 )
+		{
+			resize( buckets.length * 2 );
+		}
+		CacheEntry entry = new CacheEntry( offset, content );
+		int index = indexOf( offset, buckets.length );
+		entry.nextInBucket = buckets[index];
+		buckets[index] = entry;
+		entry.before = header.before;
+		entry.after = header;
+		header.before.after = entry;
+		header.before = entry;
+		cacheSize++;
 	}
 	
+	private void resize( int length )
+	{
+		CacheEntry[] newBuckets = new CacheEntry[length];
+		for ( int i = 0; i < buckets.length; i++ )
+		{
+			CacheEntry entry = buckets[i];
+			while ( entry != null )
+			{
+				CacheEntry next = entry.nextInBucket;
+				int index = indexOf( entry.offset, length );
+				entry.nextInBucket = newBuckets[index];
+				newBuckets[index] = entry;
+				entry = next;
+			}
+		}
+		buckets = newBuckets;
+	}
+
 	protected void removeCache(long offset)
 	{
-		final Long hashKey = new Long (offset);
-		caches.remove( hashKey );
-		return;
+		int index = indexOf( offset, buckets.length );
+		CacheEntry previous = null;
+		CacheEntry entry = buckets[index];
+		while ( entry != null )
+		{
+			if ( entry.offset == offset )
+			{
+				if ( previous == null )
+				{
+					buckets[index] = entry.nextInBucket;
+				}
+				else
+				{
+					previous.nextInBucket = entry.nextInBucket;
+				}
+				entry.before.after = entry.after;
+				entry.after.before = entry.before;
+				cacheSize--;
+				return;
+			}
+			previous = entry;
+			entry = entry.nextInBucket;
+		}
 	}
 
 	protected IContent findCache(long offset)
 	{
-		final Long hashKey = new Long (offset);
-		final CacheEntry cache = (CacheEntry)caches.get( hashKey );
-		if ( cache != null )
-			return cache.content;
+		CacheEntry entry = buckets[indexOf( offset, buckets.length )];
+		while ( entry != null )
+		{
+			if ( entry.offset == offset )
+			{
+				// move it to the tail as the most recently used one
+				entry.before.after = entry.after;
+				entry.after.before = entry.before;
+				entry.before = header.before;
+				entry.after = header;
+				header.before.after = entry;
+				header.before = entry;
+				return entry.content;
+			}
+			entry = entry.nextInBucket;
+		}
 		return null;
 	}
+
+	protected void clearCache( )
+	{
+		buckets = new CacheEntry[64];
+		cacheSize = 0;
+		header.before = header;
+		header.after = header;
+	}
 	
 	public void unloadContent(long offset)
 	{
@@ -90,6 +199,7 @@ public class CachedReportContentReaderV3
 		IContent content = findCache( offset );
 		if ( content != null )
 		{
+			touchAncestors( content );
 			return content;
 		}
 
@@ -108,6 +218,24 @@ public class CachedReportContentReaderV3
 		return content;
 	}
 	
+	/**
+	 * moves the cached ancestors of the content to the tail of the least
+	 * recently used list, so the content's parents are not reloaded.
+	 */
+	private void touchAncestors( IContent content )
+	{
+		while ( content != null )
+		{
+			DocumentExtension docExt = (DocumentExtension) content
+					.getExtension( IContent.DOCUMENT_EXTENSION );
+			if ( docExt == null || docExt.getParent( ) == -1 )
+			{
+				return;
+			}
+			content = findCache( docExt.getParent( ) );
+		}
+	}
+
 	public long getRootOffset()
 	{
 		return reader.getRoot( );
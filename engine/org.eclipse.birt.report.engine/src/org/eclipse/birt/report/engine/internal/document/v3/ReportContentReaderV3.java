@@ -55,7 +55,16 @@ public class ReportContentReaderV3
 	protected boolean isEmpty = false;
 
 	protected ClassLoader loader;
-	
+
+	/**
+	 * the contents not larger than it are read into the reused buffer.
+	 */
+	protected final static int MAX_BUFFER_SIZE = 64 * 1024;
+
+	private byte[] buffer = new byte[1024];
+	private ContentInputStream bufferStream = new ContentInputStream( );
+	private DataInputStream bufferInput = new DataInputStream( bufferStream );
+
 	public ReportContentReaderV3( ReportContent reportContent,
 			RAInputStream stream, ClassLoader loader ) throws IOException
 	{
@@ -126,10 +135,7 @@ public class ReportContentReaderV3
 		int size = stream.readInt( );
 		if ( size != -1 ) // -1 means it is the first
 		{
-			byte[] buffer = new byte[size];
-			stream.readFully( buffer, 0, size );
-			DataInputStream oi = new DataInputStream( new ByteArrayInputStream(
-					buffer ) );
+			DataInputStream oi = readBuffer( size );
 			int contentType = IOUtil.readInt( oi );
 			if ( contentType == IContent.REPORT_CONTENT )
 			{
@@ -161,10 +167,7 @@ public class ReportContentReaderV3
 		}
 
 		int size = stream.readInt( );
-		byte[] buffer = new byte[size];
-		stream.readFully( buffer, 0, size );
-		DataInputStream oi = new DataInputStream( new ByteArrayInputStream(
-				buffer ) );
+		DataInputStream oi = readBuffer( size );
 		AbstractContent object = null;
 		int contentType = IOUtil.readInt( oi );
 		switch ( contentType )
@@ -227,6 +230,58 @@ public class ReportContentReaderV3
 		return object;
 	}
 
+	/**
+	 * read the next size bytes of the stream. The buffer is reused by the
+	 * following reads, so the returned input must be consumed before that.
+	 * 
+	 * @param size
+	 *            the size of the content.
+	 * @return the input of the content.
+	 * @throws IOException
+	 */
+	private DataInputStream readBuffer( int size ) throws IOException
+	{
+		if ( size < 0 )
+		{
+			throw new IOException( "Invalid content size:" + size );
+		}
+		if ( size > MAX_BUFFER_SIZE )
+		{
+			// don't hold the memory of a huge content
+			byte[] bytes = new byte[size];
+			stream.readFully( bytes, 0, size );
+			return new DataInputStream( new ByteArrayInputStream( bytes ) );
+		}
+		if ( size > buffer.length )
+		{
+			buffer = new byte[Math.max( size, Math.min( buffer.length * 2,
+					MAX_BUFFER_SIZE ) )];
+		}
+		stream.readFully( buffer, 0, size );
+		bufferStream.reset( buffer, size );
+		return bufferInput;
+	}
+
+	/**
+	 * the input stream of the reused buffer.
+	 */
+	private static class ContentInputStream extends ByteArrayInputStream
+	{
+
+		ContentInputStream( )
+		{
+			super( new byte[0] );
+		}
+
+		void reset( byte[] buf, int length )
+		{
+			this.buf = buf;
+			this.pos = 0;
+			this.count = length;
+			this.mark = 0;
+		}
+	}
+
 	/**
 	 * read the content object out from the input stream in the curretn offset.
 	 * After call this methods, the offset is position to the next element in
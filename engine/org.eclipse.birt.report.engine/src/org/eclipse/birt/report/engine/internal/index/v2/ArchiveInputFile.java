@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.internal.index.v2;
+
+import java.io.IOException;
+
+import org.eclipse.birt.core.archive.IDocArchiveReader;
+import org.eclipse.birt.core.archive.RAInputStream;
+import org.eclipse.birt.core.btree.BTreeFile;
+
+/**
+ * A read only btree file saved as a stream of the report document.
+ */
+public class ArchiveInputFile implements BTreeFile
+{
+
+	IDocArchiveReader archive;
+	String name;
+	RAInputStream input;
+
+	public ArchiveInputFile( IDocArchiveReader archive, String name )
+			throws IOException
+	{
+		this.archive = archive;
+		this.name = name;
+		this.input = archive.getInputStream( name );
+	}
+
+	public int allocBlock( ) throws IOException
+	{
+		throw new IOException( "read only stream" );
+	}
+
+	public int getTotalBlock( ) throws IOException
+	{
+		return (int) ( ( input.length( ) + BLOCK_SIZE - 1 ) / BLOCK_SIZE );
+	}
+
+	public Object lock( ) throws IOException
+	{
+		return archive.lock( name );
+	}
+
+	public void readBlock( int blockId, byte[] bytes ) throws IOException
+	{
+		input.seek( (long) blockId * BLOCK_SIZE );
+		input.read( bytes );
+	}
+
+	public void unlock( Object lock ) throws IOException
+	{
+		archive.unlock( lock );
+	}
+
+	public void writeBlock( int blockId, byte[] bytes ) throws IOException
+	{
+		throw new IOException( "read only stream" );
+	}
+
+	public void close( ) throws IOException
+	{
+		input.close( );
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.internal.index.v2;
+
+import java.io.IOException;
+
+import org.eclipse.birt.core.archive.IDocArchiveWriter;
+import org.eclipse.birt.core.archive.RAInputStream;
+import org.eclipse.birt.core.archive.RAOutputStream;
+import org.eclipse.birt.core.btree.BTreeFile;
+
+/**
+ * A btree file which is written as a stream of the report document.
+ */
+public class ArchiveOutputFile implements BTreeFile
+{
+
+	IDocArchiveWriter archive;
+	String name;
+	RAOutputStream output;
+	RAInputStream input;
+	int totalBlock;
+
+	public ArchiveOutputFile( IDocArchiveWriter archive, String name )
+			throws IOException
+	{
+		this.archive = archive;
+		this.name = name;
+		output = archive.createOutputStream( name );
+		input = archive.getInputStream( name );
+		totalBlock = 0;
+	}
+
+	public void close( ) throws IOException
+	{
+		if ( output != null )
+		{
+			output.close( );
+		}
+		if ( input != null )
+		{
+			input.close( );
+		}
+	}
+
+	public int allocBlock( ) throws IOException
+	{
+		return totalBlock++;
+	}
+
+	public int getTotalBlock( ) throws IOException
+	{
+		return totalBlock;
+	}
+
+	public Object lock( ) throws IOException
+	{
+		return archive.lock( name );
+	}
+
+	public void readBlock( int blockId, byte[] bytes ) throws IOException
+	{
+		input.refresh( );
+		input.seek( (long) blockId * BLOCK_SIZE );
+		input.read( bytes );
+	}
+
+	public void unlock( Object lock ) throws IOException
+	{
+		archive.unlock( lock );
+	}
+
+	public void writeBlock( int blockId, byte[] bytes ) throws IOException
+	{
+		if ( blockId >= totalBlock )
+		{
+			totalBlock = blockId + 1;
+		}
+		output.seek( (long) blockId * BLOCK_SIZE );
+		output.write( bytes );
+		output.flush( );
+	}
+}
@@ -21,10 +21,7 @@ import java.io.IOException;
 
 import org.eclipse.birt.core.archive.IDocArchiveReader;
 import org.eclipse.birt.core.archive.IDocArchiveWriter;
-import org.eclipse.birt.core.archive.RAInputStream;
-import org.eclipse.birt.core.archive.RAOutputStream;
 import org.eclipse.birt.core.btree.BTree;
-import org.eclipse.birt.core.btree.BTreeFile;
 import org.eclipse.birt.core.btree.BTreeOption;
 import org.eclipse.birt.core.btree.BTreeSerializer;
 import org.eclipse.birt.report.engine.content.impl.BookmarkContent;
@@ -158,127 +155,4 @@ class BTreeMap extends BTree<String, Object>
 			return null;
 		}
 	}
-
-	static private class ArchiveInputFile implements BTreeFile
-	{
-
-		IDocArchiveReader archive;
-		String name;
-		RAInputStream input;
-
-		ArchiveInputFile( IDocArchiveReader archive, String name )
-				throws IOException
-		{
-			this.archive = archive;
-			this.name = name;
-			this.input = archive.getInputStream( name );
-		}
-
-		public int allocBlock( ) throws IOException
-		{
-			throw new IOException( "read only stream" );
-		}
-
-		public int getTotalBlock( ) throws IOException
-		{
-			return (int) ( ( input.length( ) + BLOCK_SIZE - 1 ) / BLOCK_SIZE );
-		}
-
-		public Object lock( ) throws IOException
-		{
-			return archive.lock( name );
-		}
-
-		public void readBlock( int blockId, byte[] bytes ) throws IOException
-		{
-			input.seek( (long) blockId * BLOCK_SIZE );
-			input.read( bytes );
-		}
-
-		public void unlock( Object lock ) throws IOException
-		{
-			archive.unlock( lock );
-		}
-
-		public void writeBlock( int blockId, byte[] bytes ) throws IOException
-		{
-			throw new IOException( "read only stream" );
-		}
-
-		public void close( ) throws IOException
-		{
-			input.close( );
-		}
-	}
-
-	static private class ArchiveOutputFile implements BTreeFile
-	{
-
-		IDocArchiveWriter archive;
-		String name;
-		RAOutputStream output;
-		RAInputStream input;
-		int totalBlock;
-
-		ArchiveOutputFile( IDocArchiveWriter archive, String name )
-				throws IOException
-		{
-			this.archive = archive;
-			this.name = name;
-			output = archive.createOutputStream( name );
-			input = archive.getInputStream( name );
-			totalBlock = 0;
-		}
-
-		public void close( ) throws IOException
-		{
-			if ( output != null )
-			{
-				output.close( );
-			}
-			if ( input != null )
-			{
-				input.close( );
-			}
-		}
-
-		public int allocBlock( ) throws IOException
-		{
-			return totalBlock++;
-		}
-
-		public int getTotalBlock( ) throws IOException
-		{
-			return totalBlock;
-		}
-
-		public Object lock( ) throws IOException
-		{
-			return archive.lock( name );
-		}
-
-		public void readBlock( int blockId, byte[] bytes ) throws IOException
-		{
-			input.refresh( );
-			input.seek( (long) blockId * BLOCK_SIZE );
-			input.read( bytes );
-		}
-
-		public void unlock( Object lock ) throws IOException
-		{
-			archive.unlock( lock );
-		}
-
-		public void writeBlock( int blockId, byte[] bytes ) throws IOException
-		{
-			if ( blockId >= totalBlock )
-			{
-				totalBlock = blockId + 1;
-			}
-			output.seek( (long) blockId * BLOCK_SIZE );
-			output.write( bytes );
-			output.flush( );
-		}
-	}
-
 }
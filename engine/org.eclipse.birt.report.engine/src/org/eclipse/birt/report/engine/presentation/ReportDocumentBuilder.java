@@ -716,6 +716,19 @@ public class ReportDocumentBuilder
 				}
 				return docExt.getPrevious( );
 			}
+			// the content isn't saved, start from its previous saved sibling
+			// so the render needn't walk all the siblings before it.
+			IContent parent = (IContent) content.getParent( );
+			if ( parent != null && content.getInstanceID( ) != null )
+			{
+				DocumentExtension pDocExt = (DocumentExtension) parent
+						.getExtension( IContent.DOCUMENT_EXTENSION );
+				if ( pDocExt != null )
+				{
+					return pDocExt.getPreviousChild( content.getInstanceID( )
+							.getUniqueID( ) );
+				}
+			}
 			return -1;
 
 		}
@@ -17,6 +17,8 @@ public interface ITOCConstants
 {
 
 	final String TOC_STREAM = ReportDocumentConstants.TOC_STREAM;
+	final String TOC_ID_INDEX_STREAM = ReportDocumentConstants.TOC_ID_INDEX_STREAM;
+	final String TOC_VALUE_INDEX_STREAM = ReportDocumentConstants.TOC_VALUE_INDEX_STREAM;
 
 	final String VERSION_PREFIX = "__Version : ";
 	final String VERSION_V0 = VERSION_PREFIX + "0.0";
@@ -14,6 +14,8 @@ package org.eclipse.birt.report.engine.toc;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.eclipse.birt.core.archive.IDocArchiveReader;
 import org.eclipse.birt.core.archive.RAInputStream;
@@ -26,6 +28,9 @@ import org.eclipse.birt.report.engine.toc.document.TOCReaderV3;
 public class TOCReader implements ITOCReader, ITOCConstants
 {
 
+	private static final Logger logger = Logger.getLogger( TOCReader.class
+			.getName( ) );
+
 	protected String version;
 	protected ITOCReader reader;
 	protected boolean ownedStream;
@@ -36,6 +41,18 @@ public class TOCReader implements ITOCReader, ITOCConstants
 	{
 		this( archive.getInputStream( TOC_STREAM ), loader );
 		ownedStream = true;
+		if ( reader instanceof TOCReaderV3 )
+		{
+			// the TOC is still searched node by node without the index
+			try
+			{
+				( (TOCReaderV3) reader ).openIndex( archive );
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.WARNING, "failed to open the toc index", ex ); //$NON-NLS-1$
+			}
+		}
 	}
 
 	public TOCReader( RAInputStream in, ClassLoader loader ) throws IOException
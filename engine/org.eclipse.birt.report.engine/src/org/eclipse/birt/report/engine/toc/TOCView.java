@@ -11,6 +11,7 @@
 
 package org.eclipse.birt.report.engine.toc;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -24,6 +25,8 @@ import org.eclipse.birt.report.engine.api.ITOCTree;
 import org.eclipse.birt.report.engine.api.TOCNode;
 import org.eclipse.birt.report.engine.api.script.ScriptException;
 import org.eclipse.birt.report.engine.api.script.instance.IScriptStyle;
+import org.eclipse.birt.report.engine.toc.document.DocTreeNode;
+import org.eclipse.birt.report.engine.toc.document.TOCIndex;
 import org.eclipse.birt.report.model.api.ReportDesignHandle;
 
 import com.ibm.icu.util.TimeZone;
@@ -44,6 +47,7 @@ public class TOCView implements ITOCTree
 	private TOCFormatUtil formatUtil;
 	private String format;
 	private ViewFilter filter;
+	private TOCIndex index;
 
 	public TOCView( ITreeNode tree, ReportDesignHandle handle, ULocale locale,
 			TimeZone timeZone, String format )
@@ -82,6 +86,10 @@ public class TOCView implements ITOCTree
 			this.styleUtil = new TOCStyleUtil( handle );
 		}
 		this.root = new ViewNode( this, null, tree );
+		if ( tree instanceof DocTreeNode )
+		{
+			this.index = ( (DocTreeNode) tree ).getIndex( );
+		}
 	}
 
 	public TOCNode getRoot( )
@@ -95,6 +103,22 @@ public class TOCView implements ITOCTree
 		{
 			return root;
 		}
+		if ( index != null )
+		{
+			try
+			{
+				List<ITreeNode> path = index.getPath( tocNodeId );
+				if ( path == null )
+				{
+					return null;
+				}
+				return createViewNode( path );
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.WARNING, ex.getMessage( ), ex );
+			}
+		}
 		return findTOC( root, tocNodeId, new TOCComparator( ) );
 	}
 
@@ -139,7 +163,28 @@ public class TOCView implements ITOCTree
 		}
 
 		List<ViewNode> results = new ArrayList<ViewNode>( );
-		doSearch( results, root, new SearchKey( tocValue ) );
+		SearchKey key = new SearchKey( tocValue );
+		// the index only contains the TOC values. A string may also match the
+		// display strings, which are localized by the view, so the nodes are
+		// found by walking through the whole tree.
+		boolean searched = false;
+		if ( index != null && key.stringValue == null )
+		{
+			try
+			{
+				searchIndex( results, key );
+				searched = true;
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.WARNING, ex.getMessage( ), ex );
+				results.clear( );
+			}
+		}
+		if ( !searched )
+		{
+			doSearch( results, root, key );
+		}
 		if ( !results.isEmpty( ) )
 		{
 			return results;
@@ -147,6 +192,70 @@ public class TOCView implements ITOCTree
 		return null;
 	}
 
+	private void searchIndex( Collection<ViewNode> results, SearchKey key )
+			throws IOException
+	{
+		Collection<String> nodeIds = index.findNodeIds( new Object[]{
+				key.tocValue, key.stringValue, key.numberValue, key.dateValue} );
+		for ( String nodeId : nodeIds )
+		{
+			List<ITreeNode> path = index.getPath( nodeId );
+			if ( path != null )
+			{
+				ViewNode node = createViewNode( path );
+				if ( node != null && compareTocValue( node, key ) )
+				{
+					results.add( node );
+				}
+			}
+		}
+	}
+
+	/**
+	 * create the view node of the last tree node in the path, the ancestors
+	 * are filtered in the same way as ViewNodeList does.
+	 *
+	 * @return the view node, null if the tree node is not in the view.
+	 */
+	private ViewNode createViewNode( List<ITreeNode> path )
+	{
+		ViewNode parent = root;
+		ViewNode node = root;
+		for ( int i = 1; i < path.size( ); i++ )
+		{
+			ITreeNode treeNode = path.get( i );
+			if ( isHidden( treeNode ) )
+			{
+				return null;
+			}
+			if ( !isVisible( treeNode ) )
+			{
+				node = null;
+				continue;
+			}
+			if ( treeNode.isGroup( ) )
+			{
+				node = new ViewNodeList( parent )
+						.createGroupNode( parent, treeNode );
+				if ( node == null )
+				{
+					return null;
+				}
+			}
+			else if ( treeNode.getTOCValue( ) == null )
+			{
+				node = null;
+				continue;
+			}
+			else
+			{
+				node = new ViewNode( parent, treeNode );
+			}
+			parent = node;
+		}
+		return node;
+	}
+
 	private class SearchKey
 	{
 
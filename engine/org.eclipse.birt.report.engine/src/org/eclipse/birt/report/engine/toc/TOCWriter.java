@@ -16,6 +16,7 @@ import java.io.IOException;
 import org.eclipse.birt.core.archive.IDocArchiveWriter;
 import org.eclipse.birt.core.archive.RAOutputStream;
 import org.eclipse.birt.report.engine.toc.document.MemTOCWriter;
+import org.eclipse.birt.report.engine.toc.document.TOCIndexWriter;
 import org.eclipse.birt.report.engine.toc.document.TOCWriterV3;
 
 public class TOCWriter implements ITOCWriter, ITOCConstants
@@ -32,7 +33,8 @@ public class TOCWriter implements ITOCWriter, ITOCConstants
 		else
 		{
 			tocWriter = new TOCWriterV3( archive
-					.createOutputStream( TOC_STREAM ) );
+					.createOutputStream( TOC_STREAM ), new TOCIndexWriter(
+					archive ) );
 		}
 	}
 
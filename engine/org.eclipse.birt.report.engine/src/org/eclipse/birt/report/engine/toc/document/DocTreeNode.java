@@ -31,6 +31,9 @@ public class DocTreeNode extends TreeNode
 
 	protected Collection<ITreeNode> children;
 
+	// the TOC index, only set to the root node
+	TOCIndex index;
+
 	public DocTreeNode( )
 	{
 	}
@@ -54,4 +57,13 @@ public class DocTreeNode extends TreeNode
 	{
 		this.parent = parent;
 	}
+
+	/**
+	 * @return the index of the TOC if this is the root node of an indexed TOC,
+	 *         otherwise null.
+	 */
+	public TOCIndex getIndex( )
+	{
+		return index;
+	}
 }
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.toc.document;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.eclipse.birt.core.archive.IDocArchiveReader;
+import org.eclipse.birt.core.btree.BTree;
+import org.eclipse.birt.core.btree.BTreeFile;
+import org.eclipse.birt.core.btree.BTreeOption;
+import org.eclipse.birt.core.btree.BTreeSerializer;
+import org.eclipse.birt.report.engine.internal.index.v2.ArchiveInputFile;
+import org.eclipse.birt.report.engine.toc.ITOCConstants;
+import org.eclipse.birt.report.engine.toc.ITreeNode;
+import org.eclipse.birt.report.engine.toc.TOCComparator;
+
+/**
+ * The btree indexes of a TOC saved in the report document. The id index maps
+ * the node id to the offset of the node in the TOC stream, the value index
+ * maps the TOC value to the id of the nodes having that value.
+ *
+ * The node id contains the ids of all its ancestors, so the path from the
+ * root to any node can be loaded with one index lookup per level instead of
+ * walking through the siblings.
+ */
+public class TOCIndex implements ITOCConstants
+{
+
+	/**
+	 * the longest string value saved in the value index, longer values are
+	 * truncated. The index only returns the candidates, which must be
+	 * compared with the searched value by the caller.
+	 */
+	static final int MAX_VALUE_LENGTH = 512;
+
+	private TOCReaderV3 reader;
+	private BTree<String, Integer> idIndex;
+	private BTree<String, String> valueIndex;
+
+	private TOCIndex( TOCReaderV3 reader, BTree<String, Integer> idIndex,
+			BTree<String, String> valueIndex )
+	{
+		this.reader = reader;
+		this.idIndex = idIndex;
+		this.valueIndex = valueIndex;
+	}
+
+	/**
+	 * open the index saved in the archive.
+	 *
+	 * @return the index, null if the document has no TOC index.
+	 */
+	static TOCIndex open( IDocArchiveReader archive, TOCReaderV3 reader )
+			throws IOException
+	{
+		if ( !archive.exists( TOC_ID_INDEX_STREAM )
+				|| !archive.exists( TOC_VALUE_INDEX_STREAM ) )
+		{
+			return null;
+		}
+		BTree<String, Integer> idIndex = new BTree<String, Integer>(
+				createIdIndexOption( new ArchiveInputFile( archive,
+						TOC_ID_INDEX_STREAM ), true ) );
+		try
+		{
+			BTree<String, String> valueIndex = new BTree<String, String>(
+					createValueIndexOption( new ArchiveInputFile( archive,
+							TOC_VALUE_INDEX_STREAM ), true ) );
+			return new TOCIndex( reader, idIndex, valueIndex );
+		}
+		catch ( IOException ex )
+		{
+			idIndex.close( );
+			throw ex;
+		}
+	}
+
+	static BTreeOption<String, Integer> createIdIndexOption( BTreeFile file,
+			boolean readOnly )
+	{
+		BTreeOption<String, Integer> option = new BTreeOption<String, Integer>( );
+		option.setReadOnly( readOnly );
+		option.setKeySerializer( new StringSerializer( ) );
+		option.setValueSerializer( new IntegerSerializer( ) );
+		option.setHasValue( true );
+		option.setAllowDuplicate( false );
+		option.setFile( file );
+		return option;
+	}
+
+	static BTreeOption<String, String> createValueIndexOption( BTreeFile file,
+			boolean readOnly )
+	{
+		BTreeOption<String, String> option = new BTreeOption<String, String>( );
+		option.setReadOnly( readOnly );
+		option.setKeySerializer( new StringSerializer( ) );
+		option.setValueSerializer( new StringSerializer( ) );
+		option.setHasValue( true );
+		option.setAllowDuplicate( true );
+		option.setFile( file );
+		return option;
+	}
+
+	/**
+	 * get the key of a TOC value in the value index. Numbers are saved by
+	 * their double value and dates by their time, so the key of a value
+	 * converted from the search string finds the TOC values of any number or
+	 * date class.
+	 */
+	static String getValueKey( Object value )
+	{
+		if ( value instanceof String )
+		{
+			return "S" + truncate( (String) value );
+		}
+		if ( value instanceof Number )
+		{
+			return "N" + ( (Number) value ).doubleValue( );
+		}
+		if ( value instanceof Date )
+		{
+			return "D" + ( (Date) value ).getTime( );
+		}
+		return "O" + truncate( value.toString( ) );
+	}
+
+	private static String truncate( String value )
+	{
+		if ( value.length( ) > MAX_VALUE_LENGTH )
+		{
+			return value.substring( 0, MAX_VALUE_LENGTH );
+		}
+		return value;
+	}
+
+	/**
+	 * load the nodes from the root to the node with the node id.
+	 *
+	 * @return the nodes, null if the node is not in the index.
+	 */
+	synchronized public List<ITreeNode> getPath( String nodeId )
+			throws IOException
+	{
+		if ( nodeId == null || !nodeId.startsWith( TOC_PREFIX )
+				|| nodeId.length( ) == TOC_PREFIX.length( ) )
+		{
+			return null;
+		}
+		List<ITreeNode> path = new ArrayList<ITreeNode>( );
+		DocTreeNode parent = (DocTreeNode) reader.readTree( );
+		path.add( parent );
+		int end = nodeId.indexOf( '_', TOC_PREFIX.length( ) );
+		while ( true )
+		{
+			String id = end == -1 ? nodeId : nodeId.substring( 0, end );
+			Integer offset = idIndex.getValue( id );
+			if ( offset == null )
+			{
+				return null;
+			}
+			DocTreeNode node = reader.readNode( offset.intValue( ) );
+			node.parent = parent;
+			path.add( node );
+			if ( end == -1 )
+			{
+				return path;
+			}
+			parent = node;
+			end = nodeId.indexOf( '_', end + 1 );
+		}
+	}
+
+	/**
+	 * find the ids of the nodes whose TOC value may equal to one of the
+	 * values.
+	 *
+	 * @return the node ids in the TOC order.
+	 */
+	synchronized public Collection<String> findNodeIds( Object[] values )
+			throws IOException
+	{
+		TreeSet<String> nodeIds = new TreeSet<String>( new TOCComparator( ) );
+		for ( Object value : values )
+		{
+			if ( value != null )
+			{
+				Collection<String> ids = valueIndex
+						.getValues( getValueKey( value ) );
+				if ( ids != null )
+				{
+					nodeIds.addAll( ids );
+				}
+			}
+		}
+		return nodeIds;
+	}
+
+	public void close( ) throws IOException
+	{
+		try
+		{
+			idIndex.close( );
+		}
+		finally
+		{
+			valueIndex.close( );
+		}
+	}
+
+	static class StringSerializer implements BTreeSerializer<String>
+	{
+
+		public byte[] getBytes( String object ) throws IOException
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream( );
+			new DataOutputStream( out ).writeUTF( object );
+			return out.toByteArray( );
+		}
+
+		public String getObject( byte[] bytes ) throws IOException
+		{
+			return new DataInputStream( new ByteArrayInputStream( bytes ) )
+					.readUTF( );
+		}
+	}
+
+	static class IntegerSerializer implements BTreeSerializer<Integer>
+	{
+
+		public byte[] getBytes( Integer object ) throws IOException
+		{
+			int value = object.intValue( );
+			return new byte[]{(byte) ( value >>> 24 ), (byte) ( value >>> 16 ),
+					(byte) ( value >>> 8 ), (byte) value};
+		}
+
+		public Integer getObject( byte[] bytes ) throws IOException
+		{
+			return Integer.valueOf( ( ( bytes[0] & 0xFF ) << 24 )
+					| ( ( bytes[1] & 0xFF ) << 16 )
+					| ( ( bytes[2] & 0xFF ) << 8 ) | ( bytes[3] & 0xFF ) );
+		}
+	}
+}
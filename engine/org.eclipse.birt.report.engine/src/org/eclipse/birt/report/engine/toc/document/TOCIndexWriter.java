@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.toc.document;
+
+import java.io.IOException;
+
+import org.eclipse.birt.core.archive.IDocArchiveWriter;
+import org.eclipse.birt.core.btree.BTree;
+import org.eclipse.birt.report.engine.internal.index.v2.ArchiveOutputFile;
+import org.eclipse.birt.report.engine.toc.ITOCConstants;
+
+/**
+ * write the id index and value index of the TOC nodes.
+ *
+ * @see TOCIndex
+ */
+public class TOCIndexWriter implements ITOCConstants
+{
+
+	private BTree<String, Integer> idIndex;
+	private BTree<String, String> valueIndex;
+
+	public TOCIndexWriter( IDocArchiveWriter archive ) throws IOException
+	{
+		idIndex = new BTree<String, Integer>( TOCIndex.createIdIndexOption(
+				new ArchiveOutputFile( archive, TOC_ID_INDEX_STREAM ), false ) );
+		try
+		{
+			valueIndex = new BTree<String, String>( TOCIndex
+					.createValueIndexOption( new ArchiveOutputFile( archive,
+							TOC_VALUE_INDEX_STREAM ), false ) );
+		}
+		catch ( IOException ex )
+		{
+			idIndex.close( );
+			throw ex;
+		}
+	}
+
+	void addNode( DocTreeNode node ) throws IOException
+	{
+		String nodeId = node.getNodeId( );
+		idIndex.insert( nodeId, Integer.valueOf( node.offset ) );
+		Object value = node.getTOCValue( );
+		if ( value != null )
+		{
+			valueIndex.insert( TOCIndex.getValueKey( value ), nodeId );
+		}
+	}
+
+	public void close( ) throws IOException
+	{
+		try
+		{
+			idIndex.close( );
+		}
+		finally
+		{
+			valueIndex.close( );
+		}
+	}
+}
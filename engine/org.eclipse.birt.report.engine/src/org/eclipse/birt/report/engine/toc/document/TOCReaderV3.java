@@ -20,6 +20,7 @@ import java.util.NoSuchElementException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.eclipse.birt.core.archive.IDocArchiveReader;
 import org.eclipse.birt.core.archive.RAInputStream;
 import org.eclipse.birt.core.util.IOUtil;
 import org.eclipse.birt.report.engine.toc.ITOCConstants;
@@ -34,6 +35,7 @@ public class TOCReaderV3 implements ITOCReader, ITOCConstants
 	DocTreeNode root;
 	RAInputStream in;
 	ClassLoader classloader;
+	TOCIndex index;
 
 	public TOCReaderV3( RAInputStream in, ClassLoader loader )
 			throws IOException
@@ -61,8 +63,33 @@ public class TOCReaderV3 implements ITOCReader, ITOCConstants
 		root = readNode( offset );
 	}
 
+	/**
+	 * open the TOC index saved in the archive, the index is then returned by
+	 * the root node.
+	 */
+	public void openIndex( IDocArchiveReader archive ) throws IOException
+	{
+		if ( index == null )
+		{
+			index = TOCIndex.open( archive, this );
+			root.index = index;
+		}
+	}
+
 	public void close( ) throws IOException
 	{
+		if ( index != null )
+		{
+			try
+			{
+				index.close( );
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.INFO, "failed to close the toc index", ex );
+			}
+			index = null;
+		}
 		if ( in != null )
 		{
 			try
@@ -81,7 +108,7 @@ public class TOCReaderV3 implements ITOCReader, ITOCConstants
 		return root;
 	}
 
-	synchronized private DocTreeNode readNode( int offset ) throws IOException
+	synchronized DocTreeNode readNode( int offset ) throws IOException
 	{
 		DocTreeNode node = new DocTreeNode( );
 		node.offset = offset;
@@ -34,9 +34,22 @@ public class TOCWriterV3 implements ITOCWriter, ITOCConstants
 
 	private long offset;
 
+	private TOCIndexWriter indexWriter;
+
 	public TOCWriterV3( RAOutputStream out ) throws IOException
+	{
+		this( out, null );
+	}
+
+	/**
+	 * @param indexWriter
+	 *            the writer of the TOC index, null if no index is written.
+	 */
+	public TOCWriterV3( RAOutputStream out, TOCIndexWriter indexWriter )
+			throws IOException
 	{
 		this.out = out;
+		this.indexWriter = indexWriter;
 		IOUtil.writeString( output, VERSION_V3 );
 
 		out.write( buffer.toByteArray( ) );
@@ -74,6 +87,10 @@ public class TOCWriterV3 implements ITOCWriter, ITOCConstants
 		parent.childCount++;
 		
 		writeTreeNode( node );
+		if ( indexWriter != null )
+		{
+			indexWriter.addNode( node );
+		}
 		
 		tocEntry.setTreeNode( node );
 	}
@@ -112,6 +129,11 @@ public class TOCWriterV3 implements ITOCWriter, ITOCConstants
 			finally
 			{
 				out = null;
+				if ( indexWriter != null )
+				{
+					indexWriter.close( );
+					indexWriter = null;
+				}
 			}
 		}
 	}
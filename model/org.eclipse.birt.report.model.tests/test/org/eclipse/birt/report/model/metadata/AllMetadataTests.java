@@ -49,6 +49,7 @@ public class AllMetadataTests
 		test.addTestSuite( MetaDataDictionaryTest.class );
 		test.addTestSuite( MetaDataExceptionTest.class );
 		test.addTestSuite( MetaDataReaderTest.class );
+		test.addTestSuite( MetaDataSnapshotTest.class );
 		test.addTestSuite( MetaLoggerTest.class );
 		test.addTestSuite( MetaLogManagerTest.class );
 		test.addTestSuite( NamePropertyTypeTest.class );
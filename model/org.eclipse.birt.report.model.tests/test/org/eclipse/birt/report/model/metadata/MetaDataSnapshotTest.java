@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2004 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.model.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.report.model.elements.ReportDesign;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Test case for MetaDataSnapshot.
+ *
+ * <ul>
+ * <li>The events replayed from the snapshot of "rom.def" are the same as the
+ * events of the XML parser, including the line numbers.</li>
+ * <li>The snapshot of another definition is not replayed.</li>
+ * </ul>
+ */
+
+public class MetaDataSnapshotTest extends TestCase
+{
+
+	/**
+	 * Tests replaying the snapshot of rom.def.
+	 *
+	 * @throws Exception
+	 */
+
+	public void testReplay( ) throws Exception
+	{
+		byte[] definition = MetaDataSnapshot.readFully( ReportDesign.class
+				.getResourceAsStream( "rom.def" ) ); //$NON-NLS-1$
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		MetaDataSnapshot.write( definition, out );
+
+		EventRecorder parsed = new EventRecorder( );
+		SAXParserFactory.newInstance( ).newSAXParser( ).parse(
+				new ByteArrayInputStream( definition ), parsed );
+
+		EventRecorder replayed = new EventRecorder( );
+		assertTrue( MetaDataSnapshot.replay( new ByteArrayInputStream( out
+				.toByteArray( ) ), definition, replayed ) );
+
+		assertTrue( parsed.events.length( ) > 0 );
+		assertEquals( parsed.events.toString( ), replayed.events.toString( ) );
+	}
+
+	/**
+	 * Tests that a snapshot which is not generated from the definition is
+	 * ignored.
+	 *
+	 * @throws Exception
+	 */
+
+	public void testOutOfDate( ) throws Exception
+	{
+		byte[] definition = MetaDataSnapshot.readFully( ReportDesign.class
+				.getResourceAsStream( "rom.def" ) ); //$NON-NLS-1$
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		MetaDataSnapshot.write( definition, out );
+
+		byte[] changed = new String( definition, "UTF-8" ).replaceFirst( //$NON-NLS-1$
+				"<Element ", "<Element  " ).getBytes( "UTF-8" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		EventRecorder replayed = new EventRecorder( );
+		assertFalse( MetaDataSnapshot.replay( new ByteArrayInputStream( out
+				.toByteArray( ) ), changed, replayed ) );
+		assertEquals( 0, replayed.events.length( ) );
+
+		assertFalse( MetaDataSnapshot.replay( new ByteArrayInputStream(
+				new byte[0] ), definition, replayed ) );
+		assertEquals( 0, replayed.events.length( ) );
+	}
+
+	/**
+	 * Records the events with the line numbers, adjacent character events are
+	 * merged.
+	 */
+
+	private static class EventRecorder extends DefaultHandler
+	{
+
+		StringBuffer events = new StringBuffer( );
+		Locator locator;
+		boolean inText;
+
+		public void setDocumentLocator( Locator locator )
+		{
+			this.locator = locator;
+		}
+
+		public void startElement( String uri, String localName, String qName,
+				Attributes attributes )
+		{
+			inText = false;
+			events.append( "\n<" ).append( qName ); //$NON-NLS-1$
+			for ( int i = 0; i < attributes.getLength( ); i++ )
+			{
+				events.append( ' ' ).append( attributes.getQName( i ) )
+						.append( "=" ).append( attributes.getValue( i ) ); //$NON-NLS-1$
+			}
+			events.append( "> " ).append( locator.getLineNumber( ) ); //$NON-NLS-1$
+		}
+
+		public void endElement( String uri, String localName, String qName )
+		{
+			inText = false;
+			events.append( "\n</" ).append( qName ).append( "> " ).append( //$NON-NLS-1$ //$NON-NLS-2$
+					locator.getLineNumber( ) );
+		}
+
+		public void characters( char[] ch, int start, int length )
+		{
+			if ( !inText )
+			{
+				events.append( "\ntext " ).append( locator.getLineNumber( ) ) //$NON-NLS-1$
+						.append( ' ' );
+				inText = true;
+			}
+			events.append( ch, start, length );
+		}
+	}
+}
@@ -114,6 +114,12 @@ public final class MetaDataDictionary implements IMetaDataDictionary
 
 	private static final String ROM_DEF_FILE_NAME = "rom.def"; //$NON-NLS-1$
 
+	/**
+	 * The file name of the precompiled ROM.DEF generated at build time.
+	 */
+
+	private static final String ROM_SNAPSHOT_FILE_NAME = "rom.bin"; //$NON-NLS-1$
+
 	
 	/**
 	 * The one and only metadata dictionary.
@@ -569,7 +575,9 @@ public final class MetaDataDictionary implements IMetaDataDictionary
 		{
 			InputStream input = ( ReportDesign.class
 					.getResourceAsStream( ROM_DEF_FILE_NAME ) );
-			MetaDataReader.read( input );
+			InputStream snapshot = ReportDesign.class
+					.getResourceAsStream( ROM_SNAPSHOT_FILE_NAME );
+			MetaDataReader.read( input, snapshot );
 			ExtensionManager.getInstance( ).initialize( );
 		}
 		catch ( MetaDataParserException e )
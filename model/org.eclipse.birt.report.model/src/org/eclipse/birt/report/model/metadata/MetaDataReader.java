@@ -12,6 +12,7 @@
 package org.eclipse.birt.report.model.metadata;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -139,4 +140,51 @@ public final class MetaDataReader
 
 	}
 
+	/**
+	 * Populates the dictionary from the precompiled snapshot of the meta-data
+	 * definition. If the snapshot is not generated from the given definition,
+	 * the definition is parsed instead. <code>MetaLogManager</code> will be
+	 * loaded to do the meta data error logging, don't forget to call
+	 * {@link MetaLogManager#shutDown()}after reading of the metadata.
+	 * 
+	 * @param inputStream
+	 *            meta source file stream.
+	 * @param snapshotStream
+	 *            stream of the snapshot generated by
+	 *            <code>MetaDataSnapshot</code>, may be null.
+	 * @throws MetaDataParserException
+	 */
+
+	public static void read( InputStream inputStream,
+			InputStream snapshotStream ) throws MetaDataParserException
+	{
+		if ( inputStream == null || snapshotStream == null )
+		{
+			read( inputStream );
+			return;
+		}
+
+		byte[] definition = null;
+		try
+		{
+			definition = MetaDataSnapshot.readFully( inputStream );
+
+			assert MetaDataDictionary.getInstance( ).isEmpty( );
+			if ( MetaDataSnapshot.replay( snapshotStream, definition,
+					new MetaDataHandler( ) ) )
+				return;
+		}
+		catch ( Exception e )
+		{
+			logger.log( Level.SEVERE, e.getMessage( ) );
+			MetaLogManager.log( "Metadata parsing error", e ); //$NON-NLS-1$
+			throw new MetaDataParserException( e,
+					MetaDataParserException.DESIGN_EXCEPTION_PARSER_ERROR );
+		}
+
+		logger.log( Level.FINE,
+				"The meta-data snapshot is out of date, parse the definition." ); //$NON-NLS-1$
+		read( new ByteArrayInputStream( definition ) );
+	}
+
 }
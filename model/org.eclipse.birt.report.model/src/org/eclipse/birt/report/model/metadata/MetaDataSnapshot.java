@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright (c) 2004 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.model.metadata;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * The precompiled form of the meta-data definition file. The snapshot records
+ * the SAX events of "rom.def" together with a table of all the element names,
+ * attribute names, values and texts. The dictionary is then populated by
+ * replaying the events to the meta-data handler, which saves the XML parsing
+ * at every start.
+ * <p>
+ * The snapshot is generated at build time by {@link #main(String[])}. It keeps
+ * the length and the checksum of the definition file it is generated from, a
+ * snapshot which does not match the definition file is ignored and the file
+ * is parsed instead.
+ */
+
+public final class MetaDataSnapshot
+{
+
+	/**
+	 * Identifies the snapshot format, "ROMB".
+	 */
+
+	private static final int MAGIC = 0x524F4D42;
+
+	/**
+	 * Version of the snapshot format.
+	 */
+
+	private static final int VERSION = 1;
+
+	private static final byte END_DOCUMENT = 0;
+	private static final byte START_ELEMENT = 1;
+	private static final byte END_ELEMENT = 2;
+	private static final byte CHARACTERS = 3;
+
+	private static final String CDATA_TYPE = "CDATA"; //$NON-NLS-1$
+
+	private MetaDataSnapshot( )
+	{
+	}
+
+	/**
+	 * Generates the snapshot of a meta-data definition file.
+	 *
+	 * @param args
+	 *            the definition file and the snapshot file.
+	 * @throws Exception
+	 *             if the definition file can not be parsed or the snapshot
+	 *             can not be written.
+	 */
+
+	public static void main( String[] args ) throws Exception
+	{
+		if ( args.length != 2 )
+		{
+			System.err
+					.println( "Usage: MetaDataSnapshot <definition file> <snapshot file>" ); //$NON-NLS-1$
+			System.exit( 1 );
+		}
+
+		byte[] definition = readFully( new FileInputStream( args[0] ) );
+		OutputStream out = new BufferedOutputStream( new FileOutputStream(
+				args[1] ) );
+		try
+		{
+			write( definition, out );
+		}
+		finally
+		{
+			out.close( );
+		}
+	}
+
+	/**
+	 * Parses the meta-data definition and writes its snapshot.
+	 *
+	 * @param definition
+	 *            the content of the definition file
+	 * @param out
+	 *            the output stream of the snapshot
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+
+	static void write( byte[] definition, OutputStream out )
+			throws IOException, SAXException, ParserConfigurationException
+	{
+		SAXParserFactory factory = SAXParserFactory.newInstance( );
+		// Disable XML External Entity as the meta-data reader does
+		factory.setFeature(
+				"http://apache.org/xml/features/disallow-doctype-decl", true ); //$NON-NLS-1$
+		Recorder recorder = new Recorder( );
+		factory.newSAXParser( ).parse( new ByteArrayInputStream( definition ),
+				recorder );
+
+		DataOutputStream data = new DataOutputStream( out );
+		data.writeInt( MAGIC );
+		data.writeInt( VERSION );
+		data.writeInt( definition.length );
+		data.writeLong( checksum( definition ) );
+		data.writeInt( recorder.strings.size( ) );
+		for ( int i = 0; i < recorder.strings.size( ); i++ )
+		{
+			byte[] bytes = recorder.strings.get( i ).getBytes( "UTF-8" ); //$NON-NLS-1$
+			data.writeInt( bytes.length );
+			data.write( bytes );
+		}
+		recorder.events.writeTo( data );
+		data.flush( );
+	}
+
+	/**
+	 * Replays the snapshot to the handler if the snapshot is generated from
+	 * the given meta-data definition.
+	 *
+	 * @param snapshot
+	 *            the input stream of the snapshot
+	 * @param definition
+	 *            the content of the definition file
+	 * @param handler
+	 *            the handler to receive the events
+	 * @return <code>true</code> if the events are replayed,
+	 *         <code>false</code> if the snapshot does not match the
+	 *         definition. No event is sent to the handler in that case.
+	 * @throws IOException
+	 *             if the snapshot is corrupted
+	 * @throws SAXException
+	 *             if the handler fails to handle the events
+	 */
+
+	static boolean replay( InputStream snapshot, byte[] definition,
+			ContentHandler handler ) throws IOException, SAXException
+	{
+		DataInputStream in = new DataInputStream( new ByteArrayInputStream(
+				readFully( snapshot ) ) );
+		try
+		{
+			if ( in.readInt( ) != MAGIC || in.readInt( ) != VERSION
+					|| in.readInt( ) != definition.length
+					|| in.readLong( ) != checksum( definition ) )
+				return false;
+		}
+		catch ( EOFException e )
+		{
+			return false;
+		}
+
+		String[] strings = new String[in.readInt( )];
+		for ( int i = 0; i < strings.length; i++ )
+		{
+			byte[] bytes = new byte[in.readInt( )];
+			in.readFully( bytes );
+			strings[i] = new String( bytes, "UTF-8" ); //$NON-NLS-1$
+		}
+
+		LocatorImpl locator = new LocatorImpl( );
+		AttributesImpl attrs = new AttributesImpl( );
+		handler.setDocumentLocator( locator );
+		handler.startDocument( );
+		while ( true )
+		{
+			byte type = in.readByte( );
+			if ( type == END_DOCUMENT )
+				break;
+
+			locator.setLineNumber( in.readInt( ) );
+			switch ( type )
+			{
+				case START_ELEMENT :
+					String name = strings[in.readInt( )];
+					attrs.clear( );
+					int count = in.readInt( );
+					for ( int i = 0; i < count; i++ )
+					{
+						String attrName = strings[in.readInt( )];
+						attrs.addAttribute( "", attrName, attrName, //$NON-NLS-1$
+								CDATA_TYPE, strings[in.readInt( )] );
+					}
+					handler.startElement( "", name, name, attrs ); //$NON-NLS-1$
+					break;
+				case END_ELEMENT :
+					name = strings[in.readInt( )];
+					handler.endElement( "", name, name ); //$NON-NLS-1$
+					break;
+				case CHARACTERS :
+					char[] text = strings[in.readInt( )].toCharArray( );
+					handler.characters( text, 0, text.length );
+					break;
+				default :
+					throw new IOException( "Corrupted meta-data snapshot" ); //$NON-NLS-1$
+			}
+		}
+		handler.endDocument( );
+		return true;
+	}
+
+	/**
+	 * Reads and closes the stream.
+	 *
+	 * @param in
+	 *            the input stream
+	 * @return the content of the stream
+	 * @throws IOException
+	 */
+
+	static byte[] readFully( InputStream in ) throws IOException
+	{
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream( );
+			byte[] buffer = new byte[8192];
+			int size = in.read( buffer );
+			while ( size != -1 )
+			{
+				out.write( buffer, 0, size );
+				size = in.read( buffer );
+			}
+			return out.toByteArray( );
+		}
+		finally
+		{
+			in.close( );
+		}
+	}
+
+	private static long checksum( byte[] definition )
+	{
+		CRC32 crc = new CRC32( );
+		crc.update( definition );
+		return crc.getValue( );
+	}
+
+	/**
+	 * Records the SAX events of the definition file. Adjacent character events
+	 * are merged into one.
+	 */
+
+	private static class Recorder extends DefaultHandler
+	{
+
+		private List<String> strings = new ArrayList<String>( );
+		private Map<String, Integer> stringIndexes = new HashMap<String, Integer>( );
+
+		private ByteArrayOutputStream events = new ByteArrayOutputStream( );
+		private DataOutputStream out = new DataOutputStream( events );
+
+		private Locator locator;
+		private StringBuffer text = new StringBuffer( );
+		private int textLineNumber;
+
+		public void setDocumentLocator( Locator locator )
+		{
+			this.locator = locator;
+		}
+
+		public void startElement( String uri, String localName, String qName,
+				Attributes attributes ) throws SAXException
+		{
+			try
+			{
+				writeText( );
+				out.writeByte( START_ELEMENT );
+				out.writeInt( getLineNumber( ) );
+				out.writeInt( indexOf( qName ) );
+				out.writeInt( attributes.getLength( ) );
+				for ( int i = 0; i < attributes.getLength( ); i++ )
+				{
+					out.writeInt( indexOf( attributes.getQName( i ) ) );
+					out.writeInt( indexOf( attributes.getValue( i ) ) );
+				}
+			}
+			catch ( IOException e )
+			{
+				throw new SAXException( e );
+			}
+		}
+
+		public void endElement( String uri, String localName, String qName )
+				throws SAXException
+		{
+			try
+			{
+				writeText( );
+				out.writeByte( END_ELEMENT );
+				out.writeInt( getLineNumber( ) );
+				out.writeInt( indexOf( qName ) );
+			}
+			catch ( IOException e )
+			{
+				throw new SAXException( e );
+			}
+		}
+
+		public void characters( char[] ch, int start, int length )
+		{
+			if ( text.length( ) == 0 )
+				textLineNumber = getLineNumber( );
+			text.append( ch, start, length );
+		}
+
+		public void endDocument( ) throws SAXException
+		{
+			try
+			{
+				writeText( );
+				out.writeByte( END_DOCUMENT );
+				out.flush( );
+			}
+			catch ( IOException e )
+			{
+				throw new SAXException( e );
+			}
+		}
+
+		private void writeText( ) throws IOException
+		{
+			if ( text.length( ) == 0 )
+				return;
+			out.writeByte( CHARACTERS );
+			out.writeInt( textLineNumber );
+			out.writeInt( indexOf( text.toString( ) ) );
+			text.setLength( 0 );
+		}
+
+		private int getLineNumber( )
+		{
+			return locator == null ? -1 : locator.getLineNumber( );
+		}
+
+		private int indexOf( String value )
+		{
+			Integer index = stringIndexes.get( value );
+			if ( index == null )
+			{
+				index = Integer.valueOf( strings.size( ) );
+				strings.add( value );
+				stringIndexes.put( value, index );
+			}
+			return index.intValue( );
+		}
+	}
+}